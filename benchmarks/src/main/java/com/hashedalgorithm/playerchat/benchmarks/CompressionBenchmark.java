@@ -0,0 +1,160 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.DeflateCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU cost of compressing chat frames against the bytes it saves, on a corpus of
+ * mostly short chat lines with a few pasted game states and logs.
+ *
+ * <p>{@code encode} encodes the next message of the corpus and {@code decode} decodes one as
+ * received, with {@link BinaryCodec} ({@code plain}) or a {@link DeflateCodec} of the given
+ * level and the server's default threshold of 256 bytes. The {@code plainBytes} and
+ * {@code wireBytes} counters of {@code encode} add up the encoded sizes without and with the
+ * codec, so their ratio is the share of egress left after compression.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    /** Short chat lines, most of the traffic */
+    private static final String[] CHAT = {
+            "gg", "gg wp", "rematch?", "brb", "lol", "nice shot!", "who is in the lobby?",
+            "anyone want to play another round?", "I'll take mid, you go top", "lag is terrible today",
+            "ok ready", "wait for me, joining the arena now", "thanks for the game, that was close",
+            "can we switch teams next round?", "my ping is 200 on this server", "ggs everyone, good game",
+    };
+
+    /** Pasted game states and logs, the messages worth compressing */
+    private static final String[] PASTES = {
+            "{\"round\":7,\"map\":\"arena\",\"state\":\"finished\",\"winner\":\"red\",\"players\":["
+                    + "{\"id\":\"hashed\",\"name\":\"hashed\",\"team\":\"red\",\"score\":2310,\"kills\":14,\"deaths\":6,\"assists\":9,\"hp\":0},"
+                    + "{\"id\":\"dee\",\"name\":\"dee\",\"team\":\"red\",\"score\":1980,\"kills\":11,\"deaths\":8,\"assists\":12,\"hp\":45},"
+                    + "{\"id\":\"kay\",\"name\":\"kay\",\"team\":\"blue\",\"score\":1720,\"kills\":9,\"deaths\":12,\"assists\":4,\"hp\":0},"
+                    + "{\"id\":\"zed\",\"name\":\"zed\",\"team\":\"blue\",\"score\":1505,\"kills\":7,\"deaths\":13,\"assists\":6,\"hp\":0}]}",
+            "{\"inventory\":[{\"items\":\"potion\",\"count\":3,\"level\":1},{\"items\":\"sword\",\"count\":1,\"level\":4},"
+                    + "{\"items\":\"shield\",\"count\":1,\"level\":3},{\"items\":\"arrow\",\"count\":64,\"level\":1},"
+                    + "{\"items\":\"bow\",\"count\":1,\"level\":2},{\"items\":\"gold\",\"count\":1250,\"level\":1}],"
+                    + "\"position\":{\"x\":1024.5,\"y\":64.0,\"z\":-312.25}}",
+            "Exception in thread \"render\" java.lang.IllegalStateException: texture atlas full\n"
+                    + "    at game.render.Atlas.add(Atlas.java:88)\n    at game.render.Atlas.load(Atlas.java:42)\n"
+                    + "    at game.render.Renderer.init(Renderer.java:120)\n    at game.Main.main(Main.java:17)\n"
+                    + "anyone seen this after the update? the game crashes when I join the arena map",
+    };
+
+    /** {@code plain} for {@link BinaryCodec}, otherwise the DEFLATE level */
+    @Param({"plain", "1", "6"})
+    public String codec;
+
+    /** Sizes of the encoded frames, summed over an iteration */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        /** Bytes without compression */
+        public long plainBytes;
+
+        /** Bytes with the codec */
+        public long wireBytes;
+    }
+
+    /** The corpus: every paste among sixteen chat lines, about one message in six */
+    private Frame[] corpus;
+
+    /** The corpus encoded with the codec, as received */
+    private byte[][] received;
+
+    /** Plain encoded size of every corpus message */
+    private int[] plainSizes;
+
+    private FrameCodec frameCodec;
+
+    private DeflateCodec deflate;
+
+    private final Frame frame = new Frame();
+
+    private CharBuffer chars = CharBuffer.allocate(4096);
+
+    private byte[] inflated = new byte[4096];
+
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        this.deflate = this.codec.equals("plain") ? null : new DeflateCodec(256, Integer.parseInt(this.codec));
+        this.frameCodec = this.deflate == null ? BinaryCodec.INSTANCE : this.deflate;
+
+        this.corpus = new Frame[CHAT.length + PASTES.length];
+        for (int i = 0; i < CHAT.length; i++) {
+            this.corpus[i] = message(CHAT[i]);
+        }
+        for (int i = 0; i < PASTES.length; i++) {
+            this.corpus[CHAT.length + i] = message(PASTES[i]);
+        }
+
+        this.received = new byte[this.corpus.length][];
+        this.plainSizes = new int[this.corpus.length];
+        for (int i = 0; i < this.corpus.length; i++) {
+            this.received[i] = this.frameCodec.encode(this.corpus[i]).array();
+            this.plainSizes[i] = BinaryCodec.INSTANCE.encode(this.corpus[i]).remaining();
+        }
+    }
+
+    private static Frame message(String text) {
+        return new Frame().set(Payload.FROM, "hashed").set(Payload.TO, "dee").set(Payload.MESSAGE, text);
+    }
+
+    @Benchmark
+    public int encode(Bytes bytes) {
+        int i = this.next();
+        int size = this.frameCodec.encode(this.corpus[i]).remaining();
+        bytes.plainBytes += this.plainSizes[i];
+        bytes.wireBytes += size;
+        return size;
+    }
+
+    @Benchmark
+    public Frame decode() throws IOException {
+        byte[] in = this.received[this.next()];
+        int header = BinaryCodec.headerLength(in, 0, in.length);
+        int length = BinaryCodec.bodyLength(in, 0);
+        this.chars.clear();
+        if (this.deflate != null && DeflateCodec.isCompressed(in, header)) {
+            int inflated = this.deflate.inflate(in, header, length, this.inflated);
+            return BinaryCodec.decode(this.inflated, 0, inflated, this.frame, this.chars);
+        }
+        return BinaryCodec.decode(in, header, length, this.frame, this.chars);
+    }
+
+    private int next() {
+        int i = this.next;
+        this.next = i + 1 == this.corpus.length ? 0 : i + 1;
+        return i;
+    }
+}
@@ -0,0 +1,134 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.server.ClientInstance;
+import com.hashedalgorithm.playerchat.server.Connection;
+import com.hashedalgorithm.playerchat.server.RateLimit;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.server.ServerConfig;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import com.hashedalgorithm.playerchat.utils.TextCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a room broadcast to 10, 100 and 1000 members: the full path through
+ * {@link ClientInstance#handleFrame(CharSequence)}, the serialize-once fan-out alone and, as a
+ * baseline, the same fan-out encoding the frame again for every member.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanoutBenchmark {
+
+    /** Number of room members, including the sender */
+    @Param({"10", "100", "1000"})
+    public int members;
+
+    /** The member sending every broadcast */
+    private ClientInstance sender;
+
+    /** Connections of the members other than the sender */
+    private CountingConnection[] receivers;
+
+    private final Frame frame = new Frame();
+
+    private final SharedFrame shared = new SharedFrame();
+
+    /** Connection that encodes what is written to it like a real one and then drops it */
+    private static final class CountingConnection implements Connection {
+        private long bytes;
+
+        @Override
+        public void write(Frame frame) {
+            this.bytes += TextCodec.INSTANCE.encode(frame).remaining();
+        }
+
+        @Override
+        public void write(Frame[] frames) {
+            this.bytes += TextCodec.INSTANCE.encode(frames).remaining();
+        }
+
+        @Override
+        public void write(SharedFrame frame) {
+            this.bytes += frame.encode(TextCodec.INSTANCE).remaining();
+        }
+
+        @Override
+        public void setCodec(FrameCodec codec) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        LoopbackClient.silenceConsole();
+
+        Server server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.UNLIMITED));
+        this.receivers = new CountingConnection[this.members - 1];
+        for (int i = 0; i < this.members; i++) {
+            CountingConnection connection = new CountingConnection();
+            ClientInstance client = new ClientInstance(server, connection);
+            client.handleFrame("req:handshake|from:player-" + i);
+            client.handleFrame("req:join|from:player-" + i + "|to:lobby");
+            if (i == 0) {
+                this.sender = client;
+            } else {
+                this.receivers[i - 1] = connection;
+            }
+        }
+
+        this.frame
+                .set(Payload.REQUEST, PayloadValue.BROADCAST.getValue())
+                .set(Payload.FROM, "player-0")
+                .set(Payload.TO, "lobby")
+                .set(Payload.MESSAGE, "{1} - gg, rematch in five?");
+    }
+
+    @Benchmark
+    public void broadcast() throws IOException {
+        this.sender.handleFrame("req:broadcast|from:player-0|to:lobby|msg:gg, rematch in five?");
+    }
+
+    @Benchmark
+    public long encodeOnce() {
+        this.shared.reset(this.frame);
+        for (CountingConnection receiver : this.receivers) {
+            receiver.write(this.shared);
+        }
+        return this.receivers[0].bytes;
+    }
+
+    @Benchmark
+    public long encodeEach() {
+        for (CountingConnection receiver : this.receivers) {
+            receiver.write(this.frame);
+        }
+        return this.receivers[0].bytes;
+    }
+}
@@ -0,0 +1,148 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.server.ClientInstance;
+import com.hashedalgorithm.playerchat.server.Connection;
+import com.hashedalgorithm.playerchat.server.RateLimit;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.server.ServerConfig;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares addressing players by instance ID with addressing them by the handle of their
+ * handshake confirmation: the lookup alone, through {@link Server#getClient(String)} and
+ * {@link Server#getClient(int)}, and one chat message through
+ * {@link ClientInstance#handleFrame(CharSequence)} written {@code from:..|to:..|msg:..} and
+ * {@code hid:..|msg:..}.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandleBenchmark {
+
+    /** Number of registered clients */
+    @Param({"1000", "100000"})
+    public int clients;
+
+    private Server server;
+
+    /** The player sending every message */
+    private ClientInstance sender;
+
+    /** Instance IDs of the registered clients */
+    private String[] names;
+
+    /** Handles of the registered clients, at the index of their name */
+    private int[] handles;
+
+    /** Chat messages to every client by instance ID */
+    private String[] byName;
+
+    /** Chat messages to every client by handle */
+    private String[] byHandle;
+
+    /** Position in the arrays of the next lookup or message */
+    private int index;
+
+    /** Connection that keeps the handle of its handshake confirmation and drops everything else */
+    private static final class HandleConnection implements Connection {
+        private int handle;
+
+        @Override
+        public void write(Frame frame) {
+            String handle = frame.getString(Payload.HANDLE);
+            if (handle != null && this.handle == 0) {
+                this.handle = Integer.parseInt(handle);
+            }
+        }
+
+        @Override
+        public void write(Frame[] frames) {
+        }
+
+        @Override
+        public void write(SharedFrame frame) {
+        }
+
+        @Override
+        public void setCodec(FrameCodec codec) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        LoopbackClient.silenceConsole();
+
+        this.server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.UNLIMITED));
+        this.sender = new ClientInstance(this.server, new HandleConnection());
+        this.sender.handleFrame("req:handshake|from:sender");
+
+        this.names = new String[this.clients];
+        this.handles = new int[this.clients];
+        this.byName = new String[this.clients];
+        this.byHandle = new String[this.clients];
+        for (int i = 0; i < this.clients; i++) {
+            this.names[i] = "player-" + i;
+            HandleConnection connection = new HandleConnection();
+            new ClientInstance(this.server, connection).handleFrame("req:handshake|from:" + this.names[i]);
+            this.handles[i] = connection.handle;
+            this.byName[i] = "from:sender|to:" + this.names[i] + "|msg:Hey, are you up for another round?";
+            this.byHandle[i] = "hid:" + connection.handle + "|msg:Hey, are you up for another round?";
+        }
+    }
+
+    /**
+     * Returns the index of the next client, cycling through all of them.
+     */
+    private int next() {
+        this.index = this.index + 1 == this.clients ? 0 : this.index + 1;
+        return this.index;
+    }
+
+    @Benchmark
+    public ClientInstance lookupByName() {
+        return this.server.getClient(this.names[this.next()]);
+    }
+
+    @Benchmark
+    public ClientInstance lookupByHandle() {
+        return this.server.getClient(this.handles[this.next()]);
+    }
+
+    @Benchmark
+    public void sendByName() throws IOException {
+        this.sender.handleFrame(this.byName[this.next()]);
+    }
+
+    @Benchmark
+    public void sendByHandle() throws IOException {
+        this.sender.handleFrame(this.byHandle[this.next()]);
+    }
+}
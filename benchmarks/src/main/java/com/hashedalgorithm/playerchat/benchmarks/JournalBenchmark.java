@@ -0,0 +1,122 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.LogLevel;
+import com.hashedalgorithm.playerchat.server.Journal;
+import com.hashedalgorithm.playerchat.utils.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Measures the sustained append rate of the message {@link Journal}, with four routing threads
+ * appending at once, against a temporary directory.
+ *
+ * <ul>
+ *     <li>{@code append} - what the server does for every routed message: copy the record into
+ *         the mapping and leave it to the next periodic group commit.</li>
+ *     <li>{@code appendDurable} - every append also waits in {@link Journal#awaitDurable(long)},
+ *         so the score is the rate of messages acknowledged as on disk. The appends of all four
+ *         threads that arrive during one force share the next one.</li>
+ *     <li>{@code forceEach} - the baseline of one {@code write} and one {@code fsync} per message
+ *         on a plain {@link FileChannel}.</li>
+ * </ul>
+ * Scores are messages per millisecond. Segments roll over and the oldest are deleted during the
+ * run, so rollover and retention are part of the sustained rate.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class JournalBenchmark {
+
+    /** Length of the chat message in characters */
+    @Param({"64", "512"})
+    public int bodyLength;
+
+    private Path directory;
+
+    private Journal journal;
+
+    private String body;
+
+    /** File written by the {@code forceEach} baseline */
+    private FileChannel channel;
+
+    /** Serializes the baseline's writes like the journal's lock serializes its appends */
+    private final ReentrantLock channelLock = new ReentrantLock();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Log.setLevel(LogLevel.OFF);
+        this.directory = Files.createTempDirectory("journal-bench");
+        this.journal = new Journal(this.directory.resolve("journal"), 16 * 1024 * 1024, 4, 10);
+        this.channel = FileChannel.open(this.directory.resolve("baseline.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.body = "x".repeat(this.bodyLength);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.journal.close();
+        this.channel.close();
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        return this.journal.append("hashed", "dee", this.body);
+    }
+
+    @Benchmark
+    public long appendDurable() throws IOException, InterruptedException {
+        long sequence = this.journal.append("hashed", "dee", this.body);
+        this.journal.awaitDurable(sequence);
+        return sequence;
+    }
+
+    @Benchmark
+    public void forceEach() throws IOException {
+        ByteBuffer record = ByteBuffer.wrap(("hashed|dee|" + this.body + "\n").getBytes(StandardCharsets.UTF_8));
+        this.channelLock.lock();
+        try {
+            this.channel.write(record);
+            this.channel.force(false);
+        } finally {
+            this.channelLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.LogLevel;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.Log;
+import com.hashedalgorithm.playerchat.utils.MessageParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the server's per-message log line, with four routing threads logging at once.
+ *
+ * <ul>
+ *     <li>{@code printf} - the old path: {@code printf} on a stream set up like {@code System.out},
+ *         which formats on the calling thread, holds the stream's lock and flushes every line.</li>
+ *     <li>{@code async} - the same event recorded with {@link Log#debug(String, Object, Object)}
+ *         while debug events are on. Every invocation records {@value #BATCH} events and then
+ *         waits in {@link Log#flush()} until the writer has written them, so the score counts
+ *         lines actually written rather than events handed off or dropped.</li>
+ *     <li>{@code asyncDisabled} - a single call at the default {@link LogLevel#INFO}, where the
+ *         event is skipped.</li>
+ * </ul>
+ * Scores are events per microsecond. Both paths write to {@code /dev/null}, so the numbers leave
+ * out the cost of a terminal. Every iteration prints how many asynchronous events were dropped,
+ * which should be none.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LogBenchmark {
+
+    /** Events logged per invocation of the batched benchmarks */
+    private static final int BATCH = 1000;
+
+    /** Format of the per-message event of the server */
+    private static final String FORMAT = "Received message: from %s, to %s";
+
+    /** Stream set up like {@code System.out}: a small buffer flushed on every line */
+    private PrintStream console;
+
+    /** Dropped events at the start of the iteration */
+    private long droppedBefore;
+
+    /** The frame being routed, holding flyweight views like the server's */
+    @State(Scope.Thread)
+    public static class Routed {
+        private final Frame frame = new MessageParser()
+                .parse("from:hashed|to:dee|msg:Hello there!", new Frame());
+    }
+
+    /** Turns debug events on for the benchmarks that use it */
+    @State(Scope.Benchmark)
+    public static class DebugOn {
+        @Setup
+        public void setup() {
+            Log.setLevel(LogLevel.DEBUG);
+        }
+    }
+
+    /** Turns debug events off for the benchmarks that use it */
+    @State(Scope.Benchmark)
+    public static class DebugOff {
+        @Setup
+        public void setup() {
+            Log.setLevel(LogLevel.INFO);
+        }
+    }
+
+    @Setup
+    public void setup() throws FileNotFoundException {
+        this.console = new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 128), true);
+        Log.setOutput(new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 64 * 1024), false));
+    }
+
+    @Setup(Level.Iteration)
+    public void countDrops() {
+        this.droppedBefore = Log.getDropped();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportDrops() {
+        long dropped = Log.getDropped() - this.droppedBefore;
+        if (dropped > 0) {
+            System.out.printf("[+] - %d asynchronous events dropped%n", dropped);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void printf(Routed routed) {
+        for (int i = 0; i < BATCH; i++) {
+            this.console.printf("[+] - " + FORMAT + "\n", routed.frame.get(Payload.FROM), routed.frame.get(Payload.TO));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void async(Routed routed, DebugOn level) {
+        for (int i = 0; i < BATCH; i++) {
+            Log.debug(FORMAT, routed.frame.get(Payload.FROM), routed.frame.get(Payload.TO));
+        }
+        Log.flush();
+    }
+
+    @Benchmark
+    public void asyncDisabled(Routed routed, DebugOff level) {
+        Log.debug(FORMAT, routed.frame.get(Payload.FROM), routed.frame.get(Payload.TO));
+    }
+}
@@ -0,0 +1,149 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.LogLevel;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.utils.Log;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal text protocol client used by the benchmarks to drive a real {@link Server} over loopback.
+ *
+ * <p>Unlike {@link com.hashedalgorithm.playerchat.client.Client} it has no console, no menu and
+ * no message limit: it performs the handshake, pairs with another player through the
+ * {@code req:msg} request/confirm flow and then sends and reads raw lines.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     LoopbackClient alice = LoopbackClient.connect(port, "alice");
+ *     LoopbackClient bob = LoopbackClient.connect(port, "bob");
+ *     LoopbackClient.pair(alice, bob);
+ *     alice.send(LoopbackClient.encode("from:alice|to:bob|msg:hello"));
+ *     String line = bob.readLine();
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public final class LoopbackClient implements Closeable {
+
+    /** Socket connected to the server */
+    private final Socket socket;
+
+    /** Output stream to the server */
+    private final OutputStream out;
+
+    /** Input stream from the server */
+    private final BufferedReader in;
+
+    /** Instance ID of this player */
+    private final String instanceId;
+
+    private LoopbackClient(Socket socket, String instanceId) throws IOException {
+        this.socket = socket;
+        this.socket.setTcpNoDelay(true);
+        this.out = socket.getOutputStream();
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * Connects to a local server and completes the handshake.
+     *
+     * @param port       Port of the server on loopback
+     * @param instanceId Instance ID to claim
+     * @return The connected client
+     * @throws IOException if connecting fails or the handshake is rejected
+     */
+    public static LoopbackClient connect(int port, String instanceId) throws IOException {
+        LoopbackClient client = new LoopbackClient(new Socket("127.0.0.1", port), instanceId);
+        client.send(encode("req:handshake|from:" + instanceId));
+
+        String ack = client.readLine();
+        if (ack == null || !ack.contains("stat:success")) {
+            client.close();
+            throw new IOException(String.format("Handshake of %s failed: %s", instanceId, ack));
+        }
+        return client;
+    }
+
+    /**
+     * Pairs two players through the message request and confirmation flow.
+     *
+     * @param from The player sending the request
+     * @param to   The player accepting it
+     * @throws IOException if the request is not delivered or not confirmed
+     */
+    public static void pair(LoopbackClient from, LoopbackClient to) throws IOException {
+        from.send(encode(String.format("from:%s|to:%s|req:msg", from.instanceId, to.instanceId)));
+        expect(to.readLine(), "req:msg");
+
+        to.send(encode(String.format("from:%s|to:%s|req:msg|stat:success", to.instanceId, from.instanceId)));
+        expect(from.readLine(), "stat:success");
+    }
+
+    /**
+     * Encodes a frame as a UTF-8 line, ready to be sent repeatedly.
+     *
+     * @param frame The serialized frame, without a line separator
+     * @return The encoded line
+     */
+    public static byte[] encode(String frame) {
+        return (frame + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Turns the server's logging off, so connection and handshake events do not end up in
+     * the benchmark output.
+     */
+    public static void silenceConsole() {
+        Log.setLevel(LogLevel.OFF);
+    }
+
+    /**
+     * Returns the instance ID of this player.
+     *
+     * @return The instance ID
+     */
+    public String getInstanceId() {
+        return this.instanceId;
+    }
+
+    /**
+     * Sends encoded bytes to the server.
+     *
+     * @param line The encoded line
+     * @throws IOException if writing fails
+     */
+    public void send(byte[] line) throws IOException {
+        this.out.write(line);
+    }
+
+    /**
+     * Reads the next line from the server.
+     *
+     * @return The line, or null if the server closed the connection
+     * @throws IOException if reading fails
+     */
+    public String readLine() throws IOException {
+        return this.in.readLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.socket.close();
+    }
+
+    private static void expect(String line, String token) throws IOException {
+        if (line == null || !line.contains(token)) {
+            throw new IOException(String.format("Expected %s but got %s", token, line));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.MessageParser;
+import com.hashedalgorithm.playerchat.utils.TextCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and serializing of realistic frames: the {@link Map} based
+ * {@link MessageParser#parseMessage(String)} and {@link MessageParser#serialize(Map)},
+ * the single pass {@link Frame} parser, and both wire codecs.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageParserBenchmark {
+
+    /** Frame shape to measure */
+    @Param({"handshake", "request", "confirmation", "chat", "long-chat"})
+    public String shape;
+
+    private final MessageParser parser = new MessageParser();
+
+    /** The frame as received on the wire */
+    private String line;
+
+    /** The frame as a map, for {@link MessageParser#serialize(Map)} */
+    private Map<String, String> map;
+
+    /** The frame parsed once, for the serializers and encoders */
+    private Frame parsed;
+
+    /** Reusable frame for the flyweight parser */
+    private final Frame reusable = new Frame();
+
+    /** Reusable buffer for the flyweight serializer */
+    private final StringBuilder out = new StringBuilder(512);
+
+    /** The frame in binary encoding */
+    private byte[] binary;
+
+    /** Length prefix size of {@link #binary} */
+    private int header;
+
+    /** Reusable buffer for the binary decoder */
+    private CharBuffer chars;
+
+    @Setup
+    public void setup() throws IOException {
+        this.line = switch (this.shape) {
+            case "handshake" -> "req:handshake|from:player-4711";
+            case "request" -> "from:player-4711|to:player-0815|req:msg";
+            case "confirmation" -> "from:player-0815|to:player-4711|req:msg|stat:success";
+            case "chat" -> "from:player-4711|to:player-0815|msg:Hey, are you up for another round?";
+            case "long-chat" -> "from:player-4711|to:player-0815|msg:" + "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(8);
+            default -> throw new IllegalArgumentException(this.shape);
+        };
+
+        this.map = this.parser.parseMessage(this.line);
+        this.parsed = this.parser.parse(this.line, new Frame());
+        this.binary = BinaryCodec.INSTANCE.encode(this.parsed).array();
+        this.header = BinaryCodec.headerLength(this.binary, 0, this.binary.length);
+        this.chars = CharBuffer.allocate(this.binary.length);
+    }
+
+    @Benchmark
+    public Map<String, String> parseMessage() {
+        return this.parser.parseMessage(this.line);
+    }
+
+    @Benchmark
+    public String serializeMap() {
+        return this.parser.serialize(this.map);
+    }
+
+    @Benchmark
+    public Frame parseFrame() {
+        return this.parser.parse(this.line, this.reusable);
+    }
+
+    @Benchmark
+    public StringBuilder serializeFrame() {
+        this.out.setLength(0);
+        return this.parser.serialize(this.parsed, this.out);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeText() {
+        return TextCodec.INSTANCE.encode(this.parsed);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinary() {
+        return BinaryCodec.INSTANCE.encode(this.parsed);
+    }
+
+    @Benchmark
+    public Frame decodeBinary() throws IOException {
+        this.chars.clear();
+        return BinaryCodec.decode(this.binary, this.header, this.binary.length - this.header, this.reusable, this.chars);
+    }
+}
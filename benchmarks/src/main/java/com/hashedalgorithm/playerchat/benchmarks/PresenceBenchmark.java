@@ -0,0 +1,170 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.server.ClientInstance;
+import com.hashedalgorithm.playerchat.server.Connection;
+import com.hashedalgorithm.playerchat.server.PresenceDirectory;
+import com.hashedalgorithm.playerchat.server.RateLimit;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.server.ServerConfig;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import com.hashedalgorithm.playerchat.utils.TextCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures telling thousands of presence subscribers about a burst of players coming online,
+ * like the handshakes at the start of a match.
+ *
+ * <p>{@code coalesced} records the burst in the server's {@link PresenceDirectory} and flushes
+ * it once, as the timer wheel does at the end of a window: one frame per subscriber. As a
+ * baseline, {@code perChange} sends every change on its own as it happens, encoded once and
+ * written to every subscriber: one frame per change per subscriber. The {@code frames} and
+ * {@code bytes} counters add up what the subscribers' connections were given.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresenceBenchmark {
+
+    /** Number of clients subscribed to presence changes */
+    @Param({"1000", "5000"})
+    public int subscribers;
+
+    /** Number of players coming online in one burst */
+    @Param({"10", "100"})
+    public int burst;
+
+    /** Frames and bytes written to subscribers, summed over an iteration */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Written {
+        /** Frames written */
+        public long frames;
+
+        /** Encoded bytes written */
+        public long bytes;
+    }
+
+    private PresenceDirectory presence;
+
+    /** Connections of the subscribers */
+    private CountingConnection[] connections;
+
+    /** Instance IDs of the players of a burst */
+    private String[] players;
+
+    private final Frame frame = new Frame();
+
+    private final SharedFrame shared = new SharedFrame();
+
+    /** Frames written to all subscribers so far */
+    private long frames;
+
+    /** Encoded bytes written to all subscribers so far */
+    private long bytes;
+
+    /** Connection that encodes what is written to it like a real one, counts it and drops it */
+    private final class CountingConnection implements Connection {
+        @Override
+        public void write(Frame frame) {
+            PresenceBenchmark.this.frames++;
+            PresenceBenchmark.this.bytes += TextCodec.INSTANCE.encode(frame).remaining();
+        }
+
+        @Override
+        public void write(Frame[] frames) {
+            PresenceBenchmark.this.frames += frames.length;
+            PresenceBenchmark.this.bytes += TextCodec.INSTANCE.encode(frames).remaining();
+        }
+
+        @Override
+        public void write(SharedFrame frame) {
+            PresenceBenchmark.this.frames++;
+            PresenceBenchmark.this.bytes += frame.encode(TextCodec.INSTANCE).remaining();
+        }
+
+        @Override
+        public void setCodec(FrameCodec codec) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        LoopbackClient.silenceConsole();
+
+        // A window long enough that only the benchmark flushes.
+        Server server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.UNLIMITED)
+                .setPresenceWindowMillis(60_000));
+        this.presence = server.getPresence();
+
+        this.connections = new CountingConnection[this.subscribers];
+        for (int i = 0; i < this.subscribers; i++) {
+            this.connections[i] = new CountingConnection();
+            ClientInstance client = new ClientInstance(server, this.connections[i]);
+            client.handleFrame("req:handshake|from:subscriber-" + i);
+            client.handleFrame("req:subscribe");
+        }
+
+        this.players = new String[this.burst];
+        for (int i = 0; i < this.burst; i++) {
+            this.players[i] = "player-" + i;
+        }
+    }
+
+    @Benchmark
+    public void coalesced(Written written) {
+        long frames = this.frames;
+        long bytes = this.bytes;
+        for (String player : this.players) {
+            this.presence.online(player);
+        }
+        this.presence.flush();
+        written.frames += this.frames - frames;
+        written.bytes += this.bytes - bytes;
+    }
+
+    @Benchmark
+    public void perChange(Written written) {
+        long frames = this.frames;
+        long bytes = this.bytes;
+        for (String player : this.players) {
+            this.frame.clear()
+                    .set(Payload.REQUEST, PayloadValue.PRESENCE.getValue())
+                    .set(Payload.MESSAGE, "+" + player);
+            this.shared.reset(this.frame);
+            for (CountingConnection connection : this.connections) {
+                connection.write(this.shared);
+            }
+        }
+        written.frames += this.frames - frames;
+        written.bytes += this.bytes - bytes;
+    }
+}
@@ -0,0 +1,87 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.server.ClientInstance;
+import com.hashedalgorithm.playerchat.server.Connection;
+import com.hashedalgorithm.playerchat.server.RateLimit;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.server.ServerConfig;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one chat message through {@link ClientInstance#handleFrame(CharSequence)} without a
+ * rate limit and with a limit so high it never throttles, which is the cost of taking a token
+ * from the sender's bucket on every message.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    /** Rate limit of the server, written {@code <rate>[/<burst>]} */
+    @Param({"0", "1000000000"})
+    public String limit;
+
+    /** The player sending every message */
+    private ClientInstance sender;
+
+    /** Connection that drops everything written to it */
+    private static final class NullConnection implements Connection {
+        @Override
+        public void write(Frame frame) {
+        }
+
+        @Override
+        public void write(Frame[] frames) {
+        }
+
+        @Override
+        public void write(SharedFrame frame) {
+        }
+
+        @Override
+        public void setCodec(FrameCodec codec) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        LoopbackClient.silenceConsole();
+
+        Server server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.parse(this.limit)));
+        this.sender = new ClientInstance(server, new NullConnection());
+        this.sender.handleFrame("req:handshake|from:alice");
+        new ClientInstance(server, new NullConnection()).handleFrame("req:handshake|from:bob");
+    }
+
+    @Benchmark
+    public void send() throws IOException {
+        this.sender.handleFrame("from:alice|to:bob|msg:Hey, are you up for another round?");
+    }
+}
@@ -0,0 +1,111 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.server.ClientInstance;
+import com.hashedalgorithm.playerchat.server.Connection;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Server#getClient(String)}, the lookup done for every routed frame, with a
+ * registry of handshaken clients, from one thread and from several threads at once.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+
+    /** Number of registered clients */
+    @Param({"1000", "100000"})
+    public int clients;
+
+    private Server server;
+
+    /** Instance IDs of the registered clients */
+    private String[] names;
+
+    /** Per-thread position in {@link #names} */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        String next(String[] names) {
+            this.index = this.index + 1 == names.length ? 0 : this.index + 1;
+            return names[this.index];
+        }
+    }
+
+    /** Connection that discards everything written to it */
+    private static final class NullConnection implements Connection {
+        @Override
+        public void write(Frame frame) {
+        }
+
+        @Override
+        public void write(Frame[] frames) {
+        }
+
+        @Override
+        public void write(SharedFrame frame) {
+        }
+
+        @Override
+        public void setCodec(FrameCodec codec) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        LoopbackClient.silenceConsole();
+
+        this.server = new Server(0);
+        this.names = new String[this.clients];
+        for (int i = 0; i < this.clients; i++) {
+            this.names[i] = "player-" + i;
+            new ClientInstance(this.server, new NullConnection()).handleFrame("req:handshake|from:" + this.names[i]);
+        }
+    }
+
+    @Benchmark
+    public ClientInstance getClient(Cursor cursor) {
+        return this.server.getClient(cursor.next(this.names));
+    }
+
+    @Benchmark
+    public ClientInstance getMissingClient() {
+        return this.server.getClient("nobody");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ClientInstance getClientContended(Cursor cursor) {
+        return this.server.getClient(cursor.next(this.names));
+    }
+}
@@ -0,0 +1,103 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+import com.hashedalgorithm.playerchat.server.RateLimit;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.server.ServerConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end relay through a real {@link Server} on loopback: two paired players, one sending
+ * chat messages and the other reading them.
+ *
+ * <p>{@link #latency()} sends one message and waits for it, reported as a sampled distribution
+ * with p50/p99/p999. {@link #throughput()} keeps {@link #PIPELINE} messages in flight and reports
+ * messages per second. The per-client rate limit is disabled for the run.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RelayBenchmark {
+
+    /** Messages sent before reading them back in {@link #throughput()} */
+    private static final int PIPELINE = 64;
+
+    /** Server mode to measure */
+    @Param({"blocking", "virtual", "selector"})
+    public String mode;
+
+    private LoopbackClient sender;
+
+    private LoopbackClient receiver;
+
+    /** The chat message sent by {@link #sender}, pre-encoded */
+    private byte[] message;
+
+    @Setup
+    public void setup() throws IOException {
+        LoopbackClient.silenceConsole();
+
+        Server server = new Server(new ServerConfig()
+                .setPort(0)
+                .setMode(ServerMode.fromValue(this.mode))
+                .setMessageLimit(RateLimit.UNLIMITED));
+        server.setDaemon(true);
+        server.start();
+
+        this.sender = LoopbackClient.connect(server.getLocalPort(), "alice");
+        this.receiver = LoopbackClient.connect(server.getLocalPort(), "bob");
+        LoopbackClient.pair(this.sender, this.receiver);
+
+        this.message = LoopbackClient.encode("from:alice|to:bob|msg:Hey, are you up for another round?");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.sender.close();
+        this.receiver.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String latency() throws IOException {
+        this.sender.send(this.message);
+        return this.receiver.readLine();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(PIPELINE)
+    public String throughput() throws IOException {
+        for (int i = 0; i < PIPELINE; i++) {
+            this.sender.send(this.message);
+        }
+
+        String last = null;
+        for (int i = 0; i < PIPELINE; i++) {
+            last = this.receiver.readLine();
+        }
+        return last;
+    }
+}
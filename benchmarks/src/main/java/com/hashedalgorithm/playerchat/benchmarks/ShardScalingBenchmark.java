@@ -0,0 +1,124 @@
+package com.hashedalgorithm.playerchat.benchmarks;
+
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+import com.hashedalgorithm.playerchat.server.RateLimit;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.server.ServerConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Relay throughput of a real {@link Server} on loopback as the number of event loops or shards
+ * grows from 1 to N cores.
+ *
+ * <p>Every benchmark thread drives its own pair of players, keeping {@link #PIPELINE} chat
+ * messages in flight. With {@code sharded}, a pair whose players hash to different shards has
+ * every message handed between shards through their queue; with {@code selector}, the loop that
+ * read a message writes it to the receiver's connection directly. Run with {@code -t} at least as
+ * large as the largest {@code loops} and {@code -p loops=1,2,...,N} up to the number of cores of
+ * the machine, e.g. {@code -t 8 -p loops=1,2,4,8}.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ShardScalingBenchmark {
+
+    /** Messages sent before reading them back */
+    private static final int PIPELINE = 64;
+
+    /** Server mode to measure */
+    @Param({"selector", "sharded"})
+    public String mode;
+
+    /** Number of event loops or shards */
+    @Param({"1", "2", "4", "8"})
+    public int loops;
+
+    private Server server;
+
+    /** Number of pairs connected so far, used to name the players */
+    private final AtomicInteger pairs = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        LoopbackClient.silenceConsole();
+
+        this.server = new Server(new ServerConfig()
+                .setPort(0)
+                .setMode(ServerMode.fromValue(this.mode))
+                .setEventLoops(this.loops)
+                .setMessageLimit(RateLimit.UNLIMITED));
+        this.server.setDaemon(true);
+        this.server.start();
+    }
+
+    /**
+     * The players driven by one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Pair {
+
+        private LoopbackClient sender;
+
+        private LoopbackClient receiver;
+
+        /** The chat message sent by {@link #sender}, pre-encoded */
+        private byte[] message;
+
+        @Setup
+        public void setup(ShardScalingBenchmark benchmark) throws IOException {
+            int pair = benchmark.pairs.getAndIncrement();
+            int port = benchmark.server.getLocalPort();
+
+            this.sender = LoopbackClient.connect(port, "alice-" + pair);
+            this.receiver = LoopbackClient.connect(port, "bob-" + pair);
+            LoopbackClient.pair(this.sender, this.receiver);
+
+            this.message = LoopbackClient.encode(String.format("from:alice-%d|to:bob-%d|msg:Hey, are you up for another round?", pair, pair));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            this.sender.close();
+            this.receiver.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(PIPELINE)
+    public String throughput(Pair pair) throws IOException {
+        for (int i = 0; i < PIPELINE; i++) {
+            pair.sender.send(pair.message);
+        }
+
+        String last = null;
+        for (int i = 0; i < PIPELINE; i++) {
+            last = pair.receiver.readLine();
+        }
+        return last;
+    }
+}
@@ -1,5 +1,10 @@
 package com.hashedalgorithm.playerchat.client;
 
+import com.hashedalgorithm.playerchat.enums.LogLevel;
+import com.hashedalgorithm.playerchat.utils.Log;
+
+import java.util.Arrays;
+
 /**
  * Entry point for the Player Chat Client application.
  *
@@ -18,7 +23,9 @@ public class App {
      * server at the specified IP address and port, and then starts the client
      * in a separate thread.
      *
-     * @param args Command-line arguments (not used in this application)
+     * @param args Command-line arguments; {@code --binary} asks the server for the binary protocol,
+     *             {@code --compress} for the binary protocol with large frames compressed
+     *             and {@code --log-level=<off|error|warn|info|debug>} sets the level of the {@link Log}
      */
     public static void main(String[] args) {
 
@@ -26,8 +33,16 @@ public class App {
         System.out.println("-----------------------------------------------");
         System.out.println();
 
+        for (String arg : args) {
+            if (arg.startsWith("--log-level=")) {
+                Log.setLevel(LogLevel.fromValue(arg.substring("--log-level=".length())));
+            }
+        }
+
         // Initialize and start the client
-        Client client = new Client( "127.0.0.1", 12345);
+        boolean binary = Arrays.asList(args).contains("--binary");
+        boolean compress = Arrays.asList(args).contains("--compress");
+        Client client = new Client( "127.0.0.1", 12345, binary, compress);
         client.start();
 
     }
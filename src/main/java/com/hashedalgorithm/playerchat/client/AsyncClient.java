@@ -0,0 +1,680 @@
+package com.hashedalgorithm.playerchat.client;
+
+import com.hashedalgorithm.playerchat.enums.ClientStatus;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.Log;
+import com.hashedalgorithm.playerchat.utils.MessageParser;
+import com.hashedalgorithm.playerchat.utils.TextCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * AsyncClient is a programmatic chat client for game servers and bots. Every request is sent
+ * right away and returns a {@link CompletableFuture} of its answer, so any number of requests
+ * can be outstanding on one connection.
+ *
+ * <p>Each request carries a correlation ID in {@code cid}, which the server echoes in every
+ * answer, so answers are matched to their request whatever order they arrive in and whatever
+ * else arrives in between. A single reader thread decodes everything the server sends and
+ * hands it to the future of its request, to the {@link #onMessage(Consumer)} listener for chat
+ * messages and broadcasts, or to the {@link #onChatRequest(Predicate)} acceptor for chat
+ * requests of other players. Heartbeats are answered by the reader.
+ *
+ * <p>Requests are sent in the order they are called, and the server handles them in that
+ * order. The handshake must be the first request, but the next ones need not wait for its
+ * answer. With {@code binaryProtocol}, the client switches to {@link BinaryCodec} right after
+ * sending the handshake, so it needs a server that supports it.
+ *
+ * <p>A client that connects with {@link #resume(String, long)} instead of
+ * {@link #handshake(String)} asks for sequenced delivery: the server numbers every chat message
+ * and broadcast for it and writes those it did not acknowledge again after it reconnects. The
+ * reader drops any message numbered no higher than the last one it received, so a message
+ * written again is never handed to the listener twice. Acknowledgements are cumulative and
+ * cost no frames of their own while the client is sending: the highest number received rides on
+ * the next request. Only when {@value #ACK_BATCH} messages are unacknowledged, or the server has
+ * been quiet for {@value #ACK_DELAY_MILLIS} ms since an unacknowledged one, does the reader send
+ * a {@code req:ack} alone. A caller keeps {@link #getLastSequence()} to resume from on its next
+ * connection.
+ *
+ * <p>The handle the server gives a player in {@code hid} comes with its chat requests and
+ * their confirmations, and the client keeps it. Chat messages to a player whose handle is known
+ * are addressed by the handle, which the server routes without looking the name up. If the
+ * player left since, the server refuses the handle and the message is sent again by name.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     AsyncClient client = new AsyncClient("127.0.0.1", 12345, true);
+ *     client.onMessage(message -&gt; System.out.println(message.from() + ": " + message.text()));
+ *     client.handshake("bot-1");
+ *     client.join("lobby");
+ *     client.broadcast("lobby", "glhf").thenAccept(status -&gt; System.out.println(status));
+ * </pre>
+ *
+ * <p>Thread safety: Thread-safe. Requests may be sent from any thread. Futures are completed
+ * and listeners called on the reader thread, so they must not block; chain with an
+ * {@code ...Async} method to do slow work elsewhere. When the connection closes, every
+ * outstanding future fails with an {@link IOException}. A server that does not echo
+ * correlation IDs never completes the futures, so callers should put a timeout on them.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class AsyncClient implements AutoCloseable {
+
+    /**
+     * A chat message received from another player.
+     *
+     * @param from The sender
+     * @param room The room it was broadcast to, or null for a direct message
+     * @param text The message as relayed by the server, numbered by the sender's counter
+     */
+    public record ChatMessage(String from, String room, String text) {
+    }
+
+    /** Unacknowledged messages after which an acknowledgement is sent on its own */
+    public static final int ACK_BATCH = 64;
+
+    /** Milliseconds of silence from the server after which unacknowledged messages are acknowledged on their own */
+    public static final int ACK_DELAY_MILLIS = 500;
+
+    /** Socket connected to the server */
+    private final Socket socket;
+
+    /** Output stream to the server, also the lock ordering every write */
+    private final OutputStream out;
+
+    /** Input stream from the server, only read by {@link #reader} */
+    private final InputStream in;
+
+    /** Whether to ask the server for the binary protocol */
+    private final boolean binaryProtocol;
+
+    /** Codec requests are written with; only changed while holding {@link #out} */
+    private FrameCodec codec = TextCodec.INSTANCE;
+
+    /** Reusable flyweight every request is encoded from, while holding {@link #out} */
+    private final Frame outbound = new Frame();
+
+    /** Instance ID sent in the handshake, null until {@link #handshake(String)} */
+    private volatile String instanceId;
+
+    /** Source of correlation IDs */
+    private final AtomicLong nextCorrelation = new AtomicLong();
+
+    /** Futures of the requests not answered yet, by correlation ID */
+    private final Map<String, CompletableFuture<Map<String, String>>> outstanding = new ConcurrentHashMap<>();
+
+    /** Called with every chat message and broadcast */
+    private volatile Consumer<ChatMessage> messageListener = message -> {};
+
+    /** Decides whether to accept the chat request of a player */
+    private volatile Predicate<String> chatRequestAcceptor = from -> true;
+
+    /** Thread decoding everything the server sends, started with the handshake while holding {@link #out} */
+    private Thread reader;
+
+    /** Parser for text lines and for decoded binary frames */
+    private final MessageParser parser = new MessageParser();
+
+    /** Bytes received but not yet decoded, only used by {@link #reader} */
+    private byte[] pending = new byte[1024];
+
+    /** Number of valid bytes in {@link #pending} */
+    private int pendingLength = 0;
+
+    /** Whether the server's frames are binary, only used by {@link #reader} */
+    private boolean readBinary = false;
+
+    /** Handles of other players, by instance ID, learned from their chat requests and confirmations */
+    private final Map<String, String> handles = new ConcurrentHashMap<>();
+
+    /** Whether sequenced delivery was asked for in the handshake */
+    private volatile boolean sequenced = false;
+
+    /** Highest sequence number received, only written by {@link #reader} */
+    private volatile long lastSequence = 0;
+
+    /** Highest sequence number acknowledged, only written while holding {@link #out} */
+    private volatile long acknowledgedSequence = 0;
+
+    /** Whether the socket has the read timeout of a pending acknowledgement, only used by {@link #reader} */
+    private boolean ackTimerSet = false;
+
+    /**
+     * Connects to a server. The reader thread is started by the handshake.
+     *
+     * @param host           The server host
+     * @param port           The server port
+     * @param binaryProtocol Whether to ask the server for the binary protocol
+     * @throws IOException if the connection cannot be opened
+     */
+    public AsyncClient(String host, int port, boolean binaryProtocol) throws IOException {
+        this.binaryProtocol = binaryProtocol;
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.out = this.socket.getOutputStream();
+        this.in = this.socket.getInputStream();
+    }
+
+    /**
+     * Sets the listener called with every chat message and room broadcast.
+     *
+     * @param listener The listener, called on the reader thread
+     * @return This client
+     */
+    public AsyncClient onMessage(Consumer<ChatMessage> listener) {
+        this.messageListener = listener;
+        return this;
+    }
+
+    /**
+     * Sets what decides whether the chat request of another player is accepted. Every request
+     * is accepted by default.
+     *
+     * @param acceptor Called on the reader thread with the requesting player
+     * @return This client
+     */
+    public AsyncClient onChatRequest(Predicate<String> acceptor) {
+        this.chatRequestAcceptor = acceptor;
+        return this;
+    }
+
+    /**
+     * Sends the handshake, which must be the first request.
+     *
+     * @param instanceId The instance ID to claim
+     * @return The outcome: {@link ClientStatus#SUCCESS}, {@link ClientStatus#FAILED} if the ID is
+     *         taken or {@link ClientStatus#BLOCKED} if the server is full
+     * @throws IllegalStateException if the handshake was already sent
+     */
+    public CompletableFuture<ClientStatus> handshake(String instanceId) {
+        return this.handshake(instanceId, null);
+    }
+
+    /**
+     * Sends the handshake asking for sequenced delivery, which must be the first request. The
+     * server writes every message numbered after {@code lastSequence} that this player did not
+     * acknowledge on an earlier connection again, before any other chat message.
+     *
+     * @param instanceId   The instance ID to claim
+     * @param lastSequence The {@link #getLastSequence()} of the player's last connection, 0 for
+     *                     the first one
+     * @return The outcome, as for {@link #handshake(String)}; a server that refuses sequenced
+     *         delivery still confirms the handshake, without numbering messages
+     * @throws IllegalArgumentException if the sequence number is negative
+     * @throws IllegalStateException    if the handshake was already sent
+     */
+    public CompletableFuture<ClientStatus> resume(String instanceId, long lastSequence) {
+        if (lastSequence < 0) {
+            throw new IllegalArgumentException("Invalid sequence number!");
+        }
+        return this.handshake(instanceId, lastSequence);
+    }
+
+    /**
+     * Returns the sequence number of the last chat message received, which is where the
+     * player's next connection resumes from. Every message up to it was handed to the
+     * listener.
+     *
+     * @return The last sequence number, 0 if none was received
+     */
+    public long getLastSequence() {
+        return this.lastSequence;
+    }
+
+    /**
+     * Sends the handshake, asking for sequenced delivery from a sequence number if it is not null.
+     */
+    private CompletableFuture<ClientStatus> handshake(String instanceId, Long lastSequence) {
+        synchronized (this.out) {
+            if (this.instanceId != null) {
+                throw new IllegalStateException("Handshake already sent!");
+            }
+            this.instanceId = instanceId;
+            if (lastSequence != null) {
+                this.sequenced = true;
+                this.lastSequence = lastSequence;
+                this.acknowledgedSequence = lastSequence;
+            }
+            this.outbound.clear()
+                    .set(Payload.REQUEST, PayloadValue.HANDSHAKE.getValue())
+                    .set(Payload.FROM, instanceId)
+                    .set(Payload.ENCODING, this.binaryProtocol ? PayloadValue.BINARY.getValue() : null)
+                    .set(Payload.ACK, lastSequence == null ? null : lastSequence.toString());
+            CompletableFuture<Map<String, String>> answer = this.send(this.outbound);
+            this.reader = Thread.ofPlatform().name("async-client-reader").daemon().start(this::read);
+            if (this.binaryProtocol) {
+                // The server decodes whatever follows the handshake as binary.
+                this.codec = BinaryCodec.INSTANCE;
+            }
+            return answer.thenApply(AsyncClient::statusOf);
+        }
+    }
+
+    /**
+     * Asks another player to chat. The player's client answers, not the server.
+     *
+     * @param to The player
+     * @return {@link ClientStatus#SUCCESS} if the player accepted or is offline and messages
+     *         will be stored, otherwise {@link ClientStatus#FAILED}
+     */
+    public CompletableFuture<ClientStatus> requestChat(String to) {
+        synchronized (this.out) {
+            this.outbound.clear()
+                    .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                    .set(Payload.FROM, this.requireInstanceId())
+                    .set(Payload.TO, to);
+            return this.send(this.outbound).thenApply(AsyncClient::statusOf);
+        }
+    }
+
+    /**
+     * Sends a chat message to another player, by its handle if it is known.
+     *
+     * @param to   The player
+     * @param text The message
+     * @return {@link ClientStatus#SUCCESS} once the server queued, forwarded or stored it,
+     *         {@link ClientStatus#BUSY} or {@link ClientStatus#THROTTLED} if it was refused,
+     *         {@link ClientStatus#FAILED} if the player does not exist
+     */
+    public CompletableFuture<ClientStatus> send(String to, String text) {
+        String handle = this.handles.get(to);
+        CompletableFuture<Map<String, String>> answer;
+        String from = this.requireInstanceId();
+        synchronized (this.out) {
+            this.outbound.clear()
+                    .set(Payload.FROM, handle == null ? from : null)
+                    .set(Payload.TO, handle == null ? to : null)
+                    .set(Payload.MESSAGE, text)
+                    .set(Payload.HANDLE, handle);
+            answer = this.send(this.outbound);
+        }
+        if (handle == null) {
+            return answer.thenApply(AsyncClient::statusOf);
+        }
+
+        return answer.thenCompose(message -> {
+            if (statusOf(message) == ClientStatus.FAILED && handle.equals(message.get(Payload.HANDLE.getValue()))) {
+                // The player left since its handle was learned.
+                this.handles.remove(to, handle);
+                return this.send(to, text);
+            }
+            return CompletableFuture.completedFuture(statusOf(message));
+        });
+    }
+
+    /**
+     * Joins a chat room.
+     *
+     * @param room The room
+     * @return {@link ClientStatus#SUCCESS} once joined
+     */
+    public CompletableFuture<ClientStatus> join(String room) {
+        return this.roomRequest(PayloadValue.JOIN, room, null);
+    }
+
+    /**
+     * Leaves a chat room.
+     *
+     * @param room The room
+     * @return {@link ClientStatus#SUCCESS}, or {@link ClientStatus#FAILED} if this client was
+     *         not a member
+     */
+    public CompletableFuture<ClientStatus> leave(String room) {
+        return this.roomRequest(PayloadValue.LEAVE, room, null);
+    }
+
+    /**
+     * Sends a chat message to every other member of a room.
+     *
+     * @param room The room, which this client must have joined
+     * @param text The message
+     * @return {@link ClientStatus#SUCCESS} once it was queued for the members,
+     *         {@link ClientStatus#THROTTLED} if it was refused or {@link ClientStatus#FAILED} if
+     *         this client is not a member
+     */
+    public CompletableFuture<ClientStatus> broadcast(String room, String text) {
+        return this.roomRequest(PayloadValue.BROADCAST, room, text);
+    }
+
+    /**
+     * Asks the server for a snapshot of its metrics.
+     *
+     * @return The {@code name=value} pairs of the snapshot, separated by spaces
+     */
+    public CompletableFuture<String> stats() {
+        synchronized (this.out) {
+            this.requireInstanceId();
+            this.outbound.clear().set(Payload.REQUEST, PayloadValue.STATS.getValue());
+            return this.send(this.outbound).thenApply(answer -> answer.get(Payload.MESSAGE.getValue()));
+        }
+    }
+
+    /**
+     * Closes the connection. Outstanding futures fail with an {@link IOException}.
+     */
+    @Override
+    public void close() {
+        try {
+            this.socket.close();
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        }
+    }
+
+    /**
+     * Sends a join, leave or broadcast request.
+     */
+    private CompletableFuture<ClientStatus> roomRequest(PayloadValue request, String room, String text) {
+        synchronized (this.out) {
+            this.outbound.clear()
+                    .set(Payload.REQUEST, request.getValue())
+                    .set(Payload.FROM, this.requireInstanceId())
+                    .set(Payload.TO, room)
+                    .set(Payload.MESSAGE, text);
+            return this.send(this.outbound).thenApply(AsyncClient::statusOf);
+        }
+    }
+
+    /**
+     * Gives a request the next correlation ID and writes it. Must hold {@link #out}, so the
+     * frame is written in the order its ID was registered.
+     *
+     * @param frame The request, without a correlation ID
+     * @return The future of its answer, failed if the request could not be written
+     */
+    private CompletableFuture<Map<String, String>> send(Frame frame) {
+        String correlation = Long.toString(this.nextCorrelation.incrementAndGet());
+        CompletableFuture<Map<String, String>> answer = new CompletableFuture<>();
+        this.outstanding.put(correlation, answer);
+
+        try {
+            this.write(frame.set(Payload.CORRELATION, correlation));
+        } catch (IOException e) {
+            this.outstanding.remove(correlation);
+            answer.completeExceptionally(e);
+        }
+        return answer;
+    }
+
+    /**
+     * Encodes a frame with the current codec and writes it, acknowledging every message
+     * received so far on the way. Must hold {@link #out}.
+     */
+    private void write(Frame frame) throws IOException {
+        long received = this.lastSequence;
+        if (received > this.acknowledgedSequence) {
+            frame.set(Payload.ACK, Long.toString(received));
+            this.acknowledgedSequence = received;
+        }
+        ByteBuffer bytes = this.codec.encode(frame);
+        this.out.write(bytes.array(), bytes.position(), bytes.remaining());
+        this.out.flush();
+    }
+
+    /**
+     * Returns the instance ID of this client.
+     *
+     * @throws IllegalStateException if the handshake was not sent yet
+     */
+    private String requireInstanceId() {
+        String instanceId = this.instanceId;
+        if (instanceId == null) {
+            throw new IllegalStateException("The handshake must be sent first!");
+        }
+        return instanceId;
+    }
+
+    /**
+     * Reads the status of an answer.
+     */
+    private static ClientStatus statusOf(Map<String, String> answer) {
+        return ClientStatus.fromValue(answer.get(Payload.STATUS.getValue()));
+    }
+
+    /**
+     * The reader loop: decodes and dispatches everything the server sends until the connection
+     * closes, then fails the outstanding futures.
+     */
+    private void read() {
+        IOException cause = new IOException("Connection closed by the server!");
+        try {
+            while (true) {
+                Map<String, String> message = this.readBinary ? this.takeBinaryFrame() : this.takeTextLine();
+                if (message != null) {
+                    this.dispatch(message);
+                    continue;
+                }
+
+                if (this.pendingLength == this.pending.length) {
+                    this.pending = Arrays.copyOf(this.pending, this.pending.length * 2);
+                }
+                if (this.sequenced) {
+                    this.setAckTimer();
+                }
+                int read;
+                try {
+                    read = this.in.read(this.pending, this.pendingLength, this.pending.length - this.pendingLength);
+                } catch (SocketTimeoutException e) {
+                    // The server went quiet with messages unacknowledged.
+                    this.acknowledge();
+                    continue;
+                }
+                if (read < 0) {
+                    break;
+                }
+                this.pendingLength += read;
+            }
+        } catch (IOException e) {
+            cause = e;
+        } finally {
+            this.close();
+            for (String correlation : this.outstanding.keySet()) {
+                CompletableFuture<Map<String, String>> answer = this.outstanding.remove(correlation);
+                if (answer != null) {
+                    answer.completeExceptionally(cause);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands a decoded frame to the future of its request, the message listener or the chat
+     * request acceptor.
+     *
+     * @param message The frame's fields
+     */
+    private void dispatch(Map<String, String> message) throws IOException {
+        String request = message.get(Payload.REQUEST.getValue());
+        String from = message.get(Payload.FROM.getValue());
+        String status = message.get(Payload.STATUS.getValue());
+        String correlation = message.get(Payload.CORRELATION.getValue());
+
+        if (PayloadValue.PING.getValue().equals(request)) {
+            synchronized (this.out) {
+                this.write(this.outbound.clear().set(Payload.REQUEST, PayloadValue.PONG.getValue()));
+            }
+            return;
+        }
+
+        String handle = message.get(Payload.HANDLE.getValue());
+        if (handle != null && from != null && PayloadValue.MESSAGE.getValue().equals(request)
+                && !ClientStatus.FAILED.getValue().equals(status)) {
+            this.handles.put(from, handle);
+        }
+
+        // A chat request of another player carries that player's correlation ID, not ours.
+        if (PayloadValue.MESSAGE.getValue().equals(request) && status == null && from != null
+                && !message.containsKey(Payload.MESSAGE.getValue())) {
+            this.answerChatRequest(from, correlation);
+            return;
+        }
+
+        if (correlation != null) {
+            CompletableFuture<Map<String, String>> answer = this.outstanding.remove(correlation);
+            if (answer == null) {
+                Log.debug("Answer to unknown request %s", correlation);
+                return;
+            }
+            if (PayloadValue.HANDSHAKE.getValue().equals(request)
+                    && PayloadValue.BINARY.getValue().equals(message.get(Payload.ENCODING.getValue()))) {
+                // Everything after the confirmation is binary.
+                this.readBinary = true;
+            }
+            answer.complete(message);
+            return;
+        }
+
+        String text = message.get(Payload.MESSAGE.getValue());
+        String sequence = message.get(Payload.SEQUENCE.getValue());
+        if (text != null && from != null && sequence != null && !this.receive(Long.parseLong(sequence))) {
+            Log.debug("Dropping message %s, which was already received", sequence);
+            return;
+        }
+        if (text != null && from != null) {
+            String room = PayloadValue.BROADCAST.getValue().equals(request) ? message.get(Payload.TO.getValue()) : null;
+            try {
+                this.messageListener.accept(new ChatMessage(from, room, text));
+            } catch (RuntimeException e) {
+                Log.error("Message listener failed: %s", e.getMessage());
+            }
+            return;
+        }
+
+        Log.debug("Ignoring frame without correlation ID: %s", message);
+    }
+
+    /**
+     * Records the sequence number of a chat message, acknowledging it and every one before it
+     * on its own if {@value #ACK_BATCH} are unacknowledged.
+     *
+     * @param sequence The message's sequence number
+     * @return false if the message was already received
+     */
+    private boolean receive(long sequence) throws IOException {
+        if (sequence <= this.lastSequence) {
+            return false;
+        }
+        this.lastSequence = sequence;
+        if (sequence - this.acknowledgedSequence >= ACK_BATCH) {
+            this.acknowledge();
+        }
+        return true;
+    }
+
+    /**
+     * Sends {@code req:ack} unless every message received was acknowledged already.
+     */
+    private void acknowledge() throws IOException {
+        synchronized (this.out) {
+            if (this.lastSequence > this.acknowledgedSequence) {
+                this.write(this.outbound.clear().set(Payload.REQUEST, PayloadValue.ACK.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Makes the next read time out after {@value #ACK_DELAY_MILLIS} ms while messages are
+     * unacknowledged, so they are acknowledged once the server goes quiet, and never otherwise.
+     */
+    private void setAckTimer() throws IOException {
+        boolean pendingAck = this.lastSequence > this.acknowledgedSequence;
+        if (pendingAck != this.ackTimerSet) {
+            this.socket.setSoTimeout(pendingAck ? ACK_DELAY_MILLIS : 0);
+            this.ackTimerSet = pendingAck;
+        }
+    }
+
+    /**
+     * Accepts or refuses the chat request of another player, echoing its correlation ID so
+     * the player's client can match the answer.
+     */
+    private void answerChatRequest(String from, String correlation) throws IOException {
+        boolean accepted;
+        try {
+            accepted = this.chatRequestAcceptor.test(from);
+        } catch (RuntimeException e) {
+            Log.error("Chat request acceptor failed: %s", e.getMessage());
+            accepted = false;
+        }
+
+        synchronized (this.out) {
+            this.write(this.outbound.clear()
+                    .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                    .set(Payload.FROM, this.instanceId)
+                    .set(Payload.TO, from)
+                    .set(Payload.STATUS, (accepted ? ClientStatus.SUCCESS : ClientStatus.FAILED).getValue())
+                    .set(Payload.CORRELATION, correlation));
+        }
+    }
+
+    /**
+     * Takes the first complete text line from the received bytes.
+     *
+     * @return The parsed line, or null if no complete line was received yet
+     */
+    private Map<String, String> takeTextLine() {
+        for (int i = 0; i < this.pendingLength; i++) {
+            if (this.pending[i] != '\n') {
+                continue;
+            }
+
+            int end = i > 0 && this.pending[i - 1] == '\r' ? i - 1 : i;
+            String raw = new String(this.pending, 0, end, StandardCharsets.UTF_8);
+            this.consume(i + 1);
+            return this.parser.parseMessage(raw);
+        }
+        return null;
+    }
+
+    /**
+     * Takes the first complete binary frame from the received bytes.
+     *
+     * @return The decoded frame, or null if no complete frame was received yet
+     * @throws IOException if the frame is malformed
+     */
+    private Map<String, String> takeBinaryFrame() throws IOException {
+        int header = BinaryCodec.headerLength(this.pending, 0, this.pendingLength);
+        if (header == 0) {
+            return null;
+        }
+
+        int length = BinaryCodec.bodyLength(this.pending, 0);
+        if (this.pendingLength - header < length) {
+            return null;
+        }
+
+        Frame decoded = BinaryCodec.decode(this.pending, header, length, new Frame(), CharBuffer.allocate(length));
+        this.consume(header + length);
+        return this.parser.toMap(decoded);
+    }
+
+    /**
+     * Drops handled bytes from the front of {@link #pending}.
+     *
+     * @param count Number of bytes handled
+     */
+    private void consume(int count) {
+        System.arraycopy(this.pending, count, this.pending, 0, this.pendingLength - count);
+        this.pendingLength -= count;
+    }
+}
@@ -0,0 +1,106 @@
+package com.hashedalgorithm.playerchat.client;
+
+/**
+ * One conversation of a {@link Client}: with another player, or with the members of a chat room.
+ *
+ * <p>A client may hold any number of sessions over its single connection. Each one counts the
+ * messages sent and received in it, up to {@link Client#MAX_MESSAGES} each way, and tracks
+ * whether the other side accepted it yet.
+ *
+ * <p>Thread safety: {@link #sent} is only written by the client's input thread and
+ * {@link #received} only by its listener thread; both, and the state, are volatile so either
+ * thread can read them.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+final class ChatSession {
+
+    /**
+     * Where a session stands.
+     */
+    enum State {
+        /** A chat request or join was sent and not answered yet */
+        REQUESTED,
+        /** The other player accepted, or the room was joined */
+        ACTIVE
+    }
+
+    /** Instance ID of the other player, or name of the room */
+    private final String peer;
+
+    /** Whether {@link #peer} is a room */
+    private final boolean room;
+
+    private volatile State state;
+
+    /** Messages sent in this session */
+    private volatile int sent = 0;
+
+    /** Messages received in this session */
+    private volatile int received = 0;
+
+    /**
+     * Creates a session.
+     *
+     * @param peer  Instance ID of the other player, or name of the room
+     * @param room  Whether the peer is a room
+     * @param state The initial state
+     */
+    ChatSession(String peer, boolean room, State state) {
+        this.peer = peer;
+        this.room = room;
+        this.state = state;
+    }
+
+    String getPeer() {
+        return this.peer;
+    }
+
+    boolean isRoom() {
+        return this.room;
+    }
+
+    State getState() {
+        return this.state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    /**
+     * Returns the number of the next message sent in this session, starting at 1.
+     */
+    int nextMessage() {
+        return this.sent + 1;
+    }
+
+    /**
+     * Returns whether another message may be sent in this session.
+     */
+    boolean canSend() {
+        return this.sent < Client.MAX_MESSAGES;
+    }
+
+    /**
+     * Counts a message sent. Only called by the input thread.
+     */
+    void countSent() {
+        this.sent += 1;
+    }
+
+    /**
+     * Counts a message received. Only called by the listener thread.
+     */
+    void countReceived() {
+        this.received += 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s%s (%s, %d sent, %d received)", this.room ? "#" : "", this.peer,
+                this.state.name().toLowerCase(), this.sent, this.received);
+    }
+}
@@ -3,37 +3,61 @@ package com.hashedalgorithm.playerchat.client;
 import com.hashedalgorithm.playerchat.enums.ClientStatus;
 import com.hashedalgorithm.playerchat.enums.Payload;
 import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.DeflateCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.Log;
 import com.hashedalgorithm.playerchat.utils.MessageParser;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * Client represents a chat client that connects to a {@link com.hashedalgorithm.playerchat.server.Server}.
  * Each client runs in its own thread and can send/receive messages from other clients.
  *
- * <p>The Client performs a handshake with the server, maintains a connection,
- * and enforces message limits using {@link #MAX_MESSAGES}.
+ * <p>The Client performs a handshake with the server and maintains a connection.
+ * Over that one connection it can hold any number of {@link ChatSession}s at once: with
+ * other players, and with chat rooms whose messages are broadcast to every other member.
+ * Each session enforces {@link #MAX_MESSAGES} on its own. Typed lines go to the active
+ * session, which the user switches with {@code /to}. Incoming messages are routed to
+ * their session by the sender or the room, with one map lookup.
  * It also manages separate threads for listening to incoming messages and user input.
  *
+ * <p>A client created with {@code binaryProtocol} asks the server for the length-prefixed
+ * {@link BinaryCodec} framing in its handshake. Both sides switch to it once the server
+ * confirms with {@code enc:bin}; a server that does not know the option simply keeps
+ * talking text, and so does the client. A client created with {@code compression} asks for
+ * {@code enc:deflate} instead: once confirmed, frames of at least {@link #COMPRESS_THRESHOLD}
+ * bytes are compressed by a {@link DeflateCodec} in both directions. A server refusing
+ * compression confirms {@code enc:bin}.
+ *
+ * <p>Status and error lines go through the asynchronous {@link Log}. Prompts, the menu and
+ * chat lines are printed directly, after a {@link Log#flush()}, so they always appear after
+ * the status lines logged before them.
+ *
  * <p>Example usage:
  * <pre>
- *     Client client = new Client("127.0.0.1", 12345);
+ *     Client client = new Client("127.0.0.1", 12345, true);
  *     client.start();
  * </pre>
  *
  * <p>Thread safety: The client uses multiple threads (main thread, listener, inputListener)
- * to handle messages asynchronously. Access to shared fields like {@link #counter} and
- * {@link #receivedMessageCounter} should be carefully managed.
+ * to handle messages asynchronously. Sessions are kept in concurrent maps, since both the
+ * listener and the input thread start them, and each session's counters are written by one
+ * thread only.
  *
  * @author Sanjay
  * @version 1.0
@@ -44,26 +68,50 @@ public class Client extends Thread {
     /** Maximum number of messages a client can send or receive */
     public static final int MAX_MESSAGES = 10;
 
+    /** Shortest frame body this client compresses once compression is negotiated */
+    public static final int COMPRESS_THRESHOLD = 256;
+
     /** Unique identifier for this client */
     public String instanceId;
 
     /** Socket connected to the server */
     private Socket clientSocket;
 
-    /** Instance ID of the connected recipient client */
-    private String recipientInstanceId;
-
     /** Output stream to the server */
-    private PrintWriter out;
+    private OutputStream out;
 
     /** Input stream from the server */
-    private BufferedReader in;
+    private InputStream in;
+
+    /** Whether to ask the server for the binary protocol */
+    private final boolean binaryProtocol;
+
+    /** Whether to ask the server for compressed binary frames */
+    private final boolean compression;
+
+    /** Whether the server confirmed the binary protocol */
+    private volatile boolean binaryNegotiated = false;
+
+    /** Codec of the compressed binary protocol, null unless the server confirmed it */
+    private volatile DeflateCodec deflate;
+
+    /** Bytes received from the server but not yet handled */
+    private byte[] pending = new byte[1024];
+
+    /** Number of valid bytes in {@link #pending} */
+    private int pendingLength = 0;
+
+    /** Reusable flyweight outgoing binary frames are encoded from */
+    private final Frame frame = new Frame();
 
-    /** Counter for messages sent */
-    private int counter = 1;
+    /** Sessions with other players, by their instance ID */
+    private final Map<String, ChatSession> sessions = new ConcurrentHashMap<>();
 
-    /** Counter for messages received */
-    private int receivedMessageCounter = 1;
+    /** Sessions with chat rooms, by room name */
+    private final Map<String, ChatSession> rooms = new ConcurrentHashMap<>();
+
+    /** Session the user's messages are sent to, null until one is started */
+    private volatile ChatSession active;
 
     /** Scanner to read user input */
     private final Scanner scanner = new Scanner(System.in);
@@ -78,24 +126,51 @@ public class Client extends Thread {
     private Thread inputListener;
 
     /**
-     * Constructs a Client that connects to the specified server IP and port.
-     * Initiates a handshake immediately after connecting.
+     * Constructs a Client that connects to the specified server IP and port using
+     * the text protocol. Initiates a handshake immediately after connecting.
      *
      * @param ip   The server IP address
      * @param port The server port
      */
     public Client(String ip, int port) {
+        this(ip, port, false);
+    }
+
+    /**
+     * Constructs a Client that connects to the specified server IP and port.
+     * Initiates a handshake immediately after connecting.
+     *
+     * @param ip             The server IP address
+     * @param port           The server port
+     * @param binaryProtocol Whether to ask the server for the binary protocol
+     */
+    public Client(String ip, int port, boolean binaryProtocol) {
+        this(ip, port, binaryProtocol, false);
+    }
+
+    /**
+     * Constructs a Client that connects to the specified server IP and port.
+     * Initiates a handshake immediately after connecting.
+     *
+     * @param ip             The server IP address
+     * @param port           The server port
+     * @param binaryProtocol Whether to ask the server for the binary protocol
+     * @param compression    Whether to ask the server for the compressed binary protocol
+     */
+    public Client(String ip, int port, boolean binaryProtocol, boolean compression) {
+        this.binaryProtocol = binaryProtocol;
+        this.compression = compression;
         try{
 
             this.initializeClient();
             this.connectToServer(ip, port);
 
-            this.out = new PrintWriter(clientSocket.getOutputStream(), true);
-            this.in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+            this.out = clientSocket.getOutputStream();
+            this.in = clientSocket.getInputStream();
 
             this.handshake();
         } catch(IOException e){
-            System.err.printf("[!] - %s\n", e.getMessage());
+            Log.error("%s", e.getMessage());
         }
 
     }
@@ -104,6 +179,7 @@ public class Client extends Thread {
      * Prompts the user to enter their chat name and sets {@link #instanceId}.
      */
     private void initializeClient() {
+        Log.flush();
         System.out.print("[+] - Enter your chat name: ");
         this.instanceId = scanner.nextLine();
     }
@@ -117,9 +193,9 @@ public class Client extends Thread {
     private void connectToServer(String ip, int port) {
         try{
             this.clientSocket = new Socket(ip, port);
-            System.out.println("[+] - Connected to server successfully!");
+            Log.info("Connected to server successfully!");
         } catch (IOException e) {
-            System.err.println("[!] - Could not connect to the server!");
+            Log.error("Could not connect to the server!");
             System.exit(-1);
         }
     }
@@ -131,22 +207,27 @@ public class Client extends Thread {
         int retries = 4;
         while (retries > 0) {
             try {
-                String raw = this.in.readLine();
-                if(raw == null) throw new NullPointerException();
-
-                Map<String, String> parsed = parser.parseMessage(raw);
+                Map<String, String> parsed = this.readMessage();
+                if(parsed == null) throw new NullPointerException();
 
                 String req = parsed.get(Payload.REQUEST.getValue());
                 String id = parsed.get(Payload.INSTANCE_ID.getValue());
                 String status = parsed.get(Payload.STATUS.getValue());
 
+                if(ClientStatus.BLOCKED.getValue().equals(status)) throw new IOException("Server is full! Try again later!");
+
                 if(req == null || id == null || status == null) throw new IOException("Invalid server response!");
 
                 if(!id.equals(this.instanceId) ) throw new IOException("Instance Id Mismatch!");
 
 
                 if(status.equals(ClientStatus.SUCCESS.getValue())) {
-                    System.out.printf("[+] - Instance ID: %s. Share this to other user to start chatting with them.\n", this.instanceId);
+                    String encoding = parsed.get(Payload.ENCODING.getValue());
+                    if(PayloadValue.DEFLATE.getValue().equals(encoding)) {
+                        this.deflate = new DeflateCodec(COMPRESS_THRESHOLD);
+                    }
+                    this.binaryNegotiated = this.deflate != null || PayloadValue.BINARY.getValue().equals(encoding);
+                    Log.info("Instance ID: %s. Share this to other user to start chatting with them.", this.instanceId);
                     return;
                 }
 
@@ -155,23 +236,24 @@ public class Client extends Thread {
                 throw new IOException("Invalid server response!");
             }
             catch (NullPointerException e) {
-                System.err.println("[!] - Connection closed with server! Handshake failed!");
+                Log.error("Connection closed with server! Handshake failed!");
                 System.exit(-1);
             }
             catch (SocketTimeoutException e) {
                 retries--;
-                System.out.println("[+] - Waiting for server!");
+                Log.info("Waiting for server!");
             }
             catch (IOException e) {
-                System.err.printf("[!] - %s\n!", e.getMessage());
-                System.out.println("[!] - Handshake failed! Exiting...");
+                Log.error("%s", e.getMessage());
+                Log.error("Handshake failed! Exiting...");
                 System.exit(-1);
             }
         }
     }
 
     /**
-     * Sends the client instance ID to the server for handshake.
+     * Sends the client instance ID to the server for handshake, asking for the
+     * binary or compressed protocol if enabled.
      */
     private void handshakeSendInstanceIdToServer() {
         Map<String, String> result = new HashMap<>(Map.of(
@@ -179,7 +261,13 @@ public class Client extends Thread {
                 Payload.FROM.getValue(), this.instanceId
         ));
 
-        this.writeOutputBuffer(this.parser.serialize(result));
+        if(this.compression) {
+            result.put(Payload.ENCODING.getValue(), PayloadValue.DEFLATE.getValue());
+        } else if(this.binaryProtocol) {
+            result.put(Payload.ENCODING.getValue(), PayloadValue.BINARY.getValue());
+        }
+
+        this.writeOutputBuffer(result);
     }
 
     /**
@@ -187,37 +275,142 @@ public class Client extends Thread {
      * Exits the program if handshake fails.
      */
     private void handshake() throws SocketException {
-        System.out.println("[+] - Initiating handshake with server");
+        Log.info("Initiating handshake with server");
 
         this.handshakeSendInstanceIdToServer();
         this.clientSocket.setSoTimeout(1000 * 5);
         this.handshakeReceiveAckFromServer();
 
-        System.out.println("[+] - Handshake completed successfully!");
+        Log.info("Handshake completed successfully!");
         this.clientSocket.setSoTimeout(0);
     }
 
 
     /**
-     * Sends a serialized message to the server.
+     * Encodes a message with the negotiated protocol and sends it to the server.
      *
-     * @param message The serialized message string
+     * @param message The message fields
      */
-    private void writeOutputBuffer(String message) {
-        this.out.println(message);
-        this.out.flush();
+    private void writeOutputBuffer(Map<String, String> message) {
+        byte[] bytes;
+        synchronized (this.frame) {
+            DeflateCodec deflate = this.deflate;
+            bytes = this.binaryNegotiated
+                    ? (deflate != null ? deflate : BinaryCodec.INSTANCE).encode(this.parser.toFrame(message, this.frame)).array()
+                    : (this.parser.serialize(message) + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        try {
+            synchronized (this.out) {
+                this.out.write(bytes);
+                this.out.flush();
+            }
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        }
     }
 
     /**
-     * Sends a chat request to another client.
+     * Reads the next message from the server, a text line or a binary frame depending on
+     * the negotiated protocol. Bytes of a partially received message are kept across
+     * read timeouts. Heartbeats from the server are answered here and never returned.
+     *
+     * @return The message fields, or null if the server closed the connection
+     * @throws IOException if reading fails or times out
+     */
+    private Map<String, String> readMessage() throws IOException {
+        while (true) {
+            Map<String, String> message = this.binaryNegotiated ? this.takeBinaryFrame() : this.takeTextLine();
+            if(message != null && PayloadValue.PING.getValue().equals(message.get(Payload.REQUEST.getValue()))) {
+                this.writeOutputBuffer(Map.of(Payload.REQUEST.getValue(), PayloadValue.PONG.getValue()));
+                continue;
+            }
+            if(message != null) return message;
+
+            if(this.pendingLength == this.pending.length) {
+                this.pending = Arrays.copyOf(this.pending, this.pending.length * 2);
+            }
+
+            int read = this.in.read(this.pending, this.pendingLength, this.pending.length - this.pendingLength);
+            if(read < 0) return null;
+            this.pendingLength += read;
+        }
+    }
+
+    /**
+     * Takes the first complete text line from the received bytes.
+     *
+     * @return The parsed line, or null if no complete line was received yet
+     */
+    private Map<String, String> takeTextLine() {
+        for (int i = 0; i < this.pendingLength; i++) {
+            if(this.pending[i] != '\n') continue;
+
+            int end = i > 0 && this.pending[i - 1] == '\r' ? i - 1 : i;
+            String raw = new String(this.pending, 0, end, StandardCharsets.UTF_8);
+            this.consume(i + 1);
+            return this.parser.parseMessage(raw);
+        }
+        return null;
+    }
+
+    /**
+     * Takes the first complete binary frame from the received bytes.
+     *
+     * @return The decoded frame, or null if no complete frame was received yet
+     * @throws IOException if the frame is malformed
+     */
+    private Map<String, String> takeBinaryFrame() throws IOException {
+        int header = BinaryCodec.headerLength(this.pending, 0, this.pendingLength);
+        if(header == 0) return null;
+
+        int length = BinaryCodec.bodyLength(this.pending, 0);
+        if(this.pendingLength - header < length) return null;
+
+        DeflateCodec deflate = this.deflate;
+        Frame decoded;
+        if(deflate != null && length > 0 && DeflateCodec.isCompressed(this.pending, header)) {
+            byte[] body = new byte[DeflateCodec.inflatedLength(this.pending, header, length)];
+            int inflated = deflate.inflate(this.pending, header, length, body);
+            decoded = BinaryCodec.decode(body, 0, inflated, new Frame(), CharBuffer.allocate(inflated));
+        } else {
+            decoded = BinaryCodec.decode(this.pending, header, length, new Frame(), CharBuffer.allocate(length));
+        }
+        this.consume(header + length);
+        return this.parser.toMap(decoded);
+    }
+
+    /**
+     * Drops handled bytes from the front of {@link #pending}.
+     *
+     * @param count Number of bytes handled
+     */
+    private void consume(int count) {
+        System.arraycopy(this.pending, count, this.pending, 0, this.pendingLength - count);
+        this.pendingLength -= count;
+    }
+
+    /**
+     * Sends a chat request to another client and starts a session with it, requested until
+     * the other client accepts. The session becomes the active one.
      *
      * @param to Recipient client ID
      */
     private void sendMessageRequest(String to) {
-        if(this.recipientInstanceId != null){
-            System.out.printf("[+] - Already connected with a client %s.Dropping Chat Request Acknowledgement!\n", this.instanceId);
+        if(to.equals(this.instanceId)) {
+            Log.info("You can not chat with yourself!");
             return;
         }
+        ChatSession session = this.sessions.get(to);
+        if(session != null) {
+            Log.info("Already in a session with %s!", to);
+            this.active = session;
+            return;
+        }
+
+        session = new ChatSession(to, false, ChatSession.State.REQUESTED);
+        this.sessions.put(to, session);
+        this.active = session;
 
         Map<String, String> result = new HashMap<>(Map.of(
                 Payload.FROM.getValue(), this.instanceId,
@@ -225,16 +418,24 @@ public class Client extends Thread {
                 Payload.REQUEST.getValue(), PayloadValue.MESSAGE.getValue()
         ));
 
-        this.writeOutputBuffer(this.parser.serialize(result));
+        this.writeOutputBuffer(result);
+        Log.info("Chat request to %s sent successfully!", to);
     }
 
     /**
-     * Handles incoming chat request confirmation from the server.
+     * Accepts an incoming chat request and starts a session with its sender. The session
+     * becomes the active one unless another session is already active.
      *
      * @param to Sender client ID
      */
     private void handleMessageRequestConfirmation(String to) {
-        System.out.printf("[+] - Accepting message request from %s \n", to);
+        Log.info("Accepting message request from %s", to);
+        ChatSession session = this.sessions.computeIfAbsent(to, peer -> new ChatSession(peer, false, ChatSession.State.ACTIVE));
+        session.setState(ChatSession.State.ACTIVE);
+        if(this.active == null) {
+            this.active = session;
+        }
+
         Map<String, String> result = new HashMap<>(Map.of(
                 Payload.FROM.getValue(), this.instanceId,
                 Payload.TO.getValue(), to,
@@ -242,7 +443,33 @@ public class Client extends Thread {
                 Payload.STATUS.getValue(), ClientStatus.SUCCESS.getValue()
         ));
 
-        this.writeOutputBuffer(this.parser.serialize(result));
+        this.writeOutputBuffer(result);
+    }
+
+    /**
+     * Asks the server to join a chat room and starts a session with it, requested until the
+     * server confirms. The session becomes the active one.
+     *
+     * @param room Name of the room
+     */
+    private void joinRoom(String room) {
+        ChatSession session = this.rooms.get(room);
+        if(session != null) {
+            Log.info("Already in room %s!", room);
+            this.active = session;
+            return;
+        }
+
+        session = new ChatSession(room, true, ChatSession.State.REQUESTED);
+        this.rooms.put(room, session);
+        this.active = session;
+
+        Map<String, String> result = new HashMap<>(Map.of(
+                Payload.FROM.getValue(), this.instanceId,
+                Payload.TO.getValue(), room,
+                Payload.REQUEST.getValue(), PayloadValue.JOIN.getValue()
+        ));
+        this.writeOutputBuffer(result);
     }
 
     /**
@@ -254,28 +481,40 @@ public class Client extends Thread {
             this.in.close();
             this.clientSocket.close();
         } catch(IOException e) {
-            System.err.printf("[!] - %s\n", e.getMessage());
+            Log.error("%s", e.getMessage());
         }
     }
 
     /**
-     * Processes a raw message received from the server.
+     * Processes a message received from the server.
      *
-     * <p>This method parses the raw message using the {@link MessageParser} and
-     * determines if it is a valid message payload. It handles the following:
+     * <p>This method determines if the message decoded by {@link #readMessage()} is a
+     * valid message payload, and finds the session it belongs to with a single map lookup
+     * on the sender or the room. It handles the following:
      * <ul>
      *     <li>If the payload contains all fields (request, from, to, message, status), it
      *         is considered invalid and an {@link IOException} is thrown.</li>
+     *     <li>If the payload is a room broadcast, the message is displayed with the sender
+     *         and the room, e.g. {@code [hashed@lobby]}, and counted in the room's session.</li>
+     *     <li>If the payload answers a join, the room's session becomes active, or is dropped
+     *         if the server refused it.</li>
      *     <li>If the payload contains a message and a sender, it calls
-     *         {@link #processMessage(String, String)} to display the message.</li>
+     *         {@link #processMessage(ChatSession, String, String)} to display the message and
+     *         count it in the sender's session, started if the sender is new, e.g. for
+     *         messages stored while this client was offline.</li>
+     *     <li>If the payload is a chat request from another client, it is accepted by
+     *         {@link #handleMessageRequestConfirmation(String)}.</li>
+     *     <li>If the payload answers a chat request of this client, the session becomes active,
+     *         or is dropped if the other client could not be reached.</li>
+     *     <li>If a message was refused because its receiver is busy, or because this client is
+     *         sending faster than the server's rate limit, a warning is logged.</li>
      *     <li>Any other payload structure is considered invalid and triggers an exception.</li>
      * </ul>
      *
-     * @param raw The raw message string received from the server.
+     * @param parsed The message fields received from the server.
      * @throws IOException If the payload is invalid or cannot be processed.
      */
-    private void processServerRawData(String raw) throws IOException {
-        Map<String, String> parsed = parser.parseMessage(raw);
+    private void processServerRawData(Map<String, String> parsed) throws IOException {
 
         String request = parsed.get(Payload.REQUEST.getValue());
         String from = parsed.get(Payload.FROM.getValue());
@@ -287,232 +526,274 @@ public class Client extends Thread {
             throw new IOException(String.format("Invalid payload received from server %s!", from));
         }
 
+        if(PayloadValue.BROADCAST.getValue().equals(request)) {
+            if(message != null && from != null && to != null) {
+                ChatSession room = this.rooms.get(to);
+                if(room == null) throw new IOException(String.format("Not a member of room %s!", to));
+                this.processMessage(room, String.format("%s@%s", from, to), message);
+                return;
+            }
+            if(ClientStatus.FAILED.getValue().equals(status)) {
+                throw new IOException(String.format("Not a member of room %s!", to));
+            }
+            if(ClientStatus.THROTTLED.getValue().equals(status)) {
+                Log.warn("You are sending too fast, your message to %s was not delivered!", to);
+                return;
+            }
+        }
+
+        if(PayloadValue.JOIN.getValue().equals(request) && to != null) {
+            if(ClientStatus.SUCCESS.getValue().equals(status)) {
+                ChatSession room = this.rooms.get(to);
+                if(room != null) room.setState(ChatSession.State.ACTIVE);
+                Log.info("Joined room %s!", to);
+                return;
+            }
+            this.dropSession(this.rooms, to);
+            throw new IOException(String.format("Could not join room %s!", to));
+        }
+
         if(message != null && from != null) {
-            this.processMessage(from, message);
+            ChatSession session = this.sessions.computeIfAbsent(from, peer -> new ChatSession(peer, false, ChatSession.State.ACTIVE));
+            this.processMessage(session, from, message);
             return;
         }
 
+        if(PayloadValue.MESSAGE.getValue().equals(request) && from != null) {
+            if(status == null) {
+                this.handleMessageRequestConfirmation(from);
+                return;
+            }
+            if(ClientStatus.SUCCESS.getValue().equals(status)) {
+                ChatSession session = this.sessions.get(from);
+                if(session != null) session.setState(ChatSession.State.ACTIVE);
+                Log.info("Connected with %s!", from);
+                return;
+            }
+            if(ClientStatus.FAILED.getValue().equals(status)) {
+                this.dropSession(this.sessions, from);
+                throw new IOException(String.format("Could not connect with %s!", from));
+            }
+            if(ClientStatus.BUSY.getValue().equals(status)) {
+                Log.warn("%s is not keeping up, your message was not delivered!", from);
+                return;
+            }
+            if(ClientStatus.THROTTLED.getValue().equals(status)) {
+                Log.warn("You are sending too fast, your message to %s was not delivered!", from);
+                return;
+            }
+        }
+
         throw new IOException(String.format("Invalid payload received from client %s!", from));
     }
 
     /**
-     * Handles an incoming message request from another client.
-     *
-     * <p>This method reads from the server input stream and waits for a message request
-     * or confirmation. It enforces a retry mechanism and a socket timeout to handle
-     * network delays. Specifically:
-     * <ul>
-     *     <li>If the client is already connected to another recipient, the request is ignored.</li>
-     *     <li>If a valid SUCCESS status is received, the {@link #recipientInstanceId} is set and the method returns.</li>
-     *     <li>If a FAILED status is received, an {@link IOException} is thrown.</li>
-     *     <li>If no status is present, the method automatically confirms the request
-     *         by calling {@link #handleMessageRequestConfirmation(String)}.</li>
-     * </ul>
-     *
-     * <p>Retries up to 4 times in case of socket timeouts.
+     * Drops a session the other side refused. If it was the active one, no session is active
+     * until the user picks another.
      *
-     * @throws IOException If the payload from the server is invalid or connection fails.
+     * @param sessions The sessions it belongs to, {@link #sessions} or {@link #rooms}
+     * @param peer     Instance ID of the other player, or name of the room
      */
-    private void handleMessageRequest() throws IOException {
-        int retries =  4;
-        this.clientSocket.setSoTimeout(1000 * 60);
-
-        if(this.recipientInstanceId != null){
-            System.out.printf("[+] - Already connected with a client %s. Dropping Message Request!\n", this.recipientInstanceId);
-            return;
-        }
-        while(retries > 0) {
-            try{
-                String raw = this.in.readLine();
-
-                if(raw == null) throw new NullPointerException();
-
-                Map<String, String> parsed = parser.parseMessage(raw);
-
-                String request = parsed.get(Payload.REQUEST.getValue());
-                String from = parsed.get(Payload.FROM.getValue());
-                String status = parsed.get(Payload.STATUS.getValue());
-
-                if(request == null || from == null) throw new IOException("Invalid payload received from server!");
-
-                if(status != null) {
-                    if(status.equals(PayloadValue.SUCCESS.getValue())) {
-                        System.out.printf("[+] - Connected with %s!\n", from);
-                        this.recipientInstanceId = from;
-                        return;
-                    } else if(status.equals(PayloadValue.FAILED.getValue())) {
-                        this.recipientInstanceId = null;
-                        throw new IOException(String.format("Could not connect with %s!\n", from));
-                    } else throw new IOException(String.format("Invalid payload received from server! %s!", from));
-                } else {
-                    this.handleMessageRequestConfirmation(from);
-                    this.recipientInstanceId = from;
-                    return;
-                }
-            } catch (NullPointerException e) {
-                System.err.println("[!] - Connection closed with server! Message request failed!");
-                return;
-            }
-            catch (SocketTimeoutException e){
-                retries--;
-                System.out.println("[!] - Waiting for server!");
-            } catch (IOException e) {
-                System.out.printf("[!] - %s\n", e.getMessage());
-            }
+    private void dropSession(Map<String, ChatSession> sessions, String peer) {
+        ChatSession session = sessions.remove(peer);
+        if(session != null && this.active == session) {
+            this.active = null;
         }
     }
 
     /**
-     * Listens for incoming messages from the server and processes them.
+     * Listens for incoming messages from the server and processes them, for every session,
+     * until the connection is closed.
      */
     private void listenForIncomingMessages() {
-        while (this.receivedMessageCounter <= MAX_MESSAGES) {
-            if(this.recipientInstanceId == null){
-                System.out.println("[!] - No recipient is connected!");
-                break;
-            }
-
+        while (true) {
             try {
-                String raw = in.readLine();
-                if (raw == null) throw new NullPointerException();
+                Map<String, String> parsed = this.readMessage();
+                if (parsed == null) throw new NullPointerException();
 
-                this.processServerRawData(raw);
+                this.processServerRawData(parsed);
             } catch (NullPointerException e) {
-                System.err.println("[!] - Connection closed with server!");
+                Log.error("Connection closed with server!");
                 return;
             }
             catch (SocketTimeoutException e) {
             //  Continue listening..
             } catch (IOException e) {
-                System.out.printf("[!] - %s\n", e.getMessage());
+                Log.error("%s", e.getMessage());
             }
+            this.prompt();
         }
     }
 
     /**
-     * Listens for user input messages and sends them to the recipient.
+     * Listens for user input and either runs a command or sends the line to the active
+     * session. Commands:
+     * <ul>
+     *     <li>{@code /chat <player>} sends a chat request to another player.</li>
+     *     <li>{@code /join <room>} joins a chat room.</li>
+     *     <li>{@code /to <player>} or {@code /to #<room>} switches the active session.</li>
+     *     <li>{@code /sessions} lists the sessions.</li>
+     *     <li>{@code /exit} closes the connection.</li>
+     * </ul>
      */
     private void listenForMessageInputs() {
-        while (this.counter <= MAX_MESSAGES) {
-            System.out.printf("[%s]: {%d} - ", this.instanceId, this.counter);
-            this.sendMessage(scanner.nextLine());
+        while (true) {
+            this.prompt();
+            String line = this.scanner.nextLine();
+
+            if(line.startsWith("/chat ")) {
+                this.sendMessageRequest(line.substring(6).trim());
+            } else if(line.startsWith("/join ")) {
+                this.joinRoom(line.substring(6).trim());
+            } else if(line.startsWith("/to ")) {
+                String peer = line.substring(4).trim();
+                ChatSession session = peer.startsWith("#") ? this.rooms.get(peer.substring(1)) : this.sessions.get(peer);
+                if(session == null) {
+                    Log.info("No session with %s! Start one with /chat or /join", peer);
+                } else {
+                    this.active = session;
+                }
+            } else if(line.equals("/sessions")) {
+                Log.flush();
+                this.sessions.values().forEach(session -> System.out.printf("\t%s%s\n", session == this.active ? "* " : "", session));
+                this.rooms.values().forEach(session -> System.out.printf("\t%s%s\n", session == this.active ? "* " : "", session));
+            } else if(line.equals("/exit")) {
+                Log.info("Exiting...");
+                this.closeConnection();
+                System.exit(-1);
+            } else {
+                this.sendMessage(line);
+            }
         }
     }
 
     /**
-     * Sends a message to the connected recipient.
+     * Prints the prompt of the active session, with the number of the next message.
+     */
+    private void prompt() {
+        ChatSession session = this.active;
+        Log.flush();
+        if(session == null || !session.canSend()) {
+            System.out.printf("[%s]: ", this.instanceId);
+        } else {
+            System.out.printf("[%s -> %s%s]: {%d} - ", this.instanceId, session.isRoom() ? "#" : "",
+                    session.getPeer(), session.nextMessage());
+        }
+    }
+
+    /**
+     * Sends a message to the active session.
      *
      * @param message The message content
      */
     private void sendMessage(String message) {
-        if(this.recipientInstanceId == null){
-            System.out.println("[+] - No Recipient is connected! Try again after starting a session\n");
+        ChatSession session = this.active;
+        if(session == null){
+            Log.info("No Recipient is connected! Try again after starting a session");
             return;
         }
 
-        if(this.counter > MAX_MESSAGES){
-            System.out.println("[+] - Max limit reached! Now you can only receive messages!");
+        if(session.getState() != ChatSession.State.ACTIVE) {
+            Log.info("%s has not accepted yet! Try again later", session.getPeer());
+            return;
+        }
+
+        if(!session.canSend()){
+            Log.info("Max limit reached! Now you can only receive messages from %s!", session.getPeer());
             return;
         }
 
         Map<String, String> result = new HashMap<>(Map.of(
                 Payload.FROM.getValue(), this.instanceId,
-                Payload.TO.getValue(), this.recipientInstanceId,
+                Payload.TO.getValue(), session.getPeer(),
                 Payload.MESSAGE.getValue(), message
         ));
+        if(session.isRoom()) {
+            result.put(Payload.REQUEST.getValue(), PayloadValue.BROADCAST.getValue());
+        }
 
-        String serializedMessage = this.parser.serialize(result);
-
-        this.out.println(serializedMessage);
-        this.counter += 1;
+        this.writeOutputBuffer(result);
+        session.countSent();
     }
 
     /**
-     * Processes a message received from the server.
+     * Displays a message received from the server and counts it in its session.
      *
-     * @param from Sender client ID
+     * @param session The session the message belongs to
+     * @param from    Sender client ID
      * @param message Message content
-     * @throws IOException if an error occurs during processing
      */
-    private void processMessage(String from, String message) throws IOException {
+    private void processMessage(ChatSession session, String from, String message) {
+        Log.flush();
         // Moves the cursor to first position
         System.out.print("\r\033[2K");
         // Replaces the whole line
         System.out.printf("[%s]: %s\n", from, message);
-        if(this.counter <= MAX_MESSAGES){
-            System.out.printf("[%s]: {%d} - ", this.instanceId, this.counter);
-        }
-        this.receivedMessageCounter += 1;
+        session.countReceived();
     }
 
     /**
-     * Main thread execution for the client. Displays menu, handles
-     * input, starts listener threads for messages and user input.
+     * Main thread execution for the client. Displays menu, starts the first session,
+     * then starts listener threads for messages and user input. More sessions can be
+     * started from the input afterwards.
      */
     public void run() {
+        Log.flush();
         System.out.println("[+] - Choose from menu");
-        System.out.println("\t1. Send Chat Request\n\t2. Listen for Chat Request\n\t3. Exit");
+        System.out.println("\t1. Send Chat Request\n\t2. Listen for Chat Request\n\t3. Join Chat Room\n\t4. Exit");
         int choice = 0;
         boolean exit = false;
-        try{
 
-
-            while(!exit){
-                try{
-                    System.out.print("[+] Your choice: ");
-                    choice = Integer.parseInt(this.scanner.nextLine());
-                } catch (NumberFormatException e){
-                    continue;
+        while(!exit){
+            try{
+                Log.flush();
+                System.out.print("[+] Your choice: ");
+                choice = Integer.parseInt(this.scanner.nextLine());
+            } catch (NumberFormatException e){
+                continue;
+            }
+            switch (choice) {
+                case 1: {
+                    Log.flush();
+                    System.out.print("[+] - Enter player Id: ");
+                    this.sendMessageRequest(this.scanner.nextLine());
+                    Log.info("Waiting for the recipient to accept request");
+                    exit = true;
+                    break;
                 }
-                switch (choice) {
-                    case 1: {
-                        System.out.print("[+] - Enter player Id: ");
-                        String playerId = scanner.nextLine();
-                        this.sendMessageRequest(playerId);
-                        System.out.printf("[+] - Chat request to %s sent successfully!\n", playerId);
-                        System.out.println("[+] - Waiting for the recipient to accept request");
-
-                        this.handleMessageRequest();
-                        exit = true;
-                        break;
-                    }
-                    case 2: {
-                        System.out.println("[+] - Waiting for the recipient to accept request");
-                        this.handleMessageRequest();
-                        exit = true;
-                        break;
-                    }
-                    case 3: {
-                        System.out.println("[+] - Exiting...");
-                        this.closeConnection();
-                        System.exit(-1);
-                        break;
-                    }
-                    default: System.out.println("[!] - Invalid request! Try again!");
+                case 2: {
+                    Log.info("Waiting for the recipient to accept request");
+                    exit = true;
+                    break;
                 }
+                case 3: {
+                    Log.flush();
+                    System.out.print("[+] - Enter room name: ");
+                    this.joinRoom(this.scanner.nextLine());
+                    exit = true;
+                    break;
+                }
+                case 4: {
+                    Log.info("Exiting...");
+                    this.closeConnection();
+                    System.exit(-1);
+                    break;
+                }
+                default: Log.error("Invalid request! Try again!");
             }
+        }
 
-            if(this.counter > MAX_MESSAGES && this.receivedMessageCounter > MAX_MESSAGES) {
-                this.closeConnection();
-                System.out.println("[+] - Exiting...!");
-                System.exit(-1);
-            }
-
-            if(this.listener == null) {
-                this.listener = new Thread(this::listenForIncomingMessages);
-                this.listener.start();
-            }
-
-            if(this.inputListener == null){
-                this.inputListener = new Thread(this::listenForMessageInputs);
-                this.inputListener.start();
-            }
+        Log.info("Commands: /chat <player>, /join <room>, /to <player|#room>, /sessions, /exit");
 
-        } catch (IOException e){
-            System.err.printf("[!] - %s\n", e.getMessage());
-            this.scanner.close();
+        if(this.listener == null) {
+            this.listener = new Thread(this::listenForIncomingMessages);
+            this.listener.start();
         }
 
+        if(this.inputListener == null){
+            this.inputListener = new Thread(this::listenForMessageInputs);
+            this.inputListener.start();
+        }
     }
 
 
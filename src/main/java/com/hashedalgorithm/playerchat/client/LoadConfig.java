@@ -0,0 +1,157 @@
+package com.hashedalgorithm.playerchat.client;
+
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+
+/**
+ * LoadConfig holds the settings of a {@link LoadGenerator} run.
+ *
+ * <p>Every setting has a default, so only the values that differ need to be set.
+ * Settings can also be read from command-line arguments of the form {@code --key=value}.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     LoadConfig config = new LoadConfig()
+ *             .setPlayers(2000)
+ *             .setRate(20000)
+ *             .setEmbeddedServer(ServerMode.SELECTOR);
+ *     new LoadGenerator(config).run();
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class LoadConfig {
+
+    /** Host of the server to load */
+    private String host = "127.0.0.1";
+
+    /** Port of the server to load */
+    private int port = 12345;
+
+    /** Number of simulated players; players are paired, so an odd count is rounded down */
+    private int players = 1000;
+
+    /** Chat messages sent per second across all players */
+    private int rate = 1000;
+
+    /** Duration of the messaging phase in seconds */
+    private int duration = 30;
+
+    /** Connections that may be opened at the same time during the connect phase */
+    private int connectConcurrency = 32;
+
+    /** Prefix of the generated instance IDs */
+    private String prefix = "load";
+
+    /** Mode of a server started inside the generator, or null to load an external server */
+    private ServerMode embeddedServer = null;
+
+    /**
+     * Builds a configuration from command-line arguments.
+     *
+     * <p>Supported arguments: {@code --host=<host>}, {@code --port=<port>}, {@code --players=<n>},
+     * {@code --rate=<messages per second>}, {@code --duration=<seconds>},
+     * {@code --connect-concurrency=<n>}, {@code --prefix=<name>} and
+     * {@code --server=<blocking|virtual|selector>} to start a server in the same process.
+     *
+     * @param args Command-line arguments
+     * @return The parsed configuration
+     * @throws IllegalArgumentException if an argument is unknown or malformed
+     */
+    public static LoadConfig fromArgs(String[] args) {
+        LoadConfig config = new LoadConfig();
+
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException(String.format("Invalid argument %s!", arg));
+            }
+
+            switch (keyValue[0]) {
+                case "--host" -> config.setHost(keyValue[1]);
+                case "--port" -> config.setPort(Integer.parseInt(keyValue[1]));
+                case "--players" -> config.setPlayers(Integer.parseInt(keyValue[1]));
+                case "--rate" -> config.setRate(Integer.parseInt(keyValue[1]));
+                case "--duration" -> config.setDuration(Integer.parseInt(keyValue[1]));
+                case "--connect-concurrency" -> config.setConnectConcurrency(Integer.parseInt(keyValue[1]));
+                case "--prefix" -> config.setPrefix(keyValue[1]);
+                case "--server" -> config.setEmbeddedServer(ServerMode.fromValue(keyValue[1]));
+                default -> throw new IllegalArgumentException(String.format("Unknown argument %s!", arg));
+            }
+        }
+        return config;
+    }
+
+    public String getHost() {
+        return this.host;
+    }
+
+    public LoadConfig setHost(String host) {
+        this.host = host;
+        return this;
+    }
+
+    public int getPort() {
+        return this.port;
+    }
+
+    public LoadConfig setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public int getPlayers() {
+        return this.players;
+    }
+
+    public LoadConfig setPlayers(int players) {
+        this.players = players;
+        return this;
+    }
+
+    public int getRate() {
+        return this.rate;
+    }
+
+    public LoadConfig setRate(int rate) {
+        this.rate = rate;
+        return this;
+    }
+
+    public int getDuration() {
+        return this.duration;
+    }
+
+    public LoadConfig setDuration(int duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public int getConnectConcurrency() {
+        return this.connectConcurrency;
+    }
+
+    public LoadConfig setConnectConcurrency(int connectConcurrency) {
+        this.connectConcurrency = connectConcurrency;
+        return this;
+    }
+
+    public String getPrefix() {
+        return this.prefix;
+    }
+
+    public LoadConfig setPrefix(String prefix) {
+        this.prefix = prefix;
+        return this;
+    }
+
+    public ServerMode getEmbeddedServer() {
+        return this.embeddedServer;
+    }
+
+    public LoadConfig setEmbeddedServer(ServerMode embeddedServer) {
+        this.embeddedServer = embeddedServer;
+        return this;
+    }
+}
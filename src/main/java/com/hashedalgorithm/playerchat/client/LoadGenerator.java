@@ -0,0 +1,304 @@
+package com.hashedalgorithm.playerchat.client;
+
+import com.hashedalgorithm.playerchat.enums.LogLevel;
+import com.hashedalgorithm.playerchat.server.RateLimit;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.server.ServerConfig;
+import com.hashedalgorithm.playerchat.utils.LatencyHistogram;
+import com.hashedalgorithm.playerchat.utils.Log;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless load generator: simulates thousands of players against a server on loopback.
+ *
+ * <p>A run has three phases:
+ * <ol>
+ *     <li><b>Connect</b> - opens {@link LoadConfig#getPlayers()} connections, at most
+ *         {@link LoadConfig#getConnectConcurrency()} at a time, and performs the handshake of
+ *         each with a generated instance ID.</li>
+ *     <li><b>Pair</b> - consecutive connected players become partners through the regular
+ *         {@code req:msg} request/confirm flow.</li>
+ *     <li><b>Message</b> - one pacing thread sends {@link LoadConfig#getRate()} chat messages per
+ *         second, round-robin over all paired players, for {@link LoadConfig#getDuration()} seconds.
+ *         Each message carries the time it was scheduled at rather than the time it was written,
+ *         so a stalled server shows up as latency instead of silently lowering the rate.</li>
+ * </ol>
+ * It then reports throughput and the connect, handshake and delivery latency histograms.
+ *
+ * <p>Every player is a {@link SimulatedPlayer} whose reader runs on a virtual thread, so the
+ * generator itself needs only a handful of platform threads. The server must allow unlimited
+ * messages ({@code --rate=0}); with {@code --server=<mode>} the generator starts
+ * such a server in its own process on a free port.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     java -cp target/classes com.hashedalgorithm.playerchat.client.LoadGenerator \
+ *             --server=selector --players=4000 --rate=20000 --duration=30
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class LoadGenerator {
+
+    /** Maximum time to wait for all players to be paired */
+    private static final long PAIRING_TIMEOUT_MILLIS = 30_000;
+
+    /** Maximum time to wait for messages still in flight after the last one was sent */
+    private static final long DRAIN_TIMEOUT_MILLIS = 5_000;
+
+    /** Settings of this run */
+    private final LoadConfig config;
+
+    /** Time to open a connection */
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+
+    /** Time from sending the handshake to its acknowledgment */
+    private final LatencyHistogram handshakeLatency = new LatencyHistogram();
+
+    /** Time from scheduling a message to its delivery */
+    private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+
+    /** Messages delivered */
+    private final LongAdder received = new LongAdder();
+
+    /** Connections or handshakes that failed */
+    private final LongAdder failedConnections = new LongAdder();
+
+    /** Where progress and the report are printed, whatever the level of the {@link Log} */
+    private final PrintStream console = System.out;
+
+    /**
+     * Creates a generator for the given settings.
+     *
+     * @param config The settings of the run
+     */
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Runs all phases and prints the report.
+     *
+     * @throws InterruptedException if interrupted while waiting for players
+     */
+    public void run() throws InterruptedException {
+        int port = this.config.getPort();
+        if (this.config.getEmbeddedServer() != null) {
+            port = this.startEmbeddedServer();
+        }
+
+        List<SimulatedPlayer> players = this.connect(port);
+        List<SimulatedPlayer> paired = this.pair(players);
+
+        long sent = 0;
+        long elapsed = 0;
+        if (!paired.isEmpty()) {
+            long start = System.nanoTime();
+            sent = this.sendMessages(paired);
+            elapsed = System.nanoTime() - start;
+            this.awaitDelivery(sent);
+        }
+
+        for (SimulatedPlayer player : players) {
+            player.close();
+        }
+        this.report(players.size(), paired.size(), sent, elapsed);
+    }
+
+    /**
+     * Starts a server in this process with unlimited messages, turning logging off so the
+     * server's connection events do not drown the report.
+     *
+     * @return The port the server listens on
+     */
+    private int startEmbeddedServer() {
+        Log.setLevel(LogLevel.OFF);
+
+        Server server = new Server(new ServerConfig()
+                .setPort(0)
+                .setMode(this.config.getEmbeddedServer())
+                .setMessageLimit(RateLimit.UNLIMITED));
+        server.setDaemon(true);
+        server.start();
+
+        this.console.printf("[+] - Started embedded %s server on port %d\n",
+                this.config.getEmbeddedServer().getValue(), server.getLocalPort());
+        return server.getLocalPort();
+    }
+
+    /**
+     * Connect phase: opens every connection and performs its handshake.
+     *
+     * @param port The server port
+     * @return The players whose handshake succeeded, in order
+     * @throws InterruptedException if interrupted while connecting
+     */
+    private List<SimulatedPlayer> connect(int port) throws InterruptedException {
+        int count = this.config.getPlayers() - this.config.getPlayers() % 2;
+        SimulatedPlayer[] players = new SimulatedPlayer[count];
+        Semaphore inFlight = new Semaphore(this.config.getConnectConcurrency());
+
+        this.console.printf("[+] - Connecting %d players to %s:%d\n", count, this.config.getHost(), port);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        players[index] = this.connectPlayer(index, port);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        List<SimulatedPlayer> connected = new ArrayList<>(count);
+        for (SimulatedPlayer player : players) {
+            if (player != null) {
+                connected.add(player);
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Opens one connection, performs its handshake and starts its reader.
+     *
+     * @return The player, or null if connecting or the handshake failed
+     */
+    private SimulatedPlayer connectPlayer(int index, int port) {
+        String instanceId = String.format("%s-%d", this.config.getPrefix(), index);
+        SimulatedPlayer player = new SimulatedPlayer(instanceId, this.deliveryLatency, this.received);
+        try {
+            long start = System.nanoTime();
+            player.open(this.config.getHost(), port);
+            long connected = System.nanoTime();
+            player.handshake();
+            long acknowledged = System.nanoTime();
+
+            this.connectLatency.record(connected - start);
+            this.handshakeLatency.record(acknowledged - connected);
+            Thread.ofVirtual().name(instanceId).start(player);
+            return player;
+        } catch (IOException e) {
+            this.console.printf("[!] - %s\n", e.getMessage());
+            this.failedConnections.increment();
+            player.close();
+            return null;
+        }
+    }
+
+    /**
+     * Pair phase: consecutive players become partners.
+     *
+     * @param players The connected players
+     * @return The players that have a partner
+     * @throws InterruptedException if interrupted while waiting for confirmations
+     */
+    private List<SimulatedPlayer> pair(List<SimulatedPlayer> players) throws InterruptedException {
+        this.console.printf("[+] - Pairing %d players\n", players.size());
+        for (int i = 0; i + 1 < players.size(); i += 2) {
+            try {
+                players.get(i).requestPartner(players.get(i + 1).getInstanceId());
+            } catch (IOException e) {
+                this.console.printf("[!] - %s\n", e.getMessage());
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + PAIRING_TIMEOUT_MILLIS;
+        List<SimulatedPlayer> paired = new ArrayList<>(players.size());
+        for (SimulatedPlayer player : players) {
+            if (player.awaitPaired(Math.max(1, deadline - System.currentTimeMillis()))) {
+                paired.add(player);
+            }
+        }
+        return paired;
+    }
+
+    /**
+     * Message phase: sends chat messages at the configured rate, round-robin over the players.
+     *
+     * @param players The paired players
+     * @return The number of messages sent
+     */
+    private long sendMessages(List<SimulatedPlayer> players) {
+        this.console.printf("[+] - Sending %d messages per second for %d seconds\n",
+                this.config.getRate(), this.config.getDuration());
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, this.config.getRate());
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(this.config.getDuration());
+
+        long sent = 0;
+        int next = 0;
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            try {
+                players.get(next).send(due);
+                sent++;
+            } catch (IOException e) {
+                this.console.printf("[!] - %s\n", e.getMessage());
+            }
+            next = next + 1 == players.size() ? 0 : next + 1;
+        }
+        return sent;
+    }
+
+    /**
+     * Waits until every sent message was delivered, or the drain timeout passes.
+     */
+    private void awaitDelivery(long sent) {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (this.received.sum() < sent && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    /**
+     * Prints the results of the run.
+     */
+    private void report(int connected, int paired, long sent, long elapsedNanos) {
+        long delivered = this.received.sum();
+        double seconds = Math.max(1, elapsedNanos) / 1e9;
+
+        this.console.println("[+] - Load generator report");
+        this.console.printf("[+] - Players: %d connected, %d failed, %d paired\n",
+                connected, this.failedConnections.sum(), paired);
+        this.console.printf("[+] - Messages: %d sent, %d delivered, %d lost\n", sent, delivered, sent - delivered);
+        this.console.printf("[+] - Throughput: %.0f sent/s, %.0f delivered/s\n", sent / seconds, delivered / seconds);
+        this.console.printf("[+] - Connect latency:   %s\n", this.connectLatency.summary(TimeUnit.MILLISECONDS));
+        this.console.printf("[+] - Handshake latency: %s\n", this.handshakeLatency.summary(TimeUnit.MILLISECONDS));
+        this.console.printf("[+] - Delivery latency:  %s\n", this.deliveryLatency.summary(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Entry point of the load generator.
+     *
+     * @param args Command-line arguments, see {@link LoadConfig#fromArgs(String[])}
+     * @throws InterruptedException if interrupted during the run
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Player Chat Load Generator");
+        System.out.println("--------------------------");
+        System.out.println();
+
+        new LoadGenerator(LoadConfig.fromArgs(args)).run();
+    }
+}
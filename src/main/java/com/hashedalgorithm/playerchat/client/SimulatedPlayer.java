@@ -0,0 +1,282 @@
+package com.hashedalgorithm.playerchat.client;
+
+import com.hashedalgorithm.playerchat.enums.ClientStatus;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.LatencyHistogram;
+import com.hashedalgorithm.playerchat.utils.Log;
+import com.hashedalgorithm.playerchat.utils.MessageParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SimulatedPlayer is one headless player of a {@link LoadGenerator}, speaking the text
+ * protocol over its own socket.
+ *
+ * <p>Unlike {@link Client} it never touches the console: the generator drives it through
+ * {@link #open(String, int)}, {@link #handshake()}, {@link #requestPartner(String)} and
+ * {@link #send(long)}, while {@link #run()} reads everything the server sends on a virtual
+ * thread. Incoming chat requests are accepted automatically. Every chat message carries the
+ * {@link System#nanoTime()} it was scheduled at, so the receiving player can record its
+ * delivery latency.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class SimulatedPlayer implements Runnable {
+
+    /** Unique identifier of this player */
+    private final String instanceId;
+
+    /** Latency from scheduling a message to its delivery, shared by all players */
+    private final LatencyHistogram deliveryLatency;
+
+    /** Messages delivered to any player, shared by all players */
+    private final LongAdder received;
+
+    /** Released once this player is paired with a partner, or pairing failed */
+    private final CountDownLatch paired = new CountDownLatch(1);
+
+    /** Parser for frames received from the server */
+    private final MessageParser parser = new MessageParser();
+
+    /** Reusable flyweight holding the frame being handled */
+    private final Frame frame = new Frame();
+
+    /** Reusable buffer outgoing chat messages are built in. Only used by the generator thread */
+    private final StringBuilder outgoing = new StringBuilder(128);
+
+    /**
+     * Serializes writes of the generator and the reader thread. A lock rather than a monitor,
+     * so a virtual thread blocked in a write does not pin its carrier.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** Socket connected to the server */
+    private Socket socket;
+
+    /** Output stream to the server */
+    private OutputStream out;
+
+    /** Input stream from the server */
+    private BufferedReader in;
+
+    /** Instance ID of the partner, once paired */
+    private volatile String partner;
+
+    /**
+     * Creates a player that is not connected yet.
+     *
+     * @param instanceId      The instance ID to claim
+     * @param deliveryLatency Histogram the delivery latency of received messages is recorded in
+     * @param received        Counter of received messages
+     */
+    public SimulatedPlayer(String instanceId, LatencyHistogram deliveryLatency, LongAdder received) {
+        this.instanceId = instanceId;
+        this.deliveryLatency = deliveryLatency;
+        this.received = received;
+    }
+
+    /**
+     * Returns the instance ID of this player.
+     *
+     * @return The instance ID
+     */
+    public String getInstanceId() {
+        return this.instanceId;
+    }
+
+    /**
+     * Opens the connection to the server.
+     *
+     * @param host Server host
+     * @param port Server port
+     * @throws IOException if the connection cannot be opened
+     */
+    public void open(String host, int port) throws IOException {
+        this.socket = new Socket();
+        this.socket.setTcpNoDelay(true);
+        this.socket.connect(new InetSocketAddress(host, port));
+        this.out = this.socket.getOutputStream();
+        this.in = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends the handshake and waits for the server's acknowledgment.
+     *
+     * @throws IOException if the handshake is rejected or the connection fails
+     */
+    public void handshake() throws IOException {
+        this.write(String.format("%s:%s|%s:%s",
+                Payload.REQUEST.getValue(), PayloadValue.HANDSHAKE.getValue(),
+                Payload.FROM.getValue(), this.instanceId));
+
+        String raw = this.in.readLine();
+        if (raw == null) {
+            throw new IOException(String.format("Connection closed during handshake of %s!", this.instanceId));
+        }
+
+        Frame ack = this.parser.parse(raw, this.frame);
+        if (!ack.is(Payload.STATUS, ClientStatus.SUCCESS.getValue())) {
+            throw new IOException(String.format("Handshake of %s rejected: %s", this.instanceId, raw));
+        }
+    }
+
+    /**
+     * Asks another player to chat. The server forwards the request, the partner accepts it
+     * and {@link #awaitPaired(long)} returns once the confirmation arrives.
+     *
+     * @param partnerId Instance ID of the partner
+     * @throws IOException if the request cannot be sent
+     */
+    public void requestPartner(String partnerId) throws IOException {
+        this.write(String.format("%s:%s|%s:%s|%s:%s",
+                Payload.FROM.getValue(), this.instanceId,
+                Payload.TO.getValue(), partnerId,
+                Payload.REQUEST.getValue(), PayloadValue.MESSAGE.getValue()));
+    }
+
+    /**
+     * Waits until this player is paired.
+     *
+     * @param timeoutMillis Maximum time to wait
+     * @return true if the player has a partner
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitPaired(long timeoutMillis) throws InterruptedException {
+        this.paired.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        return this.partner != null;
+    }
+
+    /**
+     * Sends one chat message to the partner. Must only be called by the generator thread.
+     *
+     * @param scheduledNanos The {@link System#nanoTime()} the message was due, carried as its body
+     * @throws IOException if writing fails
+     */
+    public void send(long scheduledNanos) throws IOException {
+        String to = this.partner;
+        if (to == null) {
+            return;
+        }
+
+        this.outgoing.setLength(0);
+        this.outgoing.append(Payload.FROM.getValue()).append(':').append(this.instanceId)
+                .append('|').append(Payload.TO.getValue()).append(':').append(to)
+                .append('|').append(Payload.MESSAGE.getValue()).append(':').append(scheduledNanos)
+                .append('\n');
+        this.writeBytes(this.outgoing.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Closes the connection, which also ends {@link #run()}.
+     */
+    public void close() {
+        try {
+            if (this.socket != null) {
+                this.socket.close();
+            }
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads frames from the server until the connection closes: accepts chat requests,
+     * completes pairing and records the delivery latency of chat messages.
+     */
+    @Override
+    public void run() {
+        try {
+            String raw;
+            while ((raw = this.in.readLine()) != null) {
+                this.handle(this.parser.parse(raw, this.frame));
+            }
+        } catch (IOException e) {
+            // Closed by the generator at the end of the run.
+        } finally {
+            this.paired.countDown();
+        }
+    }
+
+    /**
+     * Handles one frame received after the handshake.
+     */
+    private void handle(Frame received) throws IOException {
+        CharSequence message = received.get(Payload.MESSAGE);
+        if (message != null) {
+            long now = System.nanoTime();
+            int start = message.length();
+            while (start > 0 && Character.isDigit(message.charAt(start - 1))) {
+                start--;
+            }
+            if (start < message.length()) {
+                this.deliveryLatency.record(now - parseLong(message, start));
+            }
+            this.received.increment();
+            return;
+        }
+
+        if (!received.is(Payload.REQUEST, PayloadValue.MESSAGE.getValue())) {
+            return;
+        }
+
+        String from = received.getString(Payload.FROM);
+        if (!received.has(Payload.STATUS)) {
+            this.write(String.format("%s:%s|%s:%s|%s:%s|%s:%s",
+                    Payload.FROM.getValue(), this.instanceId,
+                    Payload.TO.getValue(), from,
+                    Payload.REQUEST.getValue(), PayloadValue.MESSAGE.getValue(),
+                    Payload.STATUS.getValue(), ClientStatus.SUCCESS.getValue()));
+            this.partner = from;
+            this.paired.countDown();
+        } else if (received.is(Payload.STATUS, ClientStatus.SUCCESS.getValue())) {
+            this.partner = from;
+            this.paired.countDown();
+        } else {
+            this.paired.countDown();
+        }
+    }
+
+    /**
+     * Writes one frame as a line.
+     */
+    private void write(String frame) throws IOException {
+        this.writeBytes((frame + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes encoded bytes; the generator and the reader may both write.
+     */
+    private void writeBytes(byte[] bytes) throws IOException {
+        this.writeLock.lock();
+        try {
+            this.out.write(bytes);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Parses the decimal digits from an offset to the end of a sequence.
+     */
+    private static long parseLong(CharSequence value, int start) {
+        long result = 0;
+        for (int i = start; i < value.length(); i++) {
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+        return result;
+    }
+}
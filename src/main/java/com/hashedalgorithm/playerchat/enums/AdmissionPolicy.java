@@ -0,0 +1,52 @@
+package com.hashedalgorithm.playerchat.enums;
+
+/**
+ * Enum representing what the server does with a new connection once its admission limit is reached.
+ *
+ * <p>Values include:
+ * <ul>
+ *     <li>{@link #BLOCK} - Stop accepting until a connected client leaves ("block").</li>
+ *     <li>{@link #REJECT} - Accept the connection, answer the handshake with
+ *         {@link ClientStatus#BLOCKED} and close it ("reject").</li>
+ * </ul>
+ */
+public enum AdmissionPolicy {
+    BLOCK("block"),
+    REJECT("reject");
+
+    private final String value;
+
+    /**
+     * Constructs an {@link AdmissionPolicy} enum with the associated string value.
+     *
+     * @param value The string value used to select this policy at startup.
+     */
+    AdmissionPolicy(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the string value associated with this policy.
+     *
+     * @return The string representation of the admission policy.
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Resolves an admission policy from its string value.
+     *
+     * @param value The string value, e.g. "reject".
+     * @return The matching {@link AdmissionPolicy}.
+     * @throws IllegalArgumentException if no policy matches the given value.
+     */
+    public static AdmissionPolicy fromValue(String value) {
+        for (AdmissionPolicy policy : values()) {
+            if (policy.value.equalsIgnoreCase(value)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown admission policy %s!", value));
+    }
+}
@@ -12,12 +12,18 @@ package com.hashedalgorithm.playerchat.enums;
  *     <li>{@link #SUCCESS} - Indicates that the operation or request completed successfully ("success").</li>
  *     <li>{@link #FAILED} - Indicates that the operation or request failed ("failed").</li>
  *     <li>{@link #BLOCKED} - Indicates that the operation or request is blocked ("blocked").</li>
+ *     <li>{@link #BUSY} - Indicates that a message was refused because its receiver is not
+ *         reading fast enough ("busy").</li>
+ *     <li>{@link #THROTTLED} - Indicates that a message was refused because its sender is
+ *         sending faster than its rate limit ("throttled").</li>
  * </ul>
  */
 public enum ClientStatus {
     SUCCESS("success"),
     FAILED("failed"),
-    BLOCKED("blocked");
+    BLOCKED("blocked"),
+    BUSY("busy"),
+    THROTTLED("throttled");
 
     private final String status;
 
@@ -39,4 +45,20 @@ public enum ClientStatus {
         return this.status;
     }
 
+    /**
+     * Returns the status with the given string value.
+     *
+     * @param value The string value of a status
+     * @return The matching status
+     * @throws IllegalArgumentException if no status has this value
+     */
+    public static ClientStatus fromValue(String value) {
+        for (ClientStatus status : values()) {
+            if (status.status.equals(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown client status %s!", value));
+    }
+
 }
@@ -0,0 +1,74 @@
+package com.hashedalgorithm.playerchat.enums;
+
+/**
+ * Enum representing the severity levels of {@link com.hashedalgorithm.playerchat.utils.Log}.
+ *
+ * <p>Levels are ordered from least to most verbose. A logger set to a level records events of
+ * that level and every level before it, so {@link #INFO} records errors, warnings and info
+ * events but skips debug events, which is what the per-message events of the server use.
+ *
+ * <p>Values include:
+ * <ul>
+ *     <li>{@link #OFF} - Records nothing ("off").</li>
+ *     <li>{@link #ERROR} - Failures, printed with a {@code [!]} prefix ("error").</li>
+ *     <li>{@link #WARN} - Recoverable problems such as timeouts, printed with a {@code [!]} prefix ("warn").</li>
+ *     <li>{@link #INFO} - Lifecycle events such as connections and handshakes ("info").</li>
+ *     <li>{@link #DEBUG} - Events for every routed message or request ("debug").</li>
+ * </ul>
+ */
+public enum LogLevel {
+    OFF("off", ""),
+    ERROR("error", "[!] - "),
+    WARN("warn", "[!] - "),
+    INFO("info", "[+] - "),
+    DEBUG("debug", "[+] - ");
+
+    private final String value;
+
+    private final String prefix;
+
+    /**
+     * Constructs a {@link LogLevel} enum with the associated string value.
+     *
+     * @param value  The string value used to select this level at startup.
+     * @param prefix The prefix printed before every event of this level.
+     */
+    LogLevel(String value, String prefix) {
+        this.value = value;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Returns the string value associated with this level.
+     *
+     * @return The string representation of the level.
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Returns the prefix printed before every event of this level.
+     *
+     * @return The console prefix, e.g. "[!] - ".
+     */
+    public String getPrefix() {
+        return this.prefix;
+    }
+
+    /**
+     * Resolves a log level from its string value.
+     *
+     * @param value The string value, e.g. "debug".
+     * @return The matching {@link LogLevel}.
+     * @throws IllegalArgumentException if no level matches the given value.
+     */
+    public static LogLevel fromValue(String value) {
+        for (LogLevel level : values()) {
+            if (level.value.equalsIgnoreCase(value)) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown log level %s!", value));
+    }
+}
@@ -0,0 +1,51 @@
+package com.hashedalgorithm.playerchat.enums;
+
+/**
+ * Enum representing which message a full offline mailbox gives up when another one arrives.
+ *
+ * <p>Values include:
+ * <ul>
+ *     <li>{@link #DROP_OLDEST} - Evict the oldest stored message to make room ("drop-oldest").</li>
+ *     <li>{@link #DROP_NEWEST} - Keep the stored messages and discard the new one ("drop-newest").</li>
+ * </ul>
+ */
+public enum MailboxPolicy {
+    DROP_OLDEST("drop-oldest"),
+    DROP_NEWEST("drop-newest");
+
+    private final String value;
+
+    /**
+     * Constructs a {@link MailboxPolicy} enum with the associated string value.
+     *
+     * @param value The string value used to select this policy at startup.
+     */
+    MailboxPolicy(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the string value associated with this policy.
+     *
+     * @return The string representation of the mailbox policy.
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Resolves a mailbox policy from its string value.
+     *
+     * @param value The string value, e.g. "drop-newest".
+     * @return The matching {@link MailboxPolicy}.
+     * @throws IllegalArgumentException if no policy matches the given value.
+     */
+    public static MailboxPolicy fromValue(String value) {
+        for (MailboxPolicy policy : values()) {
+            if (policy.value.equalsIgnoreCase(value)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown mailbox policy %s!", value));
+    }
+}
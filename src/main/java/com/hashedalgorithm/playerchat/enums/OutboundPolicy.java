@@ -0,0 +1,57 @@
+package com.hashedalgorithm.playerchat.enums;
+
+/**
+ * Enum representing what happens when a frame is written to a client whose outbound queue has
+ * reached its frame or byte limit, because the client reads slower than it is written to.
+ *
+ * <p>Values include:
+ * <ul>
+ *     <li>{@link #DROP_OLDEST} - Evict the oldest queued frames to make room ("drop-oldest").</li>
+ *     <li>{@link #DROP_NEWEST} - Keep the queued frames and discard the new one ("drop-newest").</li>
+ *     <li>{@link #REJECT_SENDER} - Refuse the frame and tell its sender the receiver is
+ *         {@link ClientStatus#BUSY} ("reject-sender").</li>
+ *     <li>{@link #DISCONNECT} - Close the connection of the slow client ("disconnect").</li>
+ * </ul>
+ */
+public enum OutboundPolicy {
+    DROP_OLDEST("drop-oldest"),
+    DROP_NEWEST("drop-newest"),
+    REJECT_SENDER("reject-sender"),
+    DISCONNECT("disconnect");
+
+    private final String value;
+
+    /**
+     * Constructs an {@link OutboundPolicy} enum with the associated string value.
+     *
+     * @param value The string value used to select this policy at startup.
+     */
+    OutboundPolicy(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the string value associated with this policy.
+     *
+     * @return The string representation of the outbound policy.
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Resolves a outbound policy from its string value.
+     *
+     * @param value The string value, e.g. "drop-newest".
+     * @return The matching {@link OutboundPolicy}.
+     * @throws IllegalArgumentException if no policy matches the given value.
+     */
+    public static OutboundPolicy fromValue(String value) {
+        for (OutboundPolicy policy : values()) {
+            if (policy.value.equalsIgnoreCase(value)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown outbound policy %s!", value));
+    }
+}
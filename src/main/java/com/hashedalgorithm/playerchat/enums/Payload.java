@@ -14,7 +14,15 @@ package com.hashedalgorithm.playerchat.enums;
  *     <li>{@link #FROM} - Represents the sender's instance ID ("from").</li>
  *     <li>{@link #STATUS} - Represents the status of a request or message ("stat").</li>
  *     <li>{@link #INSTANCE_ID} - Represents the unique ID of a client instance ("id").</li>
+ *     <li>{@link #ENCODING} - Represents the wire encoding negotiated in the handshake ("enc").</li>
+ *     <li>{@link #CORRELATION} - Represents the correlation ID a client gave a request, echoed in its answers ("cid").</li>
+ *     <li>{@link #SEQUENCE} - Represents the sequence number the server gave a chat message for its receiver ("seq").</li>
+ *     <li>{@link #ACK} - Represents the highest sequence number a client received, counting every one before it ("ack").</li>
+ *     <li>{@link #HANDLE} - Represents the integer handle of a player, which frames may address it by instead of its instance ID ("hid").</li>
  * </ul>
+ *
+ * <p>The ordinal of a key is its field key in {@link com.hashedalgorithm.playerchat.utils.BinaryCodec},
+ * so new keys must be appended.
  */
 public enum Payload {
     MESSAGE("msg"),
@@ -22,7 +30,12 @@ public enum Payload {
     TO("to"),
     FROM("from"),
     STATUS("stat"),
-    INSTANCE_ID("id");
+    INSTANCE_ID("id"),
+    ENCODING("enc"),
+    CORRELATION("cid"),
+    SEQUENCE("seq"),
+    ACK("ack"),
+    HANDLE("hid");
 
     private final String value;
 
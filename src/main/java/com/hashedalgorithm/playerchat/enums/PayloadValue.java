@@ -13,13 +13,40 @@ package com.hashedalgorithm.playerchat.enums;
  *     <li>{@link #HANDSHAKE} - Represents a handshake request payload ("handshake").</li>
  *     <li>{@link #SUCCESS} - Represents a successful status response ("success").</li>
  *     <li>{@link #FAILED} - Represents a failed status response ("failed").</li>
+ *     <li>{@link #BINARY} - Represents the length-prefixed binary encoding ("bin").</li>
+ *     <li>{@link #STATS} - Represents a request for the server's metrics ("stats").</li>
+ *     <li>{@link #JOIN} - Represents a request to join the chat room named in {@code to} ("join").</li>
+ *     <li>{@link #LEAVE} - Represents a request to leave the chat room named in {@code to} ("leave").</li>
+ *     <li>{@link #BROADCAST} - Represents a chat message to every member of the room named in {@code to} ("broadcast").</li>
+ *     <li>{@link #PING} - Represents a heartbeat that must be answered with {@link #PONG} ("ping").</li>
+ *     <li>{@link #PONG} - Represents the answer to a heartbeat ("pong").</li>
+ *     <li>{@link #DEFLATE} - Represents the binary encoding with large frames compressed ("deflate").</li>
+ *     <li>{@link #PRESENCE} - Represents a request for the players online, or a change of them ("presence").</li>
+ *     <li>{@link #SUBSCRIBE} - Represents a request for the players online and every later change ("subscribe").</li>
+ *     <li>{@link #UNSUBSCRIBE} - Represents a request to stop receiving changes of the players online ("unsubscribe").</li>
+ *     <li>{@link #ACK} - Represents an acknowledgement of the sequence number in {@code ack}, sent when there is nothing to piggy-back it on ("ack").</li>
  * </ul>
+ *
+ * <p>The ordinal of a value is its opcode in {@link com.hashedalgorithm.playerchat.utils.BinaryCodec},
+ * so new values must be appended.
  */
 public enum PayloadValue {
     MESSAGE("msg"),
     HANDSHAKE("handshake"),
     SUCCESS("success"),
-    FAILED("failed");
+    FAILED("failed"),
+    BINARY("bin"),
+    STATS("stats"),
+    JOIN("join"),
+    LEAVE("leave"),
+    BROADCAST("broadcast"),
+    PING("ping"),
+    PONG("pong"),
+    DEFLATE("deflate"),
+    PRESENCE("presence"),
+    SUBSCRIBE("subscribe"),
+    UNSUBSCRIBE("unsubscribe"),
+    ACK("ack");
 
     private final String value;
 
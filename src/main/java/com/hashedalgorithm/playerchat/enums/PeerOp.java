@@ -0,0 +1,61 @@
+package com.hashedalgorithm.playerchat.enums;
+
+/**
+ * Enum representing the control requests exchanged between the nodes of a cluster.
+ *
+ * <p>Peer links carry {@link com.hashedalgorithm.playerchat.utils.BinaryCodec} frames. A control
+ * frame has one of these values as its {@link Payload#REQUEST}; any frame with a
+ * {@link Payload#TO} is instead a client frame to deliver to the player named there.
+ *
+ * <p>Values include:
+ * <ul>
+ *     <li>{@link #HELLO} - First frame on a link, {@code from} is the sender's node ID ("hello").</li>
+ *     <li>{@link #CLAIM} - Asks to own the instance ID in {@code id}; {@code msg} is the claim number ("claim").</li>
+ *     <li>{@link #VOTE} - Answers a claim with {@code stat:success} or {@code stat:failed} ("vote").</li>
+ *     <li>{@link #ANNOUNCE} - Tells a newly linked node about a player the sender owns ("announce").</li>
+ *     <li>{@link #RELEASE} - The sender no longer owns the instance ID in {@code id} ("release").</li>
+ * </ul>
+ */
+public enum PeerOp {
+    HELLO("hello"),
+    CLAIM("claim"),
+    VOTE("vote"),
+    ANNOUNCE("announce"),
+    RELEASE("release");
+
+    private final String value;
+
+    /**
+     * Constructs a {@link PeerOp} enum with the associated string value.
+     *
+     * @param value The string value sent as the request of a control frame.
+     */
+    PeerOp(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the string value associated with this request.
+     *
+     * @return The string representation of the peer request.
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Resolves a peer request from its string value.
+     *
+     * @param value The string value, e.g. "claim".
+     * @return The matching {@link PeerOp}.
+     * @throws IllegalArgumentException if no request matches the given value.
+     */
+    public static PeerOp fromValue(String value) {
+        for (PeerOp op : values()) {
+            if (op.value.equals(value)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown peer request %s!", value));
+    }
+}
@@ -0,0 +1,58 @@
+package com.hashedalgorithm.playerchat.enums;
+
+/**
+ * Enum representing the connection handling strategies supported by the chat server.
+ *
+ * <p>The mode is chosen once at startup and decides how accepted sockets are served.
+ * The routing and handshake logic is the same in every mode.
+ *
+ * <p>Values include:
+ * <ul>
+ *     <li>{@link #BLOCKING} - One platform thread per connection blocked on socket reads ("blocking").</li>
+ *     <li>{@link #VIRTUAL} - One virtual thread per connection blocked on socket reads ("virtual").</li>
+ *     <li>{@link #SELECTOR} - A small fixed pool of non-blocking selector event loops ("selector").</li>
+ *     <li>{@link #SHARDED} - Selector event loops that each own the players whose instance IDs hash to them ("sharded").</li>
+ * </ul>
+ */
+public enum ServerMode {
+    BLOCKING("blocking"),
+    VIRTUAL("virtual"),
+    SELECTOR("selector"),
+    SHARDED("sharded");
+
+    private final String value;
+
+    /**
+     * Constructs a {@link ServerMode} enum with the associated string value.
+     *
+     * @param value The string value used to select this mode at startup.
+     */
+    ServerMode(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the string value associated with this mode.
+     *
+     * @return The string representation of the server mode.
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Resolves a server mode from its string value.
+     *
+     * @param value The string value, e.g. "selector".
+     * @return The matching {@link ServerMode}.
+     * @throws IllegalArgumentException if no mode matches the given value.
+     */
+    public static ServerMode fromValue(String value) {
+        for (ServerMode mode : values()) {
+            if (mode.value.equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown server mode %s!", value));
+    }
+}
@@ -1,5 +1,7 @@
 package com.hashedalgorithm.playerchat.server;
 
+import com.hashedalgorithm.playerchat.utils.Log;
+
 /**
  * Entry point for the Player Chat Server application.
  *
@@ -7,8 +9,15 @@ package com.hashedalgorithm.playerchat.server;
  * a {@link Server} instance that listens for incoming client connections
  * on the specified port.
  *
- * <p>The server handles multiple clients by creating a new thread for each
- * connected client. Any exceptions during startup are caught and logged.
+ * <p>By default the server handles multiple clients by creating a new thread for each
+ * connected client. Passing {@code selector} as the first argument serves all clients
+ * from a small pool of non-blocking event loops instead, and {@code virtual} runs each
+ * client on a virtual thread. Any exceptions during startup
+ * are caught and logged.
+ *
+ * <p>Logging goes through the asynchronous {@link Log}, whose level is taken from
+ * {@code --log-level}. The default {@code info} leaves out the per-message events, which
+ * {@code debug} turns on.
  */
 public class App {
     /**
@@ -19,7 +28,9 @@ public class App {
      * any exception during server startup, it logs the error message and
      * indicates that the server will attempt to restart.
      *
-     * @param args Command-line arguments (not used in this application)
+     * @param args Command-line arguments, see {@link ServerConfig#fromArgs(String[])}.
+     *             The optional first argument is the server mode, "blocking" (default),
+     *             "virtual", "selector" or "sharded".
      */
     public static void main(String[] args) {
         System.out.println("Player Chat Server - by SanjayKumar Kumaravelan");
@@ -27,12 +38,15 @@ public class App {
         System.out.println();
 
         try {
-            Server server = new Server(12345);
+            ServerConfig config = ServerConfig.fromArgs(args);
+            Log.setLevel(config.getLogLevel());
+
+            Server server = new Server(config);
             server.start();
         }
         catch (Exception e) {
-            System.out.printf("[!] - %s\n", e.getMessage());
-            System.out.println("Restarting server...");
+            Log.error("%s", e.getMessage());
+            Log.info("Restarting server...");
         }
     }
 }
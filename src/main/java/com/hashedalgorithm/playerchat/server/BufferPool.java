@@ -0,0 +1,260 @@
+package com.hashedalgorithm.playerchat.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BufferPool lends direct {@link ByteBuffer}s to connections for the time they have bytes in
+ * flight, so a connection that is idle holds no I/O buffer at all.
+ *
+ * <p>Buffers come in the size classes of {@link #SIZE_CLASSES}. Each class is cut from slabs of
+ * {@value #SLAB_SIZE} bytes of direct memory, allocated the first time the class runs out of
+ * free buffers and never given back, so the pool grows to the most bytes ever in flight at once
+ * and then allocates nothing. A buffer is borrowed with {@link #acquire(int)} in the smallest
+ * class that fits and returned with {@link #release(ByteBuffer)}. Channels read into and write
+ * from a direct buffer without copying it through a temporary one, as they do with heap buffers.
+ *
+ * <p>Slabs are allocated up to the pool's limit. A request past the limit, or larger than the
+ * largest class, is a miss: it gets a heap buffer of its own, which works the same, is simply
+ * dropped when released and is counted in {@link ServerMetrics#bufferMiss()}. The bytes lent
+ * and their high-water mark are recorded in the metrics as well.
+ *
+ * <p>With leak detection, the pool remembers where every buffer on loan was acquired. A buffer
+ * released twice throws, and {@link #getLeaks()} returns the acquisitions of the buffers never
+ * returned, so a test can assert that every connection gave its buffers back. Detection takes a
+ * lock and a stack trace per acquisition, so it is meant for tests, not production.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     ByteBuffer buffer = buffers.acquire(8 * 1024);
+ *     try {
+ *         channel.read(buffer);
+ *     } finally {
+ *         buffers.release(buffer);
+ *     }
+ * </pre>
+ *
+ * <p>Thread safety: Thread-safe. Every size class has its own {@link ReentrantLock}. A buffer
+ * must be used by one thread at a time and not be touched after it is released.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class BufferPool {
+
+    /** Capacities of the buffers lent, smallest first */
+    public static final int[] SIZE_CLASSES = {1024, 8 * 1024, 64 * 1024};
+
+    /** Bytes of direct memory allocated at once for a size class */
+    public static final int SLAB_SIZE = 256 * 1024;
+
+    /**
+     * The free buffers of one size class.
+     */
+    private static final class SizeClass {
+
+        /** Capacity of every buffer of the class */
+        private final int size;
+
+        /** Free buffers, taken last in first out so the warmest are reused. Guarded by {@link #lock} */
+        private final ArrayList<ByteBuffer> free = new ArrayList<>();
+
+        /** Held while buffers are taken or returned */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private SizeClass(int size) {
+            this.size = size;
+        }
+    }
+
+    /** Size classes, in the order of {@link #SIZE_CLASSES} */
+    private final SizeClass[] classes = new SizeClass[SIZE_CLASSES.length];
+
+    /** Most bytes of slabs allocated, 0 to lend only heap buffers */
+    private final long maxBytes;
+
+    /** Bytes of slabs allocated so far. Guarded by {@link #slabLock} */
+    private long reservedBytes = 0;
+
+    /** Held while a slab is reserved */
+    private final ReentrantLock slabLock = new ReentrantLock();
+
+    /** Metrics of the server, recording the bytes lent and the misses */
+    private final ServerMetrics metrics;
+
+    /** Where every buffer on loan was acquired, by identity, or null without leak detection. Guarded by {@link #leakLock} */
+    private final Map<ByteBuffer, Throwable> borrowed;
+
+    /** Held while {@link #borrowed} changes */
+    private final ReentrantLock leakLock = new ReentrantLock();
+
+    /**
+     * Creates a pool.
+     *
+     * @param maxBytes    Most bytes of direct memory allocated for slabs, 0 to lend only heap buffers
+     * @param detectLeaks Whether to remember the acquisition of every buffer on loan
+     * @param metrics     Metrics of the server
+     */
+    public BufferPool(long maxBytes, boolean detectLeaks, ServerMetrics metrics) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Invalid buffer pool size!");
+        }
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            this.classes[i] = new SizeClass(SIZE_CLASSES[i]);
+        }
+        this.maxBytes = maxBytes;
+        this.metrics = metrics;
+        this.borrowed = detectLeaks ? new IdentityHashMap<>() : null;
+    }
+
+    /**
+     * Borrows a cleared buffer of at least the given capacity.
+     *
+     * @param capacity The bytes needed
+     * @return A direct buffer of the smallest class that fits, or a heap buffer of exactly the
+     *         capacity on a miss
+     */
+    public ByteBuffer acquire(int capacity) {
+        SizeClass sizeClass = this.classOf(capacity);
+        ByteBuffer buffer = sizeClass == null ? null : this.take(sizeClass);
+        if (buffer == null) {
+            this.metrics.bufferMiss();
+            buffer = ByteBuffer.allocate(capacity);
+        } else {
+            this.metrics.bufferAcquired(buffer.capacity());
+        }
+
+        if (this.borrowed != null) {
+            this.leakLock.lock();
+            try {
+                this.borrowed.put(buffer, new Throwable("Buffer of " + buffer.capacity() + " bytes acquired here"));
+            } finally {
+                this.leakLock.unlock();
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. A heap buffer lent on a miss is dropped.
+     *
+     * @param buffer The buffer, from {@link #acquire(int)}
+     * @throws IllegalStateException with leak detection, if the buffer is not on loan
+     */
+    public void release(ByteBuffer buffer) {
+        if (this.borrowed != null) {
+            this.leakLock.lock();
+            try {
+                if (this.borrowed.remove(buffer) == null) {
+                    throw new IllegalStateException("Buffer released twice or not from this pool!");
+                }
+            } finally {
+                this.leakLock.unlock();
+            }
+        }
+        if (!buffer.isDirect()) {
+            return;
+        }
+
+        SizeClass sizeClass = this.classOf(buffer.capacity());
+        buffer.clear();
+        sizeClass.lock.lock();
+        try {
+            sizeClass.free.add(buffer);
+        } finally {
+            sizeClass.lock.unlock();
+        }
+        this.metrics.bufferReleased(buffer.capacity());
+    }
+
+    /**
+     * Returns the smallest size class holding a capacity.
+     *
+     * @return The class, or null if the capacity is larger than every class
+     */
+    private SizeClass classOf(int capacity) {
+        for (SizeClass sizeClass : this.classes) {
+            if (capacity <= sizeClass.size) {
+                return sizeClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a free buffer of a class, cutting a new slab into buffers if none is free.
+     *
+     * @return The buffer, or null if the class is empty and the pool is at its limit
+     */
+    private ByteBuffer take(SizeClass sizeClass) {
+        sizeClass.lock.lock();
+        try {
+            if (sizeClass.free.isEmpty()) {
+                if (!this.reserveSlab()) {
+                    return null;
+                }
+                ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_SIZE);
+                for (int offset = 0; offset + sizeClass.size <= SLAB_SIZE; offset += sizeClass.size) {
+                    sizeClass.free.add(slab.slice(offset, sizeClass.size));
+                }
+            }
+            return sizeClass.free.remove(sizeClass.free.size() - 1);
+        } finally {
+            sizeClass.lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a new slab against the limit.
+     *
+     * @return false if the pool is at its limit
+     */
+    private boolean reserveSlab() {
+        this.slabLock.lock();
+        try {
+            if (this.reservedBytes + SLAB_SIZE > this.maxBytes) {
+                return false;
+            }
+            this.reservedBytes += SLAB_SIZE;
+            return true;
+        } finally {
+            this.slabLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the bytes of direct memory allocated for slabs.
+     *
+     * @return Reserved bytes
+     */
+    public long getReservedBytes() {
+        this.slabLock.lock();
+        try {
+            return this.reservedBytes;
+        } finally {
+            this.slabLock.unlock();
+        }
+    }
+
+    /**
+     * Returns where the buffers on loan were acquired, with leak detection.
+     *
+     * @return One throwable per buffer not released yet, empty without leak detection
+     */
+    public List<Throwable> getLeaks() {
+        if (this.borrowed == null) {
+            return List.of();
+        }
+        this.leakLock.lock();
+        try {
+            return new ArrayList<>(this.borrowed.values());
+        } finally {
+            this.leakLock.unlock();
+        }
+    }
+}
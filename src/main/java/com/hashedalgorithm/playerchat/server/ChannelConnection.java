@@ -0,0 +1,373 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.OutboundPolicy;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import com.hashedalgorithm.playerchat.utils.Log;
+import com.hashedalgorithm.playerchat.utils.TextCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ChannelConnection is the non-blocking {@link Connection} used by the selector server mode.
+ *
+ * <p>It is owned by exactly one {@link EventLoop}. The loop calls {@link #onReadable()} when
+ * the channel has data, which feeds the bytes to an {@link InboundDecoder} that hands every
+ * complete frame to the {@link ClientInstance} of this connection. Frames written by other threads
+ * are encoded with the codec negotiated with this client, queued in an {@link OutboundQueue}
+ * and flushed by the owning loop with one gathering write per wakeup, so a connection never
+ * blocks the thread that routes a message into it. The queue is bounded as configured on the
+ * server, and its {@link OutboundPolicy} decides what happens to a client that falls behind.
+ *
+ * <p>The channel is read into a direct buffer borrowed from the server's {@link BufferPool} for
+ * the one read and returned right after the bytes are handed to the decoder, so a connection
+ * holds no read buffer between two reads. Only a trailing partial frame stays in the decoder.
+ *
+ * <p>In the sharded mode the loop is a {@link Shard}. Once the handshake is confirmed, the
+ * connection moves once to the shard that owns its instance ID and stays there.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class ChannelConnection implements Connection {
+
+    /** Size of the buffer borrowed for every read */
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    /** Most frames handed to a single gathering write */
+    private static final int MAX_BATCH_FRAMES = 64;
+
+    /** Channel connected to the client */
+    private final SocketChannel channel;
+
+    /** Reference to the main Server instance */
+    private final Server server;
+
+    /** Event loop that owns this connection. Only changes when the connection moves to its shard */
+    private volatile EventLoop loop;
+
+    /** Protocol state of the client behind this connection */
+    private final ClientInstance instance;
+
+    /** Metrics of the server, counting the bytes read and written */
+    private final ServerMetrics metrics;
+
+    /** Pool the buffer of every read is borrowed from */
+    private final BufferPool buffers;
+
+    /** Splits the received bytes into frames */
+    private final InboundDecoder decoder;
+
+    /** Encoding of frames written to the client */
+    private volatile FrameCodec codec = TextCodec.INSTANCE;
+
+    /** Encoded frames waiting to be written to the channel */
+    private final OutboundQueue outbound;
+
+    /** Frames of the current gathering write. Only used by the loop */
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH_FRAMES];
+
+    /** Index of the first frame in {@link #batch} not yet fully written */
+    private int batchStart = 0;
+
+    /** Number of frames in {@link #batch} */
+    private int batchEnd = 0;
+
+    /** Whether the connection has been closed */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /** Selection key of {@link #channel} in the loop's selector */
+    private SelectionKey key;
+
+    /** Whether reading is suspended until the handshake's instance ID is claimed. Only used by the loop */
+    private boolean suspended = false;
+
+    /** Whether the connection is served by its final loop, decided after the handshake */
+    private boolean placed = false;
+
+    /**
+     * Creates a connection for an accepted channel owned by the given loop.
+     *
+     * @param server  Reference to the server instance
+     * @param loop    The event loop that owns the channel
+     * @param channel The accepted, non-blocking client channel
+     */
+    @SuppressWarnings("this-escape") // ClientInstance only stores the connection while it is built.
+    public ChannelConnection(Server server, EventLoop loop, SocketChannel channel) {
+        this.channel = channel;
+        this.server = server;
+        this.loop = loop;
+        this.metrics = server.getMetrics();
+        this.buffers = server.getBufferPool();
+        this.outbound = server.newOutboundQueue();
+        this.instance = new ClientInstance(server, this);
+        this.decoder = new InboundDecoder(this.instance);
+    }
+
+    /**
+     * Returns the protocol state of the client behind this connection.
+     *
+     * @return The ClientInstance driven by this connection
+     */
+    public ClientInstance getInstance() {
+        return this.instance;
+    }
+
+    /**
+     * Binds this connection to its selection key. Called by the owning loop on registration.
+     *
+     * @param key The selection key of the channel
+     */
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Reads available bytes from the channel and dispatches every complete frame.
+     * Must only be called by the owning loop.
+     *
+     * @throws IOException if reading fails, the client closed the channel or a frame is malformed
+     */
+    void onReadable() throws IOException {
+        ByteBuffer buffer = this.buffers.acquire(READ_BUFFER_SIZE);
+        try {
+            int read = this.channel.read(buffer);
+            if (read < 0) {
+                throw new IOException(String.format("Connection closed with %s!", this.instance.instanceId));
+            }
+            this.metrics.bytesIn(read);
+
+            this.decoder.feed(buffer.flip());
+        } finally {
+            this.buffers.release(buffer);
+        }
+
+        if (!this.placed && this.instance.isHandshakeCompleted()) {
+            this.place();
+        }
+    }
+
+    /**
+     * Settles the connection on its final loop once the handshake is confirmed. In the sharded
+     * mode, a connection accepted by another shard than the one owning its instance ID is
+     * removed from this loop's selector and registered with the owner's. Frames written while it
+     * moves are flushed by the owner once the channel is registered there. Must only be called
+     * by the owning loop.
+     */
+    private void place() {
+        this.placed = true;
+        if (this.closed.get() || !(this.loop instanceof Shard current)) {
+            return;
+        }
+
+        Shard owner = this.server.shardOf(this.instance.instanceId);
+        if (owner == current) {
+            owner.adopt(this.instance);
+            return;
+        }
+
+        this.key.cancel();
+        this.key = null;
+        this.loop = owner;
+        owner.execute(() -> {
+            try {
+                owner.attach(this, this.channel);
+            } catch (IOException e) {
+                Log.error("%s", e.getMessage());
+                this.instance.closeConnection();
+                return;
+            }
+            owner.adopt(this.instance);
+            this.flushOnLoop();
+        });
+    }
+
+    /**
+     * Writes as many queued frames as the channel accepts, handing up to
+     * {@link #MAX_BATCH_FRAMES} frames to each gathering write. Keeps write interest on
+     * the selection key while the channel is full. Must only be called by the owning loop.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    void flush() throws IOException {
+        EventLoop owner = this.loop;
+        if (Thread.currentThread() != owner) {
+            // The connection moved to its shard after this flush was scheduled.
+            owner.execute(this::flushOnLoop);
+            return;
+        }
+        if (this.key == null || !this.key.isValid()) {
+            return;
+        }
+
+        do {
+            while (true) {
+                if (this.batchStart == this.batchEnd) {
+                    this.batchStart = 0;
+                    this.batchEnd = this.outbound.drain(this.batch);
+                    if (this.batchEnd == 0) {
+                        break;
+                    }
+                }
+
+                this.channel.write(this.batch, this.batchStart, this.batchEnd - this.batchStart);
+                while (this.batchStart < this.batchEnd && !this.batch[this.batchStart].hasRemaining()) {
+                    this.batch[this.batchStart++] = null;
+                }
+
+                if (this.batchStart < this.batchEnd) {
+                    // The socket buffer is full; keep the writer scheduled until the key is writable.
+                    this.key.interestOps(this.readInterest() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+        } while (this.outbound.finishDrain());
+
+        this.key.interestOps(this.readInterest());
+    }
+
+    /**
+     * Returns the read interest of the selection key, none while reading is suspended.
+     */
+    private int readInterest() {
+        return this.suspended ? 0 : SelectionKey.OP_READ;
+    }
+
+    /**
+     * Suspends reading while the handshake claims its instance ID, so the loop goes on serving
+     * its other connections. Frames already received stay in the decoder. Once the claim
+     * completes, the loop finishes the handshake, handles those frames and reads again.
+     */
+    @Override
+    public boolean suspendUntil(CompletableFuture<?> step, Runnable then) {
+        this.suspended = true;
+        this.decoder.pause();
+        this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_READ);
+        step.whenComplete((result, e) -> this.loop.execute(() -> this.resume(then)));
+        return true;
+    }
+
+    /**
+     * Finishes a suspended handshake and reads again. Runs on the owning loop.
+     */
+    private void resume(Runnable then) {
+        then.run();
+        this.suspended = false;
+        if (this.closed.get()) {
+            return;
+        }
+
+        try {
+            this.decoder.resume();
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+            this.instance.closeConnection();
+            return;
+        }
+        if (this.key.isValid()) {
+            this.key.interestOps(this.key.interestOps() | SelectionKey.OP_READ);
+        }
+        if (!this.placed && this.instance.isHandshakeCompleted()) {
+            this.place();
+        }
+    }
+
+    /**
+     * Flushes on the loop thread, closing the connection if the channel fails.
+     */
+    private void flushOnLoop() {
+        try {
+            this.flush();
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+            this.instance.closeConnection();
+        }
+    }
+
+    @Override
+    public void write(Frame frame) {
+        if (this.closed.get()) {
+            return;
+        }
+        this.enqueue(this.codec.encode(frame));
+    }
+
+    @Override
+    public void write(Frame[] frames) {
+        if (this.closed.get()) {
+            return;
+        }
+        this.enqueue(this.codec.encode(frames));
+    }
+
+    @Override
+    public void write(SharedFrame frame) {
+        if (this.closed.get()) {
+            return;
+        }
+        this.enqueue(frame.encode(this.codec));
+    }
+
+    /**
+     * Queues an encoded frame within the outbound limits, disconnecting the client if they
+     * are reached and its policy says so.
+     *
+     * @param bytes The encoded frame
+     */
+    private void enqueue(ByteBuffer bytes) {
+        if (!this.outbound.admit(bytes.remaining())) {
+            if (this.outbound.getPolicy() == OutboundPolicy.DISCONNECT) {
+                Log.warn("Disconnecting %s, which is not reading its messages", this.instance.instanceId);
+                this.metrics.outboundDisconnect();
+                this.outbound.clear();
+                this.instance.closeConnection();
+            }
+            return;
+        }
+
+        this.metrics.bytesOut(bytes.remaining());
+        if (this.outbound.offer(bytes)) {
+            this.loop.execute(this::flushOnLoop);
+        }
+    }
+
+    @Override
+    public boolean isRejectingSenders() {
+        return this.outbound.getPolicy() == OutboundPolicy.REJECT_SENDER && this.outbound.isFull();
+    }
+
+    @Override
+    public void setCodec(FrameCodec codec) {
+        this.codec = codec;
+        this.decoder.setCodec(codec);
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+        this.decoder.stop();
+
+        this.loop.execute(() -> {
+            try {
+                if (this.key != null && this.key.isValid()) {
+                    // Best effort: send what is queued, e.g. a handshake rejection, before closing.
+                    this.flush();
+                    this.key.cancel();
+                }
+                this.outbound.clear();
+                this.channel.close();
+            } catch (IOException e) {
+                Log.error("%s", e.getMessage());
+            }
+        });
+    }
+}
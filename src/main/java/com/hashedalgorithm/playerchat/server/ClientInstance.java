@@ -1,117 +1,534 @@
 package com.hashedalgorithm.playerchat.server;
 
 import com.hashedalgorithm.playerchat.enums.ClientStatus;
+import com.hashedalgorithm.playerchat.enums.OutboundPolicy;
 import com.hashedalgorithm.playerchat.enums.Payload;
 import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.Log;
 import com.hashedalgorithm.playerchat.utils.MessageParser;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import com.hashedalgorithm.playerchat.utils.TimerWheel;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
-import java.net.SocketTimeoutException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * ClientInstance represents a connected client on the chat server.
- * Each ClientInstance runs in its own thread, handles communication
- * with its respective client socket, and manages handshake, message
- * sending, and receiving.
+ * It manages handshake, message sending, and receiving for its client and
+ * talks to it through a {@link Connection}.
  *
- * <p>This class enforces a maximum number of messages per client using
- * {@link #MAX_MESSAGES}. Messages are forwarded to other clients via
- * the {@link Server} instance.
+ * <p>A ClientInstance owns no thread. Its connection feeds it decoded frames via
+ * {@link #handleFrame(Frame)}: a {@link StreamConnection} task running on a platform
+ * or virtual thread in the blocking modes, or an {@link EventLoop} in the selector and sharded modes.
+ *
+ * <p>This class limits how fast each client may send chat messages with a {@link TokenBucket}
+ * refilled at the server's {@link RateLimit}. Messages are forwarded to other clients via the
+ * {@link Server} instance, to another node of its {@link Cluster}, or stored in its
+ * {@link MailboxStore} for a player who is not connected.
  *
  * <p>Example usage:
  * <pre>
- *     Socket socket = serverSocket.accept();
- *     ClientInstance client = new ClientInstance(server, socket);
- *     client.start();
+ *     ClientInstance client = new ClientInstance(server, connection);
+ *     InboundDecoder decoder = new InboundDecoder(client);
+ *     decoder.feed(bytes, 0, read);         // calls client.handleFrame(frame) for every complete frame
  * </pre>
  *
- * <p>Thread safety: Each client runs in its own thread, but {@link Server#clients}
- * map access must be synchronized if accessed by multiple threads concurrently.
+ * <p>Thread safety: Frames of one client are handled by one thread at a time. The
+ * instance ID is claimed atomically in the server's {@link ClientRegistry} during the
+ * handshake, so {@link #instanceId} is only set once the name is owned by this client.
+ * Other clients can only route frames to it once {@link #isHandshakeCompleted()}, so nothing
+ * reaches the client before its handshake confirmation.
  *
  * @author Sanjay
  * @version 1.0
  * @since 2025-12-06
  */
 
-public class ClientInstance extends Thread {
+public class ClientInstance {
 
-    /** Maximum messages allowed per client */
-    private final int MAX_MESSAGES= 10;
+    /** Tokens for the chat messages and broadcasts of this client, null for no limit */
+    private final TokenBucket messageBucket;
 
     /** Unique identifier for this client instance */
     public String instanceId;
 
-    /** Socket connected to the client */
-    private final Socket clientSocket;
-
     /** Reference to the main Server instance */
     private final Server server;
 
-    /** Output stream to the client */
-    private final PrintWriter out;
+    /** Metrics of the server, recorded on every frame */
+    private final ServerMetrics metrics;
+
+    /** Mailboxes of players who are not connected */
+    private final MailboxStore mailboxes;
+
+    /** Journal of the server, null if journaling is off */
+    private final Journal journal;
+
+    /** {@link System#nanoTime()} at which this client's connection was admitted */
+    private final long connectedAt = System.nanoTime();
+
+    /** {@link System#nanoTime()} at which the frame being handled was read */
+    private long frameReadAt;
+
+    /** Milliseconds the client may take to complete its handshake, 0 for no limit */
+    private final long handshakeTimeout;
+
+    /** Milliseconds the client may send nothing before it is closed, 0 for no limit */
+    private final long idleTimeout;
+
+    /** Milliseconds of silence after which the client is sent a heartbeat, 0 to send none */
+    private final long heartbeatInterval;
+
+    /** Whether {@link #lastReadAt} must be kept, for the idle timeout or the heartbeat */
+    private final boolean watchIdle;
+
+    /** Deadline of the handshake on the server's timer wheel, null if there is none */
+    private volatile TimerWheel.Timeout handshakeDeadline;
+
+    /** {@link System#nanoTime()} at which the last frame was read, if {@link #watchIdle} */
+    private volatile long lastReadAt = this.connectedAt;
+
+    /** {@link System#nanoTime()} at which the last heartbeat was sent. Only used by the timer wheel */
+    private long lastHeartbeatAt = this.connectedAt;
 
-    /** Input stream to the client */
-    private final BufferedReader in;
+    /** Reusable heartbeat frame. Only used by the timer wheel */
+    private final Frame heartbeat = new Frame();
 
-    /** Counter to track number of messages sent */
-    private int counter = 0;
+    /** Transport used to write frames to the client */
+    private final Connection connection;
+
+    /** Whether the handshake was confirmed and the client may receive routed frames */
+    private volatile boolean handshakeCompleted = false;
+
+    /** Whether the connection has been closed and deregistered */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * A conversation of this client with one player or room, found with one hash lookup on the
+     * receiver or room, so chat messages are numbered {@code {1}}, {@code {2}}, ... per player
+     * and per room rather than across the connection. Only used by the thread handling the
+     * client's frames.
+     */
+    private static final class Session {
+        /** Chat messages sent in this session so far, numbering the next one */
+        private int messages = 0;
+    }
+
+    /** Conversations with single players, by the player's instance ID */
+    private final Map<String, Session> sessions = new HashMap<>();
+
+    /** Conversations with rooms, by room name; a session is dropped when the room is left */
+    private final Map<String, Session> roomSessions = new HashMap<>();
 
     /** Parser for serializing and deserializing messages */
     private final MessageParser parser = new MessageParser();
 
+    /** Reusable flyweight holding the fields of the frame being handled */
+    private final Frame inbound = new Frame();
+
+    /** Reusable flyweight holding the fields of the frame being sent */
+    private final Frame outbound = new Frame();
+
     /**
-     * Constructs a ClientInstance for a given server and client socket.
-     * Initiates a handshake to authenticate and register the client.
+     * Correlation ID of the frame being handled, null if it has none or none is handled. Every
+     * answer echoes it, including a chat request's confirmation by the receiving client, and a
+     * chat message or broadcast carrying one is acknowledged once it was queued, forwarded or
+     * stored.
+     */
+    private CharSequence correlation;
+
+    /** Reusable buffer for the body of relayed chat messages */
+    private final StringBuilder body = new StringBuilder(256);
+
+    /** Reusable holder of the encodings of the broadcast being sent */
+    private final SharedFrame shared = new SharedFrame();
+
+    /** Names of the rooms this client is a member of */
+    private final Set<String> rooms = ConcurrentHashMap.newKeySet();
+
+    /** Whether this client subscribed to presence changes */
+    private volatile boolean presenceSubscribed = false;
+
+    /** Handle given to this client in its handshake confirmation, -1 until then or if the table is full */
+    private volatile int handle = -1;
+
+    /** {@link #handle} in decimal, sent to the peers of this client. Only used by its own thread */
+    private String handleText;
+
+    /** Window numbering the chat messages written to this client, null unless it asked for sequenced delivery */
+    private volatile RetransmitWindow window;
+
+    /** Whether stored messages wait in the mailbox for room in {@link #window} */
+    private volatile boolean mailboxWaiting = false;
+
+    /** Tokens for the broadcasts of this client, by room. Unlimited rooms have none */
+    private final Map<String, TokenBucket> roomBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a ClientInstance for a given server and client connection.
+     * The handshake is performed when the first frame arrives through
+     * {@link #handleFrame(Frame)}.
      *
-     * @param server       Reference to the server instance
-     * @param clientSocket The connected client socket
-     * @throws IOException if an I/O error occurs during handshake setup
+     * @param server     Reference to the server instance
+     * @param connection The connection to the client
      */
-    public ClientInstance(Server server, Socket clientSocket) throws IOException {
-        this.clientSocket = clientSocket;
+    public ClientInstance(Server server, Connection connection) {
         this.server = server;
+        this.connection = connection;
+        this.messageBucket = server.getMessageLimit().newBucket();
+        this.handshakeTimeout = server.getHandshakeTimeoutMillis();
+        this.idleTimeout = server.getIdleTimeoutMillis();
+        this.heartbeatInterval = server.getHeartbeatMillis();
+        this.watchIdle = this.idleTimeout > 0 || this.heartbeatInterval > 0;
+        this.metrics = server.getMetrics();
+        this.mailboxes = server.getMailboxes();
+        this.journal = server.getJournal();
+    }
 
-        this.out = new PrintWriter(this.clientSocket.getOutputStream(), true);
-        this.in = new BufferedReader(new InputStreamReader(this.clientSocket.getInputStream()));
+    /**
+     * Puts the handshake deadline of this client on the server's timer wheel. Called once its
+     * connection is accepted, before the first frame is read; a client that has not sent a valid
+     * handshake by then is closed. After the handshake, a single {@link #checkIdle()} per client
+     * is kept on the wheel if the server has an idle timeout or a heartbeat, so reading a frame
+     * only records its time.
+     */
+    void startTimeouts() {
+        if (this.handshakeTimeout > 0) {
+            this.handshakeDeadline = this.server.getTimers().schedule(this::expireHandshake, this.handshakeTimeout);
+        }
+    }
 
-        this.handshake();
+    /**
+     * Closes a connection that did not complete its handshake in time. Runs on the timer wheel.
+     */
+    private void expireHandshake() {
+        Log.warn("Closing connection that sent no valid handshake in %d ms", this.handshakeTimeout);
+        this.metrics.handshakeTimeout();
+        this.closeConnection();
     }
 
     /**
-     * Sends a message to the client via the output buffer.
+     * Closes this client if it was silent for the idle timeout, sends it a heartbeat if it was
+     * silent for a heartbeat interval, and schedules the next check for when either can be due.
+     * The client answers the heartbeat {@code req:pong}, and may send {@code req:ping} itself.
+     * Runs on the timer wheel.
+     */
+    private void checkIdle() {
+        if (this.closed.get()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long lastReadAt = this.lastReadAt;
+        long idleFor = TimeUnit.NANOSECONDS.toMillis(now - lastReadAt);
+        if (this.idleTimeout > 0 && idleFor >= this.idleTimeout) {
+            Log.warn("Closing %s, which sent nothing for %d ms", this.instanceId, idleFor);
+            this.metrics.idleTimeout();
+            this.closeConnection();
+            return;
+        }
+
+        long next = this.idleTimeout > 0 ? this.idleTimeout - idleFor : Long.MAX_VALUE;
+        if (this.heartbeatInterval > 0) {
+            long lastActivity = this.lastHeartbeatAt - lastReadAt > 0 ? this.lastHeartbeatAt : lastReadAt;
+            long silentFor = TimeUnit.NANOSECONDS.toMillis(now - lastActivity);
+            if (silentFor >= this.heartbeatInterval) {
+                this.sendHeartbeat();
+                this.lastHeartbeatAt = now;
+                silentFor = 0;
+            }
+            next = Math.min(next, this.heartbeatInterval - silentFor);
+        }
+        this.server.getTimers().schedule(this::checkIdle, next);
+    }
+
+    /**
+     * Sends a {@code req:ping} the client must answer. Runs on the timer wheel.
+     */
+    private void sendHeartbeat() {
+        this.heartbeat.clear().set(Payload.REQUEST, PayloadValue.PING.getValue());
+        this.metrics.heartbeat();
+        this.metrics.frameOut(this.heartbeat);
+        this.connection.write(this.heartbeat);
+    }
+
+    /**
+     * Returns the handle given to this client in its handshake confirmation.
      *
-     * @param message The message to send
+     * @return The handle, or -1 if it has none
+     */
+    int getHandle() {
+        return this.handle;
+    }
+
+    /**
+     * Returns whether the handshake was confirmed, so frames may be routed to this client.
+     *
+     * @return true once the client has received its handshake confirmation
+     */
+    public boolean isHandshakeCompleted() {
+        return this.handshakeCompleted;
+    }
+
+    /**
+     * Sends a frame to a client via its output buffer, encoded by the receiver's connection.
+     * Frames relayed to another client also record their relay latency.
+     *
+     * @param receiver The client to send the frame to
+     * @param frame    The frame to send
+     */
+    private void writeOutputBuffer(ClientInstance receiver, Frame frame){
+        this.metrics.frameOut(frame);
+        receiver.write(frame);
+        if (receiver != this) {
+            this.metrics.relayed(System.nanoTime() - this.frameReadAt);
+        }
+    }
+
+    /**
+     * Answers the frame being handled, echoing its correlation ID if it has one.
+     *
+     * @param frame The answer
+     */
+    private void reply(Frame frame) {
+        frame.set(Payload.CORRELATION, this.correlation);
+        this.writeOutputBuffer(this, frame);
+    }
+
+    /**
+     * Writes a frame to the player it is addressed to, whether it is connected to this server
+     * or, in a cluster, to another node. Counts a route miss if it is connected nowhere.
+     *
+     * <p>In the sharded mode, a frame for a player owned by another {@link Shard} is handed to
+     * that shard, which answers for the player if it is not connected.
+     *
+     * @param to    The recipient client ID
+     * @param frame The frame to send
+     * @return true if the frame was written, forwarded or handed to another shard; false if no
+     *         such player is connected
+     */
+    private boolean route(String to, Frame frame) {
+        if (Thread.currentThread() instanceof Shard shard) {
+            Shard owner = this.server.shardOf(to);
+            if (owner != shard) {
+                shard.send(owner, this.instanceId, to, frame, this.frameReadAt, this.correlation, null);
+                return true;
+            }
+        }
+
+        ClientInstance receiver = this.server.getClient(to);
+        if (receiver != null) {
+            this.writeOutputBuffer(receiver, frame);
+            return true;
+        }
+
+        Cluster cluster = this.server.getCluster();
+        if (cluster != null && cluster.forward(to, frame)) {
+            this.metrics.relayed(System.nanoTime() - this.frameReadAt);
+            return true;
+        }
+
+        this.metrics.routeMiss();
+        return false;
+    }
+
+    /**
+     * Writes a frame to a player resolved by its handle. In the sharded mode, a frame for a
+     * player owned by another {@link Shard} is handed to that shard.
+     *
+     * @param receiver The recipient
+     * @param frame    The frame to send
+     */
+    private void route(ClientInstance receiver, Frame frame) {
+        if (Thread.currentThread() instanceof Shard shard) {
+            Shard owner = this.server.shardOf(receiver.instanceId);
+            if (owner != shard) {
+                shard.send(owner, this.instanceId, receiver.instanceId, frame, this.frameReadAt, this.correlation, null);
+                return;
+            }
+        }
+        this.writeOutputBuffer(receiver, frame);
+    }
+
+    /**
+     * Returns whether a chat message to the given player must be refused because the player is
+     * connected to this server but is not reading fast enough. Only looks the player up if the
+     * server's outbound policy is {@link OutboundPolicy#REJECT_SENDER} and it is not resolved yet.
+     *
+     * @param to       The recipient client ID
+     * @param receiver The recipient if it was resolved by its handle, otherwise null
+     * @return true if the sender must be told the receiver is busy
+     */
+    private boolean isRejectedBy(String to, ClientInstance receiver) {
+        if (this.server.getOutboundPolicy() != OutboundPolicy.REJECT_SENDER) {
+            return false;
+        }
+        if (receiver == null) {
+            receiver = this.server.getClient(to);
+        }
+        return receiver != null && receiver.connection.isRejectingSenders();
+    }
+
+    /**
+     * Tells this client that its chat message was not delivered because the receiver is not reading
+     * fast enough, with a message request confirmation of status {@link ClientStatus#BUSY}.
+     *
+     * @param to The receiver that is too slow
      */
-    private void writeOutputBuffer(String message){
-        this.out.println(message);
-        this.out.flush();
+    private void rejectForSlowReceiver(String to) {
+        Log.debug("%s is not keeping up, refusing frame from %s", to, this.instanceId);
+        this.metrics.outboundRejected();
+        this.outbound.clear()
+                .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                .set(Payload.STATUS, ClientStatus.BUSY.getValue())
+                .set(Payload.FROM, to);
+
+        this.reply(this.outbound);
+    }
+
+    /**
+     * Returns whether the frame being handled must be refused because this client is sending
+     * faster than a limit allows. Takes a token from the bucket otherwise.
+     *
+     * @param bucket The bucket of the limit, null if there is no limit
+     * @return true if the client must be told it is throttled
+     */
+    private boolean isThrottled(TokenBucket bucket) {
+        return bucket != null && !bucket.tryAcquire(this.frameReadAt);
+    }
+
+    /**
+     * Tells this client that its chat message was not delivered because it is sending faster
+     * than its rate limit, with a message request confirmation of status
+     * {@link ClientStatus#THROTTLED}.
+     *
+     * @param to The receiver of the refused message
+     */
+    private void rejectForRateLimit(String to) {
+        Log.debug("%s is sending too fast, refusing frame to %s", this.instanceId, to);
+        this.metrics.throttled();
+        this.outbound.clear()
+                .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                .set(Payload.STATUS, ClientStatus.THROTTLED.getValue())
+                .set(Payload.FROM, to);
+
+        this.reply(this.outbound);
+    }
+
+    /**
+     * Writes a frame relayed by another cluster node or another shard to this client.
+     *
+     * @param frame The frame to write
+     */
+    void deliver(Frame frame) {
+        this.metrics.frameOut(frame);
+        this.write(frame);
+    }
+
+    /**
+     * Writes a frame to this client, numbering it in the client's {@link RetransmitWindow} if it
+     * is a chat message or broadcast and the client asked for sequenced delivery.
+     *
+     * @param frame The frame to write
+     */
+    private void write(Frame frame) {
+        RetransmitWindow window = this.window;
+        if (window != null && frame.has(Payload.MESSAGE) && frame.has(Payload.FROM)) {
+            if (!window.write(this.connection, frame)) {
+                this.spill(frame);
+            }
+            return;
+        }
+        this.connection.write(frame);
+    }
+
+    /**
+     * Keeps a chat message refused by this client's full {@link RetransmitWindow}. A client
+     * holding a whole window of unacknowledged messages is not acknowledging them, so it is
+     * disconnected, as a client not reading is under {@link OutboundPolicy#DISCONNECT}, and the
+     * message is stored in its mailbox, delivered after the window on its next connection. A
+     * broadcast is stored as a message from its sender. A message the mailbox refuses as well
+     * is lost, and counted in {@link ServerMetrics#retransmitDropped()}.
+     *
+     * @param frame The refused message
+     */
+    private void spill(Frame frame) {
+        if (!this.isClosed()) {
+            Log.warn("Disconnecting %s, which is not acknowledging its messages", this.instanceId);
+            this.metrics.outboundDisconnect();
+            this.closeConnection();
+        }
+
+        if (!this.mailboxes.store(this.instanceId, frame.get(Payload.FROM), frame.get(Payload.MESSAGE))) {
+            Log.warn("Dropped a message for %s, whose retransmit window and mailbox are full", this.instanceId);
+            this.metrics.retransmitDropped();
+            return;
+        }
+        ClientInstance receiver = this.server.getClient(this.instanceId);
+        if (receiver != null) {
+            receiver.deliverMailbox();
+        }
     }
 
     /**
-     * Sends handshake confirmation to the client with status SUCCESS.
+     * Writes a frame shared with other clients, such as presence changes, to this client. The
+     * caller records it in the metrics.
      *
+     * @param frame The frame to write
+     */
+    void deliver(SharedFrame frame) {
+        this.connection.write(frame);
+    }
+
+    /**
+     * Returns whether the connection has been closed and the client deregistered.
+     *
+     * @return true once {@link #closeConnection()} was called
+     */
+    boolean isClosed() {
+        return this.closed.get();
+    }
+
+    /**
+     * Sends handshake confirmation to the client with status SUCCESS, giving it a handle.
+     *
+     * @param codec    The binary codec requested and confirmed, or null to stay on the text protocol
+     * @param received The highest sequence number the client received if sequenced delivery was
+     *                 requested and confirmed, otherwise null
      * @throws IOException if the client instance ID is null or handshake fails
      */
-    private void sendConfirmationToClient() throws IOException {
+    private void sendConfirmationToClient(FrameCodec codec, CharSequence received) throws IOException {
 
         if(this.instanceId == null){
             this.rejectClientHandshakeRequest(null);
             throw new IOException("Invalid request from this anonymous client! Dropping request!");
         }
 
-        Map<String, String> result = new HashMap<>(Map.of(
-                Payload.REQUEST.getValue(), PayloadValue.HANDSHAKE.getValue(),
-                Payload.INSTANCE_ID.getValue(), this.instanceId,
-                Payload.STATUS.getValue(), ClientStatus.SUCCESS.getValue()
-        ));
+        int handle = this.server.getHandles().register(this);
+        if (handle > 0) {
+            this.handle = handle;
+            this.handleText = Integer.toString(handle);
+        }
+
+        this.outbound.clear()
+                .set(Payload.REQUEST, PayloadValue.HANDSHAKE.getValue())
+                .set(Payload.INSTANCE_ID, this.instanceId)
+                .set(Payload.STATUS, ClientStatus.SUCCESS.getValue())
+                .set(Payload.ENCODING, codec == null ? null
+                        : codec == BinaryCodec.INSTANCE ? PayloadValue.BINARY.getValue() : PayloadValue.DEFLATE.getValue())
+                .set(Payload.ACK, received)
+                .set(Payload.HANDLE, this.handleText);
 
-        this.writeOutputBuffer(this.parser.serialize(result));
+        this.reply(this.outbound);
     }
 
     /**
@@ -120,132 +537,441 @@ public class ClientInstance extends Thread {
      * @param from The client ID attempting handshake
      */
     private void rejectClientHandshakeRequest(String from) {
-        Map<String, String> result = new HashMap<>(Map.of(
-                Payload.REQUEST.getValue(), PayloadValue.HANDSHAKE.getValue(),
-                Payload.INSTANCE_ID.getValue(), String.valueOf(from),
-                Payload.STATUS.getValue(), String.valueOf(ClientStatus.FAILED.getValue() )
-        ));
+        this.outbound.clear()
+                .set(Payload.REQUEST, PayloadValue.HANDSHAKE.getValue())
+                .set(Payload.INSTANCE_ID, String.valueOf(from))
+                .set(Payload.STATUS, ClientStatus.FAILED.getValue());
 
-        this.writeOutputBuffer(this.parser.serialize(result));
+        this.reply(this.outbound);
     }
 
     /**
-     * Receives and validates the client's instance ID during handshake.
+     * Validates a handshake request and atomically claims the client's instance ID.
      *
-     * @throws IOException if the handshake fails, client already exists, or input is invalid
+     * @param parsed The handshake frame received from the client
+     * @return Completed with true once the instance ID belongs to this client, or with false
+     *         if another client owns it
+     * @throws IOException if the request is invalid
      */
-    private void receiveInstanceIdFromClient() throws IOException {
-        int retries = 3;
-        while (retries != 0) {
-            try {
-                String raw = this.in.readLine();
+    private CompletableFuture<Boolean> receiveInstanceIdFromClient(Frame parsed) throws IOException {
+        String from = parsed.getString(Payload.FROM);
 
-                Map<String, String> parsed = parser.parseMessage(raw);
-                String req = parsed.get(Payload.REQUEST.getValue());
-                String from = parsed.get(Payload.FROM.getValue());
+        if (!parsed.is(Payload.REQUEST, PayloadValue.HANDSHAKE.getValue()) || from == null) {
+            this.rejectClientHandshakeRequest(from);
+            throw new IOException("Invalid request from this anonymous client! Dropping request!");
+        }
 
-                if (req == null || !req.equals(PayloadValue.HANDSHAKE.getValue()) || from == null) {
-                    this.rejectClientHandshakeRequest(from);
-                    throw new IOException("Invalid request from this anonymous client! Dropping request!");
-                }
+        return this.server.claimClient(from, this);
+    }
 
-                ClientInstance client = this.server.getClient(from);
-                if (client != null) {
-                    this.rejectClientHandshakeRequest(from);
-                    throw new IOException(String.format("Client with this name -  %s already exists! Dropping request!", from));
-                }
+    /**
+     * Takes the instance ID once its claim completed, or rejects the handshake.
+     *
+     * @param from    The instance ID requested by the client
+     * @param granted Whether the claim succeeded
+     * @throws IOException if the client already exists, or was closed while the ID was claimed
+     */
+    private void acceptInstanceId(String from, boolean granted) throws IOException {
+        if (!granted) {
+            this.rejectClientHandshakeRequest(from);
+            throw new IOException(String.format("Client with this name -  %s already exists! Dropping request!", from));
+        }
 
-                this.instanceId = from;
-                return;
-            } catch (NullPointerException e) {
-                System.err.println("[!] - Connection closed! Handshake failed!");
+        this.instanceId = from;
+        if (this.closed.get()) {
+            // Closed while the claim was pending, possibly before the ID was set.
+            this.server.releaseClaim(from, this);
+            throw new IOException(String.format("Client %s closed during its handshake!", from));
+        }
+    }
+
+    /**
+     * Performs the handshake process with the client, including validating its instance ID,
+     * which registers it with the server, and sending confirmation. Switches the connection
+     * to the binary protocol if the client asked for it. If it asked for sequenced delivery,
+     * writes everything it did not acknowledge on its last connection again before any other
+     * chat message can reach it.
+     *
+     * <p>In a cluster, the instance ID is claimed on the other nodes first. A connection served
+     * by an event loop is then suspended and the handshake finished on the loop once the votes
+     * are in, so the loop goes on serving its other connections meanwhile.
+     *
+     * @param frame The first frame received from the client
+     * @throws IOException if the handshake is rejected
+     */
+    private void handshake(Frame frame) throws IOException {
+        Log.info("Initiating handshake with new client");
+
+        TimerWheel.Timeout deadline = this.handshakeDeadline;
+        if (deadline != null && !deadline.cancel()) {
+            throw new IOException("Timeout in handshake! Aborting...");
+        }
+
+        RetransmitStore retransmits = this.server.getRetransmits();
+        CharSequence ack = retransmits.isEnabled() ? frame.get(Payload.ACK) : null;
+        long resumeAfter;
+        CompletableFuture<Boolean> claim;
+        try {
+            resumeAfter = ack == null ? 0 : parseSequence(ack);
+            claim = this.receiveInstanceIdFromClient(frame);
+        } catch (IOException e) {
+            this.metrics.handshakeFailed();
+            throw e;
+        }
+
+        FrameCodec codec = null;
+        if (frame.is(Payload.ENCODING, PayloadValue.DEFLATE.getValue()) && this.server.getDeflateCodec() != null) {
+            codec = this.server.getDeflateCodec();
+        } else if (frame.is(Payload.ENCODING, PayloadValue.BINARY.getValue()) || frame.is(Payload.ENCODING, PayloadValue.DEFLATE.getValue())) {
+            codec = BinaryCodec.INSTANCE;
+        }
+
+        // The frame is only valid during this call, the handshake may finish later.
+        String from = frame.getString(Payload.FROM);
+        String received = ack == null ? null : ack.toString();
+        if (!claim.isDone()) {
+            String correlation = this.correlation == null ? null : this.correlation.toString();
+            FrameCodec negotiated = codec;
+            if (this.connection.suspendUntil(claim,
+                    () -> this.resumeHandshake(claim, from, negotiated, received, resumeAfter, correlation))) {
                 return;
             }
-            catch (SocketTimeoutException e) {
-                retries--;
-                System.out.println("[!] - Timeout in handshake! Retrying...");
-            } catch (IOException e) {
-                System.out.printf("[!] - %s\n", e.getMessage());
-            }
         }
-        System.out.println("[!] - Timeout in handshake! Aborting...");
+        this.completeHandshake(isGranted(claim), from, codec, received, resumeAfter);
+    }
+
+    /**
+     * Finishes a handshake suspended while its instance ID was claimed. Runs on the thread
+     * handling the client's frames, and closes the client if the handshake is rejected.
+     */
+    private void resumeHandshake(CompletableFuture<Boolean> claim, String from, FrameCodec codec,
+                                 String received, long resumeAfter, String correlation) {
+        this.correlation = correlation;
+        try {
+            this.completeHandshake(isGranted(claim), from, codec, received, resumeAfter);
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+            this.closeConnection();
+        } finally {
+            this.correlation = null;
+        }
+    }
+
+    /**
+     * Returns whether a completed claim succeeded. A claim that failed with an exception did not.
+     */
+    private static boolean isGranted(CompletableFuture<Boolean> claim) {
+        return !claim.isCompletedExceptionally() && claim.join();
     }
 
     /**
-     * Performs the handshake process with the client, including receiving instance ID
-     * and sending confirmation.
+     * Confirms the handshake once the instance ID is claimed, or rejects it.
+     *
+     * @param granted     Whether the instance ID now belongs to this client
+     * @param from        The instance ID requested by the client
+     * @param codec       The binary codec to switch to, or null to stay on the text protocol
+     * @param received    The highest sequence number the client received if it asked for
+     *                    sequenced delivery, otherwise null
+     * @param resumeAfter The same sequence number, parsed
+     * @throws IOException if the handshake is rejected
      */
-    private void handshake() {
-        try{
+    private void completeHandshake(boolean granted, String from, FrameCodec codec, String received,
+                                   long resumeAfter) throws IOException {
+        try {
+            this.acceptInstanceId(from, granted);
+        } catch (IOException e) {
+            this.metrics.handshakeFailed();
+            throw e;
+        }
 
-            System.out.println("[+] - Initiating handshake with new client");
+        this.sendConfirmationToClient(codec, received);
+        if (codec != null) {
+            this.connection.setCodec(codec);
+        }
+        if (received != null) {
+            RetransmitWindow window = this.server.getRetransmits().open(this.instanceId);
+            window.resume(resumeAfter, this.connection);
+            this.window = window;
+        }
+        this.handshakeCompleted = true;
+        this.metrics.handshakeSucceeded(System.nanoTime() - this.connectedAt);
 
-            this.receiveInstanceIdFromClient();
-            this.clientSocket.setSoTimeout(1000 * 5);
-            this.sendConfirmationToClient();
+        this.server.getPresence().online(this.instanceId);
 
-            System.out.printf("[+] - Handshake with client - %s completed successfully!\n",  this.instanceId);
-            this.clientSocket.setSoTimeout(0);
+        Log.info("Handshake with client - %s completed successfully!", this.instanceId);
+        if (this.watchIdle) {
+            long first = this.idleTimeout > 0 && this.heartbeatInterval > 0
+                    ? Math.min(this.idleTimeout, this.heartbeatInterval)
+                    : Math.max(this.idleTimeout, this.heartbeatInterval);
+            this.server.getTimers().schedule(this::checkIdle, first);
         }
-        catch (IOException e){
-            System.out.printf("[!] - %s\n", e.getMessage());
+        this.deliverMailbox();
+    }
+
+    /**
+     * Writes the messages stored for this client while it was offline, in one batch. Called
+     * after the handshake, and by a sender that stored a message just as this client
+     * completed its handshake, so nothing is left behind in the mailbox. Messages that do not
+     * fit in the client's {@link RetransmitWindow} go back to the mailbox, and are delivered
+     * once the client acknowledges what the window holds.
+     */
+    void deliverMailbox() {
+        Frame[] pending = this.mailboxes.take(this.instanceId);
+        if (pending == null) {
+            return;
         }
+
+        RetransmitWindow window = this.window;
+        int delivered = pending.length;
+        if (window != null) {
+            delivered = window.write(this.connection, pending);
+            if (delivered < pending.length) {
+                this.mailboxWaiting = true;
+                for (int i = delivered; i < pending.length; i++) {
+                    this.mailboxes.store(this.instanceId, pending[i].get(Payload.FROM), pending[i].get(Payload.MESSAGE));
+                }
+            }
+        } else {
+            this.connection.write(pending);
+        }
+        for (int i = 0; i < delivered; i++) {
+            this.metrics.frameOut(pending[i]);
+        }
+        Log.debug("Delivered %d stored messages to %s", delivered, this.instanceId);
     }
 
     /**
      * Closes the connection to the client and removes it from the server's client map.
      */
-    private void closeConnection() {
-        try{
-            this.out.close();
-            this.in.close();
-            this.server.deleteClientInstance(this.instanceId);
-        } catch (IOException e){
-            System.out.printf("[!] - %s\n", e.getMessage());
+    public void closeConnection() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        TimerWheel.Timeout deadline = this.handshakeDeadline;
+        if (deadline != null) {
+            deadline.cancel();
+        }
+        this.connection.close();
+        for (String room : this.rooms) {
+            this.server.getRooms().leave(room, this);
+        }
+        this.rooms.clear();
+        this.roomBuckets.clear();
+        if (this.presenceSubscribed) {
+            this.server.getPresence().unsubscribe(this);
         }
+        RetransmitWindow window = this.window;
+        if (window != null) {
+            // Before the instance ID is released, so the next handshake finds the window closed.
+            this.server.getRetransmits().close(this.instanceId, window);
+        }
+        this.server.deleteClientInstance(this);
     }
 
     /**
-     * Sends a message to another client via the server.
+     * Sends a message to the client holding a handle. A handle that is not current is answered
+     * with a message request confirmation of status {@link ClientStatus#FAILED} echoing it, so
+     * the client can resolve the player by name again.
      *
      * @param message The message to send
-     * @param to      The recipient client instance ID
-     * @throws IOException if the message limit is reached
+     * @param handle  The field holding the recipient's handle
+     * @throws IOException if the handle is not a number
      */
-    private void sendMessage(String message, String to) throws IOException {
-        ClientInstance receiver = this.server.getClient(to);
+    private void sendMessage(CharSequence message, CharSequence handle) throws IOException {
+        ClientInstance receiver;
+        try {
+            receiver = this.server.getClient(Integer.parseInt(handle, 0, handle.length(), 10));
+        } catch (NumberFormatException e) {
+            throw new IOException(String.format("Invalid handle %s from client %s!", handle, this.instanceId));
+        }
+
+        if (receiver == null) {
+            Log.debug("%s sent a message to unknown handle %s", this.instanceId, handle);
+            this.metrics.routeMiss();
+            this.outbound.clear()
+                    .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                    .set(Payload.STATUS, ClientStatus.FAILED.getValue())
+                    .set(Payload.HANDLE, handle);
+            this.reply(this.outbound);
+            return;
+        }
+        this.sendMessage(message, receiver.instanceId, receiver);
+    }
 
-        if(this.counter >= MAX_MESSAGES) {
-            this.out.close();
-            throw new IOException("Maximum limit reached");
+    /**
+     * Sends a message to another client via the server, or stores it if the client is not
+     * connected.
+     *
+     * @param message  The message to send
+     * @param to       The recipient client instance ID
+     * @param receiver The recipient if it was resolved by its handle, otherwise null
+     */
+    private void sendMessage(CharSequence message, String to, ClientInstance receiver) {
+        if (this.isRejectedBy(to, receiver)) {
+            this.rejectForSlowReceiver(to);
+            return;
         }
+        if (this.isThrottled(this.messageBucket)) {
+            this.rejectForRateLimit(to);
+            return;
+        }
+        this.countMessage(session(this.sessions, to), message);
 
-        this.counter += 1;
+        this.outbound.clear()
+                .set(Payload.FROM, this.instanceId)
+                .set(Payload.MESSAGE, this.body);
 
-        Map<String, String> result = new HashMap<>(Map.of(
-                Payload.FROM.getValue(), this.instanceId,
-                Payload.MESSAGE.getValue(), String.format("{%d} - %s", this.counter, message)
-        ));
+        if (Thread.currentThread() instanceof Shard shard && this.server.shardOf(to) != shard) {
+            // Only the owning shard knows whether the message is delivered, stored or lost, so it
+            // journals the message and answers the correlation ID.
+            String text = this.journal == null ? null : message.toString();
+            shard.send(this.server.shardOf(to), this.instanceId, to, this.outbound, this.frameReadAt, this.correlation, text);
+            return;
+        }
+        if (receiver != null) {
+            this.route(receiver, this.outbound);
+        } else if (!this.route(to, this.outbound) && !this.storeMessage(to)) {
+            return;
+        }
 
-        String serializedMessage = this.parser.serialize(result);
-        receiver.out.println(serializedMessage);
+        this.journal(to, message);
+        if (this.correlation != null) {
+            this.outbound.clear()
+                    .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                    .set(Payload.STATUS, ClientStatus.SUCCESS.getValue())
+                    .set(Payload.FROM, to);
+            this.reply(this.outbound);
+        }
     }
 
+    /**
+     * Appends a chat message of this client to the server's journal, if it keeps one. A
+     * failing journal is logged and does not stop the chat.
+     *
+     * @param to      The recipient client instance ID or room name
+     * @param message The message text
+     */
+    private void journal(String to, CharSequence message) {
+        if (this.journal == null) {
+            return;
+        }
+        try {
+            this.journal.append(this.instanceId, to, message);
+        } catch (IOException e) {
+            Log.error("Could not journal message from %s to %s: %s", this.instanceId, to, e.getMessage());
+        }
+    }
+
+
+    /**
+     * Counts a chat message of this client in its session and formats its numbered body into
+     * {@link #body}.
+     *
+     * @param session The session the message is sent in
+     * @param message The message text
+     */
+    private void countMessage(Session session, CharSequence message) {
+        session.messages += 1;
+
+        this.body.setLength(0);
+        this.body.append('{').append(session.messages).append("} - ").append(message);
+    }
+
+    /**
+     * Returns the session with a player or room, starting it on the first message.
+     *
+     * @param sessions The sessions with players or with rooms
+     * @param to       The player's instance ID or the room's name
+     * @return The session
+     */
+    private static Session session(Map<String, Session> sessions, String to) {
+        Session session = sessions.get(to);
+        if (session == null) {
+            session = new Session();
+            sessions.put(to, session);
+        }
+        return session;
+    }
+
+    /**
+     * Stores the current message body for a player who is not connected. If the player
+     * completed its handshake in the meantime, its mailbox is delivered right away. If
+     * mailboxes are disabled, the sender is told the player is unavailable.
+     *
+     * @param to The recipient client instance ID
+     * @return true if the message was stored
+     */
+    private boolean storeMessage(String to) {
+        if (!this.mailboxes.store(to, this.instanceId, this.body)) {
+            Log.debug("%s No such player exists!", to);
+            this.forwardMessageRequestConfirmation(to, this.instanceId, ClientStatus.FAILED.getValue());
+            return false;
+        }
+
+        Log.debug("Stored message from %s for offline player %s", this.instanceId, to);
+        ClientInstance receiver = this.server.getClient(to);
+        if (receiver != null) {
+            receiver.deliverMailbox();
+        }
+        return true;
+    }
 
     /**
-     * Parses and handles raw messages received from the client.
+     * Handles a decoded message received from the client.
      *
-     * @param raw The raw serialized message from the client
+     * @param parsed The frame received from the client
      * @throws IOException if the payload is invalid
      */
-    private void handleClientRawData(String raw) throws IOException {
-        Map<String, String> parsed = parser.parseMessage(raw);
+    private void handleClientRawData(Frame parsed) throws IOException {
+
+        if(parsed.is(Payload.REQUEST, PayloadValue.STATS.getValue())) {
+            this.sendStats();
+            return;
+        }
+
+        if(parsed.is(Payload.REQUEST, PayloadValue.PING.getValue())) {
+            this.outbound.clear().set(Payload.REQUEST, PayloadValue.PONG.getValue());
+            this.reply(this.outbound);
+            return;
+        }
+
+        if(parsed.is(Payload.REQUEST, PayloadValue.PONG.getValue())) {
+            // Only proves the client is alive, which reading it already recorded.
+            return;
+        }
+
+        if(parsed.is(Payload.REQUEST, PayloadValue.ACK.getValue())) {
+            // Its acknowledgement was already taken by handleFrame.
+            return;
+        }
+
+        if(parsed.is(Payload.REQUEST, PayloadValue.PRESENCE.getValue())
+                || parsed.is(Payload.REQUEST, PayloadValue.SUBSCRIBE.getValue())
+                || parsed.is(Payload.REQUEST, PayloadValue.UNSUBSCRIBE.getValue())) {
+            this.handlePresenceRequest(parsed);
+            return;
+        }
+
+        if(parsed.is(Payload.REQUEST, PayloadValue.JOIN.getValue())
+                || parsed.is(Payload.REQUEST, PayloadValue.LEAVE.getValue())
+                || parsed.is(Payload.REQUEST, PayloadValue.BROADCAST.getValue())) {
+            this.handleRoomRequest(parsed);
+            return;
+        }
+
+        CharSequence message = parsed.get(Payload.MESSAGE);
+        CharSequence request = parsed.get(Payload.REQUEST);
+        CharSequence status = parsed.get(Payload.STATUS);
+        CharSequence from = parsed.get(Payload.FROM);
+        CharSequence handle = parsed.get(Payload.HANDLE);
+
+        if(request == null && message != null && handle != null) {
+            this.sendMessage(message, handle);
+            return;
+        }
 
-        String message = parsed.get(Payload.MESSAGE.getValue());
-        String request = parsed.get(Payload.REQUEST.getValue());
-        String status = parsed.get(Payload.STATUS.getValue());
-        String from = parsed.get(Payload.FROM.getValue());
-        String to = parsed.get(Payload.TO.getValue());
+        String to = parsed.getString(Payload.TO);
 
 
         if(request != null && from != null && to != null && message != null && status != null) {
@@ -255,7 +981,7 @@ public class ClientInstance extends Thread {
 
         if(request != null && from != null && to != null) {
             if(status != null) {
-                this.forwardMessageRequestConfirmation(from, to, status);
+                this.forwardMessageRequestConfirmation(from, to, status, this.handleFor(to));
             } else {
                 this.forwardMessageRequest(from, to);
             }
@@ -270,6 +996,163 @@ public class ClientInstance extends Thread {
         throw new IOException(String.format("Invalid payload received from client %s!", from));
     }
 
+    /**
+     * Handles a join, leave or broadcast request for the room named in the frame's {@code to}.
+     *
+     * @param parsed The frame received from the client
+     * @throws IOException if the room is missing
+     */
+    private void handleRoomRequest(Frame parsed) throws IOException {
+        String room = parsed.getString(Payload.TO);
+        if (room == null || room.isEmpty()) {
+            throw new IOException(String.format("Room request without a room from client %s!", this.instanceId));
+        }
+
+        if (parsed.is(Payload.REQUEST, PayloadValue.JOIN.getValue())) {
+            this.rooms.add(room);
+            TokenBucket bucket = this.server.getRoomLimit(room).newBucket();
+            if (bucket != null) {
+                this.roomBuckets.putIfAbsent(room, bucket);
+            }
+            this.server.getRooms().join(room, this);
+            if (this.closed.get()) {
+                // Closed concurrently, after it left its rooms.
+                this.server.getRooms().leave(room, this);
+                return;
+            }
+            Log.debug("%s joined room %s", this.instanceId, room);
+            this.confirmRoomRequest(PayloadValue.JOIN, room, ClientStatus.SUCCESS);
+            return;
+        }
+
+        if (parsed.is(Payload.REQUEST, PayloadValue.LEAVE.getValue())) {
+            boolean left = this.rooms.remove(room) && this.server.getRooms().leave(room, this);
+            this.roomBuckets.remove(room);
+            this.roomSessions.remove(room);
+            Log.debug("%s left room %s", this.instanceId, room);
+            this.confirmRoomRequest(PayloadValue.LEAVE, room, left ? ClientStatus.SUCCESS : ClientStatus.FAILED);
+            return;
+        }
+
+        CharSequence message = parsed.get(Payload.MESSAGE);
+        if (message == null || !this.rooms.contains(room)) {
+            this.confirmRoomRequest(PayloadValue.BROADCAST, room, ClientStatus.FAILED);
+            return;
+        }
+        this.broadcast(room, message);
+    }
+
+    /**
+     * Sends a chat message to every other member of a room. The frame is encoded at most once
+     * per codec, except for members with sequenced delivery, and the members are a snapshot
+     * taken when the broadcast starts. A broadcast sent faster than the room's or the client's
+     * limit is answered {@link ClientStatus#THROTTLED} instead. Rooms are node-local, so in a
+     * {@link Cluster} only the members connected to this node receive the broadcast.
+     *
+     * @param room    Name of the room
+     * @param message The message text
+     */
+    private void broadcast(String room, CharSequence message) {
+        if (this.isThrottled(this.roomBuckets.get(room)) || this.isThrottled(this.messageBucket)) {
+            Log.debug("%s is sending too fast, refusing broadcast to %s", this.instanceId, room);
+            this.metrics.throttled();
+            this.confirmRoomRequest(PayloadValue.BROADCAST, room, ClientStatus.THROTTLED);
+            return;
+        }
+        this.countMessage(session(this.roomSessions, room), message);
+
+        this.outbound.clear()
+                .set(Payload.REQUEST, PayloadValue.BROADCAST.getValue())
+                .set(Payload.FROM, this.instanceId)
+                .set(Payload.TO, room)
+                .set(Payload.MESSAGE, this.body);
+        this.shared.reset(this.outbound);
+
+        ClientInstance[] members = this.server.getRooms().members(room);
+        for (ClientInstance member : members) {
+            if (member != this) {
+                this.metrics.frameOut(this.outbound);
+                if (member.window != null) {
+                    // Numbered for the member alone, so it cannot share the encoding.
+                    member.write(this.outbound);
+                } else {
+                    member.connection.write(this.shared);
+                }
+            }
+        }
+        this.metrics.relayed(System.nanoTime() - this.frameReadAt);
+        Log.debug("Broadcast from %s to %d members of %s", this.instanceId, members.length - 1, room);
+
+        this.journal(room, message);
+        if (this.correlation != null) {
+            this.confirmRoomRequest(PayloadValue.BROADCAST, room, ClientStatus.SUCCESS);
+        }
+    }
+
+    /**
+     * Answers a room request of this client.
+     *
+     * @param request The request being answered
+     * @param room    Name of the room
+     * @param status  The outcome
+     */
+    private void confirmRoomRequest(PayloadValue request, String room, ClientStatus status) {
+        this.outbound.clear()
+                .set(Payload.REQUEST, request.getValue())
+                .set(Payload.TO, room)
+                .set(Payload.STATUS, status.getValue());
+
+        this.reply(this.outbound);
+    }
+
+    /**
+     * Answers a presence request: a snapshot of the players online, a subscription to their
+     * changes starting with a snapshot, or the end of a subscription.
+     *
+     * @param parsed The frame received from the client
+     */
+    private void handlePresenceRequest(Frame parsed) {
+        PresenceDirectory presence = this.server.getPresence();
+
+        if (parsed.is(Payload.REQUEST, PayloadValue.SUBSCRIBE.getValue())) {
+            this.presenceSubscribed = true;
+            this.outbound.clear()
+                    .set(Payload.REQUEST, PayloadValue.SUBSCRIBE.getValue())
+                    .set(Payload.STATUS, ClientStatus.SUCCESS.getValue())
+                    .set(Payload.CORRELATION, this.correlation);
+            presence.subscribe(this, this.outbound);
+            return;
+        }
+
+        if (parsed.is(Payload.REQUEST, PayloadValue.UNSUBSCRIBE.getValue())) {
+            boolean unsubscribed = presence.unsubscribe(this);
+            this.presenceSubscribed = false;
+            this.outbound.clear()
+                    .set(Payload.REQUEST, PayloadValue.UNSUBSCRIBE.getValue())
+                    .set(Payload.STATUS, unsubscribed ? ClientStatus.SUCCESS.getValue() : ClientStatus.FAILED.getValue());
+            this.reply(this.outbound);
+            return;
+        }
+
+        this.body.setLength(0);
+        this.outbound.clear()
+                .set(Payload.REQUEST, PayloadValue.PRESENCE.getValue())
+                .set(Payload.STATUS, ClientStatus.SUCCESS.getValue())
+                .set(Payload.MESSAGE, presence.snapshot(this.body));
+        this.reply(this.outbound);
+    }
+
+    /**
+     * Answers a {@code req:stats} frame with a snapshot of the server's metrics.
+     */
+    private void sendStats() {
+        this.outbound.clear()
+                .set(Payload.REQUEST, PayloadValue.STATS.getValue())
+                .set(Payload.MESSAGE, this.metrics.snapshot());
+
+        this.reply(this.outbound);
+    }
+
     /**
      * Sends a confirmation of a message request to the recipient.
      *
@@ -277,21 +1160,47 @@ public class ClientInstance extends Thread {
      * @param to     The recipient client ID
      * @param status The status of the request
      */
-    private void forwardMessageRequestConfirmation(String from, String to, String status){
-        System.out.printf("[+] - Message request confirmation from %s to %s is %s\n", from, to, status);
+    private void forwardMessageRequestConfirmation(CharSequence from, String to, CharSequence status){
+        this.forwardMessageRequestConfirmation(from, to, status, null);
+    }
 
-        ClientInstance receiver = this.server.getClient(to);
-        Map<String, String> result = new HashMap<>(Map.of(
-                Payload.REQUEST.getValue(), PayloadValue.MESSAGE.getValue(),
-                Payload.STATUS.getValue(), status,
-                Payload.FROM.getValue(), from
-        ));
-
-        if(receiver != null) {
-            receiver.out.println(this.parser.serialize(result));
-        } else {
-            this.writeOutputBuffer(this.parser.serialize(result));
+    /**
+     * Sends a confirmation of a message request to the recipient, with the handle of the
+     * confirming player.
+     *
+     * @param from   The sender client ID
+     * @param to     The recipient client ID
+     * @param status The status of the request
+     * @param handle The handle of the sender, or null to send none
+     */
+    private void forwardMessageRequestConfirmation(CharSequence from, String to, CharSequence status, CharSequence handle){
+        Log.debug("Message request confirmation from %s to %s is %s", from, to, status);
+
+        this.outbound.clear()
+                .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                .set(Payload.STATUS, status)
+                .set(Payload.FROM, from)
+                .set(Payload.CORRELATION, this.correlation)
+                .set(Payload.HANDLE, handle);
+
+        if (!this.route(to, this.outbound)) {
+            this.reply(this.outbound);
+        }
+    }
+
+    /**
+     * Returns the handle of this client to tell a player, which only means something to
+     * players connected to this server.
+     *
+     * @param to The player
+     * @return The handle in decimal, or null if this client has none or the player is not
+     *         connected here
+     */
+    private String handleFor(String to) {
+        if (this.handleText == null || (this.server.getCluster() != null && this.server.getClient(to) == null)) {
+            return null;
         }
+        return this.handleText;
     }
 
     /**
@@ -300,24 +1209,24 @@ public class ClientInstance extends Thread {
      * @param from The sender client ID
      * @param to   The recipient client ID
      */
-    private void forwardMessageRequest(String from, String to) {
-        System.out.printf("[+] - Message request from %s to %s\n", from, to);
+    private void forwardMessageRequest(CharSequence from, String to) {
+        Log.debug("Message request from %s to %s", from, to);
 
-        ClientInstance receiver = this.server.getClient(to);
+        this.outbound.clear()
+                .set(Payload.FROM, this.instanceId)
+                .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                .set(Payload.CORRELATION, this.correlation)
+                .set(Payload.HANDLE, this.handleFor(to));
 
-        if(receiver == null) {
-            System.out.printf("[!] - %s No such player exists!\n", to);
-            this.forwardMessageRequestConfirmation(to, from, ClientStatus.FAILED.getValue());
-            return;
+        if (!this.route(to, this.outbound)) {
+            if (this.mailboxes.isEnabled()) {
+                Log.debug("%s is offline, messages will be stored", to);
+                this.forwardMessageRequestConfirmation(to, this.instanceId, ClientStatus.SUCCESS.getValue());
+                return;
+            }
+            Log.debug("%s No such player exists!", to);
+            this.forwardMessageRequestConfirmation(to, this.instanceId, ClientStatus.FAILED.getValue());
         }
-
-        Map<String, String> result = new HashMap<>(Map.of(
-                Payload.FROM.getValue(), this.instanceId,
-                Payload.REQUEST.getValue(), PayloadValue.MESSAGE.getValue()
-        ));
-
-        String serializedRequest = this.parser.serialize(result);
-        receiver.out.println(serializedRequest);
     }
 
     /**
@@ -326,39 +1235,76 @@ public class ClientInstance extends Thread {
      * @param from    Sender client ID
      * @param to      Recipient client ID
      * @param message The message content
-     * @throws IOException If sending fails
      */
-    private void processClientMessage(String from, String to, String message) throws IOException {
-        System.out.printf("[+] - Received message: from %s, to %s \n", from, to);
-        this.sendMessage(message, to);
+    private void processClientMessage(CharSequence from, String to, CharSequence message) {
+        Log.debug("Received message: from %s, to %s", from, to);
+        this.sendMessage(message, to, null);
     }
 
     /**
-     * The main thread execution. Continuously reads messages from the client
-     * and handles them accordingly.
+     * Handles a single frame received from the client. The first frame of a client
+     * is its handshake; every later frame is a request or message to route, and may
+     * acknowledge the chat messages of a client with sequenced delivery.
+     *
+     * @param frame The decoded frame from the client, only valid during this call
+     * @throws IOException if the handshake is rejected or the payload is invalid
      */
-    public void run() {
-        try {
-            while (true) {
-                String raw = this.in.readLine();
-                if (raw == null) {
-                   throw new NullPointerException();
-                }
+    public void handleFrame(Frame frame) throws IOException {
+        this.frameReadAt = System.nanoTime();
+        if (this.watchIdle) {
+            this.lastReadAt = this.frameReadAt;
+        }
+        this.metrics.frameIn(frame);
+        this.correlation = frame.get(Payload.CORRELATION);
 
-                this.handleClientRawData(raw);
+        try {
+            if (this.instanceId == null) {
+                this.handshake(frame);
+                return;
             }
 
+            CharSequence ack = frame.get(Payload.ACK);
+            RetransmitWindow window = this.window;
+            if (ack != null && window != null) {
+                window.acknowledge(parseSequence(ack));
+                if (this.mailboxWaiting) {
+                    this.mailboxWaiting = false;
+                    this.deliverMailbox();
+                }
+            }
+            this.handleClientRawData(frame);
+        } finally {
+            this.correlation = null;
         }
-        catch (SocketTimeoutException e){
-            // Do nothing and continue listening.
-        }
-        catch (NullPointerException npe) {
-            System.out.printf("[!] - Connection closed with %s!\n", this.instanceId);
-            this.closeConnection();
-        }
-        catch (IOException e) {
-            System.out.printf("[!] - %s\n", e.getMessage());
+    }
+
+    /**
+     * Parses a sequence number sent by the client, without copying it.
+     *
+     * @param value The field holding the number
+     * @return The number
+     * @throws IOException if the field is not a number of zero or more
+     */
+    private static long parseSequence(CharSequence value) throws IOException {
+        try {
+            long sequence = Long.parseLong(value, 0, value.length(), 10);
+            if (sequence >= 0) {
+                return sequence;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below, like a negative number.
         }
+        throw new IOException(String.format("Invalid sequence number %s!", value));
+    }
+
+    /**
+     * Parses a text line and handles it as a single frame.
+     *
+     * @param raw The raw serialized frame from the client
+     * @throws IOException if the handshake is rejected or the payload is invalid
+     */
+    public void handleFrame(CharSequence raw) throws IOException {
+        this.handleFrame(this.parser.parse(raw, this.inbound));
     }
 
 }
@@ -0,0 +1,134 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.AdmissionPolicy;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * ClientRegistry maps instance IDs to the connected {@link ClientInstance}s and
+ * controls how many connections the server admits.
+ *
+ * <p>Names are claimed with a single atomic {@link ConcurrentHashMap#putIfAbsent} at
+ * handshake time, so two clients racing for the same name can never both succeed.
+ * Lookups on the routing path never take a lock.
+ *
+ * <p>Admission is counted per connection, from accept until close, with a {@link Semaphore}.
+ * When the limit is reached {@link AdmissionPolicy#BLOCK} parks the accepting thread until a
+ * connection is released, and {@link AdmissionPolicy#REJECT} refuses the connection. Neither
+ * spins. Without a limit no semaphore is created and admission costs nothing.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     ClientRegistry registry = new ClientRegistry(1000, AdmissionPolicy.REJECT);
+ *     if (registry.admit()) {
+ *         boolean claimed = registry.claim("hashed", instance);
+ *     }
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class ClientRegistry {
+
+    /** Mapping of client instance IDs to ClientInstance objects */
+    private final ConcurrentHashMap<String, ClientInstance> clients = new ConcurrentHashMap<>();
+
+    /** Admission slots, or null when the number of connections is unlimited */
+    private final Semaphore slots;
+
+    /** What to do when no admission slot is free */
+    private final AdmissionPolicy policy;
+
+    /**
+     * Creates a registry.
+     *
+     * @param maxClients Maximum number of admitted connections, 0 or less for no limit
+     * @param policy     What to do with new connections once the limit is reached
+     */
+    public ClientRegistry(int maxClients, AdmissionPolicy policy) {
+        this.slots = maxClients > 0 ? new Semaphore(maxClients) : null;
+        this.policy = policy;
+    }
+
+    /**
+     * Admits a new connection, taking one admission slot.
+     *
+     * @return true if the connection was admitted; false if it must be rejected
+     * @throws InterruptedException if the thread is interrupted while blocked for a slot
+     */
+    public boolean admit() throws InterruptedException {
+        if (this.slots == null) {
+            return true;
+        }
+
+        if (this.policy == AdmissionPolicy.BLOCK) {
+            this.slots.acquire();
+            return true;
+        }
+        return this.slots.tryAcquire();
+    }
+
+    /**
+     * Gives back the admission slot of a closed connection. Must be called exactly
+     * once for every successful {@link #admit()}.
+     */
+    public void leave() {
+        if (this.slots != null) {
+            this.slots.release();
+        }
+    }
+
+    /**
+     * Atomically claims an instance ID for a client.
+     *
+     * @param instanceId The instance ID requested in the handshake
+     * @param instance   The client claiming the ID
+     * @return true if the ID was free and is now owned by the client; false if it is taken
+     */
+    public boolean claim(String instanceId, ClientInstance instance) {
+        return this.clients.putIfAbsent(instanceId, instance) == null;
+    }
+
+    /**
+     * Releases an instance ID, but only if it is still owned by the given client.
+     *
+     * @param instanceId The instance ID to release
+     * @param instance   The client that owns the ID
+     * @return true if the ID was released
+     */
+    public boolean release(String instanceId, ClientInstance instance) {
+        return instanceId != null && this.clients.remove(instanceId, instance);
+    }
+
+    /**
+     * Retrieves a connected client instance by its instance ID.
+     *
+     * @param instanceId The unique ID of the client
+     * @return The ClientInstance if found; otherwise, null
+     */
+    public ClientInstance get(String instanceId) {
+        return instanceId == null ? null : this.clients.get(instanceId);
+    }
+
+    /**
+     * Passes every registered client to an action, without a lock. Clients registered or
+     * released meanwhile may or may not be passed.
+     *
+     * @param action The action to run for each client
+     */
+    public void forEach(Consumer<ClientInstance> action) {
+        this.clients.values().forEach(action);
+    }
+
+    /**
+     * Returns the number of clients holding a claimed instance ID.
+     *
+     * @return The number of registered clients
+     */
+    public int size() {
+        return this.clients.size();
+    }
+}
@@ -0,0 +1,614 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.ClientStatus;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PeerOp;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.Log;
+import com.hashedalgorithm.playerchat.utils.TimerWheel;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster links several {@link Server} processes, so players connected to different nodes can
+ * chat with each other.
+ *
+ * <p>Every node listens for peer links on its cluster port and dials the peers it was given,
+ * redialing them whenever a link drops. Each pair of nodes keeps one {@link PeerLink}: if both
+ * dialed, the link dialed by the node with the smaller node ID wins. All traffic between two
+ * nodes, control frames and relayed client frames alike, is batched on that link.
+ *
+ * <p>Every node keeps a replicated directory of which node each player is connected to:
+ * <ul>
+ *     <li>A handshake claims its instance ID on every linked node with a
+ *         {@link PeerOp#CLAIM}. Each peer votes success unless the ID is owned there, and
+ *         records the claimer as the tentative owner. The handshake only succeeds once every
+ *         peer voted success, so an instance ID is unique across the cluster.</li>
+ *     <li>When several nodes claim the same ID at once, the claim of the smallest node ID
+ *         wins: a node gives up its own pending claim, and replaces a tentative owner, when
+ *         a smaller node claims the ID.</li>
+ *     <li>The winner confirms its ownership with a {@link PeerOp#ANNOUNCE}, a losing claim is
+ *         withdrawn with a {@link PeerOp#RELEASE}, and so is the ID of a closed client.</li>
+ *     <li>A newly linked node is told about every player of this node with
+ *         {@link PeerOp#ANNOUNCE}, and a dropped link removes the players of its node.</li>
+ * </ul>
+ *
+ * <p>A frame for a player who is not connected to this node is {@link #forward(String, Frame)}ed
+ * to the node the directory names, with the player in {@link Payload#TO}. That node writes it
+ * to the player, or stores a chat message in its {@link MailboxStore} if the player has left.
+ *
+ * <p>Only the directory and point-to-point frames cross nodes. Rooms and presence are node-local:
+ * a {@link RoomRegistry} holds the members connected to its own node, so a broadcast never
+ * reaches members of the same room on other nodes, and the {@link PresenceDirectory} lists and
+ * notifies only the players of its node. Mailboxes and rate limits are per node as well.
+ *
+ * <p>Peers that are not linked do not vote, so a partitioned cluster may admit the same
+ * instance ID on both sides; the conflict is logged once the link is back. A claim holds back the
+ * handshake for one round trip to the slowest peer, at most {@link #CLAIM_TIMEOUT_MS}, without
+ * blocking the thread that made it: the handshake is finished when the votes are in.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     Server server = new Server(new ServerConfig()
+ *             .setNodeId("eu-1")
+ *             .setClusterPort(12346)
+ *             .setPeers(List.of(new InetSocketAddress("10.0.0.2", 12346))));
+ *     server.start();
+ * </pre>
+ *
+ * <p>Thread safety: Claims, releases and forwards may be called from any connection thread or
+ * event loop. Directory entries are only changed with atomic per-key operations.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class Cluster implements AutoCloseable {
+
+    /** Longest a handshake waits for the votes of its peers */
+    static final long CLAIM_TIMEOUT_MS = 2000;
+
+    /** Pause between two attempts to dial the peers that are not linked */
+    private static final long REDIAL_MS = 500;
+
+    /** Node ID of this node, unique in the cluster */
+    private final String nodeId;
+
+    /** The server whose players this node hosts */
+    private final Server server;
+
+    /** Addresses of the peers this node dials */
+    private final List<InetSocketAddress> peers;
+
+    /** Socket accepting links from other nodes */
+    private final ServerSocket listener;
+
+    /** The active link to every connected node, by node ID */
+    private final ConcurrentHashMap<String, PeerLink> links = new ConcurrentHashMap<>();
+
+    /** The last link dialed to every peer address */
+    private final Map<InetSocketAddress, PeerLink> dialed = new ConcurrentHashMap<>();
+
+    /**
+     * Owner of every known instance ID: the node ID of the node the player is connected to,
+     * the {@link Tentative} owner voted for while its claim is open, or the {@link Claim} of
+     * a player of this node.
+     */
+    private final ConcurrentHashMap<String, Object> directory = new ConcurrentHashMap<>();
+
+    /** Number of the last claim made by this node */
+    private final AtomicLong claims = new AtomicLong();
+
+    /** Whether the cluster was closed */
+    private volatile boolean closed = false;
+
+    /**
+     * Another node this node voted for, until it confirms or withdraws its claim.
+     *
+     * @param node Node ID of the claimer
+     */
+    private record Tentative(String node) {
+    }
+
+    /**
+     * A claim of this node on an instance ID, kept in the directory for as long as the
+     * player is connected.
+     */
+    private static final class Claim {
+
+        /** Number echoed by the votes for this claim */
+        private final long number;
+
+        /** Nodes whose vote is still missing */
+        private final Set<String> waiting = ConcurrentHashMap.newKeySet();
+
+        /** Nodes asked to vote */
+        private final Set<String> voters;
+
+        /** Completed with true once every node voted success, with false on the first failure */
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Claim(long number, Set<String> voters) {
+            this.number = number;
+            this.voters = voters;
+            this.waiting.addAll(voters);
+            if (voters.isEmpty()) {
+                this.result.complete(true);
+            }
+        }
+
+        /**
+         * Counts the vote of a node. Nodes that were not asked, or already voted, are ignored.
+         */
+        private void vote(String node, boolean granted) {
+            if (!this.waiting.remove(node)) {
+                return;
+            }
+            if (!granted) {
+                this.result.complete(false);
+            } else if (this.waiting.isEmpty()) {
+                this.result.complete(true);
+            }
+        }
+
+        /**
+         * Fails the claim if the votes took too long. Runs on the server's timer wheel.
+         */
+        private void expire() {
+            if (this.result.complete(false)) {
+                Log.warn("Claim %d timed out waiting for %s", this.number, this.waiting);
+            }
+        }
+
+        private boolean isPending() {
+            return !this.result.isDone();
+        }
+
+        private boolean isGranted() {
+            return this.result.getNow(false);
+        }
+    }
+
+    /**
+     * Creates a cluster node and binds its peer listener. Links are only made once
+     * {@link #start()} is called.
+     *
+     * @param server The server whose players this node hosts
+     * @param nodeId Node ID of this node, unique in the cluster
+     * @param port   Port to accept peer links on, 0 for any free port
+     * @param peers  Addresses of the peers to dial
+     * @throws IOException if the listener cannot be bound
+     */
+    public Cluster(Server server, String nodeId, int port, List<InetSocketAddress> peers) throws IOException {
+        this.server = server;
+        this.nodeId = nodeId;
+        this.peers = List.copyOf(peers);
+        this.listener = new ServerSocket(port);
+    }
+
+    /**
+     * Starts accepting peer links and dialing the configured peers.
+     */
+    public void start() {
+        Log.info("Node %s accepting peer links on port %d", this.nodeId, this.getPort());
+        Thread.ofPlatform().daemon().name("cluster-accept").start(this::acceptLinks);
+        if (!this.peers.isEmpty()) {
+            Thread.ofPlatform().daemon().name("cluster-dial").start(this::dialPeers);
+        }
+    }
+
+    /**
+     * Returns the node ID of this node.
+     *
+     * @return The node ID
+     */
+    public String getNodeId() {
+        return this.nodeId;
+    }
+
+    /**
+     * Returns the port peer links are accepted on. Useful when bound to port 0.
+     *
+     * @return The local port of the peer listener
+     */
+    public int getPort() {
+        return this.listener.getLocalPort();
+    }
+
+    /**
+     * Returns the number of nodes this node is linked to.
+     *
+     * @return The number of active links
+     */
+    public int getLinkCount() {
+        return this.links.size();
+    }
+
+    /**
+     * Returns the node a player is connected to, according to the directory.
+     *
+     * @param instanceId The instance ID of the player
+     * @return The node ID, this node's ID for a player of this node, or null if unknown or
+     *         not confirmed yet
+     */
+    public String locate(String instanceId) {
+        Object owner = this.directory.get(instanceId);
+        if (owner instanceof Claim claim) {
+            return claim.isGranted() ? this.nodeId : null;
+        }
+        return owner instanceof String node ? node : null;
+    }
+
+    /**
+     * Returns whether the directory has an entry for an instance ID, confirmed or not.
+     *
+     * @param instanceId The instance ID of a player
+     * @return true if a player of any node holds or claims the ID
+     */
+    boolean isKnown(String instanceId) {
+        return this.directory.containsKey(instanceId);
+    }
+
+    /**
+     * Claims an instance ID for a player of this node on every linked node. Returns at once;
+     * the result completes when the last vote arrives, on the first refusal or after
+     * {@link #CLAIM_TIMEOUT_MS}, on the thread delivering that outcome.
+     *
+     * @param instanceId The instance ID requested in the handshake
+     * @return Completed with true if the ID is now owned by this node; with false if another
+     *         node owns it
+     */
+    public CompletableFuture<Boolean> claim(String instanceId) {
+        Claim claim = new Claim(this.claims.incrementAndGet(), Set.copyOf(this.links.keySet()));
+        if (this.directory.putIfAbsent(instanceId, claim) != null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Frame request = new Frame()
+                .set(Payload.REQUEST, PeerOp.CLAIM.getValue())
+                .set(Payload.INSTANCE_ID, instanceId)
+                .set(Payload.MESSAGE, Long.toString(claim.number));
+        for (String node : claim.voters) {
+            PeerLink link = this.links.get(node);
+            if (link != null) {
+                link.send(request);
+            } else {
+                claim.vote(node, true);
+            }
+        }
+
+        if (!claim.result.isDone()) {
+            TimerWheel.Timeout timeout = this.server.getTimers().schedule(claim::expire, CLAIM_TIMEOUT_MS);
+            claim.result.whenComplete((granted, e) -> timeout.cancel());
+        }
+        return claim.result.thenApply(granted -> {
+            if (!granted) {
+                this.directory.remove(instanceId, claim);
+                this.sendToAll(PeerOp.RELEASE, instanceId);
+                return false;
+            }
+
+            // Confirms the claim to the voters, and tells nodes linked in the meantime about it.
+            this.sendToAll(PeerOp.ANNOUNCE, instanceId);
+            return true;
+        });
+    }
+
+    /**
+     * Releases an instance ID owned by this node on every linked node.
+     *
+     * @param instanceId The instance ID of a player that left
+     */
+    public void release(String instanceId) {
+        Object owner = this.directory.get(instanceId);
+        if (owner instanceof Claim claim && this.directory.remove(instanceId, claim)) {
+            this.sendToAll(PeerOp.RELEASE, instanceId);
+        }
+    }
+
+    /**
+     * Sends a client frame to the node a player is connected to. The frame is encoded before
+     * this method returns and is left unchanged.
+     *
+     * @param to    The instance ID of the player
+     * @param frame The frame to deliver to the player
+     * @return true if the frame was queued for another node; false if the player is not
+     *         connected to a linked node
+     */
+    public boolean forward(String to, Frame frame) {
+        if (!(this.directory.get(to) instanceof String node)) {
+            return false;
+        }
+        PeerLink link = this.links.get(node);
+        if (link == null) {
+            return false;
+        }
+
+        frame.set(Payload.TO, to);
+        link.send(frame);
+        frame.set(Payload.TO, null);
+        return true;
+    }
+
+    /**
+     * Handles a frame received on a link.
+     *
+     * @param link  The link the frame was read from
+     * @param frame The frame, only valid during this call
+     * @throws IOException if the peer did not start with a valid hello
+     */
+    void handle(PeerLink link, Frame frame) throws IOException {
+        String node = link.getNodeId();
+        if (node == null) {
+            this.hello(link, frame);
+            return;
+        }
+
+        if (frame.has(Payload.TO)) {
+            this.deliver(frame);
+            return;
+        }
+
+        String instanceId = frame.getString(Payload.INSTANCE_ID);
+        switch (PeerOp.fromValue(frame.getString(Payload.REQUEST))) {
+            case CLAIM -> this.vote(link, instanceId, frame.getString(Payload.MESSAGE));
+            case VOTE -> {
+                if (this.directory.get(instanceId) instanceof Claim claim
+                        && Long.toString(claim.number).equals(frame.getString(Payload.MESSAGE))) {
+                    claim.vote(node, frame.is(Payload.STATUS, ClientStatus.SUCCESS.getValue()));
+                }
+            }
+            case ANNOUNCE -> this.directory.compute(instanceId, (id, owner) -> {
+                if (owner == null || owner instanceof Tentative || owner.equals(node)) {
+                    return node;
+                }
+                Log.warn("Player %s is connected to node %s and to node %s", id, node, this.locate(id));
+                return owner;
+            });
+            case RELEASE -> {
+                this.directory.remove(instanceId, node);
+                this.directory.remove(instanceId, new Tentative(node));
+            }
+            case HELLO -> throw new IOException(String.format("Node %s said hello twice!", node));
+        }
+    }
+
+    /**
+     * Reads the hello that starts every link, answers it on accepted links and makes the link
+     * the active one to its node.
+     */
+    private void hello(PeerLink link, Frame frame) throws IOException {
+        String node = frame.getString(Payload.FROM);
+        if (!frame.is(Payload.REQUEST, PeerOp.HELLO.getValue()) || node == null) {
+            throw new IOException("Peer link did not start with a hello!");
+        }
+        if (node.equals(this.nodeId)) {
+            throw new IOException(String.format("Node %s linked to itself!", node));
+        }
+
+        link.setNodeId(node);
+        if (!link.isDialed()) {
+            link.send(this.helloFrame());
+        }
+
+        PeerLink existing = this.links.putIfAbsent(node, link);
+        if (existing != null) {
+            if (this.isPreferred(existing) && !this.isPreferred(link)) {
+                Log.debug("Dropping duplicate link to node %s", node);
+                link.close();
+                return;
+            }
+            this.links.put(node, link);
+            existing.close();
+        }
+        Log.info("Linked to node %s", node);
+
+        Frame announce = new Frame().set(Payload.REQUEST, PeerOp.ANNOUNCE.getValue());
+        for (Map.Entry<String, Object> entry : this.directory.entrySet()) {
+            if (entry.getValue() instanceof Claim claim && claim.isGranted()) {
+                link.send(announce.set(Payload.INSTANCE_ID, entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Returns whether a link is the one kept when two nodes dialed each other: the one dialed
+     * by the node with the smaller node ID.
+     */
+    private boolean isPreferred(PeerLink link) {
+        boolean dialedBySmaller = this.nodeId.compareTo(link.getNodeId()) < 0;
+        return link.isDialed() == dialedBySmaller;
+    }
+
+    /**
+     * Votes on the claim of another node and records it as the tentative owner if the vote is
+     * success. A pending claim of this node, or a tentative owner, for the same ID loses if
+     * the other node's ID is smaller. The losing claim is only failed once the directory holds
+     * the tentative owner, since failing it runs the stages waiting on the claim, which must not
+     * touch the directory from inside its compute.
+     */
+    private void vote(PeerLink link, String instanceId, String number) {
+        String node = link.getNodeId();
+        boolean[] granted = new boolean[1];
+        Claim[] lost = new Claim[1];
+
+        this.directory.compute(instanceId, (id, owner) -> {
+            if (owner instanceof Claim claim) {
+                if (claim.isPending() && node.compareTo(this.nodeId) < 0) {
+                    lost[0] = claim;
+                } else if (claim.isGranted() || claim.isPending()) {
+                    return claim;
+                }
+            } else if (owner instanceof Tentative tentative) {
+                if (node.compareTo(tentative.node()) > 0) {
+                    return owner;
+                }
+            } else if (owner != null && !owner.equals(node)) {
+                return owner;
+            }
+            granted[0] = true;
+            return new Tentative(node);
+        });
+        if (lost[0] != null) {
+            lost[0].result.complete(false);
+        }
+
+        link.send(new Frame()
+                .set(Payload.REQUEST, PeerOp.VOTE.getValue())
+                .set(Payload.INSTANCE_ID, instanceId)
+                .set(Payload.MESSAGE, number)
+                .set(Payload.STATUS, granted[0] ? ClientStatus.SUCCESS.getValue() : ClientStatus.FAILED.getValue()));
+    }
+
+    /**
+     * Writes a client frame relayed by another node to its player, or stores it if it is a
+     * chat message for a player who has left.
+     */
+    private void deliver(Frame frame) {
+        String to = frame.getString(Payload.TO);
+        frame.set(Payload.TO, null);
+
+        ClientInstance receiver = this.server.getClient(to);
+        if (receiver != null) {
+            receiver.deliver(frame);
+            return;
+        }
+
+        String from = frame.getString(Payload.FROM);
+        if (!frame.has(Payload.REQUEST) && frame.has(Payload.MESSAGE) && from != null
+                && this.server.getMailboxes().store(to, from, frame.get(Payload.MESSAGE))) {
+            Log.debug("Stored relayed message from %s for offline player %s", from, to);
+            receiver = this.server.getClient(to);
+            if (receiver != null) {
+                receiver.deliverMailbox();
+            }
+            return;
+        }
+        this.server.getMetrics().routeMiss();
+    }
+
+    /**
+     * Removes a closed link and the players of its node, if it was the active link. Claims
+     * waiting for the node's vote no longer wait for it.
+     *
+     * @param link The closed link
+     */
+    void linkDown(PeerLink link) {
+        String node = link.getNodeId();
+        if (node == null || !this.links.remove(node, link)) {
+            return;
+        }
+
+        Tentative tentative = new Tentative(node);
+        this.directory.values().removeIf(owner -> node.equals(owner) || tentative.equals(owner));
+        for (Object owner : this.directory.values()) {
+            if (owner instanceof Claim claim) {
+                claim.vote(node, true);
+            }
+        }
+        Log.warn("Lost link to node %s", node);
+    }
+
+    /**
+     * Sends a control frame about an instance ID to every linked node.
+     */
+    private void sendToAll(PeerOp op, String instanceId) {
+        Frame frame = new Frame()
+                .set(Payload.REQUEST, op.getValue())
+                .set(Payload.INSTANCE_ID, instanceId);
+        for (PeerLink link : this.links.values()) {
+            link.send(frame);
+        }
+    }
+
+    private Frame helloFrame() {
+        return new Frame()
+                .set(Payload.REQUEST, PeerOp.HELLO.getValue())
+                .set(Payload.FROM, this.nodeId);
+    }
+
+    /**
+     * Runs a link on its own virtual thread.
+     */
+    private PeerLink open(Socket socket, boolean dialed) throws IOException {
+        PeerLink link = new PeerLink(this, socket, dialed, this.server.getWriterExecutor(), this.server.getMetrics());
+        Thread.ofVirtual().name("peer-link").start(link);
+        return link;
+    }
+
+    /**
+     * Accepts links from other nodes until the cluster is closed.
+     */
+    private void acceptLinks() {
+        while (!this.closed) {
+            try {
+                this.open(this.listener.accept(), false);
+            } catch (IOException e) {
+                if (!this.closed) {
+                    Log.error("Could not accept peer link: %s", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Dials every configured peer that has no link to this node, again and again until the
+     * cluster is closed.
+     */
+    private void dialPeers() {
+        while (!this.closed) {
+            for (InetSocketAddress address : this.peers) {
+                PeerLink previous = this.dialed.get(address);
+                if (previous != null && (!previous.isClosed()
+                        || previous.getNodeId() != null && this.links.containsKey(previous.getNodeId()))) {
+                    continue;
+                }
+
+                try {
+                    Socket socket = new Socket();
+                    socket.connect(address, (int) REDIAL_MS);
+                    PeerLink link = this.open(socket, true);
+                    link.send(this.helloFrame());
+                    this.dialed.put(address, link);
+                } catch (IOException e) {
+                    Log.debug("Could not dial peer %s: %s", address, e.getMessage());
+                }
+            }
+
+            try {
+                Thread.sleep(REDIAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting and dialing and closes every link. Other nodes drop the players of this
+     * node from their directories.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        try {
+            this.listener.close();
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        }
+        for (PeerLink link : this.links.values()) {
+            link.close();
+        }
+        for (PeerLink link : this.dialed.values()) {
+            link.close();
+        }
+    }
+}
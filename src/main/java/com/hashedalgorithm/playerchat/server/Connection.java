@@ -0,0 +1,90 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Connection abstracts the transport a {@link ClientInstance} uses to talk to its client.
+ *
+ * <p>The handshake and routing logic in {@link ClientInstance} only ever writes whole
+ * frames and closes the transport, so the same logic can run on top of a blocking
+ * socket ({@link StreamConnection}) or a non-blocking channel ({@link ChannelConnection}).
+ * Each connection encodes frames with the {@link FrameCodec} negotiated with its own client,
+ * so a text client and a binary client can talk to each other.
+ *
+ * <p>Thread safety: The {@code write} methods may be called by any thread, since other
+ * clients route messages into this connection.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public interface Connection {
+
+    /**
+     * Encodes a single frame with the current codec and writes it to the client. The frame is
+     * encoded before this method returns, so the caller may reuse it.
+     *
+     * @param frame The frame to write
+     */
+    void write(Frame frame);
+
+    /**
+     * Encodes several frames with the current codec and queues them as one batch, so they
+     * reach the client in a single write and no other frame is written between them.
+     *
+     * @param frames The frames to write, in order
+     */
+    void write(Frame[] frames);
+
+    /**
+     * Writes a frame that is being sent to many connections, reusing its encoding for the
+     * current codec if another connection already encoded it.
+     *
+     * @param frame The shared frame
+     */
+    void write(SharedFrame frame);
+
+    /**
+     * Switches the encoding negotiated in the handshake. Frames written and frames read after
+     * this call use the new codec. Must be called by the thread handling the client's frames.
+     *
+     * @param codec The codec to use from now on
+     */
+    void setCodec(FrameCodec codec);
+
+    /**
+     * Returns whether frames from other clients are refused for now, because this client reads
+     * slower than it is written to and its outbound policy is
+     * {@link com.hashedalgorithm.playerchat.enums.OutboundPolicy#REJECT_SENDER}.
+     *
+     * @return true if senders must be told the client is busy instead of writing to it
+     */
+    default boolean isRejectingSenders() {
+        return false;
+    }
+
+    /**
+     * Stops handling the client's frames until a pending step of its handshake completes, then
+     * runs the rest of the handshake on the thread handling the client's frames, before any
+     * frame received meanwhile. Must be called by that thread.
+     *
+     * <p>A connection served by a thread of its own returns false, and the caller waits for the
+     * step instead.
+     *
+     * @param step The pending step
+     * @param then The rest of the handshake
+     * @return true if the connection runs {@code then} once the step completes
+     */
+    default boolean suspendUntil(CompletableFuture<?> step, Runnable then) {
+        return false;
+    }
+
+    /**
+     * Closes the underlying transport. Calling this more than once has no effect.
+     */
+    void close();
+}
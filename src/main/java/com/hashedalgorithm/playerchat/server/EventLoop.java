@@ -0,0 +1,198 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.utils.Log;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * EventLoop is a single selector thread serving many non-blocking client channels.
+ *
+ * <p>The selector server mode starts a small fixed number of loops and hands every
+ * accepted channel to one of them. A loop owns its channels for their whole lifetime:
+ * reads, handshake, routing of inbound frames and flushing of outbound frames all run
+ * on the loop thread. Other threads interact with a loop only through {@link #execute(Runnable)}.
+ * The sharded server mode runs {@link Shard}s, loops that also exchange frames with each other.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     EventLoop loop = new EventLoop(server, 0);
+ *     loop.start();
+ *     loop.register(serverChannel.accept());
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class EventLoop extends Thread {
+
+    /** Selector multiplexing all channels of this loop */
+    private final Selector selector;
+
+    /** Reference to the main Server instance */
+    private final Server server;
+
+    /** Tasks submitted by other threads, run on the loop thread */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new event loop.
+     *
+     * @param server Reference to the server instance
+     * @param index  Index of the loop, used in the thread name
+     * @throws IOException if the selector cannot be opened
+     */
+    public EventLoop(Server server, int index) throws IOException {
+        this(server, String.format("event-loop-%d", index));
+    }
+
+    /**
+     * Creates a new event loop with the given thread name.
+     *
+     * @param server Reference to the server instance
+     * @param name   Name of the loop thread
+     * @throws IOException if the selector cannot be opened
+     */
+    protected EventLoop(Server server, String name) throws IOException {
+        super(name);
+        this.server = server;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Hands an accepted channel to this loop.
+     *
+     * @param channel The accepted client channel
+     */
+    public void register(SocketChannel channel) {
+        this.execute(() -> {
+            ChannelConnection connection = new ChannelConnection(this.server, this, channel);
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+
+                this.attach(connection, channel);
+                connection.getInstance().startTimeouts();
+            } catch (IOException e) {
+                Log.error("%s", e.getMessage());
+                connection.getInstance().closeConnection();
+            }
+        });
+    }
+
+    /**
+     * Registers the channel of a connection with the selector of this loop. Must be called on
+     * the loop thread.
+     *
+     * @param connection The connection served by this loop from now on
+     * @param channel    The non-blocking channel of the connection
+     * @throws IOException if the channel is closed
+     */
+    void attach(ChannelConnection connection, SocketChannel channel) throws IOException {
+        connection.setKey(channel.register(this.selector, SelectionKey.OP_READ, connection));
+    }
+
+    /**
+     * Makes the current or next select of this loop return immediately.
+     */
+    void wakeup() {
+        this.selector.wakeup();
+    }
+
+    /**
+     * Runs a task on the loop thread. Tasks submitted from the loop thread itself run immediately.
+     *
+     * @param task The task to run
+     */
+    public void execute(Runnable task) {
+        if (Thread.currentThread() == this) {
+            task.run();
+            return;
+        }
+
+        this.tasks.offer(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Runs all tasks submitted since the last wakeup. A task that fails is logged and does not
+     * stop the loop or the tasks after it.
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.error("Task failed on %s: %s", this.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Handles the ready operations of a single selection key. Only the connection of the key
+     * is closed if handling it fails.
+     *
+     * @param key The selected key
+     */
+    private void handleKey(SelectionKey key) {
+        ChannelConnection connection = (ChannelConnection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+            connection.getInstance().closeConnection();
+        } catch (RuntimeException e) {
+            // A bug or a key cancelled under the handler must not take the loop's other connections down.
+            Log.error("Closing connection of %s after an unexpected error: %s", connection.getInstance().instanceId, e);
+            connection.getInstance().closeConnection();
+        }
+    }
+
+    /**
+     * Called on the loop thread at the end of every iteration, after the submitted tasks ran
+     * and the ready keys were handled. Does nothing by default.
+     */
+    protected void afterSelect() {
+    }
+
+    /**
+     * The main loop execution. Waits for ready channels and submitted tasks until interrupted.
+     */
+    public void run() {
+        try {
+            while (!this.isInterrupted()) {
+                this.selector.select();
+                this.runTasks();
+
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (key.isValid()) {
+                        this.handleKey(key);
+                    }
+                }
+                try {
+                    this.afterSelect();
+                } catch (RuntimeException e) {
+                    Log.error("Task failed on %s: %s", this.getName(), e);
+                }
+            }
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        }
+    }
+}
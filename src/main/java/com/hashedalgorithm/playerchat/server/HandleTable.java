@@ -0,0 +1,172 @@
+package com.hashedalgorithm.playerchat.server;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * HandleTable gives every client that completes its handshake a compact integer handle, so
+ * frames can address a player without its name and be routed with an array index instead of a
+ * string hash and comparison.
+ *
+ * <p>A handle is a slot of the table in its low {@value #SLOT_BITS} bits and the generation of
+ * that slot above them. A slot is reused once its client leaves, and every reuse increments its
+ * generation, so a handle kept by a peer after its player left no longer matches the slot's new
+ * client and resolves to nothing rather than to a stranger. Generations wrap after
+ * {@value #MAX_GENERATION}, so a handle is only mistaken for a later one if its slot was reused
+ * that many times while the handle was kept. Handles are never 0 or negative.
+ *
+ * <p>A client gets its handle in {@code hid} of its handshake confirmation. A message request
+ * forwarded to a player carries the requester's handle, and its confirmation the confirming
+ * player's, so both sides resolve the other's name once. A chat message may then address its
+ * receiver as {@code hid:<handle>} instead of {@code from} and {@code to}. A handle that is not
+ * current is answered {@code req:msg|stat:failed} with the handle, and the client falls back to
+ * the name. Handles are only given to players on the same server, not across a {@link Cluster}.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     int handle = handles.register(client);
+ *     ClientInstance same = handles.get(handle);
+ *     handles.release(handle, client);
+ *     handles.get(handle);                      // null
+ * </pre>
+ *
+ * <p>Thread safety: Thread-safe. Lookups read the slot array without a lock. Registrations
+ * and releases hold a {@link ReentrantLock}. A lookup racing the release of a handle may still
+ * find its client, like a lookup by name racing its release.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class HandleTable {
+
+    /** Bits of a handle holding its slot */
+    public static final int SLOT_BITS = 20;
+
+    /** Most slots of a table */
+    public static final int MAX_SLOTS = 1 << SLOT_BITS;
+
+    /** Highest generation of a slot before it wraps to 1 */
+    public static final int MAX_GENERATION = (1 << (31 - SLOT_BITS)) - 1;
+
+    /** Clients by slot, replaced by a larger copy when full */
+    private volatile AtomicReferenceArray<ClientInstance> slots;
+
+    /** Handle of the client in each slot, or of its last client. Guarded by {@link #lock} */
+    private int[] handles;
+
+    /** Free slots below {@link #used}, taken last in first out. Guarded by {@link #lock} */
+    private int[] free;
+
+    /** Number of entries in {@link #free}. Guarded by {@link #lock} */
+    private int freeCount = 0;
+
+    /** Number of slots ever used. Guarded by {@link #lock} */
+    private int used = 0;
+
+    /** Held while handles are registered and released */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Creates a table.
+     *
+     * @param capacity Slots allocated up front, grown as needed up to {@link #MAX_SLOTS}
+     */
+    public HandleTable(int capacity) {
+        int initial = Math.max(16, Math.min(capacity, MAX_SLOTS));
+        this.slots = new AtomicReferenceArray<>(initial);
+        this.handles = new int[initial];
+        this.free = new int[initial];
+    }
+
+    /**
+     * Gives a client a handle, reusing a free slot under its next generation.
+     *
+     * @param client The client completing its handshake
+     * @return The handle, or -1 if all {@link #MAX_SLOTS} are taken
+     */
+    public int register(ClientInstance client) {
+        this.lock.lock();
+        try {
+            int slot;
+            if (this.freeCount > 0) {
+                slot = this.free[--this.freeCount];
+            } else if (this.used < MAX_SLOTS) {
+                slot = this.used++;
+                if (slot == this.handles.length) {
+                    this.grow();
+                }
+            } else {
+                return -1;
+            }
+
+            int generation = (this.handles[slot] >>> SLOT_BITS) % MAX_GENERATION + 1;
+            int handle = generation << SLOT_BITS | slot;
+            this.handles[slot] = handle;
+            this.slots.set(slot, client);
+            return handle;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Doubles the slots. Must hold {@link #lock}.
+     */
+    private void grow() {
+        int capacity = Math.min(this.handles.length * 2, MAX_SLOTS);
+        AtomicReferenceArray<ClientInstance> slots = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < this.handles.length; i++) {
+            slots.set(i, this.slots.get(i));
+        }
+        this.slots = slots;
+        this.handles = Arrays.copyOf(this.handles, capacity);
+        this.free = Arrays.copyOf(this.free, capacity);
+    }
+
+    /**
+     * Frees the slot of a handle, but only if it still belongs to the given client.
+     *
+     * @param handle The client's handle
+     * @param client The client
+     * @return true if the handle was released
+     */
+    public boolean release(int handle, ClientInstance client) {
+        if (handle <= 0) {
+            return false;
+        }
+        this.lock.lock();
+        try {
+            int slot = handle & (MAX_SLOTS - 1);
+            if (slot >= this.used || this.handles[slot] != handle || this.slots.get(slot) != client) {
+                return false;
+            }
+            this.slots.set(slot, null);
+            this.free[this.freeCount++] = slot;
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Resolves a handle, without a lock.
+     *
+     * @param handle The handle
+     * @return The client holding the handle, or null if it is unknown or from an earlier
+     *         generation of its slot
+     */
+    public ClientInstance get(int handle) {
+        if (handle <= 0) {
+            return null;
+        }
+        AtomicReferenceArray<ClientInstance> slots = this.slots;
+        int slot = handle & (MAX_SLOTS - 1);
+        if (slot >= slots.length()) {
+            return null;
+        }
+        ClientInstance client = slots.get(slot);
+        return client != null && client.getHandle() == handle ? client : null;
+    }
+}
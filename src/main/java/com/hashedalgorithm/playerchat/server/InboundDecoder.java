@@ -0,0 +1,330 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.DeflateCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.MessageParser;
+import com.hashedalgorithm.playerchat.utils.Utf8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * InboundDecoder splits the bytes received from one client into frames and hands each one
+ * to the client's {@link ClientInstance}.
+ *
+ * <p>Every client starts with text lines. When the handshake negotiates the binary protocol,
+ * the connection switches the decoder with {@link #setCodec(FrameCodec)} from inside the
+ * handshake's {@link ClientInstance#handleFrame(Frame)}, so the very next bytes, even those
+ * already received in the same read, are decoded as length-prefixed frames. With a
+ * {@link DeflateCodec}, compressed frames are inflated into a second reusable array first.
+ *
+ * <p>Bytes are collected in one growable array. Complete frames are decoded from it in place
+ * into a reusable {@link Frame} and character buffer, and only the trailing partial frame is
+ * kept for the next read, so frames of usual size are decoded without allocating. A large frame
+ * grows the buffers toward {@link #MAX_FRAME_LENGTH}; once every received byte is decoded, they
+ * drop back to {@value #INITIAL_CAPACITY} elements, so an idle client keeps no more than a small
+ * client does.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     int read = in.read(buffer);
+ *     decoder.feed(buffer, 0, read);
+ * </pre>
+ *
+ * <p>While the handshake claims its instance ID, the connection may {@link #pause()} the
+ * decoder. Bytes received meanwhile are kept and decoded by {@link #resume()}.
+ *
+ * <p>Thread safety: A decoder is owned by the thread reading its connection. Only
+ * {@link #stop()} may be called by other threads.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class InboundDecoder {
+
+    /** Longest frame accepted from a client before the connection is dropped */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+    /** Room kept for a binary length prefix on top of {@link #MAX_FRAME_LENGTH} */
+    private static final int MAX_HEADER_LENGTH = 5;
+
+    /** Length of the byte and character buffers of a decoder that holds no large frame */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** Protocol state of the client the frames are handed to */
+    private final ClientInstance instance;
+
+    /** Parser for text lines */
+    private final MessageParser parser = new MessageParser();
+
+    /** Reusable flyweight every frame is decoded into */
+    private final Frame frame = new Frame();
+
+    /** Bytes received but not yet decoded */
+    private byte[] pending = new byte[INITIAL_CAPACITY];
+
+    /** Number of valid bytes in {@link #pending} */
+    private int pendingLength = 0;
+
+    /** Bytes of {@link #pending} already searched for a line separator */
+    private int scanned = 0;
+
+    /** Reusable buffer frame values are decoded into */
+    private CharBuffer chars = CharBuffer.allocate(INITIAL_CAPACITY);
+
+    /** Whether frames are length-prefixed binary rather than text lines */
+    private boolean binary = false;
+
+    /** Codec inflating compressed frames, null if compression was not negotiated */
+    private DeflateCodec deflate;
+
+    /** Reusable buffer compressed frames are inflated into, allocated by the first one and dropped when idle */
+    private byte[] inflated;
+
+    /** Whether frames are held back until {@link #resume()}, while a handshake is pending */
+    private boolean paused = false;
+
+    /** Whether the connection was closed and no more frames should be handled */
+    private volatile boolean stopped = false;
+
+    /**
+     * Creates a decoder handing its frames to the given client.
+     *
+     * @param instance The client the frames are handed to
+     */
+    public InboundDecoder(ClientInstance instance) {
+        this.instance = instance;
+    }
+
+    /**
+     * Switches the encoding of the frames that follow the one being handled.
+     *
+     * @param codec The codec negotiated with the client
+     */
+    public void setCodec(FrameCodec codec) {
+        this.deflate = codec instanceof DeflateCodec deflate ? deflate : null;
+        this.binary = codec == BinaryCodec.INSTANCE || this.deflate != null;
+    }
+
+    /**
+     * Stops handing frames to the client, including frames already received.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Holds back the frames that follow the one being handled, keeping their bytes until
+     * {@link #resume()} is called.
+     */
+    public void pause() {
+        this.paused = true;
+    }
+
+    /**
+     * Handles the frames held back since {@link #pause()}.
+     *
+     * @throws IOException if a frame is too long or malformed, or the client rejects a frame
+     */
+    public void resume() throws IOException {
+        this.paused = false;
+        this.dispatch();
+    }
+
+    /**
+     * Consumes received bytes and handles every frame they complete.
+     *
+     * @param in     The received bytes
+     * @param offset Offset of the first byte
+     * @param length Number of bytes received
+     * @throws IOException if a frame is too long or malformed, or the client rejects a frame
+     */
+    public void feed(byte[] in, int offset, int length) throws IOException {
+        while (length > 0 && !this.stopped) {
+            int copied = Math.min(length, this.room());
+            System.arraycopy(in, offset, this.pending, this.pendingLength, copied);
+            this.pendingLength += copied;
+            offset += copied;
+            length -= copied;
+
+            this.dispatch();
+        }
+    }
+
+    /**
+     * Consumes the remaining bytes of a buffer, such as a direct one lent by a
+     * {@link BufferPool}, and handles every frame they complete.
+     *
+     * @param in The received bytes between its position and limit, all consumed
+     * @throws IOException if a frame is too long or malformed, or the client rejects a frame
+     */
+    public void feed(ByteBuffer in) throws IOException {
+        while (in.hasRemaining() && !this.stopped) {
+            int copied = Math.min(in.remaining(), this.room());
+            in.get(this.pending, this.pendingLength, copied);
+            this.pendingLength += copied;
+
+            this.dispatch();
+        }
+    }
+
+    /**
+     * Returns the free bytes of {@link #pending}, growing it if it is full.
+     *
+     * @throws IOException if it is full at the longest frame accepted
+     */
+    private int room() throws IOException {
+        if (this.pendingLength == this.pending.length) {
+            if (this.pending.length >= MAX_FRAME_LENGTH + MAX_HEADER_LENGTH) {
+                throw new IOException(String.format("Frame too long from client %s!", this.instance.instanceId));
+            }
+            this.pending = Arrays.copyOf(this.pending, Math.min(this.pending.length * 2, MAX_FRAME_LENGTH + MAX_HEADER_LENGTH));
+        }
+        return this.pending.length - this.pendingLength;
+    }
+
+    /**
+     * Handles every complete frame in {@link #pending} and keeps the remainder.
+     */
+    private void dispatch() throws IOException {
+        int position = 0;
+        while (position < this.pendingLength && !this.stopped && !this.paused) {
+            int consumed = this.binary ? this.dispatchBinary(position) : this.dispatchLine(position);
+            if (consumed == 0) {
+                break;
+            }
+            position += consumed;
+        }
+
+        if (position > 0) {
+            System.arraycopy(this.pending, position, this.pending, 0, this.pendingLength - position);
+            this.pendingLength -= position;
+            this.scanned = Math.max(0, this.scanned - position);
+        }
+        if (this.pendingLength == 0) {
+            this.shrink();
+        }
+    }
+
+    /**
+     * Drops the buffers grown by a large frame, once no received byte is left to decode.
+     */
+    private void shrink() {
+        if (this.pending.length > INITIAL_CAPACITY) {
+            this.pending = new byte[INITIAL_CAPACITY];
+        }
+        if (this.chars.capacity() > INITIAL_CAPACITY) {
+            this.chars = CharBuffer.allocate(INITIAL_CAPACITY);
+        }
+        this.inflated = null;
+    }
+
+    /**
+     * Returns the bytes held by the buffers of this decoder.
+     *
+     * @return Bytes of the pending, character and inflation buffers
+     */
+    int getRetainedBytes() {
+        return this.pending.length + this.chars.capacity() * Character.BYTES
+                + (this.inflated == null ? 0 : this.inflated.length);
+    }
+
+    /**
+     * Handles the text line starting at a position, if it is complete.
+     *
+     * @return The number of bytes consumed, or 0 if the line is incomplete
+     */
+    private int dispatchLine(int position) throws IOException {
+        for (int i = Math.max(position, this.scanned); i < this.pendingLength; i++) {
+            if (this.pending[i] != '\n') {
+                continue;
+            }
+
+            int end = i;
+            if (end > position && this.pending[end - 1] == '\r') {
+                end--;
+            }
+            this.scanned = i + 1;
+
+            CharBuffer line = this.decodeChars(position, end - position);
+            this.instance.handleFrame(this.parser.parse(line, this.frame));
+            return i + 1 - position;
+        }
+
+        this.scanned = this.pendingLength;
+        return 0;
+    }
+
+    /**
+     * Handles the binary frame starting at a position, if it is complete.
+     *
+     * @return The number of bytes consumed, or 0 if the frame is incomplete
+     */
+    private int dispatchBinary(int position) throws IOException {
+        int header = BinaryCodec.headerLength(this.pending, position, this.pendingLength);
+        if (header == 0) {
+            return 0;
+        }
+
+        int length = BinaryCodec.bodyLength(this.pending, position);
+        if (length > MAX_FRAME_LENGTH) {
+            throw new IOException(String.format("Frame too long from client %s!", this.instance.instanceId));
+        }
+        if (this.pendingLength - position - header < length) {
+            return 0;
+        }
+
+        if (this.deflate != null && length > 0 && DeflateCodec.isCompressed(this.pending, position + header)) {
+            this.dispatchCompressed(position + header, length);
+            return header + length;
+        }
+
+        this.ensureChars(length);
+        this.chars.clear();
+        this.instance.handleFrame(BinaryCodec.decode(this.pending, position + header, length, this.frame, this.chars));
+        return header + length;
+    }
+
+    /**
+     * Inflates a complete compressed frame body and handles the frame.
+     */
+    private void dispatchCompressed(int offset, int length) throws IOException {
+        int inflatedLength = DeflateCodec.inflatedLength(this.pending, offset, length);
+        if (inflatedLength > MAX_FRAME_LENGTH) {
+            throw new IOException(String.format("Frame too long from client %s!", this.instance.instanceId));
+        }
+        if (this.inflated == null || this.inflated.length < inflatedLength) {
+            this.inflated = new byte[Math.max(inflatedLength, this.inflated == null ? INITIAL_CAPACITY : Math.min(this.inflated.length * 2, MAX_FRAME_LENGTH))];
+        }
+
+        inflatedLength = this.deflate.inflate(this.pending, offset, length, this.inflated);
+        this.ensureChars(inflatedLength);
+        this.chars.clear();
+        this.instance.handleFrame(BinaryCodec.decode(this.inflated, 0, inflatedLength, this.frame, this.chars));
+    }
+
+    /**
+     * Decodes a range of {@link #pending} into the reusable character buffer. The result is
+     * only valid until the next frame is decoded.
+     */
+    private CharBuffer decodeChars(int offset, int length) {
+        this.ensureChars(length);
+        int decoded = Utf8.decode(this.pending, offset, length, this.chars.array(), 0);
+        this.chars.clear().limit(decoded);
+        return this.chars;
+    }
+
+    /**
+     * Grows the character buffer to hold at least the given number of chars.
+     */
+    private void ensureChars(int length) {
+        if (this.chars.capacity() < length) {
+            this.chars = CharBuffer.allocate(Math.max(length, this.chars.capacity() * 2));
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.utils.Log;
+import com.hashedalgorithm.playerchat.utils.Utf8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal is an append-only, memory-mapped log of the chat messages routed by a {@link Server}.
+ *
+ * <p>Every message is appended as a record of its sender, receiver, sequence, timestamp and
+ * body to the active {@link JournalSegment}. Sequences start at 1 and grow by one per record
+ * across restarts, and timestamps never go backwards, so both can be used to seek. A segment
+ * that is full is sealed and a new one is started; once more than {@link #maxSegments}
+ * segments exist the oldest are deleted.
+ *
+ * <p>Appending only copies the record into the mapping and never makes a system call. Records
+ * reach the storage device by group commit: a daemon flusher forces everything appended since
+ * its previous pass, either every {@link #flushInterval} milliseconds or as soon as a caller
+ * waits in {@link #awaitDurable(long)}. Callers that wait while a force is running are all
+ * covered by the next one, so a burst of messages costs one {@code msync} rather than one per
+ * message. A crash can lose the records appended since the last force, but never corrupts the
+ * ones before them.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     Journal journal = new Journal(Path.of("journal"), 32 * 1024 * 1024, 8, 10);
+ *     long sequence = journal.append("hashed", "dee", "Hello there!");
+ *     journal.awaitDurable(sequence);
+ *     journal.reader().scan(1, record -> System.out.println(record));
+ *     journal.close();
+ * </pre>
+ *
+ * <p>Thread safety: Appends from any number of connection threads are serialized by a
+ * {@link ReentrantLock}. Readers may scan while messages are appended.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class Journal implements AutoCloseable {
+
+    /** Directory holding the segment files */
+    private final Path directory;
+
+    /** Size of every segment in bytes */
+    private final int segmentSize;
+
+    /** Number of segments kept, including the active one */
+    private final int maxSegments;
+
+    /** Milliseconds between two forces when nobody waits for durability */
+    private final long flushInterval;
+
+    /** Serializes appends and guards the state below */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when a caller waits for durability or the journal is closed */
+    private final Condition flushRequested = this.lock.newCondition();
+
+    /** Signalled after every force */
+    private final Condition flushed = this.lock.newCondition();
+
+    /** Paths of all segments, oldest first; the last one is {@link #active} */
+    private final ArrayDeque<Path> segments = new ArrayDeque<>();
+
+    /** Sealed segments the flusher has not forced completely yet */
+    private final List<JournalSegment> sealed = new ArrayList<>();
+
+    /** Reusable buffer the record is encoded into before it is copied into the mapping */
+    private byte[] scratch = new byte[1024];
+
+    /** Checksum of the record being appended */
+    private final CRC32C crc = new CRC32C();
+
+    /** Segment records are appended to */
+    private JournalSegment active;
+
+    /** Sequence of the next record */
+    private long nextSequence;
+
+    /** Timestamp of the last record */
+    private long lastTimestamp;
+
+    /** Highest sequence a caller of {@link #awaitDurable(long)} is waiting for */
+    private long requestedSequence;
+
+    /** Highest sequence that has been forced to the storage device */
+    private long durableSequence;
+
+    /** Whether {@link #close()} was called */
+    private boolean closed = false;
+
+    /** Why a force failed and stopped the flusher, null while the journal is healthy */
+    private RuntimeException failure;
+
+    /** Thread running the group commits */
+    private final Thread flusher;
+
+    /**
+     * Opens the journal in a directory, creating it if needed. Appending resumes after the last
+     * intact record of the newest segment.
+     *
+     * @param directory     Directory holding the segment files
+     * @param segmentSize   Size of every segment in bytes
+     * @param maxSegments   Number of segments kept, at least 1
+     * @param flushInterval Milliseconds between two forces when nobody waits for durability
+     * @throws IOException if the directory or a segment cannot be opened
+     */
+    public Journal(Path directory, int segmentSize, int maxSegments, long flushInterval) throws IOException {
+        if (segmentSize < JournalSegment.HEADER_LENGTH + JournalSegment.FIELD_PREFIXES || maxSegments < 1 || flushInterval < 1) {
+            throw new IllegalArgumentException("Invalid journal configuration!");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.flushInterval = flushInterval;
+
+        Files.createDirectories(directory);
+        this.segments.addAll(listSegments(directory));
+        if (this.segments.isEmpty()) {
+            this.active = JournalSegment.create(directory, 1, segmentSize);
+            this.segments.add(this.active.getPath());
+        } else {
+            this.active = JournalSegment.open(this.segments.getLast(), true);
+        }
+        this.nextSequence = this.active.getLastSequence() + 1;
+        this.lastTimestamp = this.active.getLastTimestamp();
+        this.durableSequence = this.nextSequence - 1;
+        this.requestedSequence = this.durableSequence;
+
+        this.flusher = Thread.ofPlatform().daemon().name("journal-flusher").start(this::flushLoop);
+        Log.info("Journal opened in %s at sequence %d", directory, this.nextSequence);
+    }
+
+    /**
+     * Lists the segment files of a directory in sequence order.
+     *
+     * @param directory Directory holding the segment files
+     * @return The paths of the segments, oldest first
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(JournalSegment::isSegment).sorted().toList();
+        }
+    }
+
+    /**
+     * Appends a message to the journal. The record is visible to readers at once and durable
+     * after the next group commit.
+     *
+     * @param from Instance ID of the sender
+     * @param to   Instance ID of the receiver
+     * @param body Text of the message
+     * @return The sequence of the record
+     * @throws IOException if the journal is closed or a new segment cannot be created
+     * @throws IllegalArgumentException if the record is larger than a segment
+     */
+    public long append(CharSequence from, CharSequence to, CharSequence body) throws IOException {
+        int fromLength = Utf8.encodedLength(from, 0, from.length());
+        int toLength = Utf8.encodedLength(to, 0, to.length());
+        int bodyLength = Utf8.encodedLength(body, 0, body.length());
+        int length = JournalSegment.HEADER_LENGTH + JournalSegment.FIELD_PREFIXES + fromLength + toLength + bodyLength;
+        if (fromLength > 0xFFFF || toLength > 0xFFFF || length > this.segmentSize) {
+            throw new IllegalArgumentException(String.format("Journal record of %d bytes is too large!", length));
+        }
+
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                throw new IOException("Journal is closed!");
+            }
+            if (this.failure != null) {
+                throw new IOException("Journal failed!", this.failure);
+            }
+            if (!this.active.fits(length)) {
+                this.roll();
+            }
+
+            long sequence = this.nextSequence++;
+            long timestamp = Math.max(System.currentTimeMillis(), this.lastTimestamp);
+            this.lastTimestamp = timestamp;
+
+            byte[] record = this.encode(length, sequence, timestamp, from, fromLength, to, toLength, body, bodyLength);
+            this.active.write(record, length, sequence, timestamp);
+            return sequence;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Encodes a record into the scratch buffer, leaving its length field to
+     * {@link JournalSegment#write(byte[], int, long, long)}.
+     */
+    private byte[] encode(int length, long sequence, long timestamp,
+                          CharSequence from, int fromLength, CharSequence to, int toLength,
+                          CharSequence body, int bodyLength) {
+        if (this.scratch.length < length) {
+            this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+        }
+        byte[] out = this.scratch;
+
+        int cursor = 8;
+        cursor = putLong(out, cursor, sequence);
+        cursor = putLong(out, cursor, timestamp);
+        cursor = putShort(out, cursor, fromLength);
+        cursor = Utf8.encode(from, 0, from.length(), out, cursor);
+        cursor = putShort(out, cursor, toLength);
+        cursor = Utf8.encode(to, 0, to.length(), out, cursor);
+        cursor = putInt(out, cursor, bodyLength);
+        Utf8.encode(body, 0, body.length(), out, cursor);
+
+        this.crc.reset();
+        this.crc.update(out, 8, length - 8);
+        putInt(out, 4, (int) this.crc.getValue());
+        return out;
+    }
+
+    private static int putShort(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >>> 8);
+        out[offset + 1] = (byte) value;
+        return offset + 2;
+    }
+
+    private static int putInt(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >>> 24);
+        out[offset + 1] = (byte) (value >>> 16);
+        out[offset + 2] = (byte) (value >>> 8);
+        out[offset + 3] = (byte) value;
+        return offset + 4;
+    }
+
+    private static int putLong(byte[] out, int offset, long value) {
+        putInt(out, offset, (int) (value >>> 32));
+        return putInt(out, offset + 4, (int) value);
+    }
+
+    /**
+     * Seals the active segment and starts a new one. The sealed segment is forced and closed by
+     * the flusher. Must be called while holding {@link #lock}.
+     *
+     * @throws IOException if the new segment cannot be created
+     */
+    private void roll() throws IOException {
+        this.sealed.add(this.active);
+        this.active = JournalSegment.create(this.directory, this.nextSequence, this.segmentSize);
+        this.segments.add(this.active.getPath());
+        this.flushRequested.signal();
+    }
+
+    /**
+     * Blocks until a record has been forced to the storage device. Every caller waiting at the
+     * same time is covered by the same force.
+     *
+     * @param sequence Sequence returned by {@link #append(CharSequence, CharSequence, CharSequence)}
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws IOException if the journal is closed or fails before the record is durable
+     */
+    public void awaitDurable(long sequence) throws InterruptedException, IOException {
+        this.lock.lock();
+        try {
+            if (sequence > this.requestedSequence) {
+                this.requestedSequence = sequence;
+                this.flushRequested.signal();
+            }
+            while (this.durableSequence < sequence) {
+                if (this.closed) {
+                    throw new IOException("Journal is closed!");
+                }
+                if (this.failure != null) {
+                    throw new IOException("Journal failed!", this.failure);
+                }
+                this.flushed.await();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the sequence of the last record appended.
+     *
+     * @return The sequence, or 0 if the journal is empty
+     */
+    public long getLastSequence() {
+        this.lock.lock();
+        try {
+            return this.nextSequence - 1;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the sequence of the last record forced to the storage device.
+     *
+     * @return The sequence, or 0 if nothing was forced yet
+     */
+    public long getDurableSequence() {
+        this.lock.lock();
+        try {
+            return this.durableSequence;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a reader over the segments of this journal.
+     *
+     * @return A new reader
+     */
+    public JournalReader reader() {
+        return new JournalReader(this.directory);
+    }
+
+    /**
+     * Runs the group commits until the journal is closed. A force that fails marks the journal
+     * failed and wakes every caller of {@link #awaitDurable(long)}, which then throws, since
+     * nothing appended after it could be made durable.
+     */
+    private void flushLoop() {
+        try {
+            this.runGroupCommits();
+        } catch (RuntimeException e) {
+            Log.error("Journal flusher failed: %s", e.getMessage());
+            this.lock.lock();
+            try {
+                this.failure = e;
+                this.flushed.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Forces the journal whenever a caller waits or the interval passes, until it is closed.
+     */
+    private void runGroupCommits() {
+        boolean running = true;
+        while (running) {
+            JournalSegment segment;
+            int position;
+            long sequence;
+            List<JournalSegment> toSeal;
+
+            this.lock.lock();
+            try {
+                if (!this.closed && this.requestedSequence <= this.durableSequence && this.sealed.isEmpty()) {
+                    this.flushRequested.await(this.flushInterval, TimeUnit.MILLISECONDS);
+                }
+                running = !this.closed;
+                segment = this.active;
+                position = segment.getPosition();
+                sequence = this.nextSequence - 1;
+                toSeal = new ArrayList<>(this.sealed);
+                this.sealed.clear();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                this.lock.unlock();
+            }
+
+            for (JournalSegment old : toSeal) {
+                old.force(old.getPosition());
+                old.close();
+            }
+            segment.force(position);
+
+            this.lock.lock();
+            try {
+                this.durableSequence = Math.max(this.durableSequence, sequence);
+                this.flushed.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+
+            if (!toSeal.isEmpty()) {
+                this.deleteExpiredSegments();
+            }
+        }
+        this.active.close();
+    }
+
+    /**
+     * Deletes the oldest segments beyond {@link #maxSegments}.
+     */
+    private void deleteExpiredSegments() {
+        List<Path> expired = new ArrayList<>();
+        this.lock.lock();
+        try {
+            while (this.segments.size() > this.maxSegments) {
+                expired.add(this.segments.removeFirst());
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        for (Path path : expired) {
+            try {
+                Files.deleteIfExists(path);
+                Log.debug("Journal segment %s deleted", path.getFileName());
+            } catch (IOException e) {
+                Log.error("Could not delete journal segment %s: %s", path.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Forces every record appended so far, stops the flusher and closes the segments. Appends
+     * after this call fail.
+     */
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.flushRequested.signal();
+        } finally {
+            this.lock.unlock();
+        }
+
+        try {
+            this.flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.lock.lock();
+        try {
+            this.flushed.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.hashedalgorithm.playerchat.server;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * JournalReader scans the records of a {@link Journal} directory.
+ *
+ * <p>Segments are mapped read-only one at a time. Because sequences and timestamps only grow,
+ * a scan skips every segment that ends before the requested position without decoding it:
+ * the first record of the following segment tells where each one ends. A scan stops at the
+ * last intact record, so it may run while the journal is appended to and simply leaves out
+ * records that are still being written. A segment deleted by retention during a scan is
+ * skipped.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     JournalReader reader = new JournalReader(Path.of("journal"));
+ *     reader.scanTimeRange(from, to, record -> System.out.println(record));
+ * </pre>
+ *
+ * <p>Thread safety: A reader holds no state between scans and may be shared.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class JournalReader {
+
+    /** Directory holding the segment files */
+    private final Path directory;
+
+    /**
+     * Creates a reader over a journal directory.
+     *
+     * @param directory Directory holding the segment files
+     */
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Passes every record from a sequence onwards to a consumer, in sequence order.
+     *
+     * @param fromSequence First sequence to read; records before it are skipped
+     * @param consumer     Receives the records
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    public void scan(long fromSequence, Consumer<JournalRecord> consumer) throws IOException {
+        List<Path> paths = Journal.listSegments(this.directory);
+        CRC32C crc = new CRC32C();
+
+        for (int i = 0; i < paths.size(); i++) {
+            if (i + 1 < paths.size() && JournalSegment.sequenceOf(paths.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            JournalSegment segment = this.open(paths.get(i));
+            if (segment == null) {
+                continue;
+            }
+            try {
+                int offset = 0;
+                int length;
+                while ((length = segment.validLength(offset, crc)) > 0) {
+                    JournalRecord record = segment.read(offset);
+                    if (record.getSequence() >= fromSequence) {
+                        consumer.accept(record);
+                    }
+                    offset += length;
+                }
+            } finally {
+                segment.close();
+            }
+        }
+    }
+
+    /**
+     * Passes every record appended within a time range to a consumer, in sequence order.
+     *
+     * @param fromMillis Start of the range in milliseconds since the epoch (inclusive)
+     * @param toMillis   End of the range in milliseconds since the epoch (exclusive)
+     * @param consumer   Receives the records
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    public void scanTimeRange(long fromMillis, long toMillis, Consumer<JournalRecord> consumer) throws IOException {
+        List<Path> paths = Journal.listSegments(this.directory);
+        CRC32C crc = new CRC32C();
+
+        JournalSegment next = paths.isEmpty() ? null : this.open(paths.get(0));
+        for (int i = 0; i < paths.size(); i++) {
+            JournalSegment segment = next;
+            next = i + 1 < paths.size() ? this.open(paths.get(i + 1)) : null;
+            if (segment == null) {
+                continue;
+            }
+            try {
+                if (next != null && next.validLength(0, crc) > 0 && next.timestampAt(0) < fromMillis) {
+                    continue;
+                }
+                int offset = 0;
+                int length;
+                while ((length = segment.validLength(offset, crc)) > 0) {
+                    long timestamp = segment.timestampAt(offset);
+                    if (timestamp >= toMillis) {
+                        if (next != null) {
+                            next.close();
+                        }
+                        return;
+                    }
+                    if (timestamp >= fromMillis) {
+                        consumer.accept(segment.read(offset));
+                    }
+                    offset += length;
+                }
+            } finally {
+                segment.close();
+            }
+        }
+    }
+
+    /**
+     * Maps a segment for reading.
+     *
+     * @return The segment, or null if it was deleted in the meantime
+     */
+    private JournalSegment open(Path path) throws IOException {
+        try {
+            return JournalSegment.open(path, false);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.hashedalgorithm.playerchat.server;
+
+/**
+ * JournalRecord is one chat message read back from a {@link Journal}.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     reader.scan(0, record -> System.out.printf("%d %s -> %s: %s%n",
+ *             record.getSequence(), record.getFrom(), record.getTo(), record.getBody()));
+ * </pre>
+ *
+ * <p>Thread safety: Instances are immutable.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public final class JournalRecord {
+
+    /** Position of the message in the journal, starting at 1 */
+    private final long sequence;
+
+    /** Time the message was appended, in milliseconds since the epoch */
+    private final long timestamp;
+
+    /** Instance ID of the sender */
+    private final String from;
+
+    /** Instance ID of the receiver */
+    private final String to;
+
+    /** Text of the message */
+    private final String body;
+
+    /**
+     * Creates a record.
+     *
+     * @param sequence  Position of the message in the journal
+     * @param timestamp Time the message was appended, in milliseconds since the epoch
+     * @param from      Instance ID of the sender
+     * @param to        Instance ID of the receiver
+     * @param body      Text of the message
+     */
+    public JournalRecord(long sequence, long timestamp, String from, String to, String body) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.from = from;
+        this.to = to;
+        this.body = body;
+    }
+
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    public String getFrom() {
+        return this.from;
+    }
+
+    public String getTo() {
+        return this.to;
+    }
+
+    public String getBody() {
+        return this.body;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d@%d %s -> %s: %s", this.sequence, this.timestamp, this.from, this.to, this.body);
+    }
+}
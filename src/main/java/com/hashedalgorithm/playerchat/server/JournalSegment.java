@@ -0,0 +1,297 @@
+package com.hashedalgorithm.playerchat.server;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * JournalSegment is one fixed-size, memory-mapped file of a {@link Journal}.
+ *
+ * <p>A segment is named after the sequence of its first record, zero-padded so that file
+ * names sort in sequence order, e.g. {@code 00000000000000000042.journal}. It is created at its
+ * full size, so unwritten space reads as zeros, and holds records back to back:
+ * <pre>
+ *     record := int    length      bytes of the whole record, 0 marks the end of the segment
+ *               int    crc         CRC32C of everything after this field
+ *               long   sequence
+ *               long   timestamp   milliseconds since the epoch
+ *               short  fromLength, utf8 from
+ *               short  toLength,   utf8 to
+ *               int    bodyLength, utf8 body
+ * </pre>
+ * A record is copied in behind its length field, and the length is written last. A reader
+ * therefore stops at the first zero length, and the checksum catches a record torn by a crash.
+ *
+ * <p>Thread safety: Writes are serialized by the {@link Journal}. {@link #force(int)} is only
+ * called by its flusher and may run concurrently with writes to a later region of the segment.
+ * Readers map the file separately and rely on the checksum to skip a record still being written.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+class JournalSegment {
+
+    /** File name suffix of segments */
+    static final String SUFFIX = ".journal";
+
+    /** Bytes of a record before its variable-length fields */
+    static final int HEADER_LENGTH = 4 + 4 + 8 + 8;
+
+    /** Bytes of the length prefixes of the three text fields */
+    static final int FIELD_PREFIXES = 2 + 2 + 4;
+
+    /** Path of the segment file */
+    private final Path path;
+
+    /** Channel the segment is mapped through */
+    private final FileChannel channel;
+
+    /** The mapped file */
+    private final MappedByteBuffer buffer;
+
+    /** Sequence of the first record in this segment */
+    private final long firstSequence;
+
+    /** Offset the next record is written at */
+    private int position;
+
+    /** Sequence of the last record in this segment, or firstSequence - 1 if it is empty */
+    private long lastSequence;
+
+    /** Timestamp of the last record in this segment, or 0 if it is empty */
+    private long lastTimestamp;
+
+    /** Offset up to which the segment has been forced to the storage device */
+    private int forced;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer, long firstSequence) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.firstSequence = firstSequence;
+        this.lastSequence = firstSequence - 1;
+    }
+
+    /**
+     * Creates a new, empty segment file and maps it for writing.
+     *
+     * @param directory     Directory of the journal
+     * @param firstSequence Sequence of the first record the segment will hold
+     * @param size          Size of the segment in bytes
+     * @return The mapped segment
+     * @throws IOException if the file cannot be created or mapped
+     */
+    static JournalSegment create(Path directory, long firstSequence, int size) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new JournalSegment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), firstSequence);
+    }
+
+    /**
+     * Maps an existing segment file. A writable segment is positioned after its last valid
+     * record, and anything behind it, such as a record torn by a crash, is zeroed so it cannot
+     * be mistaken for a record later.
+     *
+     * @param path     Path of the segment file
+     * @param writable Whether records will be appended to the segment
+     * @return The mapped segment
+     * @throws IOException if the file cannot be mapped or its name is not a segment name
+     */
+    static JournalSegment open(Path path, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                0, channel.size());
+
+        JournalSegment segment = new JournalSegment(path, channel, buffer, sequenceOf(path));
+        if (!writable) {
+            return segment;
+        }
+
+        CRC32C crc = new CRC32C();
+        int length;
+        while ((length = segment.validLength(segment.position, crc)) > 0) {
+            segment.lastSequence = buffer.getLong(segment.position + 8);
+            segment.lastTimestamp = buffer.getLong(segment.position + 16);
+            segment.position += length;
+        }
+        if (segment.position + 4 <= buffer.capacity() && buffer.getInt(segment.position) != 0) {
+            for (int i = segment.position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        segment.forced = segment.position;
+        return segment;
+    }
+
+    /**
+     * Returns the first sequence encoded in a segment file name.
+     *
+     * @param path Path of a segment file
+     * @return The sequence of the segment's first record
+     * @throws IOException if the name is not a segment name
+     */
+    static long sequenceOf(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (RuntimeException e) {
+            throw new IOException(String.format("Invalid journal segment %s!", name));
+        }
+    }
+
+    /**
+     * Returns whether a file is a journal segment.
+     *
+     * @param path Path of a file
+     * @return true if the file name ends with {@link #SUFFIX}
+     */
+    static boolean isSegment(Path path) {
+        return path.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    /**
+     * Returns whether a record of the given length fits behind the last one.
+     *
+     * @param length Length of the record
+     * @return true if the record fits
+     */
+    boolean fits(int length) {
+        return this.position + length <= this.buffer.capacity();
+    }
+
+    /**
+     * Copies an encoded record into the segment. The caller must have checked
+     * {@link #fits(int)}.
+     *
+     * @param record    The encoded record, starting with its length field
+     * @param length    Length of the record
+     * @param sequence  Sequence of the record
+     * @param timestamp Timestamp of the record
+     */
+    void write(byte[] record, int length, long sequence, long timestamp) {
+        this.buffer.put(this.position + 4, record, 4, length - 4);
+        this.buffer.putInt(this.position, length);
+        this.position += length;
+        this.lastSequence = sequence;
+        this.lastTimestamp = timestamp;
+    }
+
+    /**
+     * Writes the records up to an offset through to the storage device, starting where the
+     * previous call stopped.
+     *
+     * @param upTo Offset after the last record to force
+     */
+    void force(int upTo) {
+        if (upTo > this.forced) {
+            this.buffer.force(this.forced, upTo - this.forced);
+            this.forced = upTo;
+        }
+    }
+
+    /**
+     * Returns the length of the record at an offset if it is complete and intact.
+     *
+     * @param offset Offset of the record
+     * @param crc    Checksum instance to reuse
+     * @return The record length, or 0 at the end of the valid records
+     */
+    int validLength(int offset, CRC32C crc) {
+        if (offset + HEADER_LENGTH + FIELD_PREFIXES > this.buffer.capacity()) {
+            return 0;
+        }
+        int length = this.buffer.getInt(offset);
+        if (length < HEADER_LENGTH + FIELD_PREFIXES || offset + length > this.buffer.capacity()) {
+            return 0;
+        }
+
+        crc.reset();
+        crc.update(this.buffer.slice(offset + 8, length - 8));
+        return (int) crc.getValue() == this.buffer.getInt(offset + 4) ? length : 0;
+    }
+
+    /**
+     * Returns the timestamp of the record at an offset. The caller must have checked
+     * {@link #validLength(int, CRC32C)}.
+     *
+     * @param offset Offset of the record
+     * @return The timestamp in milliseconds since the epoch
+     */
+    long timestampAt(int offset) {
+        return this.buffer.getLong(offset + 16);
+    }
+
+    /**
+     * Decodes the record at an offset. The caller must have checked {@link #validLength(int, CRC32C)}.
+     *
+     * @param offset Offset of the record
+     * @return The decoded record
+     */
+    JournalRecord read(int offset) {
+        long sequence = this.buffer.getLong(offset + 8);
+        long timestamp = this.buffer.getLong(offset + 16);
+
+        int cursor = offset + HEADER_LENGTH;
+        int fromLength = Short.toUnsignedInt(this.buffer.getShort(cursor));
+        String from = this.text(cursor + 2, fromLength);
+        cursor += 2 + fromLength;
+
+        int toLength = Short.toUnsignedInt(this.buffer.getShort(cursor));
+        String to = this.text(cursor + 2, toLength);
+        cursor += 2 + toLength;
+
+        int bodyLength = this.buffer.getInt(cursor);
+        String body = this.text(cursor + 4, bodyLength);
+
+        return new JournalRecord(sequence, timestamp, from, to, body);
+    }
+
+    /**
+     * Decodes UTF-8 text stored in the segment.
+     */
+    private String text(int offset, int length) {
+        byte[] bytes = new byte[length];
+        this.buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Closes the channel of the segment. The mapping stays valid until it is garbage collected.
+     */
+    void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            // Nothing left to release.
+        }
+    }
+
+    Path getPath() {
+        return this.path;
+    }
+
+    long getFirstSequence() {
+        return this.firstSequence;
+    }
+
+    long getLastSequence() {
+        return this.lastSequence;
+    }
+
+    long getLastTimestamp() {
+        return this.lastTimestamp;
+    }
+
+    int getPosition() {
+        return this.position;
+    }
+}
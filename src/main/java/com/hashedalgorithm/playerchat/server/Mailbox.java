@@ -0,0 +1,184 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.MailboxPolicy;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.Utf8;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mailbox holds the chat messages stored for one player who is not connected.
+ *
+ * <p>Messages are packed back to back into a single byte array as
+ * {@code long timestamp, short fromLength, utf8 from, int bodyLength, utf8 body}, oldest
+ * first, rather than kept as objects. A mailbox with a handful of messages therefore costs two
+ * objects no matter how many messages it holds, and the array is sized to its content: it
+ * starts small, doubles when needed and is compacted before it grows, so evicted messages are
+ * reclaimed in place.
+ *
+ * <p>Thread safety: Not thread-safe. A {@link MailboxStore} only touches a mailbox inside an
+ * atomic operation on its map entry.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+class Mailbox {
+
+    /** Size of the array of a new mailbox */
+    private static final int INITIAL_CAPACITY = 128;
+
+    /** Bytes of a message before its text fields */
+    private static final int ENTRY_HEADER = 8 + 2 + 4;
+
+    /** Packed messages */
+    private byte[] data = new byte[INITIAL_CAPACITY];
+
+    /** Offset of the oldest message */
+    private int head;
+
+    /** Offset after the newest message */
+    private int tail;
+
+    /** Number of messages stored */
+    private int count;
+
+    /**
+     * Stores a message, making room according to the policy if the mailbox is full.
+     *
+     * @param timestamp   Time the message was stored, in milliseconds since the epoch
+     * @param from        Instance ID of the sender
+     * @param body        Text of the message
+     * @param maxMessages Number of messages the mailbox may hold
+     * @param policy      What to give up when the mailbox is full
+     * @return The number of older messages evicted to make room, 0 if nothing was lost, or -1 if
+     *         the message was refused because the mailbox is full and its policy keeps the older
+     *         messages, or the sender's instance ID is too long
+     */
+    int add(long timestamp, CharSequence from, CharSequence body, int maxMessages, MailboxPolicy policy) {
+        int fromLength = Utf8.encodedLength(from, 0, from.length());
+        if (fromLength > 0xFFFF) {
+            return -1;
+        }
+
+        int lost = 0;
+        if (this.count >= maxMessages) {
+            if (policy == MailboxPolicy.DROP_NEWEST) {
+                return -1;
+            }
+            while (this.count >= maxMessages) {
+                this.removeOldest();
+                lost++;
+            }
+        }
+
+        int bodyLength = Utf8.encodedLength(body, 0, body.length());
+        this.ensureCapacity(ENTRY_HEADER + fromLength + bodyLength);
+
+        byte[] out = this.data;
+        int cursor = this.tail;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out[cursor++] = (byte) (timestamp >>> shift);
+        }
+        out[cursor++] = (byte) (fromLength >>> 8);
+        out[cursor++] = (byte) fromLength;
+        cursor = Utf8.encode(from, 0, from.length(), out, cursor);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out[cursor++] = (byte) (bodyLength >>> shift);
+        }
+        this.tail = Utf8.encode(body, 0, body.length(), out, cursor);
+        this.count++;
+        return lost;
+    }
+
+    /**
+     * Evicts the messages stored before a point in time. Messages are stored in time order,
+     * so this stops at the first one that is recent enough.
+     *
+     * @param cutoff Messages stored before this time, in milliseconds since the epoch, are evicted
+     * @return The number of messages evicted
+     */
+    int expire(long cutoff) {
+        int expired = 0;
+        while (this.count > 0 && this.timestampAt(this.head) < cutoff) {
+            this.removeOldest();
+            expired++;
+        }
+        return expired;
+    }
+
+    /**
+     * Returns whether the mailbox holds no messages.
+     *
+     * @return true if it is empty
+     */
+    boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    /**
+     * Decodes the stored messages into frames of the form {@code from:<sender>|msg:<body>},
+     * oldest first.
+     *
+     * @return The frames, one per message
+     */
+    Frame[] toFrames() {
+        Frame[] frames = new Frame[this.count];
+        int cursor = this.head;
+        for (int i = 0; i < frames.length; i++) {
+            cursor += 8;
+            int fromLength = ((this.data[cursor] & 0xFF) << 8) | (this.data[cursor + 1] & 0xFF);
+            String from = new String(this.data, cursor + 2, fromLength, StandardCharsets.UTF_8);
+            cursor += 2 + fromLength;
+            int bodyLength = this.intAt(cursor);
+            String body = new String(this.data, cursor + 4, bodyLength, StandardCharsets.UTF_8);
+            cursor += 4 + bodyLength;
+
+            frames[i] = new Frame()
+                    .set(Payload.FROM, from)
+                    .set(Payload.MESSAGE, body);
+        }
+        return frames;
+    }
+
+    /**
+     * Removes the oldest message.
+     */
+    private void removeOldest() {
+        int fromLength = ((this.data[this.head + 8] & 0xFF) << 8) | (this.data[this.head + 9] & 0xFF);
+        int bodyLength = this.intAt(this.head + 10 + fromLength);
+        this.head += ENTRY_HEADER + fromLength + bodyLength;
+        this.count--;
+        if (this.count == 0) {
+            this.head = 0;
+            this.tail = 0;
+        }
+    }
+
+    /**
+     * Makes room for a message behind the newest one, compacting the array before growing it.
+     */
+    private void ensureCapacity(int length) {
+        if (this.tail + length <= this.data.length) {
+            return;
+        }
+        int used = this.tail - this.head;
+        byte[] target = used + length <= this.data.length
+                ? this.data
+                : new byte[Math.max(used + length, this.data.length * 2)];
+        System.arraycopy(this.data, this.head, target, 0, used);
+        this.data = target;
+        this.head = 0;
+        this.tail = used;
+    }
+
+    private long timestampAt(int offset) {
+        return ((long) this.intAt(offset) << 32) | (this.intAt(offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private int intAt(int offset) {
+        return ((this.data[offset] & 0xFF) << 24) | ((this.data[offset + 1] & 0xFF) << 16)
+                | ((this.data[offset + 2] & 0xFF) << 8) | (this.data[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,198 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.MailboxPolicy;
+import com.hashedalgorithm.playerchat.utils.Frame;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MailboxStore keeps the chat messages sent to players who are not connected, so they can be
+ * delivered when the player completes its next handshake.
+ *
+ * <p>Every offline player with pending messages has one {@link Mailbox}. A mailbox is created
+ * by the first message stored for the player and removed as a whole when it is delivered or
+ * when its last message expires, so the store only ever holds players that actually have mail
+ * and its memory stays flat however many players come and go. Each mailbox is bounded by
+ * {@link #maxMessages}; a full one evicts its oldest message or discards the new one,
+ * depending on its {@link MailboxPolicy}. Messages older than {@link #maxAgeMillis} are never
+ * delivered, and a daemon sweeper removes them periodically so mailboxes of players who never
+ * come back do not accumulate.
+ *
+ * <p>A message request to a player who is not connected is confirmed on the player's behalf, so
+ * the sender can go on writing. Everything stored for a player is delivered in one batched write
+ * once its handshake is confirmed, before any other chat message.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     MailboxStore mailboxes = new MailboxStore(64, 300_000, MailboxPolicy.DROP_OLDEST, metrics);
+ *     mailboxes.start();
+ *     mailboxes.store("dee", "hashed", "{1} - Hello there!");
+ *     Frame[] pending = mailboxes.take("dee");
+ * </pre>
+ *
+ * <p>Thread safety: All operations are atomic per player. A mailbox is only modified inside
+ * an atomic {@link ConcurrentHashMap} operation on its entry, so a message stored while the
+ * player's mailbox is being taken ends up either in the taken batch or in a new mailbox.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class MailboxStore {
+
+    /** Messages a mailbox may hold, 0 to store nothing */
+    private final int maxMessages;
+
+    /** Milliseconds a message is kept before it expires */
+    private final long maxAgeMillis;
+
+    /** What a full mailbox gives up when another message arrives */
+    private final MailboxPolicy policy;
+
+    /** Metrics of the server, recording stored, delivered and evicted messages */
+    private final ServerMetrics metrics;
+
+    /** Mailboxes by the instance ID of their player */
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /** Runs the periodic sweep of expired messages, null if the store is disabled */
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Creates a store. Expired messages are only swept once {@link #start()} is called.
+     *
+     * @param maxMessages  Messages a mailbox may hold, 0 to store nothing
+     * @param maxAgeMillis Milliseconds a message is kept before it expires
+     * @param policy       What a full mailbox gives up when another message arrives
+     * @param metrics      Metrics of the server
+     */
+    public MailboxStore(int maxMessages, long maxAgeMillis, MailboxPolicy policy, ServerMetrics metrics) {
+        if (maxMessages < 0 || maxAgeMillis < 1) {
+            throw new IllegalArgumentException("Invalid mailbox configuration!");
+        }
+        this.maxMessages = maxMessages;
+        this.maxAgeMillis = maxAgeMillis;
+        this.policy = policy;
+        this.metrics = metrics;
+
+        if (maxMessages == 0) {
+            this.sweeper = null;
+            return;
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(
+                runnable -> Thread.ofPlatform().daemon().name("mailbox-sweeper").unstarted(runnable));
+    }
+
+    /**
+     * Starts sweeping expired messages periodically, unless the store is disabled. Must be
+     * called once.
+     */
+    public void start() {
+        if (this.sweeper == null) {
+            return;
+        }
+        long interval = Math.max(1000, this.maxAgeMillis / 8);
+        this.sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns whether messages to offline players are stored at all.
+     *
+     * @return false if mailboxes are disabled
+     */
+    public boolean isEnabled() {
+        return this.maxMessages > 0;
+    }
+
+    /**
+     * Stores a message for a player who is not connected.
+     *
+     * @param to   Instance ID of the receiver
+     * @param from Instance ID of the sender
+     * @param body Text of the message; it is copied before this method returns
+     * @return false if the message was not stored, because mailboxes are disabled or the
+     *         receiver's mailbox refused it
+     */
+    public boolean store(String to, CharSequence from, CharSequence body) {
+        if (this.maxMessages == 0) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean[] kept = new boolean[1];
+        this.mailboxes.compute(to, (name, mailbox) -> {
+            Mailbox target = mailbox == null ? new Mailbox() : mailbox;
+            int lost = target.add(now, from, body, this.maxMessages, this.policy);
+            if (lost < 0) {
+                // Refused: the message itself is lost, and no empty mailbox is left behind.
+                this.metrics.mailboxEvicted(1);
+                return mailbox;
+            }
+            kept[0] = true;
+            this.metrics.mailboxStored();
+            this.metrics.mailboxEvicted(lost);
+            return target;
+        });
+        return kept[0];
+    }
+
+    /**
+     * Removes a player's mailbox and returns its messages that have not expired.
+     *
+     * @param to Instance ID of the player
+     * @return Frames of the form {@code from:<sender>|msg:<body>}, oldest first, or null if
+     *         there is nothing to deliver
+     */
+    public Frame[] take(String to) {
+        if (this.maxMessages == 0) {
+            return null;
+        }
+
+        Mailbox mailbox = this.mailboxes.remove(to);
+        if (mailbox == null) {
+            return null;
+        }
+
+        this.metrics.mailboxEvicted(mailbox.expire(System.currentTimeMillis() - this.maxAgeMillis));
+        if (mailbox.isEmpty()) {
+            return null;
+        }
+        Frame[] frames = mailbox.toFrames();
+        this.metrics.mailboxDelivered(frames.length);
+        return frames;
+    }
+
+    /**
+     * Returns the number of players with pending messages.
+     *
+     * @return Mailboxes currently held
+     */
+    public int size() {
+        return this.mailboxes.size();
+    }
+
+    /**
+     * Evicts expired messages from every mailbox and removes the mailboxes left empty.
+     */
+    void sweep() {
+        long cutoff = System.currentTimeMillis() - this.maxAgeMillis;
+        for (String name : this.mailboxes.keySet()) {
+            this.mailboxes.computeIfPresent(name, (key, mailbox) -> {
+                this.metrics.mailboxEvicted(mailbox.expire(cutoff));
+                return mailbox.isEmpty() ? null : mailbox;
+            });
+        }
+    }
+
+    /**
+     * Stops the sweeper. Stored messages are kept in memory until the store is discarded.
+     */
+    public void close() {
+        if (this.sweeper != null) {
+            this.sweeper.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.OutboundPolicy;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OutboundQueue holds the encoded frames waiting to be written to one client.
+ *
+ * <p>Any thread may {@link #offer(ByteBuffer)} a frame, but only one writer drains the
+ * queue at a time. The thread whose offer finds the queue idle is told to schedule
+ * that writer; everyone else just enqueues and returns. The writer takes everything
+ * queued so far with {@link #drain(ByteBuffer[])} and writes it as one batch, so many
+ * small frames routed to a busy client cost a single write instead of one each, and a
+ * slow client only ever holds up its own writer.
+ *
+ * <p>A queue may be bounded in frames, in bytes or both. A frame is only offered once
+ * {@link #admit(int)} allowed it, which applies the {@link OutboundPolicy} of the queue when
+ * the limits are reached: the oldest queued frames are evicted, or the new frame is refused and
+ * the connection decides what else to do about it. Frames already taken by the writer no longer
+ * count. Concurrent senders may each be admitted before any of them offers, so a limit can be
+ * exceeded by one frame per sender racing for the last slot.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     if (queue.admit(frame.remaining()) &amp;&amp; queue.offer(frame)) {
+ *         executor.execute(this::drainOutbound);
+ *     }
+ *
+ *     void drainOutbound() {
+ *         do {
+ *             int count;
+ *             while ((count = queue.drain(batch)) > 0) {
+ *                 // write batch[0..count) in one call
+ *             }
+ *         } while (queue.finishDrain());
+ *     }
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class OutboundQueue {
+
+    /** Frames waiting to be written, in order */
+    private final Queue<ByteBuffer> frames = new ConcurrentLinkedQueue<>();
+
+    /** Whether a writer is scheduled or currently draining */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /** Most frames queued at once, 0 for no limit */
+    private final int maxFrames;
+
+    /** Most bytes queued at once, 0 for no limit */
+    private final long maxBytes;
+
+    /** What {@link #admit(int)} does once a limit is reached */
+    private final OutboundPolicy policy;
+
+    /** Metrics counting the frames dropped by the policy, null for an unbounded queue */
+    private final ServerMetrics metrics;
+
+    /** Number of frames in {@link #frames}, only counted if the queue is bounded */
+    private final AtomicInteger queuedFrames = new AtomicInteger();
+
+    /** Number of bytes in {@link #frames}, only counted if the queue is bounded */
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    /**
+     * Creates an unbounded queue.
+     */
+    public OutboundQueue() {
+        this(0, 0, OutboundPolicy.DROP_OLDEST, null);
+    }
+
+    /**
+     * Creates a queue bounded in frames and bytes.
+     *
+     * @param maxFrames Most frames queued at once, 0 for no limit
+     * @param maxBytes  Most bytes queued at once, 0 for no limit
+     * @param policy    What happens to frames offered once a limit is reached
+     * @param metrics   Metrics counting the dropped frames
+     */
+    public OutboundQueue(int maxFrames, long maxBytes, OutboundPolicy policy, ServerMetrics metrics) {
+        this.maxFrames = maxFrames;
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns what happens to frames offered once a limit is reached.
+     *
+     * @return The policy of this queue
+     */
+    public OutboundPolicy getPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * Returns whether the queue is bounded and one of its limits is reached.
+     *
+     * @return true if a frame offered now would be subject to the policy
+     */
+    public boolean isFull() {
+        return (this.maxFrames > 0 && this.queuedFrames.get() >= this.maxFrames)
+                || (this.maxBytes > 0 && this.queuedBytes.get() >= this.maxBytes);
+    }
+
+    /**
+     * Returns whether a frame of the given length fits within the limits. A frame always fits
+     * an empty queue, so frames longer than the byte limit are still written.
+     */
+    private boolean fits(int length) {
+        int frames = this.queuedFrames.get();
+        return frames == 0
+                || ((this.maxFrames == 0 || frames < this.maxFrames)
+                    && (this.maxBytes == 0 || this.queuedBytes.get() + length <= this.maxBytes));
+    }
+
+    /**
+     * Decides whether a frame may be offered. If it does not fit and the policy is
+     * {@link OutboundPolicy#DROP_OLDEST}, the oldest queued frames are evicted until it does.
+     * With any other policy the frame must be refused. Refusals are counted as dropped here,
+     * except under {@link OutboundPolicy#DISCONNECT}, which the caller counts when it acts on it.
+     * Under {@link OutboundPolicy#REJECT_SENDER}, chat messages are refused before they reach
+     * the queue, so only frames without a sender to tell, such as broadcasts and relayed frames,
+     * are dropped here.
+     *
+     * @param length Length of the encoded frame in bytes
+     * @return true if the frame may be offered; false if it must be refused
+     */
+    public boolean admit(int length) {
+        if ((this.maxFrames == 0 && this.maxBytes == 0) || this.fits(length)) {
+            return true;
+        }
+
+        if (this.policy == OutboundPolicy.DROP_OLDEST) {
+            ByteBuffer oldest;
+            while (!this.fits(length) && (oldest = this.frames.poll()) != null) {
+                this.count(-1, -oldest.remaining());
+                this.metrics.outboundDroppedOldest();
+            }
+            return true;
+        }
+
+        if (this.policy != OutboundPolicy.DISCONNECT) {
+            this.metrics.outboundDroppedNewest();
+        }
+        return false;
+    }
+
+    /**
+     * Adds to the frame and byte counts of a bounded queue.
+     */
+    private void count(int frames, long bytes) {
+        if (this.maxFrames > 0 || this.maxBytes > 0) {
+            this.queuedFrames.addAndGet(frames);
+            this.queuedBytes.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Enqueues a frame admitted by {@link #admit(int)}.
+     *
+     * @param frame The encoded frame
+     * @return true if the caller must schedule the writer; false if one is already scheduled
+     */
+    public boolean offer(ByteBuffer frame) {
+        this.count(1, frame.remaining());
+        this.frames.offer(frame);
+        return this.schedule();
+    }
+
+    /**
+     * Marks the writer as scheduled without enqueueing anything.
+     *
+     * @return true if the caller must schedule the writer; false if one is already scheduled
+     */
+    public boolean schedule() {
+        return this.scheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Moves queued frames into the batch, up to its length. Must only be called by the writer.
+     *
+     * @param batch The array to fill from index 0
+     * @return The number of frames moved into the batch
+     */
+    public int drain(ByteBuffer[] batch) {
+        int count = 0;
+        long bytes = 0;
+        ByteBuffer frame;
+        while (count < batch.length && (frame = this.frames.poll()) != null) {
+            batch[count++] = frame;
+            bytes += frame.remaining();
+        }
+        if (count > 0) {
+            this.count(-count, -bytes);
+        }
+        return count;
+    }
+
+    /**
+     * Ends a drain. Must be called by the writer once {@link #drain(ByteBuffer[])} returned 0.
+     *
+     * @return true if frames arrived in the meantime and the writer must drain again
+     */
+    public boolean finishDrain() {
+        this.scheduled.set(false);
+        return !this.frames.isEmpty() && this.schedule();
+    }
+
+    /**
+     * Drops all queued frames, e.g. after the connection failed.
+     */
+    public void clear() {
+        ByteBuffer frame;
+        while ((frame = this.frames.poll()) != null) {
+            this.count(-1, -frame.remaining());
+        }
+    }
+
+    /**
+     * Returns whether any frame is waiting to be written.
+     *
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return this.frames.isEmpty();
+    }
+}
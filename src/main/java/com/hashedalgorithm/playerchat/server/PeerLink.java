@@ -0,0 +1,278 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.Log;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * PeerLink is the TCP connection between this node and one other node of a {@link Cluster}.
+ *
+ * <p>Both directions carry {@link BinaryCodec} frames. Frames sent to the peer are encoded on
+ * the sending thread and put in an {@link OutboundQueue}, exactly like the frames of a
+ * {@link StreamConnection}: a single writer on the server's writer executor copies everything
+ * queued so far into one buffer and writes it with one call. Under load, the frames routed to
+ * the same node by many clients therefore share a socket write, and no client ever waits for
+ * the link.
+ *
+ * <p>The link is a {@link Runnable} that reads frames until the socket closes and hands each
+ * one to its cluster. The node ID of the peer is only known once its
+ * {@link com.hashedalgorithm.playerchat.enums.PeerOp#HELLO} has been read.
+ *
+ * <p>Thread safety: {@link #send(Frame)} and {@link #close()} may be called by any thread.
+ * Frames are read and handled by the thread running the link only.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+class PeerLink implements Runnable {
+
+    /** Longest frame accepted from a peer, enough for any client frame it relays */
+    private static final int MAX_FRAME_LENGTH = 2 * InboundDecoder.MAX_FRAME_LENGTH;
+
+    /** Most frames coalesced into a single socket write */
+    private static final int MAX_BATCH_FRAMES = 256;
+
+    /** The cluster the received frames are handed to */
+    private final Cluster cluster;
+
+    /** Socket connected to the peer */
+    private final Socket socket;
+
+    /** Whether this node opened the link, rather than accepting it */
+    private final boolean dialed;
+
+    /** Output stream to the peer */
+    private final OutputStream out;
+
+    /** Buffered input stream from the peer */
+    private final InputStream in;
+
+    /** Frames waiting to be written to the peer */
+    private final OutboundQueue outbound = new OutboundQueue();
+
+    /** Runs the writer that drains {@link #outbound} */
+    private final Executor writer;
+
+    /** Metrics of the server, counting the frames and writes to peers */
+    private final ServerMetrics metrics;
+
+    /** Frames taken from {@link #outbound} for the current write. Only used by the writer */
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH_FRAMES];
+
+    /** Buffer the current batch is coalesced into. Only used by the writer */
+    private byte[] coalesced = new byte[16 * 1024];
+
+    /** Reusable flyweight every received frame is decoded into */
+    private final Frame frame = new Frame();
+
+    /** Body of the frame being read */
+    private byte[] body = new byte[256];
+
+    /** Reusable buffer received field values are decoded into */
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    /** Node ID of the peer, null until its hello was read */
+    private volatile String nodeId;
+
+    /** Whether the link has been closed */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Wraps a connected peer socket.
+     *
+     * @param cluster The cluster the received frames are handed to
+     * @param socket  The connected socket
+     * @param dialed  Whether this node opened the link
+     * @param writer  Executor running the writer
+     * @param metrics Metrics of the server
+     * @throws IOException if the socket streams cannot be opened
+     */
+    PeerLink(Cluster cluster, Socket socket, boolean dialed, Executor writer, ServerMetrics metrics) throws IOException {
+        this.cluster = cluster;
+        this.socket = socket;
+        this.dialed = dialed;
+        this.writer = writer;
+        this.metrics = metrics;
+        this.socket.setTcpNoDelay(true);
+        this.out = socket.getOutputStream();
+        this.in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+    }
+
+    /**
+     * Returns the node ID of the peer.
+     *
+     * @return The node ID, or null if the peer has not said hello yet
+     */
+    String getNodeId() {
+        return this.nodeId;
+    }
+
+    /**
+     * Sets the node ID of the peer, read from its hello.
+     *
+     * @param nodeId The node ID of the peer
+     */
+    void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Returns whether this node opened the link.
+     *
+     * @return true if the link was dialed by this node; false if it was accepted
+     */
+    boolean isDialed() {
+        return this.dialed;
+    }
+
+    /**
+     * Returns whether the link has been closed.
+     *
+     * @return true once the link is closed
+     */
+    boolean isClosed() {
+        return this.closed.get();
+    }
+
+    /**
+     * Queues a frame for the peer. The frame is encoded before this method returns, so the
+     * caller may reuse it. Frames sent after the link closed are dropped.
+     *
+     * @param frame The frame to send
+     */
+    void send(Frame frame) {
+        if (this.closed.get()) {
+            return;
+        }
+
+        ByteBuffer bytes = BinaryCodec.INSTANCE.encode(frame);
+        this.metrics.peerFrameOut();
+        if (this.outbound.offer(bytes)) {
+            this.writer.execute(this::drainOutbound);
+        }
+    }
+
+    /**
+     * Writes all queued frames, one coalesced socket write per batch. Runs on the writer
+     * executor, never concurrently with itself.
+     */
+    private void drainOutbound() {
+        try {
+            do {
+                int count;
+                while ((count = this.outbound.drain(this.batch)) > 0) {
+                    int length = 0;
+                    for (int i = 0; i < count; i++) {
+                        length += this.batch[i].remaining();
+                    }
+                    if (length > this.coalesced.length) {
+                        this.coalesced = new byte[Math.max(length, this.coalesced.length * 2)];
+                    }
+
+                    int offset = 0;
+                    for (int i = 0; i < count; i++) {
+                        int remaining = this.batch[i].remaining();
+                        this.batch[i].get(this.coalesced, offset, remaining);
+                        offset += remaining;
+                        this.batch[i] = null;
+                    }
+
+                    this.out.write(this.coalesced, 0, length);
+                    this.out.flush();
+                    this.metrics.peerWrite();
+                }
+            } while (this.outbound.finishDrain());
+        } catch (IOException e) {
+            Log.error("Link to node %s failed: %s", this.nodeId, e.getMessage());
+            this.outbound.clear();
+            this.close();
+        }
+    }
+
+    /**
+     * Reads the next frame from the peer.
+     *
+     * @return The frame, only valid until the next read
+     * @throws IOException if the peer closed the link or sent a malformed frame
+     */
+    private Frame read() throws IOException {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = this.in.read();
+            if (b < 0) {
+                throw new EOFException(String.format("Node %s closed the link", this.nodeId));
+            }
+            length |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                break;
+            }
+            if (shift >= 28) {
+                throw new IOException("Malformed frame length!");
+            }
+        }
+        if (length > MAX_FRAME_LENGTH) {
+            throw new IOException(String.format("Frame too long from node %s!", this.nodeId));
+        }
+
+        if (this.body.length < length) {
+            this.body = new byte[Math.max(length, this.body.length * 2)];
+            this.chars = CharBuffer.allocate(this.body.length);
+        }
+        int read = this.in.readNBytes(this.body, 0, length);
+        if (read < length) {
+            throw new EOFException(String.format("Node %s closed the link", this.nodeId));
+        }
+
+        this.chars.clear();
+        this.metrics.peerFrameIn();
+        return BinaryCodec.decode(this.body, 0, length, this.frame, this.chars);
+    }
+
+    /**
+     * Closes the socket, which also ends the read loop, and tells the cluster the link is
+     * down. Does nothing if the link is already closed.
+     */
+    void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.socket.close();
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        }
+        this.cluster.linkDown(this);
+    }
+
+    /**
+     * Reads frames from the peer and hands them to the cluster until the link closes.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!this.closed.get()) {
+                this.cluster.handle(this, this.read());
+            }
+        } catch (IOException e) {
+            if (!this.closed.get()) {
+                Log.warn("Link to node %s closed: %s", this.nodeId, e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            Log.error("Dropping link to node %s: %s", this.nodeId, e.getMessage());
+        } finally {
+            this.close();
+        }
+    }
+}
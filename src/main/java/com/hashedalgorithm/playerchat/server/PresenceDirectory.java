@@ -0,0 +1,286 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import com.hashedalgorithm.playerchat.utils.TimerWheel;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * PresenceDirectory tells clients which players are online on a {@link Server}, backed by its
+ * {@link ClientRegistry}.
+ *
+ * <p>A client asks once with {@code req:presence} and gets a snapshot, the instance IDs of all
+ * players that completed their handshake separated by commas:
+ * {@code req:presence|stat:success|msg:dee,hashed}. A client sending {@code req:subscribe} gets
+ * the same snapshot as {@code req:subscribe|stat:success|msg:dee,hashed}, and from then on only
+ * the changes: {@code req:presence|msg:+kay,-dee} for kay coming online and dee going offline,
+ * until it sends {@code req:unsubscribe} or disconnects.
+ *
+ * <p>Changes are not sent as they happen. The first change after a quiet period schedules a
+ * flush on the server's {@link TimerWheel} one window later, and every change until then is
+ * collected, keeping only the latest state of each player. The flush encodes the collected
+ * changes into one frame, at most once per codec through a {@link SharedFrame}, and writes it to
+ * every subscriber. A burst of a thousand handshakes at the start of a match therefore costs
+ * each subscriber one frame per window instead of a thousand, and the server one encoding
+ * instead of a million. Without subscribers, a change costs a single emptiness check.
+ *
+ * <p>A change is an absolute state, not a toggle, so receiving one twice does no harm. This is
+ * what keeps snapshots consistent with the changes that follow them: a subscriber is added
+ * before its snapshot is taken, and the snapshot is written under the same lock as the
+ * flushes. Any change missing from a snapshot therefore reaches the subscriber in a later
+ * flush, and a change already in it may come again.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     presence.online("hashed");
+ *     presence.subscribe(client, answer);
+ *     presence.offline("hashed");
+ * </pre>
+ *
+ * <p>Thread safety: Thread-safe. Changes are recorded by the threads handling handshakes and
+ * closes, subscriptions by the subscriber's thread, and flushes run on the timer wheel.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class PresenceDirectory {
+
+    /** Clients of the server, listed by snapshots */
+    private final ClientRegistry registry;
+
+    /** Wheel the flushes are scheduled on */
+    private final TimerWheel timers;
+
+    /** Metrics of the server, recorded on every frame written */
+    private final ServerMetrics metrics;
+
+    /** Milliseconds changes are collected before a flush */
+    private final long windowMillis;
+
+    /**
+     * Clients receiving changes, in subscription order. Replaced as a whole under
+     * {@link #fanoutLock}, so a flush iterates a snapshot even if a write closes a subscriber.
+     */
+    private volatile ClientInstance[] subscribers = new ClientInstance[0];
+
+    /** Held while subscribers change and while anything is written to them */
+    private final ReentrantLock fanoutLock = new ReentrantLock();
+
+    /** Latest state of every player changed since the last flush, true for online. Guarded by {@link #changesLock} */
+    private Map<String, Boolean> changes = new LinkedHashMap<>();
+
+    /** Emptied map swapped in for {@link #changes} by a flush. Guarded by {@link #changesLock} */
+    private Map<String, Boolean> spare = new LinkedHashMap<>();
+
+    /** Whether a flush is scheduled. Guarded by {@link #changesLock} */
+    private boolean flushScheduled = false;
+
+    /** Held while changes are recorded or taken by a flush */
+    private final ReentrantLock changesLock = new ReentrantLock();
+
+    /** Reusable frame of snapshots and changes. Guarded by {@link #fanoutLock} */
+    private final Frame frame = new Frame();
+
+    /** Reusable holder of the encodings of a flush. Guarded by {@link #fanoutLock} */
+    private final SharedFrame shared = new SharedFrame();
+
+    /** Reusable buffer of the names of a snapshot or flush. Guarded by {@link #fanoutLock} */
+    private final StringBuilder names = new StringBuilder(256);
+
+    /**
+     * Creates a directory.
+     *
+     * @param registry     The clients of the server
+     * @param timers       The wheel flushes are scheduled on
+     * @param metrics      The metrics of the server
+     * @param windowMillis Milliseconds changes are collected before they are sent
+     */
+    public PresenceDirectory(ClientRegistry registry, TimerWheel timers, ServerMetrics metrics, long windowMillis) {
+        this.registry = registry;
+        this.timers = timers;
+        this.metrics = metrics;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Records a player coming online. Called once its handshake is confirmed.
+     *
+     * @param instanceId The player's instance ID
+     */
+    public void online(String instanceId) {
+        this.record(instanceId, true);
+    }
+
+    /**
+     * Records a player going offline. Called once it is released from the registry.
+     *
+     * @param instanceId The player's instance ID
+     */
+    public void offline(String instanceId) {
+        this.record(instanceId, false);
+    }
+
+    /**
+     * Records the latest state of a player for the next flush, scheduling one if none is.
+     *
+     * @param instanceId The player's instance ID
+     * @param online     Whether the player is online
+     */
+    private void record(String instanceId, boolean online) {
+        if (this.subscribers.length == 0) {
+            return;
+        }
+
+        this.changesLock.lock();
+        try {
+            this.changes.remove(instanceId);
+            this.changes.put(instanceId, online);
+            if (!this.flushScheduled) {
+                this.flushScheduled = true;
+                this.timers.schedule(this::flush, this.windowMillis);
+            }
+        } finally {
+            this.changesLock.unlock();
+        }
+    }
+
+    /**
+     * Appends the instance IDs of all players online, separated by commas.
+     *
+     * @param out The buffer to append to
+     * @return The buffer
+     */
+    public StringBuilder snapshot(StringBuilder out) {
+        this.registry.forEach(client -> {
+            if (client.isHandshakeCompleted()) {
+                if (!out.isEmpty()) {
+                    out.append(',');
+                }
+                out.append(client.instanceId);
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Subscribes a client to changes and writes it the snapshot they start from. Subscribing
+     * again only writes a new snapshot.
+     *
+     * @param client The subscribing client
+     * @param answer The answer to write, completed with the snapshot in {@code msg}
+     */
+    public void subscribe(ClientInstance client, Frame answer) {
+        this.fanoutLock.lock();
+        try {
+            ClientInstance[] subscribers = this.subscribers;
+            if (indexOf(subscribers, client) < 0) {
+                ClientInstance[] updated = Arrays.copyOf(subscribers, subscribers.length + 1);
+                updated[subscribers.length] = client;
+                this.subscribers = updated;
+            }
+            this.names.setLength(0);
+            client.deliver(answer.set(Payload.MESSAGE, this.snapshot(this.names)));
+        } finally {
+            this.fanoutLock.unlock();
+        }
+    }
+
+    /**
+     * Stops sending changes to a client.
+     *
+     * @param client The client
+     * @return true if it was subscribed
+     */
+    public boolean unsubscribe(ClientInstance client) {
+        this.fanoutLock.lock();
+        try {
+            ClientInstance[] subscribers = this.subscribers;
+            int index = indexOf(subscribers, client);
+            if (index < 0) {
+                return false;
+            }
+            ClientInstance[] updated = new ClientInstance[subscribers.length - 1];
+            System.arraycopy(subscribers, 0, updated, 0, index);
+            System.arraycopy(subscribers, index + 1, updated, index, updated.length - index);
+            this.subscribers = updated;
+            return true;
+        } finally {
+            this.fanoutLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the index of a client in an array of subscribers.
+     *
+     * @return The index, or -1 if it is not subscribed
+     */
+    private static int indexOf(ClientInstance[] subscribers, ClientInstance client) {
+        for (int i = 0; i < subscribers.length; i++) {
+            if (subscribers[i] == client) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of subscribed clients.
+     *
+     * @return Subscribers
+     */
+    public int getSubscriberCount() {
+        return this.subscribers.length;
+    }
+
+    /**
+     * Writes the changes collected since the last flush to every subscriber, encoded at most
+     * once per codec. Runs on the timer wheel, one window after the first of the changes; a
+     * flush with nothing collected writes nothing.
+     */
+    public void flush() {
+        this.fanoutLock.lock();
+        try {
+            Map<String, Boolean> flushed;
+            this.changesLock.lock();
+            try {
+                flushed = this.changes;
+                this.changes = this.spare;
+                this.spare = flushed;
+                this.flushScheduled = false;
+            } finally {
+                this.changesLock.unlock();
+            }
+
+            if (flushed.isEmpty()) {
+                return;
+            }
+            this.names.setLength(0);
+            for (Map.Entry<String, Boolean> change : flushed.entrySet()) {
+                if (!this.names.isEmpty()) {
+                    this.names.append(',');
+                }
+                this.names.append(change.getValue() ? '+' : '-').append(change.getKey());
+            }
+            flushed.clear();
+
+            this.frame.clear()
+                    .set(Payload.REQUEST, PayloadValue.PRESENCE.getValue())
+                    .set(Payload.MESSAGE, this.names);
+            this.shared.reset(this.frame);
+            for (ClientInstance subscriber : this.subscribers) {
+                // A subscriber closed by a write is removed from a new array, not this one.
+                this.metrics.frameOut(this.frame);
+                subscriber.deliver(this.shared);
+            }
+        } finally {
+            this.fanoutLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.hashedalgorithm.playerchat.server;
+
+/**
+ * RateLimit is the sustained rate and the burst of chat messages a client may send, set for a
+ * whole {@link Server} or for one chat room in its {@link ServerConfig}.
+ *
+ * <p>A limit is written {@code <rate>[/<burst>]}, e.g. {@code 10/20} for ten messages per second
+ * with up to twenty at once. Without a burst, the burst equals the rate. A rate of 0 is
+ * {@link #UNLIMITED}.
+ *
+ * <p>Each client gets a {@link TokenBucket} of the server's limit, and of every limited room it
+ * broadcasts to. A chat message sent too fast is not sent, counted or journaled; the sender gets
+ * {@code stat:throttled} and stays connected. An unlimited client has no bucket at all.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     RateLimit limit = RateLimit.parse("10/20");
+ *     TokenBucket bucket = limit.newBucket();
+ * </pre>
+ *
+ * @param rate  Messages per second, 0 for no limit
+ * @param burst Messages a client may send at once after being quiet
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public record RateLimit(int rate, int burst) {
+
+    /** No limit at all */
+    public static final RateLimit UNLIMITED = new RateLimit(0, 0);
+
+    /**
+     * Creates a limit.
+     *
+     * @throws IllegalArgumentException if the rate is negative, or the burst is below 1 for a
+     *                                  limited rate
+     */
+    public RateLimit {
+        if (rate < 0 || (rate > 0 && burst < 1)) {
+            throw new IllegalArgumentException(String.format("Invalid rate limit %d/%d!", rate, burst));
+        }
+    }
+
+    /**
+     * Parses a limit written {@code <rate>[/<burst>]}.
+     *
+     * @param value The limit, e.g. "10/20", "10" or "0"
+     * @return The limit
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    public static RateLimit parse(String value) {
+        int slash = value.indexOf('/');
+        int rate = Integer.parseInt(slash < 0 ? value : value.substring(0, slash));
+        if (rate == 0) {
+            return UNLIMITED;
+        }
+        return new RateLimit(rate, slash < 0 ? rate : Integer.parseInt(value.substring(slash + 1)));
+    }
+
+    /**
+     * Returns whether this limit lets a client send as much as it wants.
+     *
+     * @return true if the rate is 0
+     */
+    public boolean isUnlimited() {
+        return this.rate == 0;
+    }
+
+    /**
+     * Creates a full bucket enforcing this limit for one client.
+     *
+     * @return The bucket, or null if this limit is {@link #UNLIMITED}, so an unlimited client
+     *         is checked with a single null test
+     */
+    TokenBucket newBucket() {
+        return this.isUnlimited() ? null : new TokenBucket(this.rate, this.burst);
+    }
+
+    @Override
+    public String toString() {
+        return this.isUnlimited() ? "0" : String.format("%d/%d", this.rate, this.burst);
+    }
+}
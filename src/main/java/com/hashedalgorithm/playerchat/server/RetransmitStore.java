@@ -0,0 +1,131 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.utils.TimerWheel;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RetransmitStore keeps the {@link RetransmitWindow} of every player that asked for sequenced
+ * delivery, from its handshake until a while after it left.
+ *
+ * <p>A window is opened by the player's handshake and closed with its connection. A closed
+ * window is kept for the player's next handshake, which writes its unacknowledged messages
+ * again and goes on numbering where it left off, and removed by a timeout on the server's
+ * {@link TimerWheel} if the player does not come back in time, like a mailbox. It is kept even
+ * when empty, because a sender that looked the player up just before it left may still write
+ * to it. Messages sent while the player is offline go to its mailbox as usual, and are numbered
+ * in the same window when they are delivered.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     RetransmitWindow window = retransmits.open("dee");
+ *     window.resume(received, connection);
+ *     retransmits.close("dee", window);
+ * </pre>
+ *
+ * <p>Thread safety: Thread-safe. A window is only opened, closed or expired inside an atomic
+ * {@link ConcurrentHashMap} operation on its entry, so a timeout firing as its player
+ * reconnects either removes the window before the handshake opens a new one, or leaves it.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class RetransmitStore {
+
+    /** Unacknowledged messages a window may hold, 0 to refuse sequenced delivery */
+    private final int capacity;
+
+    /** Milliseconds a closed window is kept */
+    private final long retainMillis;
+
+    /** Wheel the removals of closed windows are scheduled on */
+    private final TimerWheel timers;
+
+    /** Metrics of the server, handed to every window */
+    private final ServerMetrics metrics;
+
+    /** Windows by the instance ID of their player */
+    private final ConcurrentHashMap<String, RetransmitWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a store.
+     *
+     * @param capacity     Unacknowledged messages a window may hold, 0 to refuse sequenced delivery
+     * @param retainMillis Milliseconds a closed window is kept
+     * @param timers       The wheel removals are scheduled on
+     * @param metrics      Metrics of the server
+     */
+    public RetransmitStore(int capacity, long retainMillis, TimerWheel timers, ServerMetrics metrics) {
+        if (capacity < 0 || retainMillis < 1) {
+            throw new IllegalArgumentException("Invalid retransmit configuration!");
+        }
+        this.capacity = capacity;
+        this.retainMillis = retainMillis;
+        this.timers = timers;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns whether players may ask for sequenced delivery.
+     *
+     * @return true unless the window capacity is 0
+     */
+    public boolean isEnabled() {
+        return this.capacity > 0;
+    }
+
+    /**
+     * Opens the window of a player completing its handshake: the one kept from its last
+     * connection, or a new one.
+     *
+     * @param instanceId The player's instance ID
+     * @return The window
+     */
+    public RetransmitWindow open(String instanceId) {
+        return this.windows.compute(instanceId, (id, window) -> {
+            if (window == null) {
+                window = new RetransmitWindow(this.capacity, this.metrics);
+            } else if (window.expiry != null) {
+                window.expiry.cancel();
+                window.expiry = null;
+            }
+            window.online = true;
+            return window;
+        });
+    }
+
+    /**
+     * Closes the window of a player whose connection closed. It is kept for the retention time.
+     *
+     * @param instanceId The player's instance ID
+     * @param window     The window opened by the player's handshake
+     */
+    public void close(String instanceId, RetransmitWindow window) {
+        this.windows.computeIfPresent(instanceId, (id, current) -> {
+            if (current != window) {
+                return current;
+            }
+            window.online = false;
+            window.expiry = this.timers.schedule(() -> this.expire(id, window), this.retainMillis);
+            return window;
+        });
+    }
+
+    /**
+     * Removes a closed window whose player did not come back in time.
+     */
+    private void expire(String instanceId, RetransmitWindow window) {
+        this.windows.computeIfPresent(instanceId,
+                (id, current) -> current == window && !window.online ? null : current);
+    }
+
+    /**
+     * Returns the number of windows kept, open or closed.
+     *
+     * @return Windows
+     */
+    public int size() {
+        return this.windows.size();
+    }
+}
@@ -0,0 +1,270 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.TimerWheel;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * RetransmitWindow numbers the chat messages written to one player and keeps those the player
+ * has not acknowledged yet, so they can be written again when it reconnects.
+ *
+ * <p>Every chat message and broadcast written to the player gets the next sequence number in
+ * {@code seq}, starting at 1. The numbers count the player's whole delivery stream, across all
+ * its sessions and rooms, so one cumulative acknowledgement {@code ack:<n>} covers every message
+ * up to n, whoever sent it. A message is numbered, copied into the window and written while the
+ * window is locked, so the player receives the numbers in order even when many senders write to
+ * it at once.
+ *
+ * <p>A client asks for sequenced delivery by sending {@code ack:<n>} in its handshake, n being
+ * the highest sequence number it received on an earlier connection, or 0. An acknowledgement
+ * may ride on any frame the client sends, or come alone as {@code req:ack|ack:<n>}. The
+ * confirmation of such a handshake echoes the {@code ack}, and the window then writes again
+ * everything the client has not acknowledged, before its mailbox and any other chat message.
+ *
+ * <p>The window is a ring of {@link #messages} indexed by sequence number. It holds at most its
+ * capacity of unacknowledged messages and never gives one up to make room: a full window refuses
+ * the message instead, neither numbering nor writing it, and the caller keeps it elsewhere, as
+ * {@link ClientInstance} does in the player's mailbox. A message is kept as the strings of its
+ * fields and released when it is acknowledged, so a window costs memory only for the messages
+ * the player has not acknowledged, not for its capacity.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     RetransmitWindow window = new RetransmitWindow(256, metrics);
+ *     window.write(connection, frame);      // seq:1
+ *     window.acknowledge(1);
+ *     window.resume(0, newConnection);      // nothing left to write again
+ * </pre>
+ *
+ * <p>Thread safety: Thread-safe. Messages are written by the threads of their senders, and
+ * acknowledgements and resumes come from the player's own thread.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class RetransmitWindow {
+
+    /**
+     * A message kept for retransmission: the fields a chat message or broadcast carries.
+     */
+    private record Message(String request, String from, String to, String text, String sequence) {
+
+        /**
+         * Fills a frame with the message.
+         *
+         * @param frame The frame, cleared first
+         * @return The frame
+         */
+        Frame fill(Frame frame) {
+            return frame.clear()
+                    .set(Payload.REQUEST, this.request)
+                    .set(Payload.FROM, this.from)
+                    .set(Payload.TO, this.to)
+                    .set(Payload.MESSAGE, this.text)
+                    .set(Payload.SEQUENCE, this.sequence);
+        }
+    }
+
+    /** Unacknowledged messages, the one numbered n at index n % capacity, null once acknowledged */
+    private final Message[] messages;
+
+    /** Reusable frame single messages are written from. Guarded by {@link #lock} */
+    private final Frame frame = new Frame();
+
+    /** Metrics of the server, recording retransmitted messages */
+    private final ServerMetrics metrics;
+
+    /** Held while messages are numbered, written, acknowledged or written again */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Sequence number of the next message. Guarded by {@link #lock} */
+    private long next = 1;
+
+    /** Highest sequence number acknowledged. Guarded by {@link #lock} */
+    private long acknowledged = 0;
+
+    /** Whether the player is connected. Guarded by the {@link RetransmitStore} entry of the player */
+    boolean online = false;
+
+    /** Removal of the window while the player is offline. Guarded by the {@link RetransmitStore} entry of the player */
+    TimerWheel.Timeout expiry;
+
+    /**
+     * Creates an empty window.
+     *
+     * @param capacity Most unacknowledged messages kept
+     * @param metrics  Metrics of the server
+     */
+    public RetransmitWindow(int capacity, ServerMetrics metrics) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid retransmit window!");
+        }
+        this.messages = new Message[capacity];
+        this.metrics = metrics;
+    }
+
+    /**
+     * Numbers a chat message, keeps it and writes it to the player, unless the window is full.
+     *
+     * @param connection The player's connection
+     * @param frame      The message, left unchanged
+     * @return false if the window is full, and the message was neither kept nor written
+     */
+    public boolean write(Connection connection, Frame frame) {
+        this.lock.lock();
+        try {
+            if (this.room() == 0) {
+                return false;
+            }
+            connection.write(this.keep(frame).fill(this.frame));
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Numbers as many of several chat messages as the window has room for, keeps them and
+     * writes them to the player as one batch. The messages are numbered in place.
+     *
+     * @param connection The player's connection
+     * @param frames     The messages in order, owned by the caller
+     * @return The number of messages written, from the first; the others are left to the caller
+     */
+    public int write(Connection connection, Frame[] frames) {
+        this.lock.lock();
+        try {
+            int written = Math.min(frames.length, this.room());
+            if (written == 0) {
+                return 0;
+            }
+            Frame[] batch = written == frames.length ? frames : Arrays.copyOf(frames, written);
+            for (Frame frame : batch) {
+                frame.set(Payload.SEQUENCE, this.keep(frame).sequence());
+            }
+            connection.write(batch);
+            return written;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of messages the window can still keep. Must hold {@link #lock}.
+     */
+    private int room() {
+        return (int) (this.messages.length - (this.next - 1 - this.acknowledged));
+    }
+
+    /**
+     * Keeps a message in the slot of the next sequence number, which the caller checked is
+     * free. Must hold {@link #lock}.
+     *
+     * @return The numbered message
+     */
+    private Message keep(Frame frame) {
+        long sequence = this.next++;
+        Message message = new Message(frame.getString(Payload.REQUEST), frame.getString(Payload.FROM),
+                frame.getString(Payload.TO), frame.getString(Payload.MESSAGE), Long.toString(sequence));
+        this.messages[this.slot(sequence)] = message;
+        return message;
+    }
+
+    /**
+     * Returns the index of the slot of a sequence number.
+     */
+    private int slot(long sequence) {
+        return (int) (sequence % this.messages.length);
+    }
+
+    /**
+     * Forgets every message up to a sequence number, which the player received. An
+     * acknowledgement of a message not written yet counts as one of the last message.
+     *
+     * @param sequence The highest sequence number received, counting every one before it
+     */
+    public void acknowledge(long sequence) {
+        this.lock.lock();
+        try {
+            this.release(Math.min(sequence, this.next - 1));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Clears the slots of the messages up to a sequence number. Must hold {@link #lock}.
+     */
+    private void release(long sequence) {
+        for (long released = this.acknowledged + 1; released <= sequence; released++) {
+            this.messages[this.slot(released)] = null;
+        }
+        this.acknowledged = Math.max(this.acknowledged, sequence);
+    }
+
+    /**
+     * Resumes the stream on the player's new connection: forgets what the player received and
+     * writes every other message again, in order and as one batch. A player that received more
+     * than this window numbered, because the window is new, continues after what it received.
+     *
+     * @param received   The highest sequence number the player received, 0 if none
+     * @param connection The player's new connection
+     */
+    public void resume(long received, Connection connection) {
+        this.lock.lock();
+        try {
+            if (received >= this.next) {
+                this.release(this.next - 1);
+                this.next = received + 1;
+                this.acknowledged = received;
+                return;
+            }
+
+            this.release(received);
+            int pending = (int) (this.next - 1 - this.acknowledged);
+            if (pending == 0) {
+                return;
+            }
+            Frame[] batch = new Frame[pending];
+            for (int i = 0; i < pending; i++) {
+                batch[i] = this.messages[this.slot(this.acknowledged + 1 + i)].fill(new Frame());
+            }
+            connection.write(batch);
+            this.metrics.retransmitted(pending);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of messages written and not acknowledged yet.
+     *
+     * @return Unacknowledged messages
+     */
+    public int getUnacknowledged() {
+        this.lock.lock();
+        try {
+            return (int) (this.next - 1 - this.acknowledged);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last message written, 0 if none.
+     *
+     * @return The last sequence number
+     */
+    public long getLastSequence() {
+        this.lock.lock();
+        try {
+            return this.next - 1;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.hashedalgorithm.playerchat.server;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RoomRegistry keeps the members of every chat room of a {@link Server}.
+ *
+ * <p>The members of a room are an immutable array that is replaced as a whole on every join
+ * or leave (copy-on-write). A broadcast reads the current array with a single lock-free
+ * lookup and iterates that snapshot, so joins and leaves never wait for a broadcast in flight
+ * and a broadcast never waits for them; a member joining during a broadcast simply receives
+ * the next one. Rooms are created by their first join and removed by their last leave.
+ *
+ * <p>A client joins with {@code req:join|to:<room>} and leaves with {@code req:leave|to:<room>},
+ * or by closing. A {@code req:broadcast|to:<room>|msg:<text>} from a member is encoded once per
+ * codec into a {@link com.hashedalgorithm.playerchat.utils.SharedFrame} and written to every
+ * other member of the snapshot.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     rooms.join("lobby", client);
+ *     for (ClientInstance member : rooms.members("lobby")) {
+ *         // write to member
+ *     }
+ * </pre>
+ *
+ * <p>Thread safety: Joins and leaves are atomic per room. Snapshots returned by
+ * {@link #members(String)} must not be modified.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class RoomRegistry {
+
+    /** Snapshot returned for a room that does not exist */
+    private static final ClientInstance[] EMPTY = new ClientInstance[0];
+
+    /** Members of every room by room name */
+    private final ConcurrentHashMap<String, ClientInstance[]> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a client to a room, creating the room if needed.
+     *
+     * @param room   Name of the room
+     * @param client The client joining
+     * @return false if the client already was a member
+     */
+    public boolean join(String room, ClientInstance client) {
+        boolean[] joined = new boolean[1];
+        this.rooms.compute(room, (name, members) -> {
+            if (members == null) {
+                joined[0] = true;
+                return new ClientInstance[] {client};
+            }
+            if (indexOf(members, client) >= 0) {
+                return members;
+            }
+            ClientInstance[] updated = Arrays.copyOf(members, members.length + 1);
+            updated[members.length] = client;
+            joined[0] = true;
+            return updated;
+        });
+        return joined[0];
+    }
+
+    /**
+     * Removes a client from a room, removing the room once it is empty.
+     *
+     * @param room   Name of the room
+     * @param client The client leaving
+     * @return false if the client was not a member
+     */
+    public boolean leave(String room, ClientInstance client) {
+        boolean[] left = new boolean[1];
+        this.rooms.computeIfPresent(room, (name, members) -> {
+            int index = indexOf(members, client);
+            if (index < 0) {
+                return members;
+            }
+            left[0] = true;
+            if (members.length == 1) {
+                return null;
+            }
+            ClientInstance[] updated = new ClientInstance[members.length - 1];
+            System.arraycopy(members, 0, updated, 0, index);
+            System.arraycopy(members, index + 1, updated, index, members.length - index - 1);
+            return updated;
+        });
+        return left[0];
+    }
+
+    /**
+     * Returns the current members of a room.
+     *
+     * @param room Name of the room
+     * @return An immutable snapshot of the members, empty if the room does not exist
+     */
+    public ClientInstance[] members(String room) {
+        ClientInstance[] members = this.rooms.get(room);
+        return members != null ? members : EMPTY;
+    }
+
+    /**
+     * Returns the number of rooms with at least one member.
+     *
+     * @return The number of rooms
+     */
+    public int size() {
+        return this.rooms.size();
+    }
+
+    private static int indexOf(ClientInstance[] members, ClientInstance client) {
+        for (int i = 0; i < members.length; i++) {
+            if (members[i] == client) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,26 +1,114 @@
 package com.hashedalgorithm.playerchat.server;
 
+import com.hashedalgorithm.playerchat.enums.ClientStatus;
+import com.hashedalgorithm.playerchat.enums.OutboundPolicy;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+import com.hashedalgorithm.playerchat.utils.DeflateCodec;
+import com.hashedalgorithm.playerchat.utils.Log;
+import com.hashedalgorithm.playerchat.utils.MessageParser;
+import com.hashedalgorithm.playerchat.utils.TimerWheel;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.net.*;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Server represents a simple chat server that listens for incoming client connections,
  * manages connected clients, and maintains a mapping of client instance IDs to their
- * respective ClientInstance threads.
+ * respective ClientInstance objects in a {@link ClientRegistry}.
+ *
+ * <p>The server supports two {@link ServerMode}s chosen at startup:
+ * <ul>
+ *     <li>{@link ServerMode#BLOCKING} - each client connection is handled by a
+ *         {@link StreamConnection} task on its own platform thread.</li>
+ *     <li>{@link ServerMode#VIRTUAL} - same as blocking, but each {@link StreamConnection}
+ *         task runs on a virtual thread.</li>
+ *     <li>{@link ServerMode#SELECTOR} - accepts non-blocking channels and spreads them over a
+ *         small fixed pool of {@link EventLoop}s, one per available processor. Idle clients
+ *         cost no thread.</li>
+ *     <li>{@link ServerMode#SHARDED} - like selector, but every loop is a {@link Shard} that owns
+ *         the players whose instance IDs hash to it. Frames between players of different shards
+ *         go through single-producer single-consumer queues.</li>
+ * </ul>
+ *
+ * <p>The number of loops or shards is set with {@link ServerConfig#setEventLoops(int)}.
+ *
+ * <p>Connections of every mode are socket channels, blocking ones in the thread-per-connection
+ * modes. They borrow their read and write buffers from one shared {@link BufferPool} of direct
+ * memory while they have bytes in flight, so idle clients hold no I/O buffer.
+ *
+ * <p>The number of concurrently connected clients is unlimited by default. A limit can be
+ * set with {@link ServerConfig#setMaxClients(int)}; its {@link com.hashedalgorithm.playerchat.enums.AdmissionPolicy}
+ * decides whether the server stops accepting or rejects new connections once it is reached.
+ *
+ * <p>Handshake deadlines, idle timeouts and heartbeats of all connections are tracked on one
+ * hashed {@link TimerWheel}, so no connection has a timer thread of its own. A connection that
+ * misses its handshake deadline or stays silent past {@link ServerConfig#setIdleTimeoutSeconds(int)}
+ * is closed and deregistered.
+ *
+ * <p>How fast each client may send chat messages is limited by a {@link RateLimit} for the whole
+ * server and, for broadcasts, one per room. A client sending too fast is answered
+ * {@code stat:throttled} and stays connected.
+ *
+ * <p>Connections, handshakes, frames, bytes and relay latency are counted in a
+ * {@link ServerMetrics}, registered as an MXBean under
+ * {@code com.hashedalgorithm.playerchat:type=Server,port=<port>} and sent to any client that
+ * asks with {@code req:stats}.
+ *
+ * <p>Frames queued for a client are bounded by {@link ServerConfig#setOutboundFrames(int)} and
+ * {@link ServerConfig#setOutboundBytes(long)}, so a client that stops reading cannot make the
+ * server buffer without limit; its {@link OutboundPolicy} decides what gives.
+ *
+ * <p>Clients on the binary protocol may also negotiate compression: frames of at least
+ * {@link ServerConfig#setCompressThreshold(int)} bytes are then deflated by a
+ * {@link DeflateCodec} shared by all of them.
+ *
+ * <p>Clients may join named chat rooms kept in a {@link RoomRegistry}; a broadcast to a room
+ * is encoded once and written to every other member.
+ *
+ * <p>Which players are online is kept by a {@link PresenceDirectory}, which clients may ask for
+ * a snapshot or subscribe to; changes are collected over a short window and sent in one frame.
+ *
+ * <p>Every client completing its handshake also gets an integer handle from a
+ * {@link HandleTable}, which other clients may address it by; such frames are routed with an
+ * array index instead of a lookup by name.
+ *
+ * <p>Chat messages to players who are not connected are kept in the bounded mailboxes of a
+ * {@link MailboxStore} and delivered after the player's next handshake.
+ *
+ * <p>Clients that ask for sequenced delivery in their handshake get their chat messages
+ * numbered, and those they have not acknowledged are kept in a {@link RetransmitStore} and
+ * written again after their next handshake.
  *
- * <p>The server accepts new connections until a maximum number of clients (10) is reached.
- * Each client connection is handled in its own thread using the ClientInstance class.
+ * <p>When {@link ServerConfig#setNodeId(String)} is set, the server is a node of a {@link Cluster}:
+ * instance IDs are unique across all nodes and frames are routed to players on other nodes.
+ *
+ * <p>When {@link ServerConfig#setJournalDirectory(java.nio.file.Path)} is set, every routed chat
+ * message is also appended to a memory-mapped {@link Journal}, which is closed when the
+ * process exits.
  *
  * <p>Example usage:
  * <pre>
- *     Server server = new Server(12345);
+ *     Server server = new Server(new ServerConfig().setMode(ServerMode.SELECTOR));
  *     server.start();
  * </pre>
  *
- * <p>Thread safety: The {@link #clients} map is not synchronized. If multiple threads
- * access it concurrently, consider wrapping it with {@link java.util.Collections#synchronizedMap(Map)}.
+ * <p>Thread safety: All client lookups, claims and removals go through the concurrent
+ * {@link ClientRegistry} and may be called from any connection thread or event loop. In the
+ * sharded mode, a shard looks up the players it owns in its own map first.
  *
  * @author Sanjay
  * @version 1.0
@@ -29,89 +117,617 @@ import java.util.Map;
 
 public class Server extends Thread {
 
-    /** The server socket used to listen for incoming client connections */
-    private ServerSocket serverSocket;
-    /** Mapping of client instance IDs to ClientInstance objects */
-    public Map<String, ClientInstance> clients = new HashMap<>();
+    /** Precision of connection deadlines, in milliseconds */
+    private static final long TIMER_TICK_MILLIS = 100;
+    /** Slots of the timer wheel; one turn is {@value} ticks */
+    private static final int TIMER_SLOTS = 512;
 
+    /** The server channel used to listen for incoming client connections, blocking unless in selector or sharded mode */
+    private ServerSocketChannel serverChannel;
+    /** Connection handling strategy of this server */
+    private final ServerMode mode;
+    /** Number of event loops in selector mode or shards in sharded mode */
+    private final int eventLoops;
+    /** Shards owning the players in sharded mode, null in the other modes */
+    private final Shard[] shards;
+    /** Mapping of client instance IDs to ClientInstance objects and connection admission */
+    private final ClientRegistry registry;
+    /** Handles given to clients in their handshake confirmation */
+    private final HandleTable handles;
+    /** Milliseconds a new connection may take to complete its handshake, 0 for no limit */
+    private final long handshakeTimeoutMillis;
+    /** Milliseconds a client may send nothing before it is disconnected, 0 for no limit */
+    private final long idleTimeoutMillis;
+    /** Milliseconds of silence after which a client is sent a heartbeat, 0 to send none */
+    private final long heartbeatMillis;
+    /** Deadlines, idle checks and heartbeats of every connection */
+    private final TimerWheel timers = new TimerWheel("timers", TIMER_TICK_MILLIS, TIMER_SLOTS);
+    /** Codec of the clients that negotiated compression, null if compression is refused */
+    private final DeflateCodec deflateCodec;
+    /** Chat messages and broadcasts each client may send */
+    private final RateLimit messageLimit;
+    /** Broadcasts each member may send to a room without a limit of its own */
+    private final RateLimit roomLimit;
+    /** Broadcasts each member may send to a room, by room name */
+    private final Map<String, RateLimit> roomLimits;
+    /** Most frames queued for a client, 0 for no limit */
+    private final int outboundFrames;
+    /** Most bytes queued for a client, 0 for no limit */
+    private final long outboundBytes;
+    /** What happens to frames for a client that is not reading them */
+    private final OutboundPolicy outboundPolicy;
+    /** Counters and latency histograms of this server */
+    private final ServerMetrics metrics = new ServerMetrics();
+    /** Members of every chat room */
+    private final RoomRegistry rooms = new RoomRegistry();
+    /** Players online and the clients subscribed to their changes */
+    private final PresenceDirectory presence;
+    /** Messages stored for players who are not connected */
+    private final MailboxStore mailboxes;
+    /** Retransmit windows of the players with sequenced delivery, kept across their reconnects */
+    private final RetransmitStore retransmits;
+    /** Direct buffers lent to connections while they read or write */
+    private final BufferPool buffers;
+    /** Durable log of routed chat messages, null if journaling is off */
+    private final Journal journal;
+    /** Links to the other nodes of the cluster, null if this server runs stand-alone */
+    private final Cluster cluster;
     /**
-     * Creates a new server instance listening on the specified port.
+     * Runs the outbound writers of blocking connections. Every drain gets its own virtual thread,
+     * so a client with a full socket buffer only ever stalls its own writer.
+     */
+    private final ExecutorService writerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates a new blocking server instance listening on the specified port.
      *
      * @param port The port number on which the server will listen.
      * @throws RuntimeException if the server socket cannot be created.
      */
     public Server(int port) {
+        this(new ServerConfig().setPort(port));
+    }
+
+    /**
+     * Creates a new server instance listening on the specified port.
+     *
+     * @param port The port number on which the server will listen.
+     * @param mode The connection handling strategy.
+     * @throws RuntimeException if the server socket cannot be created.
+     */
+    public Server(int port, ServerMode mode) {
+        this(new ServerConfig().setPort(port).setMode(mode));
+    }
+
+    /**
+     * Creates a new server instance from the given configuration.
+     *
+     * @param config The server configuration.
+     * @throws RuntimeException if the server socket cannot be created.
+     */
+    @SuppressWarnings("this-escape") // The cluster and shards only store the server until run() starts them.
+    public Server(ServerConfig config) {
+        int port = config.getPort();
+        ServerMode mode = config.getMode();
+
+        this.mode = mode;
+        this.eventLoops = config.getEventLoops() > 0 ? config.getEventLoops() : Runtime.getRuntime().availableProcessors();
+        this.registry = new ClientRegistry(config.getMaxClients(), config.getAdmissionPolicy());
+        this.handles = new HandleTable(config.getMaxClients());
+        this.handshakeTimeoutMillis = config.getHandshakeTimeoutSeconds() * 1000L;
+        this.idleTimeoutMillis = config.getIdleTimeoutSeconds() * 1000L;
+        this.heartbeatMillis = config.getHeartbeatSeconds() * 1000L;
+        this.deflateCodec = config.getCompressThreshold() > 0 ? new DeflateCodec(config.getCompressThreshold()) : null;
+        this.messageLimit = config.getMessageLimit();
+        this.roomLimit = config.getRoomLimit();
+        this.roomLimits = Map.copyOf(config.getRoomLimits());
+        this.outboundFrames = config.getOutboundFrames();
+        this.outboundBytes = config.getOutboundBytes();
+        this.outboundPolicy = config.getOutboundPolicy();
+        this.presence = new PresenceDirectory(this.registry, this.timers, this.metrics, config.getPresenceWindowMillis());
         try {
-            System.out.printf("[+] - Starting Server on port: %s\n", port);
-            this.serverSocket = new ServerSocket(port);
+            Log.info("Starting Server on port: %s in %s mode", port, mode.getValue());
+            this.serverChannel = ServerSocketChannel.open();
+            this.serverChannel.bind(new InetSocketAddress(port));
         } catch (BindException be) {
-            System.out.printf("[+] - Port %d is already in use.\n", port);
+            Log.error("Port %d is already in use.", port);
             System.exit(1);
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage());
         }
+
+        this.mailboxes = new MailboxStore(config.getMailboxSize(), config.getMailboxAgeSeconds() * 1000L,
+                config.getMailboxPolicy(), this.metrics);
+        this.retransmits = new RetransmitStore(config.getRetransmitWindow(), config.getRetransmitRetentionSeconds() * 1000L,
+                this.timers, this.metrics);
+        this.buffers = new BufferPool(config.getBufferPoolMegabytes() * 1024L * 1024L, config.isBufferLeakDetection(),
+                this.metrics);
+        this.journal = openJournal(config);
+        this.cluster = this.openCluster(config);
+        this.shards = mode == ServerMode.SHARDED ? this.openShards() : null;
+        this.registerMetrics();
+    }
+
+    /**
+     * Creates and links the shards of the sharded mode. They are started with the server.
+     *
+     * @return The shards, each at its index.
+     * @throws RuntimeException if a selector cannot be opened.
+     */
+    private Shard[] openShards() {
+        Shard[] shards = new Shard[this.eventLoops];
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new Shard(this, i);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        Shard.link(shards);
+        return shards;
+    }
+
+    /**
+     * Opens the message journal if one is configured and closes it when the process exits, so
+     * the messages appended since the last group commit are forced too.
+     *
+     * @param config The server configuration.
+     * @return The journal, or null if journaling is off.
+     * @throws RuntimeException if the journal cannot be opened.
+     */
+    private static Journal openJournal(ServerConfig config) {
+        if (config.getJournalDirectory() == null) {
+            return null;
+        }
+        try {
+            Journal journal = new Journal(config.getJournalDirectory(), config.getJournalSegmentMegabytes() * 1024 * 1024,
+                    config.getJournalSegments(), config.getJournalFlushMillis());
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "journal-close"));
+            return journal;
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    /**
+     * Binds the peer listener of this node if the server is part of a cluster. Links are made
+     * once the server is started.
+     *
+     * @param config The server configuration.
+     * @return The cluster, or null if no node ID is configured.
+     * @throws RuntimeException if the peer listener cannot be bound.
+     */
+    private Cluster openCluster(ServerConfig config) {
+        if (config.getNodeId() == null) {
+            return null;
+        }
+        try {
+            return new Cluster(this, config.getNodeId(), config.getClusterPort(), config.getPeers());
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    /**
+     * Registers the metrics of this server with the platform MBean server. A failure only
+     * costs the JMX view, so it is logged and the server starts anyway.
+     */
+    private void registerMetrics() {
+        try {
+            ObjectName name = new ObjectName(String.format(
+                    "com.hashedalgorithm.playerchat:type=Server,port=%d", this.getLocalPort()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this.metrics, name);
+        } catch (JMException e) {
+            Log.error("Could not register server metrics: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the port the server is listening on. Useful when started on port 0.
+     *
+     * @return The local port of the server socket.
+     */
+    public int getLocalPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the timer wheel running the deadlines, idle checks and heartbeats of the
+     * connections of this server.
+     *
+     * @return The timer wheel.
+     */
+    public TimerWheel getTimers() {
+        return this.timers;
+    }
+
+    /**
+     * Returns how long a new connection may take to complete its handshake.
+     *
+     * @return The timeout in milliseconds, or 0 if there is none.
+     */
+    public long getHandshakeTimeoutMillis() {
+        return this.handshakeTimeoutMillis;
+    }
+
+    /**
+     * Returns how long a client may send nothing before it is disconnected.
+     *
+     * @return The timeout in milliseconds, or 0 if there is none.
+     */
+    public long getIdleTimeoutMillis() {
+        return this.idleTimeoutMillis;
+    }
+
+    /**
+     * Returns how long a client may be silent before it is sent a heartbeat.
+     *
+     * @return The interval in milliseconds, or 0 if no heartbeats are sent.
+     */
+    public long getHeartbeatMillis() {
+        return this.heartbeatMillis;
+    }
+
+    /**
+     * Returns the codec shared by every client that negotiated compression.
+     *
+     * @return The codec, or null if clients asking for compression get the plain binary protocol.
+     */
+    public DeflateCodec getDeflateCodec() {
+        return this.deflateCodec;
+    }
+
+    /**
+     * Returns how many chat messages and broadcasts each client may send.
+     *
+     * @return The limit, {@link RateLimit#UNLIMITED} if there is none.
+     */
+    public RateLimit getMessageLimit() {
+        return this.messageLimit;
+    }
+
+    /**
+     * Returns how many broadcasts each member may send to a room, on top of
+     * {@link #getMessageLimit()}.
+     *
+     * @param room Name of the room
+     * @return The limit of the room, {@link RateLimit#UNLIMITED} if there is none.
+     */
+    public RateLimit getRoomLimit(String room) {
+        return this.roomLimits.getOrDefault(room, this.roomLimit);
+    }
+
+    /**
+     * Returns what happens to frames for a client that is not reading them.
+     *
+     * @return The outbound policy.
+     */
+    public OutboundPolicy getOutboundPolicy() {
+        return this.outboundPolicy;
+    }
+
+    /**
+     * Creates the outbound queue of a new client connection, bounded by the configured limits.
+     *
+     * @return An empty queue with the outbound limits and policy of this server.
+     */
+    public OutboundQueue newOutboundQueue() {
+        return new OutboundQueue(this.outboundFrames, this.outboundBytes, this.outboundPolicy, this.metrics);
+    }
+
+    /**
+     * Returns the counters and latency histograms of this server.
+     *
+     * @return The server metrics.
+     */
+    public ServerMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns the members of every chat room.
+     *
+     * @return The room registry.
+     */
+    public RoomRegistry getRooms() {
+        return this.rooms;
+    }
+
+    /**
+     * Returns the directory of the players online and their subscribers.
+     *
+     * @return The presence directory.
+     */
+    public PresenceDirectory getPresence() {
+        return this.presence;
+    }
+
+    /**
+     * Returns the mailboxes of players who are not connected.
+     *
+     * @return The mailbox store.
+     */
+    public MailboxStore getMailboxes() {
+        return this.mailboxes;
+    }
+
+    /**
+     * Returns the retransmit windows of players that asked for sequenced delivery.
+     *
+     * @return The retransmit store.
+     */
+    public RetransmitStore getRetransmits() {
+        return this.retransmits;
+    }
+
+    /**
+     * Returns the pool connections borrow their I/O buffers from.
+     *
+     * @return The buffer pool.
+     */
+    public BufferPool getBufferPool() {
+        return this.buffers;
+    }
+
+    /**
+     * Returns the journal routed chat messages are appended to.
+     *
+     * @return The journal, or null if journaling is off.
+     */
+    public Journal getJournal() {
+        return this.journal;
+    }
+
+    /**
+     * Returns the links of this node to the rest of the cluster.
+     *
+     * @return The cluster, or null if this server runs stand-alone.
+     */
+    public Cluster getCluster() {
+        return this.cluster;
+    }
+
+    /**
+     * Returns the executor that runs the outbound writers of {@link StreamConnection}s.
+     *
+     * @return The writer executor.
+     */
+    public ExecutorService getWriterExecutor() {
+        return this.writerExecutor;
+    }
+
+    /**
+     * Returns the shard owning the players with the given instance ID in the sharded mode.
+     *
+     * @param instanceId The instance ID of a player.
+     * @return The owning shard, or null if the server is not sharded.
+     */
+    Shard shardOf(String instanceId) {
+        if (this.shards == null) {
+            return null;
+        }
+        int hash = instanceId.hashCode();
+        return this.shards[Math.floorMod(hash ^ (hash >>> 16), this.shards.length)];
     }
 
     /**
-     * Retrieves a connected client instance by its instance ID.
+     * Retrieves a connected client instance by its instance ID. A client whose handshake
+     * has not been confirmed yet is not considered connected.
+     *
+     * <p>Called on the shard owning the ID, this is a lookup in the shard's own map. Clients
+     * that are still moving to their shard are found in the registry.
      *
      * @param clientInstanceId The unique ID of the client.
      * @return The ClientInstance if found; otherwise, null.
      */
     public ClientInstance getClient(String clientInstanceId) {
-        return this.clients.getOrDefault(clientInstanceId, null);
+        if (Thread.currentThread() instanceof Shard shard && shard == this.shardOf(clientInstanceId)) {
+            ClientInstance local = shard.getClient(clientInstanceId);
+            if (local != null) {
+                return local;
+            }
+        }
+
+        ClientInstance client = this.registry.get(clientInstanceId);
+        return client != null && client.isHandshakeCompleted() ? client : null;
     }
 
     /**
-     * Deletes a client instance from the server's clients map.
+     * Retrieves a connected client instance by its handle, without a lookup by name. A client
+     * whose handshake has not been confirmed yet is not considered connected.
+     *
+     * @param handle The handle given to the client in its handshake confirmation.
+     * @return The ClientInstance if its handle is current; otherwise, null.
+     */
+    public ClientInstance getClient(int handle) {
+        ClientInstance client = this.handles.get(handle);
+        return client != null && client.isHandshakeCompleted() ? client : null;
+    }
+
+    /**
+     * Returns the table of the handles given to clients in their handshake confirmation.
+     *
+     * @return The handle table.
+     */
+    public HandleTable getHandles() {
+        return this.handles;
+    }
+
+    /**
+     * Atomically claims an instance ID for a client during its handshake. In a cluster the ID
+     * is also claimed on every other node, and the result completes once they voted, without
+     * blocking the caller.
+     *
+     * @param instanceId The instance ID requested by the client.
+     * @param client     The client claiming the ID.
+     * @return Completed with true if the ID was free and now belongs to the client; with false
+     *         if it is taken.
+     */
+    public CompletableFuture<Boolean> claimClient(String instanceId, ClientInstance client) {
+        if (!this.registry.claim(instanceId, client)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (this.cluster == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return this.cluster.claim(instanceId).thenApply(granted -> {
+            if (!granted) {
+                this.registry.release(instanceId, client);
+            }
+            return granted;
+        });
+    }
+
+    /**
+     * Gives back an instance ID claimed for a client that closed before its handshake was
+     * confirmed, so the ID is free again here and in the cluster.
+     *
+     * @param instanceId The instance ID claimed
+     * @param client     The client that claimed it
+     */
+    void releaseClaim(String instanceId, ClientInstance client) {
+        if (this.registry.release(instanceId, client) && this.cluster != null) {
+            this.cluster.release(instanceId);
+        }
+    }
+
+    /**
+     * Deletes a client instance from the server's registry and frees its admission slot.
+     * Must be called exactly once per admitted connection, when it closes.
      *
      * <p>Note: This does not close the client's socket. Closing the client connection
      * should be handled separately via the ClientInstance object.
      *
-     * @param instanceId The unique ID of the client to remove.
-     * @throws IOException if an I/O error occurs while deleting the client.
+     * @param client The client to remove.
      */
-    public void deleteClientInstance(String instanceId) throws IOException {
-        ClientInstance client = this.clients.get(instanceId);
-
-        if(client == null) {
-            System.out.printf("[+] - No client with id %s found.\n", instanceId);
-            return;
+    public void deleteClientInstance(ClientInstance client) {
+        if (this.registry.release(client.instanceId, client)) {
+            Log.info("Deleting client id %s", client.instanceId);
+            this.handles.release(client.getHandle(), client);
+            if (this.shards != null) {
+                this.shardOf(client.instanceId).forget(client);
+            }
+            if (this.cluster != null) {
+                this.cluster.release(client.instanceId);
+            }
+            if (client.isHandshakeCompleted()) {
+                this.presence.offline(client.instanceId);
+            }
         }
+        this.registry.leave();
+        this.metrics.connectionClosed();
+    }
 
-        System.out.printf("[+] - Deleting client id %s\n", instanceId);
-        this.clients.remove(instanceId);
+    /**
+     * Builds the handshake answer sent to connections refused by the admission limit.
+     *
+     * @return The serialized rejection frame, terminated by a line separator.
+     */
+    private byte[] rejectionFrame() {
+        Map<String, String> result = new LinkedHashMap<>();
+        result.put(Payload.REQUEST.getValue(), PayloadValue.HANDSHAKE.getValue());
+        result.put(Payload.STATUS.getValue(), ClientStatus.BLOCKED.getValue());
+
+        return (new MessageParser().serialize(result) + "\n").getBytes(StandardCharsets.UTF_8);
     }
 
     /**
      * Starts the server thread, continuously listening for new client connections.
      *
-     * <p>If the maximum number of allowed clients (10) is reached, the server
-     * will temporarily stop accepting new connections.
+     * <p>Every accepted connection must be admitted by the {@link ClientRegistry} before it
+     * is served. Refused connections are told they are {@link ClientStatus#BLOCKED} and closed.
      */
     public void run() {
+        this.mailboxes.start();
+        if (this.cluster != null) {
+            this.cluster.start();
+        }
+
+        if (this.mode == ServerMode.SELECTOR || this.mode == ServerMode.SHARDED) {
+            this.runSelector();
+            return;
+        }
+
+        Thread.Builder threads = this.mode == ServerMode.VIRTUAL
+                ? Thread.ofVirtual().name("client-", 0)
+                : Thread.ofPlatform().name("client-", 0);
+
         try {
-            System.out.println("[+] - Server Started. Listening for connections.");
+            Log.info("Server Started. Listening for connections.");
 
             while (true) {
+                SocketChannel channel = this.serverChannel.accept();
 
-                if(clients.size() >= 10) {
-                    System.out.println("[+] - Maximum number of connections reached!.");
-                    System.out.println("[+] - Stopped listening.");
+                if (!this.registry.admit()) {
+                    Log.info("Maximum number of connections reached! Rejecting client.");
+                    this.metrics.connectionRejected();
+                    channel.write(ByteBuffer.wrap(this.rejectionFrame()));
+                    channel.close();
                     continue;
                 }
 
-                Socket clientSocket = serverSocket.accept();
-
-                ClientInstance instance = new ClientInstance(this, clientSocket);
-                this.clients.put(instance.instanceId, instance);
-                instance.start();
+                this.metrics.connectionAccepted();
+                try {
+                    threads.start(new StreamConnection(this, channel));
+                } catch (IOException e) {
+                    Log.error("%s", e.getMessage());
+                    this.registry.leave();
+                    this.metrics.connectionClosed();
+                    channel.close();
+                }
             }
 
         } catch (IOException e) {
-            System.out.printf("[!] - %s\n", e.getMessage());
+            Log.error("%s", e.getMessage());
+        } catch (InterruptedException e) {
+            Log.info("Server interrupted. Stopped listening.");
         }
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Accepts client channels and hands them round-robin to a fixed pool of event loops, or to
+     * the shards in sharded mode. Handshake and routing run on the loops, so this thread only
+     * ever accepts.
+     */
+    private void runSelector() {
+        try {
+            EventLoop[] loops = this.shards;
+            if (loops == null) {
+                loops = new EventLoop[this.eventLoops];
+                for (int i = 0; i < loops.length; i++) {
+                    loops[i] = new EventLoop(this, i);
+                }
+            }
+            for (EventLoop loop : loops) {
+                loop.start();
+            }
+
+            Log.info("Server Started with %d %s. Listening for connections.", loops.length,
+                    this.shards != null ? "shards" : "event loops");
+
+            int next = 0;
+            while (true) {
+                SocketChannel channel = this.serverChannel.accept();
+
+                if (!this.registry.admit()) {
+                    Log.info("Maximum number of connections reached! Rejecting client.");
+                    this.metrics.connectionRejected();
+                    channel.write(ByteBuffer.wrap(this.rejectionFrame()));
+                    channel.close();
+                    continue;
+                }
+
+                this.metrics.connectionAccepted();
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        } catch (InterruptedException e) {
+            Log.info("Server interrupted. Stopped listening.");
+        }
+    }
+
+}
@@ -0,0 +1,529 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.AdmissionPolicy;
+import com.hashedalgorithm.playerchat.enums.LogLevel;
+import com.hashedalgorithm.playerchat.enums.MailboxPolicy;
+import com.hashedalgorithm.playerchat.enums.OutboundPolicy;
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ServerConfig holds the startup settings of a {@link Server}.
+ *
+ * <p>Every setting has a default, so only the values that differ need to be set.
+ * Settings can also be read from command-line arguments of the form {@code --key=value};
+ * a bare first argument is taken as the {@link ServerMode}.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     ServerConfig config = new ServerConfig()
+ *             .setPort(12345)
+ *             .setMode(ServerMode.SELECTOR)
+ *             .setMaxClients(50000);
+ *     Server server = new Server(config);
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class ServerConfig {
+
+    /** Port the server listens on */
+    private int port = 12345;
+
+    /** Connection handling strategy */
+    private ServerMode mode = ServerMode.BLOCKING;
+
+    /** Number of event loops in selector mode or shards in sharded mode, 0 for one per processor */
+    private int eventLoops = 0;
+
+    /** Maximum number of concurrently connected clients, 0 for no limit */
+    private int maxClients = 0;
+
+    /** What to do with new connections once {@link #maxClients} is reached */
+    private AdmissionPolicy admissionPolicy = AdmissionPolicy.BLOCK;
+
+    /** Most frames queued for a client that is not reading them, 0 for no limit */
+    private int outboundFrames = 4096;
+
+    /** Most bytes queued for a client that is not reading them, 0 for no limit */
+    private long outboundBytes = 4L * 1024 * 1024;
+
+    /** What happens to frames for a client once {@link #outboundFrames} or {@link #outboundBytes} is reached */
+    private OutboundPolicy outboundPolicy = OutboundPolicy.DROP_OLDEST;
+
+    /** Seconds a new connection may take to complete its handshake, 0 for no limit */
+    private int handshakeTimeoutSeconds = 10;
+
+    /** Seconds a client may send nothing before it is disconnected, 0 for no limit */
+    private int idleTimeoutSeconds = 0;
+
+    /** Seconds of silence after which a client is sent a heartbeat, 0 to send none */
+    private int heartbeatSeconds = 0;
+
+    /** Shortest frame body compressed for clients that negotiated compression, 0 to refuse compression */
+    private int compressThreshold = 256;
+
+    /** Milliseconds presence changes are collected before they are sent to subscribers */
+    private int presenceWindowMillis = 200;
+
+    /** Unacknowledged chat messages kept for retransmission per player that asked for sequencing, 0 to refuse sequencing */
+    private int retransmitWindow = 256;
+
+    /** Seconds the retransmit window of a disconnected player is kept for its reconnect */
+    private int retransmitRetentionSeconds = 300;
+
+    /** Megabytes of direct memory the I/O buffer pool may allocate, 0 to lend heap buffers only */
+    private int bufferPoolMegabytes = 64;
+
+    /** Whether the I/O buffer pool remembers where every buffer on loan was acquired */
+    private boolean bufferLeakDetection = false;
+
+    /** Chat messages and broadcasts each client may send */
+    private RateLimit messageLimit = new RateLimit(10, 20);
+
+    /** Broadcasts each member may send to a room without a limit of its own in {@link #roomLimits} */
+    private RateLimit roomLimit = RateLimit.UNLIMITED;
+
+    /** Broadcasts each member may send to a room, by room name */
+    private Map<String, RateLimit> roomLimits = Map.of();
+
+    /**
+     * Most verbose level logged. The log is shared by the whole process, so the level is
+     * applied by {@link App} rather than by each {@link Server}.
+     */
+    private LogLevel logLevel = LogLevel.INFO;
+
+    /** Messages stored for each player who is not connected, 0 to store none */
+    private int mailboxSize = 64;
+
+    /** Seconds a stored message is kept before it expires */
+    private int mailboxAgeSeconds = 300;
+
+    /** What a full mailbox gives up when another message arrives */
+    private MailboxPolicy mailboxPolicy = MailboxPolicy.DROP_OLDEST;
+
+    /** Directory of the message {@link Journal}, null to keep no journal */
+    private Path journalDirectory = null;
+
+    /** Size of every journal segment in megabytes */
+    private int journalSegmentMegabytes = 32;
+
+    /** Number of journal segments kept before the oldest is deleted */
+    private int journalSegments = 8;
+
+    /** Milliseconds between two group commits of the journal */
+    private int journalFlushMillis = 10;
+
+    /** Node ID of this server in a {@link Cluster}, null to run stand-alone */
+    private String nodeId = null;
+
+    /** Port peer links of the cluster are accepted on */
+    private int clusterPort = 12346;
+
+    /** Addresses of the cluster nodes this server dials */
+    private List<InetSocketAddress> peers = List.of();
+
+    /**
+     * Builds a configuration from command-line arguments.
+     *
+     * <p>Supported arguments: {@code --port=<port>}, {@code --mode=<blocking|virtual|selector|sharded>},
+     * {@code --loops=<n>},
+     * {@code --max-clients=<n>}, {@code --admission=<block|reject>},
+     * {@code --handshake-timeout=<seconds>}, {@code --idle-timeout=<seconds>},
+     * {@code --heartbeat=<seconds>}, {@code --compress-threshold=<bytes>},
+     * {@code --presence-window=<milliseconds>}, {@code --retransmit-window=<n>},
+     * {@code --retransmit-retention=<seconds>},
+     * {@code --buffer-pool-mb=<n>}, {@code --buffer-leak-detection=<true|false>}, {@code --rate=<rate>[/<burst>]}, {@code --room-rate=<rate>[/<burst>]},
+     * {@code --room-rates=<room>:<rate>[/<burst>],...},
+     * {@code --outbound-frames=<n>}, {@code --outbound-bytes=<n>},
+     * {@code --outbound-policy=<drop-oldest|drop-newest|reject-sender|disconnect>},
+     * {@code --log-level=<off|error|warn|info|debug>}, {@code --mailbox-size=<n>},
+     * {@code --mailbox-age=<seconds>}, {@code --mailbox-policy=<drop-oldest|drop-newest>},
+     * {@code --journal=<directory>},
+     * {@code --journal-segment-mb=<n>}, {@code --journal-segments=<n>},
+     * {@code --journal-flush-ms=<n>}, {@code --node=<id>}, {@code --cluster-port=<port>} and
+     * {@code --peers=<host:port,...>}.
+     *
+     * @param args Command-line arguments
+     * @return The parsed configuration
+     * @throws IllegalArgumentException if an argument is unknown or malformed
+     */
+    public static ServerConfig fromArgs(String[] args) {
+        ServerConfig config = new ServerConfig();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+
+            if (i == 0 && !arg.startsWith("--")) {
+                config.setMode(ServerMode.fromValue(arg));
+                continue;
+            }
+
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException(String.format("Invalid argument %s!", arg));
+            }
+
+            switch (keyValue[0]) {
+                case "--port" -> config.setPort(Integer.parseInt(keyValue[1]));
+                case "--mode" -> config.setMode(ServerMode.fromValue(keyValue[1]));
+                case "--loops" -> config.setEventLoops(Integer.parseInt(keyValue[1]));
+                case "--max-clients" -> config.setMaxClients(Integer.parseInt(keyValue[1]));
+                case "--admission" -> config.setAdmissionPolicy(AdmissionPolicy.fromValue(keyValue[1]));
+                case "--handshake-timeout" -> config.setHandshakeTimeoutSeconds(Integer.parseInt(keyValue[1]));
+                case "--idle-timeout" -> config.setIdleTimeoutSeconds(Integer.parseInt(keyValue[1]));
+                case "--heartbeat" -> config.setHeartbeatSeconds(Integer.parseInt(keyValue[1]));
+                case "--compress-threshold" -> config.setCompressThreshold(Integer.parseInt(keyValue[1]));
+                case "--presence-window" -> config.setPresenceWindowMillis(Integer.parseInt(keyValue[1]));
+                case "--retransmit-window" -> config.setRetransmitWindow(Integer.parseInt(keyValue[1]));
+                case "--retransmit-retention" -> config.setRetransmitRetentionSeconds(Integer.parseInt(keyValue[1]));
+                case "--buffer-pool-mb" -> config.setBufferPoolMegabytes(Integer.parseInt(keyValue[1]));
+                case "--buffer-leak-detection" -> config.setBufferLeakDetection(Boolean.parseBoolean(keyValue[1]));
+                case "--rate" -> config.setMessageLimit(RateLimit.parse(keyValue[1]));
+                case "--room-rate" -> config.setRoomLimit(RateLimit.parse(keyValue[1]));
+                case "--room-rates" -> config.setRoomLimits(parseRoomLimits(keyValue[1]));
+                case "--outbound-frames" -> config.setOutboundFrames(Integer.parseInt(keyValue[1]));
+                case "--outbound-bytes" -> config.setOutboundBytes(Long.parseLong(keyValue[1]));
+                case "--outbound-policy" -> config.setOutboundPolicy(OutboundPolicy.fromValue(keyValue[1]));
+                case "--log-level" -> config.setLogLevel(LogLevel.fromValue(keyValue[1]));
+                case "--mailbox-size" -> config.setMailboxSize(Integer.parseInt(keyValue[1]));
+                case "--mailbox-age" -> config.setMailboxAgeSeconds(Integer.parseInt(keyValue[1]));
+                case "--mailbox-policy" -> config.setMailboxPolicy(MailboxPolicy.fromValue(keyValue[1]));
+                case "--journal" -> config.setJournalDirectory(Path.of(keyValue[1]));
+                case "--journal-segment-mb" -> config.setJournalSegmentMegabytes(Integer.parseInt(keyValue[1]));
+                case "--journal-segments" -> config.setJournalSegments(Integer.parseInt(keyValue[1]));
+                case "--journal-flush-ms" -> config.setJournalFlushMillis(Integer.parseInt(keyValue[1]));
+                case "--node" -> config.setNodeId(keyValue[1]);
+                case "--cluster-port" -> config.setClusterPort(Integer.parseInt(keyValue[1]));
+                case "--peers" -> config.setPeers(parsePeers(keyValue[1]));
+                default -> throw new IllegalArgumentException(String.format("Unknown argument %s!", arg));
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Parses a comma-separated list of peer addresses.
+     *
+     * @param value The list, e.g. "10.0.0.2:12346,10.0.0.3:12346"
+     * @return The addresses
+     * @throws IllegalArgumentException if an address has no port
+     */
+    private static List<InetSocketAddress> parsePeers(String value) {
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (String peer : value.split(",")) {
+            int colon = peer.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException(String.format("Invalid peer address %s!", peer));
+            }
+            peers.add(new InetSocketAddress(peer.substring(0, colon), Integer.parseInt(peer.substring(colon + 1))));
+        }
+        return peers;
+    }
+
+    /**
+     * Parses a comma-separated list of per-room rate limits.
+     *
+     * @param value The list, e.g. "lobby:5/10,arena:1"
+     * @return The limits by room name
+     * @throws IllegalArgumentException if a limit has no room
+     */
+    private static Map<String, RateLimit> parseRoomLimits(String value) {
+        Map<String, RateLimit> limits = new HashMap<>();
+        for (String entry : value.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException(String.format("Invalid room rate %s!", entry));
+            }
+            limits.put(entry.substring(0, colon), RateLimit.parse(entry.substring(colon + 1)));
+        }
+        return limits;
+    }
+
+    public int getPort() {
+        return this.port;
+    }
+
+    public ServerConfig setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public ServerMode getMode() {
+        return this.mode;
+    }
+
+    public ServerConfig setMode(ServerMode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public int getEventLoops() {
+        return this.eventLoops;
+    }
+
+    public ServerConfig setEventLoops(int eventLoops) {
+        this.eventLoops = eventLoops;
+        return this;
+    }
+
+    public int getMaxClients() {
+        return this.maxClients;
+    }
+
+    public ServerConfig setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+        return this;
+    }
+
+    public AdmissionPolicy getAdmissionPolicy() {
+        return this.admissionPolicy;
+    }
+
+    public ServerConfig setAdmissionPolicy(AdmissionPolicy admissionPolicy) {
+        this.admissionPolicy = admissionPolicy;
+        return this;
+    }
+
+    public int getOutboundFrames() {
+        return this.outboundFrames;
+    }
+
+    public ServerConfig setOutboundFrames(int outboundFrames) {
+        this.outboundFrames = outboundFrames;
+        return this;
+    }
+
+    public long getOutboundBytes() {
+        return this.outboundBytes;
+    }
+
+    public ServerConfig setOutboundBytes(long outboundBytes) {
+        this.outboundBytes = outboundBytes;
+        return this;
+    }
+
+    public OutboundPolicy getOutboundPolicy() {
+        return this.outboundPolicy;
+    }
+
+    public ServerConfig setOutboundPolicy(OutboundPolicy outboundPolicy) {
+        this.outboundPolicy = outboundPolicy;
+        return this;
+    }
+
+    public int getHandshakeTimeoutSeconds() {
+        return this.handshakeTimeoutSeconds;
+    }
+
+    public ServerConfig setHandshakeTimeoutSeconds(int handshakeTimeoutSeconds) {
+        this.handshakeTimeoutSeconds = handshakeTimeoutSeconds;
+        return this;
+    }
+
+    public int getIdleTimeoutSeconds() {
+        return this.idleTimeoutSeconds;
+    }
+
+    public ServerConfig setIdleTimeoutSeconds(int idleTimeoutSeconds) {
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+        return this;
+    }
+
+    public int getHeartbeatSeconds() {
+        return this.heartbeatSeconds;
+    }
+
+    public ServerConfig setHeartbeatSeconds(int heartbeatSeconds) {
+        this.heartbeatSeconds = heartbeatSeconds;
+        return this;
+    }
+
+    public int getCompressThreshold() {
+        return this.compressThreshold;
+    }
+
+    public ServerConfig setCompressThreshold(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+        return this;
+    }
+
+    public int getPresenceWindowMillis() {
+        return this.presenceWindowMillis;
+    }
+
+    public ServerConfig setPresenceWindowMillis(int presenceWindowMillis) {
+        this.presenceWindowMillis = presenceWindowMillis;
+        return this;
+    }
+
+    public int getRetransmitWindow() {
+        return this.retransmitWindow;
+    }
+
+    public ServerConfig setRetransmitWindow(int retransmitWindow) {
+        this.retransmitWindow = retransmitWindow;
+        return this;
+    }
+
+    public int getRetransmitRetentionSeconds() {
+        return this.retransmitRetentionSeconds;
+    }
+
+    public ServerConfig setRetransmitRetentionSeconds(int retransmitRetentionSeconds) {
+        this.retransmitRetentionSeconds = retransmitRetentionSeconds;
+        return this;
+    }
+
+    public int getBufferPoolMegabytes() {
+        return this.bufferPoolMegabytes;
+    }
+
+    public ServerConfig setBufferPoolMegabytes(int bufferPoolMegabytes) {
+        this.bufferPoolMegabytes = bufferPoolMegabytes;
+        return this;
+    }
+
+    public boolean isBufferLeakDetection() {
+        return this.bufferLeakDetection;
+    }
+
+    public ServerConfig setBufferLeakDetection(boolean bufferLeakDetection) {
+        this.bufferLeakDetection = bufferLeakDetection;
+        return this;
+    }
+
+    public RateLimit getMessageLimit() {
+        return this.messageLimit;
+    }
+
+    public ServerConfig setMessageLimit(RateLimit messageLimit) {
+        this.messageLimit = messageLimit;
+        return this;
+    }
+
+    public RateLimit getRoomLimit() {
+        return this.roomLimit;
+    }
+
+    public ServerConfig setRoomLimit(RateLimit roomLimit) {
+        this.roomLimit = roomLimit;
+        return this;
+    }
+
+    public Map<String, RateLimit> getRoomLimits() {
+        return this.roomLimits;
+    }
+
+    public ServerConfig setRoomLimits(Map<String, RateLimit> roomLimits) {
+        this.roomLimits = roomLimits;
+        return this;
+    }
+
+    public LogLevel getLogLevel() {
+        return this.logLevel;
+    }
+
+    public ServerConfig setLogLevel(LogLevel logLevel) {
+        this.logLevel = logLevel;
+        return this;
+    }
+
+    public int getMailboxSize() {
+        return this.mailboxSize;
+    }
+
+    public ServerConfig setMailboxSize(int mailboxSize) {
+        this.mailboxSize = mailboxSize;
+        return this;
+    }
+
+    public int getMailboxAgeSeconds() {
+        return this.mailboxAgeSeconds;
+    }
+
+    public ServerConfig setMailboxAgeSeconds(int mailboxAgeSeconds) {
+        this.mailboxAgeSeconds = mailboxAgeSeconds;
+        return this;
+    }
+
+    public MailboxPolicy getMailboxPolicy() {
+        return this.mailboxPolicy;
+    }
+
+    public ServerConfig setMailboxPolicy(MailboxPolicy mailboxPolicy) {
+        this.mailboxPolicy = mailboxPolicy;
+        return this;
+    }
+
+    public Path getJournalDirectory() {
+        return this.journalDirectory;
+    }
+
+    public ServerConfig setJournalDirectory(Path journalDirectory) {
+        this.journalDirectory = journalDirectory;
+        return this;
+    }
+
+    public int getJournalSegmentMegabytes() {
+        return this.journalSegmentMegabytes;
+    }
+
+    public ServerConfig setJournalSegmentMegabytes(int journalSegmentMegabytes) {
+        this.journalSegmentMegabytes = journalSegmentMegabytes;
+        return this;
+    }
+
+    public int getJournalSegments() {
+        return this.journalSegments;
+    }
+
+    public ServerConfig setJournalSegments(int journalSegments) {
+        this.journalSegments = journalSegments;
+        return this;
+    }
+
+    public int getJournalFlushMillis() {
+        return this.journalFlushMillis;
+    }
+
+    public ServerConfig setJournalFlushMillis(int journalFlushMillis) {
+        this.journalFlushMillis = journalFlushMillis;
+        return this;
+    }
+
+    public String getNodeId() {
+        return this.nodeId;
+    }
+
+    public ServerConfig setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+        return this;
+    }
+
+    public int getClusterPort() {
+        return this.clusterPort;
+    }
+
+    public ServerConfig setClusterPort(int clusterPort) {
+        this.clusterPort = clusterPort;
+        return this;
+    }
+
+    public List<InetSocketAddress> getPeers() {
+        return this.peers;
+    }
+
+    public ServerConfig setPeers(List<InetSocketAddress> peers) {
+        this.peers = peers;
+        return this;
+    }
+}
@@ -0,0 +1,667 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ServerMetrics collects the counters and latency histograms of one {@link Server}.
+ *
+ * <p>It is updated on the hot path by every connection thread and event loop, so every
+ * counter is a striped {@link LongAdder} and every latency a lock-free {@link LatencyHistogram}:
+ * recording never takes a lock and threads on different cores rarely touch the same cache
+ * line. Reads sum the stripes and are not an atomic snapshot across counters.
+ *
+ * <p>The metrics are exposed in two ways: as the {@link ServerMetricsMXBean} registered by
+ * the server, and as the text of {@link #snapshot()}, which a client receives in answer to
+ * a {@code req:stats} frame.
+ *
+ * <p>Frames are counted per type, where the type is the opcode of
+ * {@link BinaryCodec#opcodeOf(Frame)}: 0 for chat messages, otherwise 1 + the ordinal of the
+ * {@link PayloadValue} of the frame's request.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+
+    /** All payload values, indexed by frame type - 1 */
+    private static final PayloadValue[] TYPES = PayloadValue.values();
+
+    /** Connections admitted */
+    private final LongAdder connectionsAccepted = new LongAdder();
+
+    /** Connections refused by the admission limit */
+    private final LongAdder connectionsRejected = new LongAdder();
+
+    /** Connections admitted and not yet closed */
+    private final LongAdder connectionsActive = new LongAdder();
+
+    /** Handshakes confirmed */
+    private final LongAdder handshakeSuccesses = new LongAdder();
+
+    /** Handshakes rejected */
+    private final LongAdder handshakeFailures = new LongAdder();
+
+    /** Time from admitting a connection to confirming its handshake, in nanoseconds */
+    private final LatencyHistogram handshakeLatency = new LatencyHistogram();
+
+    /** Frames received, indexed by frame type */
+    private final LongAdder[] framesIn = newCounters();
+
+    /** Frames sent, indexed by frame type */
+    private final LongAdder[] framesOut = newCounters();
+
+    /** Bytes received */
+    private final LongAdder bytesIn = new LongAdder();
+
+    /** Encoded bytes queued for sending */
+    private final LongAdder bytesOut = new LongAdder();
+
+    /** Frames addressed to a player that is not connected */
+    private final LongAdder routeMisses = new LongAdder();
+
+    /** Connections closed because they did not complete their handshake in time */
+    private final LongAdder handshakeTimeouts = new LongAdder();
+
+    /** Clients disconnected because they sent nothing for too long */
+    private final LongAdder idleTimeouts = new LongAdder();
+
+    /** Heartbeats sent to silent clients */
+    private final LongAdder heartbeats = new LongAdder();
+
+    /** Chat messages and broadcasts refused because their sender was sending too fast */
+    private final LongAdder throttled = new LongAdder();
+
+    /** Time from reading a frame to queueing it for its receiver, in nanoseconds */
+    private final LatencyHistogram relayLatency = new LatencyHistogram();
+
+    /** Chat messages stored for players who were not connected */
+    private final LongAdder mailboxStored = new LongAdder();
+
+    /** Stored messages delivered after the receiver's handshake */
+    private final LongAdder mailboxDelivered = new LongAdder();
+
+    /** Stored messages evicted by a full mailbox or by age, or discarded on arrival */
+    private final LongAdder mailboxEvicted = new LongAdder();
+
+    /** Queued frames evicted from the outbound queue of a slow client */
+    private final LongAdder outboundDroppedOldest = new LongAdder();
+
+    /** Frames discarded because the outbound queue of a slow client was full */
+    private final LongAdder outboundDroppedNewest = new LongAdder();
+
+    /** Frames refused because their receiver was slow, answered with stat:busy */
+    private final LongAdder outboundRejected = new LongAdder();
+
+    /** Slow clients disconnected because their outbound queue was full */
+    private final LongAdder outboundDisconnects = new LongAdder();
+
+    /** Frames queued for other cluster nodes */
+    private final LongAdder peerFramesOut = new LongAdder();
+
+    /** Frames received from other cluster nodes */
+    private final LongAdder peerFramesIn = new LongAdder();
+
+    /** Socket writes to other cluster nodes, each carrying a batch of frames */
+    private final LongAdder peerWrites = new LongAdder();
+
+    /** Frames queued for the player of another shard */
+    private final LongAdder shardFramesOut = new LongAdder();
+
+    /** Wakeups of shards, each for a batch of queued frames */
+    private final LongAdder shardWakeups = new LongAdder();
+
+    /** Unacknowledged chat messages written again after their receiver reconnected */
+    private final LongAdder retransmitted = new LongAdder();
+
+    /** Chat messages lost because their receiver's retransmit window and mailbox were both full */
+    private final LongAdder retransmitDropped = new LongAdder();
+
+    /** Bytes of pooled buffers on loan. A gauge read with its high-water mark, so not striped */
+    private final AtomicLong bufferBytes = new AtomicLong();
+
+    /** Most bytes of pooled buffers ever on loan at once */
+    private final AtomicLong bufferBytesMax = new AtomicLong();
+
+    /** Buffers lent from the heap because the pool was exhausted or the request too large */
+    private final LongAdder bufferMisses = new LongAdder();
+
+    /**
+     * Creates one counter per frame type.
+     */
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[TYPES.length + 1];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * Returns the name of a frame type.
+     */
+    private static String typeName(int type) {
+        return type == 0 ? "chat" : TYPES[type - 1].getValue();
+    }
+
+    /**
+     * Records a connection admitted by the server.
+     */
+    public void connectionAccepted() {
+        this.connectionsAccepted.increment();
+        this.connectionsActive.increment();
+    }
+
+    /**
+     * Records a connection refused by the admission limit.
+     */
+    public void connectionRejected() {
+        this.connectionsRejected.increment();
+    }
+
+    /**
+     * Records an admitted connection that was closed.
+     */
+    public void connectionClosed() {
+        this.connectionsActive.decrement();
+    }
+
+    /**
+     * Records a confirmed handshake.
+     *
+     * @param nanos Time since the connection was admitted
+     */
+    public void handshakeSucceeded(long nanos) {
+        this.handshakeSuccesses.increment();
+        this.handshakeLatency.record(nanos);
+    }
+
+    /**
+     * Records a rejected handshake.
+     */
+    public void handshakeFailed() {
+        this.handshakeFailures.increment();
+    }
+
+    /**
+     * Records a frame received from a client.
+     *
+     * @param frame The decoded frame
+     */
+    public void frameIn(Frame frame) {
+        this.framesIn[BinaryCodec.opcodeOf(frame)].increment();
+    }
+
+    /**
+     * Records a frame sent to a client.
+     *
+     * @param frame The frame being sent
+     */
+    public void frameOut(Frame frame) {
+        this.framesOut[BinaryCodec.opcodeOf(frame)].increment();
+    }
+
+    /**
+     * Records bytes read from a client.
+     *
+     * @param bytes Number of bytes
+     */
+    public void bytesIn(int bytes) {
+        this.bytesIn.add(bytes);
+    }
+
+    /**
+     * Records encoded bytes queued for a client.
+     *
+     * @param bytes Number of bytes
+     */
+    public void bytesOut(int bytes) {
+        this.bytesOut.add(bytes);
+    }
+
+    /**
+     * Records a frame addressed to a player that is not connected.
+     */
+    public void routeMiss() {
+        this.routeMisses.increment();
+    }
+
+    /**
+     * Records a connection closed because it did not complete its handshake in time.
+     */
+    public void handshakeTimeout() {
+        this.handshakeTimeouts.increment();
+    }
+
+    /**
+     * Records a client disconnected because it sent nothing for too long.
+     */
+    public void idleTimeout() {
+        this.idleTimeouts.increment();
+    }
+
+    /**
+     * Records a heartbeat sent to a silent client.
+     */
+    public void heartbeat() {
+        this.heartbeats.increment();
+    }
+
+    /**
+     * Records a chat message or broadcast refused because its sender was sending too fast.
+     */
+    public void throttled() {
+        this.throttled.increment();
+    }
+
+    /**
+     * Records the time a frame took from being read to being queued for its receiver.
+     *
+     * @param nanos The relay latency
+     */
+    public void relayed(long nanos) {
+        this.relayLatency.record(nanos);
+    }
+
+    /**
+     * Records a chat message stored for a player who is not connected.
+     */
+    public void mailboxStored() {
+        this.mailboxStored.increment();
+    }
+
+    /**
+     * Records stored messages delivered to their receiver.
+     *
+     * @param messages Number of messages
+     */
+    public void mailboxDelivered(int messages) {
+        this.mailboxDelivered.add(messages);
+    }
+
+    /**
+     * Records stored messages that were evicted or discarded.
+     *
+     * @param messages Number of messages, may be 0
+     */
+    public void mailboxEvicted(int messages) {
+        if (messages > 0) {
+            this.mailboxEvicted.add(messages);
+        }
+    }
+
+    /**
+     * Records a queued frame evicted to make room in the outbound queue of a slow client.
+     */
+    public void outboundDroppedOldest() {
+        this.outboundDroppedOldest.increment();
+    }
+
+    /**
+     * Records a frame discarded because the outbound queue of a slow client was full.
+     */
+    public void outboundDroppedNewest() {
+        this.outboundDroppedNewest.increment();
+    }
+
+    /**
+     * Records a frame refused because its receiver was slow, with its sender told so.
+     */
+    public void outboundRejected() {
+        this.outboundRejected.increment();
+    }
+
+    /**
+     * Records a slow client disconnected because its outbound queue was full.
+     */
+    public void outboundDisconnect() {
+        this.outboundDisconnects.increment();
+    }
+
+    /**
+     * Records a frame queued for another cluster node.
+     */
+    public void peerFrameOut() {
+        this.peerFramesOut.increment();
+    }
+
+    /**
+     * Records a frame received from another cluster node.
+     */
+    public void peerFrameIn() {
+        this.peerFramesIn.increment();
+    }
+
+    /**
+     * Records a batch of frames written to another cluster node.
+     */
+    public void peerWrite() {
+        this.peerWrites.increment();
+    }
+
+    /**
+     * Records a frame queued for the player of another shard.
+     */
+    public void shardFrameOut() {
+        this.shardFramesOut.increment();
+    }
+
+    /**
+     * Records a shard woken up to deliver the frames queued for it.
+     */
+    public void shardWakeup() {
+        this.shardWakeups.increment();
+    }
+
+    /**
+     * Records unacknowledged chat messages written again to their reconnected receiver.
+     *
+     * @param messages Number of messages, may be 0
+     */
+    public void retransmitted(int messages) {
+        if (messages > 0) {
+            this.retransmitted.add(messages);
+        }
+    }
+
+    /**
+     * Records a chat message lost because its receiver's retransmit window and mailbox were full.
+     */
+    public void retransmitDropped() {
+        this.retransmitDropped.increment();
+    }
+
+    /**
+     * Records a pooled buffer lent to a connection.
+     *
+     * @param bytes Capacity of the buffer
+     */
+    public void bufferAcquired(int bytes) {
+        long inUse = this.bufferBytes.addAndGet(bytes);
+        if (inUse > this.bufferBytesMax.get()) {
+            this.bufferBytesMax.accumulateAndGet(inUse, Math::max);
+        }
+    }
+
+    /**
+     * Records a pooled buffer returned by a connection.
+     *
+     * @param bytes Capacity of the buffer
+     */
+    public void bufferReleased(int bytes) {
+        this.bufferBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Records a buffer lent from the heap because the pool had none to lend.
+     */
+    public void bufferMiss() {
+        this.bufferMisses.increment();
+    }
+
+    @Override
+    public long getConnectionsAccepted() {
+        return this.connectionsAccepted.sum();
+    }
+
+    @Override
+    public long getConnectionsRejected() {
+        return this.connectionsRejected.sum();
+    }
+
+    @Override
+    public long getConnectionsActive() {
+        return this.connectionsActive.sum();
+    }
+
+    @Override
+    public long getHandshakeSuccesses() {
+        return this.handshakeSuccesses.sum();
+    }
+
+    @Override
+    public long getHandshakeFailures() {
+        return this.handshakeFailures.sum();
+    }
+
+    @Override
+    public String getHandshakeLatency() {
+        return this.handshakeLatency.summary(TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public Map<String, Long> getFramesIn() {
+        return toMap(this.framesIn);
+    }
+
+    @Override
+    public Map<String, Long> getFramesOut() {
+        return toMap(this.framesOut);
+    }
+
+    @Override
+    public long getBytesIn() {
+        return this.bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return this.bytesOut.sum();
+    }
+
+    @Override
+    public long getRouteMisses() {
+        return this.routeMisses.sum();
+    }
+
+    @Override
+    public long getHandshakeTimeouts() {
+        return this.handshakeTimeouts.sum();
+    }
+
+    @Override
+    public long getIdleTimeouts() {
+        return this.idleTimeouts.sum();
+    }
+
+    @Override
+    public long getHeartbeats() {
+        return this.heartbeats.sum();
+    }
+
+    @Override
+    public long getThrottled() {
+        return this.throttled.sum();
+    }
+
+    @Override
+    public String getRelayLatency() {
+        return this.relayLatency.summary(TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public double getRelayLatencyP50() {
+        return this.relayLatency.getValueAtPercentile(50.0) / 1e3;
+    }
+
+    @Override
+    public double getRelayLatencyP99() {
+        return this.relayLatency.getValueAtPercentile(99.0) / 1e3;
+    }
+
+    @Override
+    public long getMailboxStored() {
+        return this.mailboxStored.sum();
+    }
+
+    @Override
+    public long getMailboxDelivered() {
+        return this.mailboxDelivered.sum();
+    }
+
+    @Override
+    public long getMailboxEvicted() {
+        return this.mailboxEvicted.sum();
+    }
+
+    @Override
+    public long getOutboundDroppedOldest() {
+        return this.outboundDroppedOldest.sum();
+    }
+
+    @Override
+    public long getOutboundDroppedNewest() {
+        return this.outboundDroppedNewest.sum();
+    }
+
+    @Override
+    public long getOutboundRejected() {
+        return this.outboundRejected.sum();
+    }
+
+    @Override
+    public long getOutboundDisconnects() {
+        return this.outboundDisconnects.sum();
+    }
+
+    @Override
+    public long getPeerFramesOut() {
+        return this.peerFramesOut.sum();
+    }
+
+    @Override
+    public long getPeerFramesIn() {
+        return this.peerFramesIn.sum();
+    }
+
+    @Override
+    public long getPeerWrites() {
+        return this.peerWrites.sum();
+    }
+
+    @Override
+    public long getShardFramesOut() {
+        return this.shardFramesOut.sum();
+    }
+
+    @Override
+    public long getShardWakeups() {
+        return this.shardWakeups.sum();
+    }
+
+    @Override
+    public long getRetransmitted() {
+        return this.retransmitted.sum();
+    }
+
+    @Override
+    public long getRetransmitDropped() {
+        return this.retransmitDropped.sum();
+    }
+
+    @Override
+    public long getBufferBytes() {
+        return this.bufferBytes.get();
+    }
+
+    @Override
+    public long getBufferBytesMax() {
+        return this.bufferBytesMax.get();
+    }
+
+    @Override
+    public long getBufferMisses() {
+        return this.bufferMisses.sum();
+    }
+
+    /**
+     * Formats all metrics as one line of space-separated {@code name=value} pairs. The line
+     * contains no field separators, so it can be sent as the message of a text frame.
+     *
+     * <p>Example output:
+     * <pre>
+     *     connections.accepted=2 connections.rejected=0 connections.active=2 ... relay.p99.us=41.0 mailbox.stored=0 ...
+     * </pre>
+     *
+     * @return The current metrics
+     */
+    public String snapshot() {
+        StringBuilder line = new StringBuilder(512);
+        line.append("connections.accepted=").append(this.getConnectionsAccepted())
+                .append(" connections.rejected=").append(this.getConnectionsRejected())
+                .append(" connections.active=").append(this.getConnectionsActive())
+                .append(" handshakes.succeeded=").append(this.getHandshakeSuccesses())
+                .append(" handshakes.failed=").append(this.getHandshakeFailures());
+        appendLatency(line, "handshake", this.handshakeLatency);
+        appendCounters(line, "frames.in.", this.framesIn);
+        appendCounters(line, "frames.out.", this.framesOut);
+        line.append(" bytes.in=").append(this.getBytesIn())
+                .append(" bytes.out=").append(this.getBytesOut())
+                .append(" route.misses=").append(this.getRouteMisses())
+                .append(" throttled=").append(this.getThrottled())
+                .append(" timeouts.handshake=").append(this.getHandshakeTimeouts())
+                .append(" timeouts.idle=").append(this.getIdleTimeouts())
+                .append(" heartbeats=").append(this.getHeartbeats());
+        appendLatency(line, "relay", this.relayLatency);
+        line.append(" mailbox.stored=").append(this.getMailboxStored())
+                .append(" mailbox.delivered=").append(this.getMailboxDelivered())
+                .append(" mailbox.evicted=").append(this.getMailboxEvicted())
+                .append(" outbound.dropped.oldest=").append(this.getOutboundDroppedOldest())
+                .append(" outbound.dropped.newest=").append(this.getOutboundDroppedNewest())
+                .append(" outbound.rejected=").append(this.getOutboundRejected())
+                .append(" outbound.disconnects=").append(this.getOutboundDisconnects())
+                .append(" peer.frames.out=").append(this.getPeerFramesOut())
+                .append(" peer.frames.in=").append(this.getPeerFramesIn())
+                .append(" peer.writes=").append(this.getPeerWrites())
+                .append(" shard.frames.out=").append(this.getShardFramesOut())
+                .append(" shard.wakeups=").append(this.getShardWakeups())
+                .append(" retransmit.sent=").append(this.getRetransmitted())
+                .append(" retransmit.dropped=").append(this.getRetransmitDropped())
+                .append(" pool.bytes=").append(this.getBufferBytes())
+                .append(" pool.bytes.max=").append(this.getBufferBytesMax())
+                .append(" pool.misses=").append(this.getBufferMisses());
+        return line.toString();
+    }
+
+    /**
+     * Converts per-type counters into a map keyed by type name, in type order.
+     */
+    private static Map<String, Long> toMap(LongAdder[] counters) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < counters.length; i++) {
+            result.put(typeName(i), counters[i].sum());
+        }
+        return result;
+    }
+
+    /**
+     * Appends the non-zero per-type counters to a snapshot line.
+     */
+    private static void appendCounters(StringBuilder line, String prefix, LongAdder[] counters) {
+        for (int i = 0; i < counters.length; i++) {
+            long count = counters[i].sum();
+            if (count != 0) {
+                line.append(' ').append(prefix).append(typeName(i)).append('=').append(count);
+            }
+        }
+    }
+
+    /**
+     * Appends the percentiles of a nanosecond histogram to a snapshot line, in microseconds.
+     */
+    private static void appendLatency(StringBuilder line, String name, LatencyHistogram histogram) {
+        line.append(String.format(" %s.p50.us=%.1f %s.p99.us=%.1f %s.max.us=%.1f",
+                name, histogram.getValueAtPercentile(50.0) / 1e3,
+                name, histogram.getValueAtPercentile(99.0) / 1e3,
+                name, histogram.getMax() / 1e3));
+    }
+}
@@ -0,0 +1,280 @@
+package com.hashedalgorithm.playerchat.server;
+
+import java.util.Map;
+
+/**
+ * ServerMetricsMXBean is the management interface of {@link ServerMetrics}. Every server
+ * registers its metrics with the platform MBean server under
+ * {@code com.hashedalgorithm.playerchat:type=Server,port=<port>}, so a running server can be
+ * watched with JConsole, VisualVM or any other JMX client.
+ *
+ * <p>Latencies are reported in microseconds. Frames are counted by type: {@code chat} for
+ * chat messages, otherwise the {@link com.hashedalgorithm.playerchat.enums.PayloadValue} of
+ * the frame's request.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public interface ServerMetricsMXBean {
+
+    /**
+     * Returns the number of connections admitted since the server started.
+     *
+     * @return Accepted connections
+     */
+    long getConnectionsAccepted();
+
+    /**
+     * Returns the number of connections refused by the admission limit.
+     *
+     * @return Rejected connections
+     */
+    long getConnectionsRejected();
+
+    /**
+     * Returns the number of connections currently open.
+     *
+     * @return Active connections
+     */
+    long getConnectionsActive();
+
+    /**
+     * Returns the number of confirmed handshakes.
+     *
+     * @return Successful handshakes
+     */
+    long getHandshakeSuccesses();
+
+    /**
+     * Returns the number of rejected handshakes.
+     *
+     * @return Failed handshakes
+     */
+    long getHandshakeFailures();
+
+    /**
+     * Summarizes the time from admitting a connection to confirming its handshake.
+     *
+     * @return Count, mean, percentiles and maximum
+     */
+    String getHandshakeLatency();
+
+    /**
+     * Returns the number of frames received from clients, by frame type.
+     *
+     * @return Frame counts keyed by type
+     */
+    Map<String, Long> getFramesIn();
+
+    /**
+     * Returns the number of frames sent to clients, by frame type.
+     *
+     * @return Frame counts keyed by type
+     */
+    Map<String, Long> getFramesOut();
+
+    /**
+     * Returns the number of bytes received from clients.
+     *
+     * @return Bytes read
+     */
+    long getBytesIn();
+
+    /**
+     * Returns the number of encoded bytes queued for clients.
+     *
+     * @return Bytes written
+     */
+    long getBytesOut();
+
+    /**
+     * Returns the number of frames addressed to a player that is not connected.
+     *
+     * @return Route misses
+     */
+    long getRouteMisses();
+
+    /**
+     * Returns the number of connections closed because they did not complete their handshake
+     * before the handshake timeout.
+     *
+     * @return Handshake timeouts
+     */
+    long getHandshakeTimeouts();
+
+    /**
+     * Returns the number of clients disconnected because they sent nothing for longer than the
+     * idle timeout.
+     *
+     * @return Idle timeouts
+     */
+    long getIdleTimeouts();
+
+    /**
+     * Returns the number of heartbeats sent to clients that were silent.
+     *
+     * @return Heartbeats sent
+     */
+    long getHeartbeats();
+
+    /**
+     * Returns the number of chat messages and broadcasts refused because their sender was
+     * sending faster than its rate limit. Each sender was answered with {@code stat:throttled}.
+     *
+     * @return Throttled messages
+     */
+    long getThrottled();
+
+    /**
+     * Summarizes the time from reading a frame to queueing it for its receiver.
+     *
+     * @return Count, mean, percentiles and maximum
+     */
+    String getRelayLatency();
+
+    /**
+     * Returns the median relay latency.
+     *
+     * @return p50 in microseconds
+     */
+    double getRelayLatencyP50();
+
+    /**
+     * Returns the 99th percentile relay latency.
+     *
+     * @return p99 in microseconds
+     */
+    double getRelayLatencyP99();
+
+    /**
+     * Returns the number of chat messages stored for players who were not connected.
+     *
+     * @return Stored messages
+     */
+    long getMailboxStored();
+
+    /**
+     * Returns the number of stored messages delivered after their receiver's handshake.
+     *
+     * @return Delivered messages
+     */
+    long getMailboxDelivered();
+
+    /**
+     * Returns the number of stored messages evicted by a full mailbox or by age, or discarded
+     * because their mailbox was full.
+     *
+     * @return Evicted messages
+     */
+    long getMailboxEvicted();
+
+    /**
+     * Returns the number of queued frames evicted from the outbound queue of a slow client under
+     * the drop-oldest policy.
+     *
+     * @return Evicted frames
+     */
+    long getOutboundDroppedOldest();
+
+    /**
+     * Returns the number of frames discarded because the outbound queue of a slow client was
+     * full, under the drop-newest policy.
+     *
+     * @return Discarded frames
+     */
+    long getOutboundDroppedNewest();
+
+    /**
+     * Returns the number of frames refused because their receiver was slow, under the
+     * reject-sender policy. Each sender was answered with {@code stat:busy}.
+     *
+     * @return Refused frames
+     */
+    long getOutboundRejected();
+
+    /**
+     * Returns the number of slow clients disconnected because their outbound queue was full,
+     * under the disconnect policy.
+     *
+     * @return Disconnected clients
+     */
+    long getOutboundDisconnects();
+
+    /**
+     * Returns the number of frames queued for other cluster nodes.
+     *
+     * @return Frames sent to peers
+     */
+    long getPeerFramesOut();
+
+    /**
+     * Returns the number of frames received from other cluster nodes.
+     *
+     * @return Frames received from peers
+     */
+    long getPeerFramesIn();
+
+    /**
+     * Returns the number of socket writes to other cluster nodes. Frames sent to a peer while
+     * its link is busy are batched into one write, so this grows slower than
+     * {@link #getPeerFramesOut()} under load.
+     *
+     * @return Writes to peers
+     */
+    long getPeerWrites();
+
+    /**
+     * Returns the number of frames handed from one shard to another in the sharded mode.
+     *
+     * @return Frames sent to other shards
+     */
+    long getShardFramesOut();
+
+    /**
+     * Returns the number of times a shard was woken up to deliver frames from other shards.
+     * A shard wakes every shard it sent frames to once per iteration of its loop, so this grows
+     * slower than {@link #getShardFramesOut()} under load.
+     *
+     * @return Shard wakeups
+     */
+    long getShardWakeups();
+
+    /**
+     * Returns the number of unacknowledged chat messages written again to their receiver after
+     * it reconnected and told the server the last one it received.
+     *
+     * @return Chat messages retransmitted
+     */
+    long getRetransmitted();
+
+    /**
+     * Returns the number of chat messages lost because their receiver's retransmit window was
+     * full and its mailbox refused them as well.
+     *
+     * @return Chat messages dropped by retransmit windows
+     */
+    long getRetransmitDropped();
+
+    /**
+     * Returns the bytes of pooled I/O buffers currently lent to connections.
+     *
+     * @return Bytes of buffers on loan
+     */
+    long getBufferBytes();
+
+    /**
+     * Returns the most bytes of pooled I/O buffers ever lent to connections at once.
+     *
+     * @return High-water mark of the bytes on loan
+     */
+    long getBufferBytesMax();
+
+    /**
+     * Returns the number of I/O buffers allocated on the heap because the pool had reached its
+     * limit or the request was larger than its largest buffers.
+     *
+     * @return Buffer pool misses
+     */
+    long getBufferMisses();
+}
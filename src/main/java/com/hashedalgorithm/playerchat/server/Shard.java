@@ -0,0 +1,332 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.ClientStatus;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.Log;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shard is the event loop of the sharded server mode. It owns every player whose instance ID
+ * hashes to it, see {@link Server#shardOf(String)}.
+ *
+ * <p>A channel is accepted by any shard. Once its handshake is confirmed, the connection moves
+ * to the shard owning its instance ID, which keeps it in a plain {@link HashMap} only that shard
+ * reads and writes. A frame a client sends to a player of its own shard is therefore looked up
+ * and written without touching memory shared with other cores. A frame for a player of another
+ * shard is encoded with the {@link BinaryCodec} and put in the single-producer single-consumer
+ * {@link SpscQueue} from this shard to the owner. Every shard has one such queue per other shard,
+ * drains its queues at the end of every iteration of its loop and wakes each shard it sent frames
+ * to once per iteration, rather than once per frame.
+ *
+ * <p>A relayed frame whose player is no longer connected gets the same answer it would have got
+ * from the sender's shard: chat messages are stored in the player's mailbox and message requests
+ * are confirmed or refused, with the answer sent back to the sender's shard. Since only the
+ * owning shard knows whether a chat message was delivered, stored or lost, it also journals the
+ * message and answers a sender waiting on its correlation ID.
+ *
+ * <p>Thread safety: {@link #getClient(String)}, {@link #adopt(ClientInstance)} and
+ * {@link #send(Shard, String, String, Frame, long, CharSequence, String)} must only be called on this shard's thread.
+ * Frames handled by any other thread, such as a cluster link, are routed through the concurrent
+ * {@link ClientRegistry} as in the other modes.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+class Shard extends EventLoop {
+
+    /**
+     * A frame on its way to the shard of its player.
+     *
+     * @param to          Instance ID of the player
+     * @param origin      Instance ID of the sender, or null if the frame is itself an answer
+     * @param frame       The frame, encoded with the {@link BinaryCodec}
+     * @param readAt      {@link System#nanoTime()} at which the sender's frame was read
+     * @param correlation Correlation ID of the sender's frame, echoed in the answer, or null
+     * @param text        Text of a chat message to journal, or null if it is not journaled
+     */
+    private record Envelope(String to, String origin, byte[] frame, long readAt, String correlation, String text) {
+    }
+
+    /** Reference to the main Server instance */
+    private final Server server;
+
+    /** Metrics of the server */
+    private final ServerMetrics metrics;
+
+    /** Index of this shard in {@link #shards} */
+    private final int index;
+
+    /** Connected players owned by this shard. Only used by this shard */
+    private final Map<String, ClientInstance> clients = new HashMap<>();
+
+    /** All shards of the server, including this one */
+    private Shard[] shards;
+
+    /** Frames sent to this shard, indexed by the sending shard */
+    private SpscQueue<Envelope>[] inboxes;
+
+    /** Shards sent frames to since the end of the last iteration */
+    private boolean[] wake;
+
+    /** Reusable flyweight every received frame is decoded into */
+    private final Frame frame = new Frame();
+
+    /** Reusable frame of the answers to frames whose player has left */
+    private final Frame answer = new Frame();
+
+    /** Reusable buffer received field values are decoded into */
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    /**
+     * Creates a new shard.
+     *
+     * @param server Reference to the server instance
+     * @param index  Index of the shard
+     * @throws IOException if the selector cannot be opened
+     */
+    Shard(Server server, int index) throws IOException {
+        super(server, String.format("shard-%d", index));
+        this.server = server;
+        this.metrics = server.getMetrics();
+        this.index = index;
+    }
+
+    /**
+     * Links the shards of a server to each other. Must be called once, before any shard is started.
+     *
+     * @param shards All shards of the server, each at its index
+     */
+    @SuppressWarnings("unchecked")
+    static void link(Shard[] shards) {
+        for (Shard shard : shards) {
+            shard.shards = shards;
+            shard.inboxes = (SpscQueue<Envelope>[]) new SpscQueue<?>[shards.length];
+            shard.wake = new boolean[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                shard.inboxes[i] = new SpscQueue<>();
+            }
+        }
+    }
+
+    /**
+     * Returns a connected player owned by this shard.
+     *
+     * @param instanceId The instance ID of the player
+     * @return The client, or null if it is not connected or not yet moved to this shard
+     */
+    ClientInstance getClient(String instanceId) {
+        return this.clients.get(instanceId);
+    }
+
+    /**
+     * Makes a client whose connection was moved to this shard reachable through
+     * {@link #getClient(String)}. Clients closed while they were moving are left out.
+     *
+     * @param client The client, with a confirmed handshake
+     */
+    void adopt(ClientInstance client) {
+        if (!client.isClosed()) {
+            this.clients.put(client.instanceId, client);
+        }
+    }
+
+    /**
+     * Removes a closed client. May be called from any thread; the client is removed on this
+     * shard's thread.
+     *
+     * @param client The closed client
+     */
+    void forget(ClientInstance client) {
+        this.execute(() -> this.clients.remove(client.instanceId, client));
+    }
+
+    /**
+     * Queues a frame for a player owned by another shard. The frame is encoded before this
+     * method returns, so the caller may reuse it. The owner is woken at the end of the current
+     * iteration of this shard.
+     *
+     * @param owner       The shard owning the player
+     * @param origin      Instance ID of the sender, or null if the frame is an answer
+     * @param to          Instance ID of the player
+     * @param frame       The frame to deliver
+     * @param readAt      {@link System#nanoTime()} at which the sender's frame was read
+     * @param correlation Correlation ID of the sender's frame, or null
+     * @param text        Text of a chat message the owner journals once it is delivered or
+     *                    stored, or null if it is not journaled
+     */
+    void send(Shard owner, String origin, String to, Frame frame, long readAt, CharSequence correlation, String text) {
+        byte[] encoded = BinaryCodec.INSTANCE.encode(frame).array();
+        String cid = correlation == null ? null : correlation.toString();
+        owner.inboxes[this.index].offer(new Envelope(to, origin, encoded, readAt, cid, text));
+        this.wake[owner.index] = true;
+        this.metrics.shardFrameOut();
+    }
+
+    /**
+     * Delivers the frames sent by the other shards, then wakes the shards this one sent frames to.
+     */
+    @Override
+    protected void afterSelect() {
+        for (SpscQueue<Envelope> inbox : this.inboxes) {
+            Envelope envelope;
+            while ((envelope = inbox.poll()) != null) {
+                try {
+                    this.receive(envelope);
+                } catch (IOException e) {
+                    Log.error("Dropping frame for %s: %s", envelope.to(), e.getMessage());
+                }
+            }
+        }
+
+        for (int i = 0; i < this.wake.length; i++) {
+            if (this.wake[i]) {
+                this.wake[i] = false;
+                this.shards[i].wakeup();
+                this.metrics.shardWakeup();
+            }
+        }
+    }
+
+    /**
+     * Writes a frame from another shard to its player, or answers for the player if it is gone.
+     *
+     * @param envelope The received frame
+     * @throws IOException if the frame cannot be decoded
+     */
+    private void receive(Envelope envelope) throws IOException {
+        byte[] bytes = envelope.frame();
+        int header = BinaryCodec.headerLength(bytes, 0, bytes.length);
+        int length = BinaryCodec.bodyLength(bytes, 0);
+        if (this.chars.capacity() < length) {
+            this.chars = CharBuffer.allocate(Math.max(length, this.chars.capacity() * 2));
+        }
+        this.chars.clear();
+        Frame frame = BinaryCodec.decode(bytes, header, length, this.frame, this.chars);
+
+        String to = envelope.to();
+        ClientInstance receiver = this.server.getClient(to);
+        if (receiver != null) {
+            receiver.deliver(frame);
+            this.metrics.relayed(System.nanoTime() - envelope.readAt());
+            this.confirm(envelope, frame);
+            return;
+        }
+
+        Cluster cluster = this.server.getCluster();
+        if (cluster != null && cluster.forward(to, frame)) {
+            this.metrics.relayed(System.nanoTime() - envelope.readAt());
+            this.confirm(envelope, frame);
+            return;
+        }
+
+        this.metrics.routeMiss();
+        if (envelope.origin() != null) {
+            this.answerMiss(envelope, frame);
+        }
+    }
+
+    /**
+     * Journals a chat message that was delivered, forwarded or stored, and tells its sender
+     * if it is waiting on a correlation ID, as the sender's shard would have for its own player.
+     *
+     * @param envelope The received frame
+     * @param frame    The frame decoded from it
+     */
+    private void confirm(Envelope envelope, Frame frame) {
+        if (envelope.origin() == null || frame.has(Payload.REQUEST)) {
+            return;
+        }
+
+        Journal journal = this.server.getJournal();
+        if (journal != null && envelope.text() != null) {
+            try {
+                journal.append(envelope.origin(), envelope.to(), envelope.text());
+            } catch (IOException e) {
+                Log.error("Could not journal message from %s to %s: %s", envelope.origin(), envelope.to(), e.getMessage());
+            }
+        }
+        if (envelope.correlation() != null) {
+            this.answer(envelope, ClientStatus.SUCCESS.getValue());
+        }
+    }
+
+    /**
+     * Handles a frame for a player who is not connected, like the sender's shard would have if
+     * the player had been its own: a chat message is stored, a message request is answered and a
+     * confirmation goes back to its sender. A message stored just as the player completed its
+     * handshake is delivered right away, so it is not left behind in the mailbox.
+     *
+     * @param envelope The received frame
+     * @param frame    The frame decoded from it
+     */
+    private void answerMiss(Envelope envelope, Frame frame) {
+        String origin = envelope.origin();
+        String to = envelope.to();
+        MailboxStore mailboxes = this.server.getMailboxes();
+        CharSequence status;
+
+        if (!frame.has(Payload.REQUEST)) {
+            if (mailboxes.store(to, origin, frame.get(Payload.MESSAGE))) {
+                Log.debug("Stored message from %s for offline player %s", origin, to);
+                ClientInstance receiver = this.server.getClient(to);
+                if (receiver != null) {
+                    // The player completed its handshake while the message was stored.
+                    receiver.deliverMailbox();
+                }
+                this.confirm(envelope, frame);
+                return;
+            }
+            status = ClientStatus.FAILED.getValue();
+        } else if (frame.is(Payload.REQUEST, PayloadValue.MESSAGE.getValue()) && !frame.has(Payload.STATUS)) {
+            status = mailboxes.isEnabled() ? ClientStatus.SUCCESS.getValue() : ClientStatus.FAILED.getValue();
+        } else if (frame.is(Payload.REQUEST, PayloadValue.MESSAGE.getValue())) {
+            this.answer(origin, frame);
+            return;
+        } else {
+            return;
+        }
+        this.answer(envelope, status);
+    }
+
+    /**
+     * Sends a message request confirmation on behalf of a player to the sender of a frame,
+     * echoing the sender's correlation ID.
+     *
+     * @param envelope The frame answered
+     * @param status   Status of the confirmation
+     */
+    private void answer(Envelope envelope, CharSequence status) {
+        this.answer(envelope.origin(), this.answer.clear()
+                .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                .set(Payload.STATUS, status)
+                .set(Payload.FROM, envelope.to())
+                .set(Payload.CORRELATION, envelope.correlation()));
+    }
+
+    /**
+     * Sends an answer to the sender of a frame, on this shard or on the shard owning the sender.
+     *
+     * @param origin Instance ID of the sender
+     * @param frame  The answer
+     */
+    private void answer(String origin, Frame frame) {
+        Shard owner = this.server.shardOf(origin);
+        if (owner != this) {
+            this.send(owner, null, origin, frame, System.nanoTime(), null, null);
+            return;
+        }
+
+        ClientInstance sender = this.server.getClient(origin);
+        if (sender != null) {
+            sender.deliver(frame);
+        }
+    }
+}
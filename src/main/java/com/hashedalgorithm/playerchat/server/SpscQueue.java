@@ -0,0 +1,106 @@
+package com.hashedalgorithm.playerchat.server;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * SpscQueue is an unbounded queue for exactly one producer thread and one consumer thread.
+ *
+ * <p>Elements are stored in fixed-size chunks linked to each other. The producer publishes an
+ * element with a single release store into its slot and the consumer takes it with an acquire
+ * load, so neither side ever uses a lock or a compare-and-set, and the only memory the two
+ * threads share is the slots themselves. A new chunk is allocated once every
+ * {@link #CHUNK_SIZE} elements.
+ *
+ * <p>The queue never rejects an element. {@link Shard}s exchange frames through these queues
+ * from their event loops, and a bounded queue would leave a full producer the choice between
+ * dropping a chat message and waiting for a consumer that may itself be waiting.
+ *
+ * <p>Thread safety: {@link #offer(Object)} must only ever be called by one thread, and
+ * {@link #poll()} by one other thread.
+ *
+ * @param <E> Type of the queued elements
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+final class SpscQueue<E> {
+
+    /** Number of elements per chunk. The slot after the last element links the next chunk */
+    private static final int CHUNK_SIZE = 1024;
+
+    /** Release and acquire access to the slots of a chunk */
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /**
+     * Position of one side of the queue. HotSpot lays out long fields before the others, so the
+     * padding keeps the fields written by the producer and by the consumer on different cache lines.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cursor {
+        private long p0, p1, p2, p3, p4, p5, p6, p7, p8, p9, p10, p11, p12, p13;
+
+        /** Chunk the next element is written to or read from */
+        private Object[] chunk;
+
+        /** Index of that element in {@link #chunk} */
+        private int index;
+    }
+
+    /** Written by the producer only */
+    private final Cursor producer = new Cursor();
+
+    /** Written by the consumer only */
+    private final Cursor consumer = new Cursor();
+
+    /**
+     * Creates an empty queue.
+     */
+    SpscQueue() {
+        Object[] chunk = new Object[CHUNK_SIZE + 1];
+        this.producer.chunk = chunk;
+        this.consumer.chunk = chunk;
+    }
+
+    /**
+     * Appends an element. Must only be called by the producer thread.
+     *
+     * @param element The element, not null
+     */
+    void offer(E element) {
+        Cursor cursor = this.producer;
+        if (cursor.index == CHUNK_SIZE) {
+            Object[] next = new Object[CHUNK_SIZE + 1];
+            SLOT.setRelease(cursor.chunk, CHUNK_SIZE, next);
+            cursor.chunk = next;
+            cursor.index = 0;
+        }
+        SLOT.setRelease(cursor.chunk, cursor.index++, element);
+    }
+
+    /**
+     * Removes the oldest element. Must only be called by the consumer thread.
+     *
+     * @return The element, or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        Cursor cursor = this.consumer;
+        if (cursor.index == CHUNK_SIZE) {
+            Object[] next = (Object[]) SLOT.getAcquire(cursor.chunk, CHUNK_SIZE);
+            if (next == null) {
+                return null;
+            }
+            cursor.chunk = next;
+            cursor.index = 0;
+        }
+
+        Object element = SLOT.getAcquire(cursor.chunk, cursor.index);
+        if (element == null) {
+            return null;
+        }
+        // The producer never comes back to a slot, so the consumer may clear it without a fence.
+        cursor.chunk[cursor.index++] = null;
+        return (E) element;
+    }
+}
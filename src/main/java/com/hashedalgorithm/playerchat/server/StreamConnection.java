@@ -0,0 +1,327 @@
+package com.hashedalgorithm.playerchat.server;
+
+import com.hashedalgorithm.playerchat.enums.OutboundPolicy;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import com.hashedalgorithm.playerchat.utils.Log;
+import com.hashedalgorithm.playerchat.utils.TextCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+
+/**
+ * StreamConnection is the blocking {@link Connection} used by the thread-per-connection
+ * server modes. It is a {@link Runnable} task that performs the handshake and then
+ * continuously reads from the client channel, handing the bytes to an {@link InboundDecoder}
+ * that passes every complete frame to its {@link ClientInstance}.
+ *
+ * <p>The same task runs on a platform thread ({@link com.hashedalgorithm.playerchat.enums.ServerMode#BLOCKING})
+ * or on a virtual thread ({@link com.hashedalgorithm.playerchat.enums.ServerMode#VIRTUAL}).
+ *
+ * <p>Frames written to this connection are encoded up front with the codec negotiated with
+ * this client and put in an {@link OutboundQueue}.
+ * A single writer, run on the server's writer executor, copies everything queued so far into
+ * one buffer and writes it with one call. Threads routing messages to this client therefore
+ * never block on its socket, and no write ever blocks inside a {@code synchronized} block,
+ * so virtual threads do not pin their carrier. The queue is bounded as configured on the
+ * server, and its {@link OutboundPolicy} decides what happens to a client that falls behind.
+ *
+ * <p>Both directions borrow their buffer from the server's {@link BufferPool} only while bytes
+ * are in flight. The reader waits for the client in a one-byte read, which holds no buffer, and
+ * borrows one for whatever else has arrived once that byte is in. The writer borrows one for
+ * each batch it coalesces. A player that is connected but silent therefore holds no I/O buffer.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     SocketChannel channel = serverChannel.accept();
+ *     Thread.ofVirtual().start(new StreamConnection(server, channel));
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class StreamConnection implements Connection, Runnable {
+
+    /** Blocking channel connected to the client */
+    private final SocketChannel channel;
+
+    /** Size of the buffer borrowed for the bytes that arrived with the first one */
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    /** Largest buffer borrowed for a coalesced write; longer batches are written in parts */
+    private static final int MAX_WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /** Most frames coalesced into a single socket write */
+    private static final int MAX_BATCH_FRAMES = 64;
+
+    /** Input stream of {@link #channel}, only used to ask how many bytes arrived */
+    private final InputStream in;
+
+    /** The one byte the reader waits for while the client is silent */
+    private final ByteBuffer wakeup = ByteBuffer.allocateDirect(1);
+
+    /** Pool the read and write buffers are borrowed from */
+    private final BufferPool buffers;
+
+    /** Splits the received bytes into frames */
+    private final InboundDecoder decoder;
+
+    /** Encoding of frames written to the client */
+    private volatile FrameCodec codec = TextCodec.INSTANCE;
+
+    /** Frames waiting to be written to the client */
+    private final OutboundQueue outbound;
+
+    /** Runs the writer that drains {@link #outbound} */
+    private final Executor writer;
+
+    /** Frames taken from {@link #outbound} for the current write. Only used by the writer */
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH_FRAMES];
+
+    /** Whether the socket should be closed once all queued frames are written */
+    private volatile boolean closeRequested = false;
+
+    /** Protocol state of the client behind this connection */
+    private final ClientInstance instance;
+
+    /** Metrics of the server, counting the bytes read and written */
+    private final ServerMetrics metrics;
+
+    /**
+     * Wraps an accepted client channel.
+     *
+     * @param server  Reference to the server instance
+     * @param channel The connected client channel, in blocking mode
+     * @throws IOException if the channel's input stream cannot be opened
+     */
+    @SuppressWarnings("this-escape") // ClientInstance only stores the connection while it is built.
+    public StreamConnection(Server server, SocketChannel channel) throws IOException {
+        this.channel = channel;
+        this.in = this.channel.socket().getInputStream();
+        this.buffers = server.getBufferPool();
+        this.writer = server.getWriterExecutor();
+        this.metrics = server.getMetrics();
+        this.outbound = server.newOutboundQueue();
+        this.instance = new ClientInstance(server, this);
+        this.decoder = new InboundDecoder(this.instance);
+    }
+
+    /**
+     * Receives the handshake from the client. A client that does not complete it in time is
+     * closed from the server's timer wheel, which ends the blocked read.
+     *
+     * @throws IOException if the handshake is rejected or times out
+     */
+    private void handshake() throws IOException {
+        while (this.instance.instanceId == null) {
+            this.readFrames();
+        }
+    }
+
+    /**
+     * Waits for the client to send something, then reads whatever it sent into a borrowed
+     * buffer and handles every frame it completes.
+     *
+     * @throws IOException if reading fails or a frame is rejected
+     * @throws NullPointerException if the client closed the connection
+     */
+    private void readFrames() throws IOException {
+        this.wakeup.clear();
+        if (this.channel.read(this.wakeup) < 0) {
+            throw new NullPointerException();
+        }
+
+        ByteBuffer buffer = this.buffers.acquire(READ_BUFFER_SIZE);
+        try {
+            buffer.put(this.wakeup.flip());
+            // Only read what has arrived, so the blocking read returns at once.
+            int available = Math.min(this.in.available(), buffer.remaining());
+            if (available > 0) {
+                buffer.limit(1 + available);
+                this.channel.read(buffer);
+            }
+            this.metrics.bytesIn(buffer.position());
+
+            this.decoder.feed(buffer.flip());
+        } finally {
+            this.buffers.release(buffer);
+        }
+    }
+
+    /**
+     * Writes all queued frames, one coalesced socket write per batch, then closes the
+     * socket if a close was requested. Runs on the writer executor, never concurrently
+     * with itself.
+     */
+    private void drainOutbound() {
+        try {
+            do {
+                int count;
+                while ((count = this.outbound.drain(this.batch)) > 0) {
+                    this.writeBatch(count);
+                }
+            } while (this.outbound.finishDrain());
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+            this.outbound.clear();
+            this.closeRequested = true;
+        }
+
+        if (this.closeRequested) {
+            this.closeSocket();
+        }
+    }
+
+    /**
+     * Coalesces a batch of frames into a borrowed buffer and writes it, in parts of
+     * {@value #MAX_WRITE_BUFFER_SIZE} bytes if it is longer. The blocking channel writes every
+     * part whole.
+     *
+     * @param count Number of frames in {@link #batch}, cleared once written
+     * @throws IOException if writing fails
+     */
+    private void writeBatch(int count) throws IOException {
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            length += this.batch[i].remaining();
+        }
+
+        ByteBuffer buffer = this.buffers.acquire(Math.min(length, MAX_WRITE_BUFFER_SIZE));
+        try {
+            for (int i = 0; i < count; i++) {
+                ByteBuffer frame = this.batch[i];
+                while (frame.hasRemaining()) {
+                    if (!buffer.hasRemaining()) {
+                        this.channel.write(buffer.flip());
+                        buffer.clear();
+                    }
+                    int part = Math.min(frame.remaining(), buffer.remaining());
+                    buffer.put(buffer.position(), frame, frame.position(), part);
+                    buffer.position(buffer.position() + part);
+                    frame.position(frame.position() + part);
+                }
+                this.batch[i] = null;
+            }
+            this.channel.write(buffer.flip());
+        } finally {
+            this.buffers.release(buffer);
+        }
+    }
+
+    /**
+     * Closes the client channel, which also ends the blocked read of {@link #run()}.
+     */
+    private void closeSocket() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Frame frame) {
+        if (this.closeRequested) {
+            return;
+        }
+        this.enqueue(this.codec.encode(frame));
+    }
+
+    @Override
+    public void write(Frame[] frames) {
+        if (this.closeRequested) {
+            return;
+        }
+        this.enqueue(this.codec.encode(frames));
+    }
+
+    @Override
+    public void write(SharedFrame frame) {
+        if (this.closeRequested) {
+            return;
+        }
+        this.enqueue(frame.encode(this.codec));
+    }
+
+    /**
+     * Queues an encoded frame within the outbound limits, disconnecting the client if they
+     * are reached and its policy says so.
+     *
+     * @param bytes The encoded frame
+     */
+    private void enqueue(ByteBuffer bytes) {
+        if (!this.outbound.admit(bytes.remaining())) {
+            if (this.outbound.getPolicy() == OutboundPolicy.DISCONNECT) {
+                Log.warn("Disconnecting %s, which is not reading its messages", this.instance.instanceId);
+                this.metrics.outboundDisconnect();
+                this.outbound.clear();
+                try {
+                    // Unblocks a writer stuck on the full socket, rather than waiting for it to drain.
+                    this.channel.close();
+                } catch (IOException e) {
+                    Log.error("%s", e.getMessage());
+                }
+                this.instance.closeConnection();
+            }
+            return;
+        }
+
+        this.metrics.bytesOut(bytes.remaining());
+        if (this.outbound.offer(bytes)) {
+            this.writer.execute(this::drainOutbound);
+        }
+    }
+
+    @Override
+    public boolean isRejectingSenders() {
+        return this.outbound.getPolicy() == OutboundPolicy.REJECT_SENDER && this.outbound.isFull();
+    }
+
+    @Override
+    public void setCodec(FrameCodec codec) {
+        this.codec = codec;
+        this.decoder.setCodec(codec);
+    }
+
+    /**
+     * Closes the connection once every frame queued so far has been written.
+     */
+    @Override
+    public void close() {
+        this.closeRequested = true;
+        this.decoder.stop();
+        if (this.outbound.schedule()) {
+            this.writer.execute(this::drainOutbound);
+        }
+    }
+
+    /**
+     * The task execution. Performs the handshake, then continuously reads messages
+     * from the client and handles them until the connection closes.
+     */
+    @Override
+    public void run() {
+        try {
+            this.instance.startTimeouts();
+            this.handshake();
+
+            while (true) {
+                this.readFrames();
+            }
+        }
+        catch (NullPointerException npe) {
+            Log.error("Connection closed with %s!", this.instance.instanceId);
+        }
+        catch (IOException e) {
+            Log.error("%s", e.getMessage());
+        }
+        finally {
+            this.instance.closeConnection();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.hashedalgorithm.playerchat.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucket limits how often a client may send, refilling at a steady rate up to a burst.
+ *
+ * <p>The bucket is kept as the single time at which it will be full again (the generic cell
+ * rate algorithm form of a token bucket): taking a token moves that time one interval into the
+ * future, and a token is available as long as that time is less than a burst of intervals
+ * ahead of now. The whole state is one {@link AtomicLong}, so {@link #tryAcquire(long)} is a
+ * read and a compare-and-set without a lock, and there is no refill thread.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     TokenBucket bucket = new TokenBucket(10, 20);
+ *     if (!bucket.tryAcquire(System.nanoTime())) {
+ *         // throttled
+ *     }
+ * </pre>
+ *
+ * <p>Thread safety: Lock-free; a bucket may be shared by any number of threads.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+final class TokenBucket {
+
+    /** Nanoseconds it takes to refill one token */
+    private final long interval;
+
+    /** Nanoseconds a full bucket lies ahead of the time it is empty */
+    private final long capacity;
+
+    /** {@link System#nanoTime()} at which the bucket is full again */
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param rate  Tokens refilled per second, at least 1
+     * @param burst Tokens the bucket holds, at least 1
+     * @throws IllegalArgumentException if the rate or the burst is below 1
+     */
+    TokenBucket(int rate, int burst) {
+        if (rate < 1 || burst < 1) {
+            throw new IllegalArgumentException(String.format("Invalid rate limit %d/%d!", rate, burst));
+        }
+        this.interval = 1_000_000_000L / rate;
+        this.capacity = this.interval * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param now The current {@link System#nanoTime()}
+     * @return true if a token was taken, false if the caller must be throttled
+     */
+    boolean tryAcquire(long now) {
+        while (true) {
+            long fullAt = this.fullAt.get();
+            long start = fullAt - now < 0 ? now : fullAt;
+            long next = start + this.interval;
+            if (next - now > this.capacity) {
+                return false;
+            }
+            if (this.fullAt.compareAndSet(fullAt, next)) {
+                return true;
+            }
+        }
+    }
+}
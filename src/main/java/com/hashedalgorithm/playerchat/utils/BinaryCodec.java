@@ -0,0 +1,225 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * Length-prefixed binary framing, negotiated during the handshake.
+ *
+ * <p>Every frame is a varint holding the length of its body, followed by the body:
+ * <pre>
+ *     frame  := varint(bodyLength) opcode field*
+ *     opcode := 0                               no request, e.g. a chat message
+ *             | 1 + {@link PayloadValue} ordinal    the value of {@link Payload#REQUEST}
+ *     field  := key varint(length) utf8Bytes     key is the {@link Payload} ordinal
+ * </pre>
+ *
+ * <p>Compared to the text format this drops the key names and separators, lets the receiver
+ * read a whole frame without scanning for a delimiter, and carries '|' and line breaks inside
+ * a message unchanged. Fields with an unknown key are skipped, so a newer peer may add fields.
+ * New {@link Payload} and {@link PayloadValue} constants must only ever be appended, since their
+ * ordinals are on the wire.
+ *
+ * <p>Varints are unsigned LEB128: seven bits per byte, least significant group first, with the
+ * high bit set on every byte but the last.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public final class BinaryCodec implements FrameCodec {
+
+    /** Shared instance */
+    public static final BinaryCodec INSTANCE = new BinaryCodec();
+
+    /** Most bytes a varint may take; enough for any positive int */
+    private static final int MAX_VARINT_BYTES = 5;
+
+    /** All payload keys, indexed by ordinal */
+    private static final Payload[] KEYS = Payload.values();
+
+    /** All payload values, indexed by opcode - 1 */
+    private static final PayloadValue[] OPCODES = PayloadValue.values();
+
+    private BinaryCodec() {
+    }
+
+    @Override
+    public ByteBuffer encode(Frame frame) {
+        int opcode = opcodeOf(frame);
+
+        int bodyLength = 1;
+        for (Payload key : KEYS) {
+            if (frame.has(key) && !(key == Payload.REQUEST && opcode != 0)) {
+                int length = Utf8.encodedLength(frame.source(key), frame.start(key), frame.end(key));
+                bodyLength += 1 + varintSize(length) + length;
+            }
+        }
+
+        byte[] out = new byte[varintSize(bodyLength) + bodyLength];
+        int offset = writeVarint(bodyLength, out, 0);
+        out[offset++] = (byte) opcode;
+
+        for (Payload key : KEYS) {
+            if (!frame.has(key) || (key == Payload.REQUEST && opcode != 0)) {
+                continue;
+            }
+
+            CharSequence source = frame.source(key);
+            int start = frame.start(key);
+            int end = frame.end(key);
+
+            out[offset++] = (byte) key.ordinal();
+            offset = writeVarint(Utf8.encodedLength(source, start, end), out, offset);
+            offset = Utf8.encode(source, start, end, out, offset);
+        }
+        return ByteBuffer.wrap(out);
+    }
+
+    /**
+     * Returns the number of bytes taken by the length prefix at the start of the given bytes.
+     *
+     * @param in     The received bytes
+     * @param offset Offset of the frame
+     * @param limit  End of the received bytes (exclusive)
+     * @return The prefix length, or 0 if the prefix has not been fully received yet
+     * @throws IOException if the prefix is malformed
+     */
+    public static int headerLength(byte[] in, int offset, int limit) throws IOException {
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            if (offset + i >= limit) {
+                return 0;
+            }
+            if (in[offset + i] >= 0) {
+                return i + 1;
+            }
+        }
+        throw new IOException("Malformed frame length!");
+    }
+
+    /**
+     * Reads the body length of a frame whose prefix has been fully received.
+     *
+     * @param in     The received bytes
+     * @param offset Offset of the frame
+     * @return The body length in bytes
+     * @throws IOException if the length does not fit an int
+     */
+    public static int bodyLength(byte[] in, int offset) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in[offset++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Malformed frame length!");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes a frame body into a reusable {@link Frame}.
+     *
+     * <p>The frame is cleared first. Field values are decoded into {@code chars}, which must have
+     * room for one char per body byte, and the frame refers to ranges of it, so the buffer must
+     * stay untouched for as long as the frame is read.
+     *
+     * @param in     The received bytes
+     * @param offset Offset of the body, after the length prefix
+     * @param length Length of the body
+     * @param frame  The frame to fill
+     * @param chars  Reusable buffer the field values are decoded into, backed by an array
+     * @return The filled frame
+     * @throws IOException if the body is malformed
+     */
+    public static Frame decode(byte[] in, int offset, int length, Frame frame, CharBuffer chars) throws IOException {
+        frame.clear();
+        if (length < 1) {
+            throw new IOException("Empty frame!");
+        }
+
+        int end = offset + length;
+        int opcode = in[offset++] & 0xFF;
+        if (opcode > OPCODES.length) {
+            throw new IOException(String.format("Unknown opcode %d!", opcode));
+        }
+        if (opcode != 0) {
+            frame.set(Payload.REQUEST, OPCODES[opcode - 1].getValue());
+        }
+
+        char[] out = chars.array();
+        int written = 0;
+        while (offset < end) {
+            int key = in[offset++] & 0xFF;
+
+            int header = headerLength(in, offset, end);
+            if (header == 0) {
+                throw new IOException("Truncated frame!");
+            }
+            int fieldLength = bodyLength(in, offset);
+            offset += header;
+            if (fieldLength > end - offset) {
+                throw new IOException("Truncated frame!");
+            }
+
+            if (key < KEYS.length) {
+                int start = written;
+                written = Utf8.decode(in, offset, fieldLength, out, written);
+                frame.set(KEYS[key], chars, start, written);
+            }
+            offset += fieldLength;
+        }
+        return frame;
+    }
+
+    /**
+     * Returns the opcode of a frame: 1 + the ordinal of its request value, or 0 if it has no
+     * request or the request is not a {@link PayloadValue}.
+     *
+     * @param frame The frame to classify
+     * @return The opcode, between 0 and the number of {@link PayloadValue}s
+     */
+    public static int opcodeOf(Frame frame) {
+        if (!frame.has(Payload.REQUEST)) {
+            return 0;
+        }
+        for (PayloadValue value : OPCODES) {
+            if (frame.is(Payload.REQUEST, value.getValue())) {
+                return value.ordinal() + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of bytes a value takes as a varint.
+     */
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes a value as a varint.
+     *
+     * @return The offset after the last byte written
+     */
+    private static int writeVarint(int value, byte[] out, int offset) {
+        while ((value & ~0x7F) != 0) {
+            out[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[offset++] = (byte) value;
+        return offset;
+    }
+}
@@ -0,0 +1,301 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link BinaryCodec} framing with large frames compressed, negotiated with {@code enc:deflate}
+ * during the handshake.
+ *
+ * <p>A frame whose body is shorter than the threshold, like most chat messages, is encoded
+ * exactly as by {@link BinaryCodec}. A longer body is compressed with raw DEFLATE and sent as
+ * <pre>
+ *     frame := varint(bodyLength) {@link #COMPRESSED} varint(inflatedLength) deflatedBytes
+ * </pre>
+ * where the deflated bytes inflate to the original body, opcode included. A body that does not
+ * get smaller is sent uncompressed, so compression never costs bytes. Both directions use the
+ * same framing and either side may compress any frame.
+ *
+ * <p>Every stream is primed with {@link #DICTIONARY}, a preset dictionary of words and field
+ * values that are frequent in chat messages, so even a few hundred bytes compress well. The
+ * dictionary is part of the protocol: both sides must use the same one.
+ *
+ * <p>Compressor state is expensive: a {@link Deflater} holds a few hundred KB of native memory.
+ * Instead of one per connection or one per message, a codec keeps a small pool of them, twice
+ * the number of cores, and the same for {@link Inflater}s. A frame borrows one, resets it,
+ * and gives it back, so encoding and decoding allocate no compressor state once the pools are
+ * warm, and a server with thousands of connections still holds only a handful.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     DeflateCodec codec = new DeflateCodec(256);
+ *     ByteBuffer bytes = codec.encode(frame);
+ *     // on the receiving side, with the body of a received frame
+ *     if (DeflateCodec.isCompressed(in, offset)) {
+ *         length = codec.inflate(in, offset, length, body);
+ *     }
+ * </pre>
+ *
+ * <p>Thread safety: Thread-safe. One instance is shared by every connection that negotiated
+ * compression, and any thread may encode or inflate at the same time.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public final class DeflateCodec implements FrameCodec {
+
+    /** Opcode marking a compressed body; above every {@link BinaryCodec} opcode */
+    public static final int COMPRESSED = 0xFF;
+
+    /** Default compression level, the fastest, which saves nearly as much on chat text */
+    public static final int DEFAULT_LEVEL = Deflater.BEST_SPEED;
+
+    /**
+     * Preset dictionary: protocol values and words frequent in chat messages and pasted game
+     * state. DEFLATE matches the most recent bytes best, so the most frequent ones come last.
+     */
+    public static final byte[] DICTIONARY = (
+            "\"players\":[{\"id\":\"name\":\"team\":\"score\":\"kills\":\"deaths\":\"assists\":\"hp\":"
+            + "\"position\":{\"x\":\"y\":\"z\":},\"inventory\":[\"items\":\"count\":\"level\":\"map\":"
+            + "\"round\":\"state\":\"winner\":null,true,false,} ] "
+            + "anyone want to play another round? who is in the lobby join the arena match "
+            + "rematch gg wp glhf thanks good game nice shot well played lag server ping "
+            + "I think you should we can let's what do you have the my your is are was "
+            + "that this with for and the of to in it on at be not but so just "
+            + "broadcast handshake success failed throttled stats join leave "
+    ).getBytes(StandardCharsets.UTF_8);
+
+    /** Bodies shorter than this many bytes are never compressed */
+    private final int threshold;
+
+    /** DEFLATE level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION} */
+    private final int level;
+
+    /** Idle compressors; an empty slot is null */
+    private final AtomicReferenceArray<Compressor> compressors;
+
+    /** Idle inflaters; an empty slot is null */
+    private final AtomicReferenceArray<Inflater> inflaters;
+
+    /**
+     * A {@link Deflater} with the buffer it deflates into.
+     */
+    private static final class Compressor {
+        private final Deflater deflater;
+        private byte[] buffer = new byte[1024];
+
+        private Compressor(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+    }
+
+    /**
+     * Creates a codec compressing bodies of at least a given length at {@link #DEFAULT_LEVEL}.
+     *
+     * @param threshold Shortest body compressed, in bytes
+     */
+    public DeflateCodec(int threshold) {
+        this(threshold, DEFAULT_LEVEL);
+    }
+
+    /**
+     * Creates a codec compressing bodies of at least a given length.
+     *
+     * @param threshold Shortest body compressed, in bytes
+     * @param level     DEFLATE level, from 1 (fastest) to 9 (smallest)
+     * @throws IllegalArgumentException if the threshold is negative or the level out of range
+     */
+    public DeflateCodec(int threshold, int level) {
+        if (threshold < 0 || level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException(String.format("Invalid compression %d bytes at level %d!", threshold, level));
+        }
+        this.threshold = threshold;
+        this.level = level;
+        int pooled = 2 * Runtime.getRuntime().availableProcessors();
+        this.compressors = new AtomicReferenceArray<>(pooled);
+        this.inflaters = new AtomicReferenceArray<>(pooled);
+    }
+
+    @Override
+    public ByteBuffer encode(Frame frame) {
+        ByteBuffer plain = BinaryCodec.INSTANCE.encode(frame);
+        byte[] bytes = plain.array();
+        int header = prefixLength(bytes);
+        int length = bytes.length - header;
+        if (length < this.threshold) {
+            return plain;
+        }
+
+        Compressor compressor = this.borrow(this.compressors);
+        if (compressor == null) {
+            compressor = new Compressor(this.level);
+        }
+        try {
+            Deflater deflater = compressor.deflater;
+            deflater.reset();
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(bytes, header, length);
+            deflater.finish();
+
+            // Anything not smaller than the plain body is useless, so the buffer never grows past it.
+            if (compressor.buffer.length < length) {
+                compressor.buffer = new byte[Math.max(length, compressor.buffer.length * 2)];
+            }
+            int deflated = deflater.deflate(compressor.buffer, 0, length);
+            int bodyLength = 1 + varintSize(length) + deflated;
+            if (!deflater.finished() || bodyLength >= length) {
+                return plain;
+            }
+
+            byte[] out = new byte[varintSize(bodyLength) + bodyLength];
+            int offset = writeVarint(bodyLength, out, 0);
+            out[offset++] = (byte) COMPRESSED;
+            offset = writeVarint(length, out, offset);
+            System.arraycopy(compressor.buffer, 0, out, offset, deflated);
+            return ByteBuffer.wrap(out);
+        } finally {
+            this.release(this.compressors, compressor);
+        }
+    }
+
+    /**
+     * Returns whether a received frame body is compressed.
+     *
+     * @param in     The received bytes
+     * @param offset Offset of the body, after the length prefix
+     * @return true if the body must be inflated before it is decoded
+     */
+    public static boolean isCompressed(byte[] in, int offset) {
+        return (in[offset] & 0xFF) == COMPRESSED;
+    }
+
+    /**
+     * Reads the length a compressed frame body inflates to.
+     *
+     * @param in     The received bytes
+     * @param offset Offset of the body, after the length prefix
+     * @param length Length of the body
+     * @return The length of the original body
+     * @throws IOException if the body is truncated
+     */
+    public static int inflatedLength(byte[] in, int offset, int length) throws IOException {
+        if (BinaryCodec.headerLength(in, offset + 1, offset + length) == 0) {
+            throw new IOException("Truncated frame!");
+        }
+        return BinaryCodec.bodyLength(in, offset + 1);
+    }
+
+    /**
+     * Inflates a compressed frame body into the original body, which can then be passed to
+     * {@link BinaryCodec#decode}.
+     *
+     * @param in     The received bytes
+     * @param offset Offset of the body, after the length prefix
+     * @param length Length of the body
+     * @param out    Buffer the original body is written to, from offset 0
+     * @return The length of the original body
+     * @throws IOException if the body is malformed or the original body does not fit {@code out}
+     */
+    public int inflate(byte[] in, int offset, int length, byte[] out) throws IOException {
+        int inflatedLength = inflatedLength(in, offset, length);
+        if (inflatedLength > out.length) {
+            throw new IOException(String.format("Compressed frame of %d bytes is too long!", inflatedLength));
+        }
+        int end = offset + length;
+        offset += 1 + BinaryCodec.headerLength(in, offset + 1, end);
+
+        Inflater inflater = this.borrow(this.inflaters);
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            inflater.reset();
+            inflater.setDictionary(DICTIONARY);
+            inflater.setInput(in, offset, end - offset);
+            int inflated = inflater.inflate(out, 0, inflatedLength);
+            if (inflated != inflatedLength || !inflater.finished()) {
+                throw new IOException("Malformed compressed frame!");
+            }
+            return inflated;
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed compressed frame!", e);
+        } finally {
+            this.release(this.inflaters, inflater);
+        }
+    }
+
+    /**
+     * Takes an idle object out of a pool.
+     *
+     * @return The object, or null if the pool is empty
+     */
+    private <T> T borrow(AtomicReferenceArray<T> pool) {
+        for (int i = 0; i < pool.length(); i++) {
+            if (pool.getPlain(i) != null) {
+                T idle = pool.getAndSet(i, null);
+                if (idle != null) {
+                    return idle;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts an object back into a pool, or frees its native memory if the pool is full.
+     */
+    private <T> void release(AtomicReferenceArray<T> pool, T idle) {
+        for (int i = 0; i < pool.length(); i++) {
+            if (pool.getPlain(i) == null && pool.compareAndSet(i, null, idle)) {
+                return;
+            }
+        }
+        if (idle instanceof Compressor compressor) {
+            compressor.deflater.end();
+        } else if (idle instanceof Inflater inflater) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the length prefix of an encoded frame.
+     */
+    private static int prefixLength(byte[] frame) {
+        int size = 1;
+        while (frame[size - 1] < 0) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes a value takes as a varint.
+     */
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes a value as a varint.
+     *
+     * @return The offset after the last byte written
+     */
+    private static int writeVarint(int value, byte[] out, int offset) {
+        while ((value & ~0x7F) != 0) {
+            out[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[offset++] = (byte) value;
+        return offset;
+    }
+}
@@ -0,0 +1,220 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+
+/**
+ * Reusable flyweight holding the fields of one message, indexed by {@link Payload}.
+ *
+ * <p>A Frame never copies field values. After {@link MessageParser#parse(CharSequence, Frame)}
+ * every field is a pair of offsets into the parsed line, and {@link #get(Payload)} returns a
+ * reusable {@link CharSequence} view over that range. Fields can also be {@link #set(Payload, CharSequence)}
+ * to build an outgoing message, which {@link MessageParser#serialize(Frame, StringBuilder)} writes
+ * into a reusable buffer.
+ *
+ * <p>A connection keeps one Frame and refills it for every line, so parsing allocates nothing.
+ * Views and offsets are only valid until the frame is parsed or cleared again; use
+ * {@link #getString(Payload)} to keep a value beyond that.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     Frame frame = new Frame();
+ *     parser.parse("req:msg|from:hashed|to:dee", frame);
+ *     if (frame.is(Payload.REQUEST, PayloadValue.MESSAGE.getValue())) {
+ *         CharSequence from = frame.get(Payload.FROM);   // "hashed", no copy
+ *     }
+ * </pre>
+ *
+ * <p>Thread safety: A Frame is not thread safe and is meant to be owned by a single thread.
+ */
+public class Frame {
+
+    /** All payload keys, indexed by ordinal */
+    private static final Payload[] KEYS = Payload.values();
+
+    /** Source of each field, or null when the field is absent */
+    private final CharSequence[] sources = new CharSequence[KEYS.length];
+
+    /** Start offset of each field in its source */
+    private final int[] starts = new int[KEYS.length];
+
+    /** End offset (exclusive) of each field in its source */
+    private final int[] ends = new int[KEYS.length];
+
+    /** Reusable view returned by {@link #get(Payload)} for each field */
+    private final FieldView[] views = new FieldView[KEYS.length];
+
+    /**
+     * Creates an empty frame.
+     */
+    public Frame() {
+        for (int i = 0; i < KEYS.length; i++) {
+            this.views[i] = new FieldView(i);
+        }
+    }
+
+    /**
+     * Removes all fields.
+     *
+     * @return This frame
+     */
+    public Frame clear() {
+        for (int i = 0; i < KEYS.length; i++) {
+            this.sources[i] = null;
+        }
+        return this;
+    }
+
+    /**
+     * Sets a field to a whole value. A null value removes the field.
+     *
+     * @param key   The field key
+     * @param value The value, referenced rather than copied
+     * @return This frame
+     */
+    public Frame set(Payload key, CharSequence value) {
+        if (value == null) {
+            this.sources[key.ordinal()] = null;
+            return this;
+        }
+        return this.set(key, value, 0, value.length());
+    }
+
+    /**
+     * Sets a field to a range of a source.
+     *
+     * @param key    The field key
+     * @param source The source holding the value
+     * @param start  Start offset of the value in the source
+     * @param end    End offset (exclusive) of the value in the source
+     * @return This frame
+     */
+    public Frame set(Payload key, CharSequence source, int start, int end) {
+        int index = key.ordinal();
+        this.sources[index] = source;
+        this.starts[index] = start;
+        this.ends[index] = end;
+        return this;
+    }
+
+    /**
+     * Returns whether a field is present.
+     *
+     * @param key The field key
+     * @return true if the field is present
+     */
+    public boolean has(Payload key) {
+        return this.sources[key.ordinal()] != null;
+    }
+
+    /**
+     * Returns a reusable view over a field, without copying it.
+     *
+     * @param key The field key
+     * @return The view, or null if the field is absent
+     */
+    public CharSequence get(Payload key) {
+        return this.has(key) ? this.views[key.ordinal()] : null;
+    }
+
+    /**
+     * Returns a field as a new String. Allocates; use for values kept beyond this frame.
+     *
+     * @param key The field key
+     * @return The value, or null if the field is absent
+     */
+    public String getString(Payload key) {
+        int index = key.ordinal();
+        CharSequence source = this.sources[index];
+        return source == null ? null : source.subSequence(this.starts[index], this.ends[index]).toString();
+    }
+
+    /**
+     * Compares a field to a value without copying it.
+     *
+     * @param key   The field key
+     * @param value The value to compare with
+     * @return true if the field is present and equal to the value
+     */
+    public boolean is(Payload key, String value) {
+        int index = key.ordinal();
+        CharSequence source = this.sources[index];
+        if (source == null || value == null) {
+            return false;
+        }
+
+        int start = this.starts[index];
+        int length = this.ends[index] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the source of a field, for callers working on offsets.
+     *
+     * @param key The field key
+     * @return The source, or null if the field is absent
+     */
+    public CharSequence source(Payload key) {
+        return this.sources[key.ordinal()];
+    }
+
+    /**
+     * Returns the start offset of a field in its source.
+     *
+     * @param key The field key
+     * @return The start offset
+     */
+    public int start(Payload key) {
+        return this.starts[key.ordinal()];
+    }
+
+    /**
+     * Returns the end offset (exclusive) of a field in its source.
+     *
+     * @param key The field key
+     * @return The end offset
+     */
+    public int end(Payload key) {
+        return this.ends[key.ordinal()];
+    }
+
+    /**
+     * Reusable {@link CharSequence} over one field of the enclosing frame.
+     */
+    private final class FieldView implements CharSequence {
+
+        /** Ordinal of the field this view reads */
+        private final int index;
+
+        FieldView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int length() {
+            return ends[this.index] - starts[this.index];
+        }
+
+        @Override
+        public char charAt(int i) {
+            return sources[this.index].charAt(starts[this.index] + i);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return sources[this.index].subSequence(starts[this.index] + start, starts[this.index] + end);
+        }
+
+        @Override
+        public String toString() {
+            return sources[this.index].subSequence(starts[this.index], ends[this.index]).toString();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire encoding of a {@link Frame}.
+ *
+ * <p>Every connection starts with {@link TextCodec}, the original '|' delimited line format.
+ * A client that asks for {@link com.hashedalgorithm.playerchat.enums.PayloadValue#BINARY} in
+ * its handshake is switched to {@link BinaryCodec} once the handshake has been confirmed, and
+ * one that asks for {@link com.hashedalgorithm.playerchat.enums.PayloadValue#DEFLATE} to the
+ * server's {@link DeflateCodec}, or to plain binary if the server refuses compression. The
+ * confirmation itself is still sent as text. Frames are encoded by the receiver's connection,
+ * so text, binary and compressed clients can chat with each other.
+ *
+ * <p>Thread safety: Implementations are stateless or, like the pools of {@link DeflateCodec},
+ * thread-safe, so one instance is shared by every connection and {@link #encode(Frame)} may be
+ * called by any thread.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public interface FrameCodec {
+
+    /**
+     * Encodes a frame into a new buffer of exactly the encoded size. The frame is read
+     * before this method returns, so the caller may reuse it.
+     *
+     * @param frame The frame to encode
+     * @return A buffer holding the encoded frame, ready to be written
+     */
+    ByteBuffer encode(Frame frame);
+
+    /**
+     * Encodes several frames back to back into one buffer, so they can be queued and written
+     * as a single batch.
+     *
+     * @param frames The frames to encode, in order
+     * @return A buffer holding all encoded frames, ready to be written
+     */
+    default ByteBuffer encode(Frame[] frames) {
+        if (frames.length == 1) {
+            return this.encode(frames[0]);
+        }
+
+        ByteBuffer[] encoded = new ByteBuffer[frames.length];
+        int length = 0;
+        for (int i = 0; i < frames.length; i++) {
+            encoded[i] = this.encode(frames[i]);
+            length += encoded[i].remaining();
+        }
+
+        ByteBuffer batch = ByteBuffer.allocate(length);
+        for (ByteBuffer bytes : encoded) {
+            batch.put(bytes);
+        }
+        return batch.flip();
+    }
+}
@@ -0,0 +1,167 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values, typically latencies in nanoseconds.
+ *
+ * <p>Values are counted in log-linear buckets: every power of two is split into
+ * {@value #SUB_BUCKETS} equal buckets, so any recorded value is reported with a relative error
+ * below 1/{@value #SUB_BUCKETS} (about 3%) while the whole range up to {@link Long#MAX_VALUE}
+ * fits in under two thousand counters. Recording is a single atomic increment plus two
+ * striped adders, so many threads can record at once without contending on a lock.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     LatencyHistogram histogram = new LatencyHistogram();
+ *     long start = System.nanoTime();
+ *     ...
+ *     histogram.record(System.nanoTime() - start);
+ *     long p99 = histogram.getValueAtPercentile(99.0);
+ * </pre>
+ *
+ * <p>Thread safety: All methods may be called concurrently. Reads taken while other threads
+ * record are not an atomic snapshot, but every value is eventually counted exactly once.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public class LatencyHistogram {
+
+    /** Bits of precision kept below the leading bit of a value */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Buckets per power of two */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Number of buckets needed to cover every non-negative long */
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** Count of values per bucket */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /** Number of recorded values */
+    private final LongAdder count = new LongAdder();
+
+    /** Sum of recorded values */
+    private final LongAdder sum = new LongAdder();
+
+    /** Largest recorded value */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value The value to record
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        this.counts.incrementAndGet(bucketOf(value));
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return The count
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Returns the exact mean of the recorded values.
+     *
+     * @return The mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long n = this.count.sum();
+        return n == 0 ? 0 : (double) this.sum.sum() / n;
+    }
+
+    /**
+     * Returns the exact largest recorded value.
+     *
+     * @return The maximum, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Returns the value below which the given percentage of recorded values fall, within the
+     * precision of the buckets.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The value at the percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += this.counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+
+    /**
+     * Formats count, mean, p50, p90, p99, p99.9 and max of nanosecond values in the given unit.
+     *
+     * @param unit The unit to report in
+     * @return A one-line summary
+     */
+    public String summary(TimeUnit unit) {
+        double scale = unit.toNanos(1);
+        return String.format("count=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f p999=%.1f max=%.1f (%s)",
+                this.getCount(),
+                this.getMean() / scale,
+                this.getValueAtPercentile(50.0) / scale,
+                this.getValueAtPercentile(90.0) / scale,
+                this.getValueAtPercentile(99.0) / scale,
+                this.getValueAtPercentile(99.9) / scale,
+                this.getMax() / scale,
+                unit.name().toLowerCase());
+    }
+
+    /**
+     * Returns the bucket a value is counted in.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value counted in a bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + sub) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
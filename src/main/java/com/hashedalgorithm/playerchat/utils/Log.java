@@ -0,0 +1,450 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import com.hashedalgorithm.playerchat.enums.LogLevel;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.IllegalFormatException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log is the asynchronous console logger shared by the server and the client.
+ *
+ * <p>Logging a line used to mean a synchronous {@code System.out.printf} on the calling
+ * thread: the format string was parsed and the arguments formatted on every call, and every
+ * connection thread and event loop queued up on the same stdout lock. Log instead records
+ * fixed-shape events - a {@link LogLevel}, a format string and up to three arguments - into
+ * preallocated slots of a ring buffer. A single background writer thread formats them and
+ * writes them to the output, flushing once the ring runs empty.
+ *
+ * <p>Recording an event never blocks and, once the ring is warm, does not allocate:
+ * <ul>
+ *     <li>An event below the current level returns after a single volatile read, before any
+ *         argument is looked at, so per-message {@link LogLevel#DEBUG} events cost nothing
+ *         when they are off.</li>
+ *     <li>There are no varargs, so no argument array is created at the call site.</li>
+ *     <li>A slot is claimed with one compare-and-set. {@link CharSequence} arguments, such as
+ *         the flyweight views of a {@link Frame} that are only valid during the call, are copied
+ *         into buffers owned by the slot; any other argument must be immutable.</li>
+ *     <li>If the writer falls so far behind that the ring is full, the event is dropped and
+ *         counted in {@link #getDropped()} rather than stalling the caller.</li>
+ * </ul>
+ *
+ * <p>Example usage:
+ * <pre>
+ *     Log.setLevel(LogLevel.DEBUG);
+ *     Log.info("Handshake with client - %s completed successfully!", instanceId);
+ *     Log.debug("Message request from %s to %s", from, to);
+ * </pre>
+ *
+ * <p>Thread safety: Every method may be called from any thread. Events of one thread are
+ * written in the order they were recorded; events of different threads in the order their
+ * slots were claimed. {@link #flush()} waits until everything recorded so far was written,
+ * which interactive code uses before printing a prompt, and which also runs on JVM shutdown.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public final class Log {
+
+    /** Number of slots in the ring, a power of two */
+    private static final int CAPACITY = 1 << 13;
+
+    /** Mask turning a sequence into a slot index */
+    private static final int MASK = CAPACITY - 1;
+
+    /** Most arguments an event can carry */
+    private static final int MAX_ARGUMENTS = 3;
+
+    /** Initial capacity of the buffers text arguments are copied into */
+    private static final int TEXT_CAPACITY = 64;
+
+    /** Text buffers that grew beyond this many chars are replaced once their event is written */
+    private static final int MAX_RETAINED_TEXT = 4 * 1024;
+
+    /** Time the writer sleeps when the ring is empty */
+    private static final long IDLE_NANOS = 200_000;
+
+    /** Preallocated events, reused round-robin */
+    private static final Event[] RING = new Event[CAPACITY];
+
+    /** Sequence of the next slot to claim */
+    private static final AtomicLong HEAD = new AtomicLong();
+
+    /** Events dropped because the ring was full */
+    private static final LongAdder DROPPED = new LongAdder();
+
+    /** Thread that formats and writes the events */
+    private static final Thread WRITER;
+
+    /** Sequence of the next event to write. Only written by the writer */
+    private static volatile long tail = 0;
+
+    /** Most verbose level that is recorded */
+    private static volatile LogLevel level = LogLevel.INFO;
+
+    /** Stream the events are written to */
+    private static volatile PrintStream output = System.out;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            RING[i] = new Event();
+        }
+        WRITER = Thread.ofPlatform().daemon().name("log-writer").start(Log::drain);
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+    }
+
+    /**
+     * One slot of the ring. Its fields are written by the thread that claimed it and read by
+     * the writer once {@link #sequence} equals the slot's sequence.
+     */
+    private static final class Event {
+
+        /** Sequence of the event stored in this slot; written last to publish it */
+        private volatile long sequence = -1;
+
+        /** Level of the event */
+        private LogLevel level;
+
+        /** Format string of the event */
+        private String format;
+
+        /** Arguments of the event; text arguments point into {@link #text} */
+        private final Object[] arguments = new Object[MAX_ARGUMENTS];
+
+        /** Buffers text arguments are copied into */
+        private final StringBuilder[] text = new StringBuilder[MAX_ARGUMENTS];
+
+        private Event() {
+            for (int i = 0; i < MAX_ARGUMENTS; i++) {
+                this.text[i] = new StringBuilder(TEXT_CAPACITY);
+            }
+        }
+    }
+
+    private Log() {
+    }
+
+    /**
+     * Sets the most verbose level that is recorded.
+     *
+     * @param level The new level; {@link LogLevel#OFF} records nothing
+     */
+    public static void setLevel(LogLevel level) {
+        Log.level = level;
+    }
+
+    /**
+     * Returns the most verbose level that is recorded.
+     *
+     * @return The current level
+     */
+    public static LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns whether events of a level are recorded, so a caller can skip preparing
+     * arguments that would be thrown away.
+     *
+     * @param eventLevel The level of an event
+     * @return true if events of that level are recorded
+     */
+    public static boolean isEnabled(LogLevel eventLevel) {
+        return eventLevel != LogLevel.OFF && eventLevel.ordinal() <= level.ordinal();
+    }
+
+    /**
+     * Sets the stream events are written to. Events recorded before the call are written to
+     * the previous stream first.
+     *
+     * @param stream The new output stream
+     */
+    public static void setOutput(PrintStream stream) {
+        flush();
+        output = stream;
+    }
+
+    /**
+     * Returns the number of events dropped because the writer could not keep up.
+     *
+     * @return Dropped events since startup
+     */
+    public static long getDropped() {
+        return DROPPED.sum();
+    }
+
+    /**
+     * Waits until every event recorded before this call has been written, then flushes
+     * the output.
+     */
+    public static void flush() {
+        long target = HEAD.get();
+        while (tail < target && WRITER.isAlive()) {
+            LockSupport.parkNanos(IDLE_NANOS / 4);
+        }
+        output.flush();
+    }
+
+    /**
+     * Records an error event.
+     *
+     * @param format The format string, see {@link Formatter}
+     */
+    public static void error(String format) {
+        log(LogLevel.ERROR, format, 0, null, null, null);
+    }
+
+    /**
+     * Records an error event with one argument.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     */
+    public static void error(String format, Object a) {
+        log(LogLevel.ERROR, format, 1, a, null, null);
+    }
+
+    /**
+     * Records an error event with two arguments.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     * @param b      The second argument
+     */
+    public static void error(String format, Object a, Object b) {
+        log(LogLevel.ERROR, format, 2, a, b, null);
+    }
+
+    /**
+     * Records an error event with three arguments.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     * @param b      The second argument
+     * @param c      The third argument
+     */
+    public static void error(String format, Object a, Object b, Object c) {
+        log(LogLevel.ERROR, format, 3, a, b, c);
+    }
+
+    /**
+     * Records a warning event.
+     *
+     * @param format The format string, see {@link Formatter}
+     */
+    public static void warn(String format) {
+        log(LogLevel.WARN, format, 0, null, null, null);
+    }
+
+    /**
+     * Records a warning event with one argument.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     */
+    public static void warn(String format, Object a) {
+        log(LogLevel.WARN, format, 1, a, null, null);
+    }
+
+    /**
+     * Records a warning event with two arguments.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     * @param b      The second argument
+     */
+    public static void warn(String format, Object a, Object b) {
+        log(LogLevel.WARN, format, 2, a, b, null);
+    }
+
+    /**
+     * Records a warning event with three arguments.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     * @param b      The second argument
+     * @param c      The third argument
+     */
+    public static void warn(String format, Object a, Object b, Object c) {
+        log(LogLevel.WARN, format, 3, a, b, c);
+    }
+
+    /**
+     * Records an info event.
+     *
+     * @param format The format string, see {@link Formatter}
+     */
+    public static void info(String format) {
+        log(LogLevel.INFO, format, 0, null, null, null);
+    }
+
+    /**
+     * Records an info event with one argument.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     */
+    public static void info(String format, Object a) {
+        log(LogLevel.INFO, format, 1, a, null, null);
+    }
+
+    /**
+     * Records an info event with two arguments.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     * @param b      The second argument
+     */
+    public static void info(String format, Object a, Object b) {
+        log(LogLevel.INFO, format, 2, a, b, null);
+    }
+
+    /**
+     * Records an info event with three arguments.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     * @param b      The second argument
+     * @param c      The third argument
+     */
+    public static void info(String format, Object a, Object b, Object c) {
+        log(LogLevel.INFO, format, 3, a, b, c);
+    }
+
+    /**
+     * Records a debug event.
+     *
+     * @param format The format string, see {@link Formatter}
+     */
+    public static void debug(String format) {
+        log(LogLevel.DEBUG, format, 0, null, null, null);
+    }
+
+    /**
+     * Records a debug event with one argument.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     */
+    public static void debug(String format, Object a) {
+        log(LogLevel.DEBUG, format, 1, a, null, null);
+    }
+
+    /**
+     * Records a debug event with two arguments.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     * @param b      The second argument
+     */
+    public static void debug(String format, Object a, Object b) {
+        log(LogLevel.DEBUG, format, 2, a, b, null);
+    }
+
+    /**
+     * Records a debug event with three arguments.
+     *
+     * @param format The format string, see {@link Formatter}
+     * @param a      The first argument
+     * @param b      The second argument
+     * @param c      The third argument
+     */
+    public static void debug(String format, Object a, Object b, Object c) {
+        log(LogLevel.DEBUG, format, 3, a, b, c);
+    }
+
+    /**
+     * Claims a slot, copies the event into it and publishes it to the writer.
+     */
+    private static void log(LogLevel eventLevel, String format, int count, Object a, Object b, Object c) {
+        if (!isEnabled(eventLevel)) {
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = HEAD.get();
+            if (sequence - tail >= CAPACITY) {
+                DROPPED.increment();
+                return;
+            }
+        } while (!HEAD.compareAndSet(sequence, sequence + 1));
+
+        Event event = RING[(int) sequence & MASK];
+        event.level = eventLevel;
+        event.format = format;
+        if (count > 0) {
+            capture(event, 0, a);
+        }
+        if (count > 1) {
+            capture(event, 1, b);
+        }
+        if (count > 2) {
+            capture(event, 2, c);
+        }
+        event.sequence = sequence;
+    }
+
+    /**
+     * Stores an argument in a slot, copying mutable text into the slot's own buffer.
+     */
+    private static void capture(Event event, int index, Object argument) {
+        if (argument instanceof CharSequence text && !(argument instanceof String)) {
+            StringBuilder copy = event.text[index];
+            copy.setLength(0);
+            copy.append(text);
+            event.arguments[index] = copy;
+        } else {
+            event.arguments[index] = argument;
+        }
+    }
+
+    /**
+     * Body of the writer thread: formats and writes published events in sequence order,
+     * flushing the output whenever the ring runs empty.
+     */
+    private static void drain() {
+        StringBuilder line = new StringBuilder(256);
+        Formatter formatter = new Formatter(line);
+        boolean flushed = true;
+
+        while (true) {
+            long next = tail;
+            Event event = RING[(int) next & MASK];
+
+            if (event.sequence != next) {
+                if (!flushed) {
+                    output.flush();
+                    flushed = true;
+                }
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+
+            line.setLength(0);
+            line.append(event.level.getPrefix());
+            try {
+                formatter.format(event.format, event.arguments);
+            } catch (IllegalFormatException e) {
+                line.append(event.format);
+            }
+            line.append('\n');
+            output.append(line);
+            flushed = false;
+
+            Arrays.fill(event.arguments, null);
+            for (int i = 0; i < MAX_ARGUMENTS; i++) {
+                if (event.text[i].capacity() > MAX_RETAINED_TEXT) {
+                    event.text[i] = new StringBuilder(TEXT_CAPACITY);
+                }
+            }
+            event.format = null;
+            tail = next + 1;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.hashedalgorithm.playerchat.utils;
 
+import com.hashedalgorithm.playerchat.enums.Payload;
+
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -9,11 +11,16 @@ import java.util.Map;
  *
  * <p>This class provides methods to:
  * <ul>
- *     <li>Parse a raw message string received from a socket into a structured {@link Map}.</li>
- *     <li>Serialize a {@link Map} of message key-value pairs into a string suitable for
+ *     <li>Parse a raw message string received from a socket into a reusable {@link Frame}
+ *         in a single pass, without allocating.</li>
+ *     <li>Serialize a {@link Frame} into a reusable {@link StringBuilder} suitable for
  *         sending over a socket.</li>
+ *     <li>Parse into and serialize from a {@link Map}, as thin wrappers around the same scanner.</li>
  * </ul>
  *
+ * <p>Frames are encoded for the wire by a {@link FrameCodec}; this class parses the text lines
+ * received from clients that did not negotiate {@link BinaryCodec}.
+ *
  * <p>The expected format for messages is a '|' delimited string of key-value pairs, where
  * each key and value are separated by a ':'.
  *
@@ -35,28 +42,107 @@ import java.util.Map;
 
 public class MessageParser {
 
+    /** Separator between key-value pairs */
+    private static final char FIELD_SEPARATOR = '|';
+
+    /** Separator between a key and its value */
+    private static final char KEY_SEPARATOR = ':';
+
+    /** All payload keys, indexed by ordinal */
+    private static final Payload[] KEYS = Payload.values();
+
+    /**
+     * Parses a message into a reusable {@link Frame} in a single pass.
+     *
+     * <p>The frame is cleared first. Fields are recorded as trimmed offsets into the message,
+     * so the message must stay unchanged for as long as the frame is read. Keys that are not
+     * a {@link Payload} are skipped.
+     *
+     * @param message The raw message to parse.
+     * @param frame   The frame to fill.
+     * @return The filled frame.
+     */
+    public Frame parse(CharSequence message, Frame frame) {
+        return this.scan(message, frame, null);
+    }
+
+    /**
+     * Scans a message into a frame, and the fields whose key is not a {@link Payload} into a
+     * map if one is given.
+     *
+     * @param message The raw message to parse.
+     * @param frame   The frame to fill; it is cleared first.
+     * @param unknown The map receiving the other fields as trimmed strings, or null to skip them.
+     * @return The filled frame.
+     */
+    private Frame scan(CharSequence message, Frame frame, Map<String, String> unknown) {
+        frame.clear();
+
+        int length = message.length();
+        int position = 0;
+        while (position < length) {
+            int end = indexOf(message, FIELD_SEPARATOR, position, length);
+            int colon = indexOf(message, KEY_SEPARATOR, position, end);
+
+            if (colon < end) {
+                int keyStart = skipWhitespace(message, position, colon);
+                int keyEnd = trimWhitespace(message, keyStart, colon);
+                Payload key = lookupKey(message, keyStart, keyEnd);
+
+                int valueStart = skipWhitespace(message, colon + 1, end);
+                int valueEnd = trimWhitespace(message, valueStart, end);
+                if (key != null) {
+                    frame.set(key, message, valueStart, valueEnd);
+                } else if (unknown != null) {
+                    unknown.put(message.subSequence(keyStart, keyEnd).toString(),
+                            message.subSequence(valueStart, valueEnd).toString());
+                }
+            }
+            position = end + 1;
+        }
+        return frame;
+    }
+
+    /**
+     * Serializes a {@link Frame} into a buffer, appending to its current content.
+     *
+     * <p>The output has key-value pairs separated by '|', and keys and values separated by ':'.
+     *
+     * @param frame The frame to serialize.
+     * @param out   The buffer to append to, typically reused by the caller.
+     * @return The buffer.
+     */
+    public StringBuilder serialize(Frame frame, StringBuilder out) {
+        boolean first = true;
+        for (Payload key : KEYS) {
+            CharSequence source = frame.source(key);
+            if (source == null) {
+                continue;
+            }
+
+            if (!first) {
+                out.append(FIELD_SEPARATOR);
+            }
+            out.append(key.getValue()).append(KEY_SEPARATOR).append(source, frame.start(key), frame.end(key));
+            first = false;
+        }
+        return out;
+    }
+
     /**
      * Parses a message string into a {@link Map} of key-value pairs.
      *
      * <p>The input string should have key-value pairs separated by '|', and keys and values
-     * separated by ':'.
+     * separated by ':'. The message is scanned like {@link #parse(CharSequence, Frame)}, but
+     * unlike it every key is kept.
      *
      * @param message The raw message string to parse.
      * @return A {@link Map} containing the parsed key-value pairs.
      */
     public Map<String, String> parseMessage(String message) {
-        Map<String, String> result = new HashMap<>();
-
-        // Split the string based on the '|' delimiter
-        String[] parts = message.split("\\|");
-
-        for (String part : parts) {
-            // Split each part into key and value using ':'
-            String[] keyValue = part.split(":", 2);
-            if (keyValue.length == 2) {
-                result.put(keyValue[0].trim(), keyValue[1].trim());
-            }
-        }
+        Map<String, String> unknown = new HashMap<>();
+        Map<String, String> result = this.toMap(this.scan(message, new Frame(), unknown));
+        result.putAll(unknown);
         return result;
     }
 
@@ -76,13 +162,102 @@ public class MessageParser {
 
         while (iterator.hasNext()) {
             Map.Entry<String, String> entry = iterator.next();
-            result.append(entry.getKey()).append(":").append(entry.getValue());
+            result.append(entry.getKey()).append(KEY_SEPARATOR).append(entry.getValue());
 
             if (iterator.hasNext()) {
-                result.append("|");
+                result.append(FIELD_SEPARATOR);
             }
         }
         return result.toString();
     }
-}
 
+    /**
+     * Copies the fields of a {@link Frame} into a new {@link Map}, keyed like {@link #parseMessage(String)}.
+     *
+     * @param frame The frame to copy.
+     * @return A {@link Map} containing the fields present in the frame.
+     */
+    public Map<String, String> toMap(Frame frame) {
+        Map<String, String> result = new HashMap<>();
+        for (Payload key : KEYS) {
+            if (frame.has(key)) {
+                result.put(key.getValue(), frame.getString(key));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fills a {@link Frame} from a {@link Map} of key-value pairs. Keys that are not a
+     * {@link Payload} are skipped.
+     *
+     * @param message The {@link Map} containing key-value pairs.
+     * @param frame   The frame to fill; it is cleared first.
+     * @return The filled frame.
+     */
+    public Frame toFrame(Map<String, String> message, Frame frame) {
+        frame.clear();
+        for (Payload key : KEYS) {
+            frame.set(key, message.get(key.getValue()));
+        }
+        return frame;
+    }
+
+    /**
+     * Finds a character in a range.
+     *
+     * @return The index of the character, or {@code to} if it does not occur.
+     */
+    private static int indexOf(CharSequence message, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (message.charAt(i) == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Returns the first index in a range that is not whitespace, or {@code to}.
+     */
+    private static int skipWhitespace(CharSequence message, int from, int to) {
+        while (from < to && message.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Returns the end of a range without its trailing whitespace.
+     */
+    private static int trimWhitespace(CharSequence message, int from, int to) {
+        while (to > from && message.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Resolves the {@link Payload} whose key equals a range of the message.
+     *
+     * @return The payload key, or null if the range is not a known key.
+     */
+    private static Payload lookupKey(CharSequence message, int start, int end) {
+        int length = end - start;
+        for (Payload key : KEYS) {
+            String value = key.getValue();
+            if (value.length() != length) {
+                continue;
+            }
+
+            int i = 0;
+            while (i < length && message.charAt(start + i) == value.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return key;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A frame that is written to many connections, encoded at most once per {@link FrameCodec}.
+ *
+ * <p>A room broadcast goes out to every member, but members only differ in the codec they
+ * negotiated. The first member on a codec has the frame encoded into a read-only buffer and
+ * every later member on the same codec gets a {@link ByteBuffer#duplicate()} of it: a view
+ * with its own position over the same bytes. A broadcast to a thousand members therefore
+ * encodes its frame at most once per codec (text, binary and compressed) instead of a
+ * thousand times.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     shared.reset(frame);
+ *     for (Connection member : members) {
+ *         member.write(shared);
+ *     }
+ * </pre>
+ *
+ * <p>Thread safety: Not thread-safe. An instance is reset and used by the one thread doing the
+ * broadcast. The buffers it hands out are read-only and may be written by any thread.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public final class SharedFrame {
+
+    /** The frame being broadcast, only valid until the next reset */
+    private Frame frame;
+
+    /** Most codecs whose encodings are kept; a server has a text, a binary and a compressing one */
+    private static final int MAX_CODECS = 3;
+
+    /** Codecs the frame was encoded with so far, in order; the rest are null */
+    private final FrameCodec[] codecs = new FrameCodec[MAX_CODECS];
+
+    /** The frame encoded with the codec at the same index of {@link #codecs} */
+    private final ByteBuffer[] encodings = new ByteBuffer[MAX_CODECS];
+
+    /**
+     * Starts a new broadcast of a frame and forgets the previous encodings.
+     *
+     * @param frame The frame to broadcast; it must not change until the broadcast is done
+     * @return This shared frame
+     */
+    public SharedFrame reset(Frame frame) {
+        this.frame = frame;
+        Arrays.fill(this.codecs, null);
+        Arrays.fill(this.encodings, null);
+        return this;
+    }
+
+    /**
+     * Returns a view of the frame encoded with a codec, encoding it only the first time the
+     * codec is asked for.
+     *
+     * @param codec The codec of the receiving connection
+     * @return A read-only buffer of the encoded frame with its own position, ready to be written
+     */
+    public ByteBuffer encode(FrameCodec codec) {
+        int i = 0;
+        while (i < MAX_CODECS && this.codecs[i] != null) {
+            if (this.codecs[i] == codec) {
+                return this.encodings[i].duplicate();
+            }
+            i++;
+        }
+
+        ByteBuffer encoded = codec.encode(this.frame).asReadOnlyBuffer();
+        if (i < MAX_CODECS) {
+            this.codecs[i] = codec;
+            this.encodings[i] = encoded;
+        }
+        return encoded.duplicate();
+    }
+
+    /**
+     * Returns the frame being broadcast.
+     *
+     * @return The frame passed to the last {@link #reset(Frame)}
+     */
+    public Frame getFrame() {
+        return this.frame;
+    }
+}
@@ -0,0 +1,76 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The original line protocol: '|' separated {@code key:value} pairs in UTF-8, ended by '\n'.
+ *
+ * <p>The line is measured first and written straight into one exactly sized array, without an
+ * intermediate String. The format cannot carry a '|' or a line break inside a value, so they are
+ * written as spaces; this only affects messages relayed from a binary client to a text client.
+ * Lines are decoded by {@link MessageParser#parse(CharSequence, Frame)}.
+ *
+ * <p>Example encoded frame:
+ * <pre>
+ *     msg:{1} - Hello|from:hashed\n
+ * </pre>
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public final class TextCodec implements FrameCodec {
+
+    /** Shared instance */
+    public static final TextCodec INSTANCE = new TextCodec();
+
+    /** All payload keys, indexed by ordinal */
+    private static final Payload[] KEYS = Payload.values();
+
+    private TextCodec() {
+    }
+
+    @Override
+    public ByteBuffer encode(Frame frame) {
+        int length = 1;
+        for (Payload key : KEYS) {
+            CharSequence source = frame.source(key);
+            if (source != null) {
+                length += key.getValue().length() + 2 + Utf8.encodedLength(source, frame.start(key), frame.end(key));
+            }
+        }
+        if (length > 1) {
+            length--;
+        }
+
+        byte[] out = new byte[length];
+        int offset = 0;
+        for (Payload key : KEYS) {
+            CharSequence source = frame.source(key);
+            if (source == null) {
+                continue;
+            }
+
+            if (offset > 0) {
+                out[offset++] = '|';
+            }
+            String name = key.getValue();
+            for (int i = 0; i < name.length(); i++) {
+                out[offset++] = (byte) name.charAt(i);
+            }
+            out[offset++] = ':';
+
+            int valueStart = offset;
+            offset = Utf8.encode(source, frame.start(key), frame.end(key), out, offset);
+            for (int i = valueStart; i < offset; i++) {
+                if (out[i] == '|' || out[i] == '\n' || out[i] == '\r') {
+                    out[i] = ' ';
+                }
+            }
+        }
+        out[offset] = '\n';
+        return ByteBuffer.wrap(out);
+    }
+}
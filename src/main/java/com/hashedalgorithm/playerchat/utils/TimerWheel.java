@@ -0,0 +1,268 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TimerWheel runs many short tasks, such as connection deadlines, after a delay, on a single
+ * background thread.
+ *
+ * <p>Time is cut into ticks of a fixed duration and the wheel has a power of two number of
+ * slots, one per tick; slot {@code i} holds every timeout expiring on a tick equal to {@code i}
+ * modulo the number of slots, in a doubly linked list. A timeout further away than one turn of
+ * the wheel also counts the remaining turns. Once per tick, the ticker thread moves the timeouts
+ * scheduled since the last tick into their slots, then walks the slot of the current tick and
+ * runs the timeouts that are due.
+ *
+ * <p>{@link #schedule(Runnable, long)} adds the timeout to a lock-free queue and
+ * {@link Timeout#cancel()} flips its state with a compare-and-set, so both are O(1) and never
+ * wait for the ticker. A cancelled timeout is unlinked when the ticker next walks its slot.
+ * A timeout fires within one tick after its delay, never before.
+ *
+ * <p>Tasks run on the ticker thread and must be short; a task that throws is logged and does not
+ * stop the wheel.
+ *
+ * <p>Example usage:
+ * <pre>
+ *     TimerWheel timers = new TimerWheel("timers", 100, 512);
+ *     TimerWheel.Timeout deadline = timers.schedule(connection::close, 10_000);
+ *     // once the client answered
+ *     deadline.cancel();
+ * </pre>
+ *
+ * <p>Thread safety: {@link #schedule(Runnable, long)} and {@link Timeout#cancel()} may be called
+ * from any thread, including from a running task.
+ *
+ * @author Sanjay
+ * @version 1.0
+ * @since 2025-12-06
+ */
+public final class TimerWheel implements AutoCloseable {
+
+    /** State of a timeout that is waiting to fire */
+    private static final int PENDING = 0;
+
+    /** State of a timeout that was cancelled */
+    private static final int CANCELLED = 1;
+
+    /** State of a timeout whose task was run */
+    private static final int EXPIRED = 2;
+
+    /**
+     * A task scheduled on the wheel.
+     */
+    public static final class Timeout {
+
+        private final Runnable task;
+
+        /** Tick on which the timeout is due */
+        private final long deadline;
+
+        /** Turns of the wheel left before the timeout is due, counted down by the ticker */
+        private long rounds;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        /** Neighbours in the slot, null while the timeout is queued. Only used by the ticker */
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout, so its task is never run.
+         *
+         * @return false if the task already ran or the timeout was already cancelled
+         */
+        public boolean cancel() {
+            return this.state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        /**
+         * Returns whether the timeout was cancelled.
+         *
+         * @return true once {@link #cancel()} succeeded
+         */
+        public boolean isCancelled() {
+            return this.state.get() == CANCELLED;
+        }
+    }
+
+    /**
+     * The timeouts of one slot of the wheel. Only used by the ticker.
+     */
+    private static final class Slot {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.previous = this.tail;
+            if (this.tail == null) {
+                this.head = timeout;
+            } else {
+                this.tail.next = timeout;
+            }
+            this.tail = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                this.head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                this.tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+        }
+    }
+
+    /** Duration of a tick in nanoseconds */
+    private final long tickNanos;
+
+    /** Slots of the wheel, one per tick of a turn */
+    private final Slot[] slots;
+
+    /** {@link #slots} length - 1, the slots being a power of two */
+    private final int mask;
+
+    /** Timeouts scheduled since the last tick */
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+    /** {@link System#nanoTime()} at which the wheel started */
+    private final long startedAt = System.nanoTime();
+
+    /** Number of ticks processed so far. Only used by the ticker */
+    private long tick = 0;
+
+    /** Thread running the ticks and the tasks */
+    private final Thread ticker;
+
+    /** Whether {@link #close()} was called */
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a wheel and starts its ticker as a daemon thread.
+     *
+     * @param name       Name of the ticker thread
+     * @param tickMillis Duration of a tick in milliseconds, the precision of every timeout
+     * @param slots      Number of slots, rounded up to a power of two
+     * @throws IllegalArgumentException if the tick or the number of slots is below 1
+     */
+    public TimerWheel(String name, long tickMillis, int slots) {
+        if (tickMillis < 1 || slots < 1) {
+            throw new IllegalArgumentException(String.format("Invalid timer wheel %d ms x %d!", tickMillis, slots));
+        }
+        int size = Integer.highestOneBit(slots) == slots ? slots : Integer.highestOneBit(slots) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+
+        this.ticker = Thread.ofPlatform().name(name).daemon().unstarted(this::run);
+        this.ticker.start();
+    }
+
+    /**
+     * Runs a task once a delay has passed.
+     *
+     * @param task        The task, run on the ticker thread
+     * @param delayMillis Milliseconds to wait, rounded up to whole ticks
+     * @return The timeout, which can be cancelled
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        long elapsed = System.nanoTime() - this.startedAt + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        // Rounded up, so the timeout never fires early.
+        long deadline = (elapsed + this.tickNanos - 1) / this.tickNanos;
+        Timeout timeout = new Timeout(task, deadline);
+        this.scheduled.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the ticker. Timeouts that are not yet due never run.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.ticker.interrupt();
+    }
+
+    /**
+     * The ticker loop: waits for the end of every tick, then processes it.
+     */
+    private void run() {
+        while (!this.closed) {
+            long next = this.startedAt + (this.tick + 1) * this.tickNanos;
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    if (this.closed) {
+                        return;
+                    }
+                }
+            }
+
+            long tick = this.tick + 1;
+            this.transferScheduled(tick);
+            this.expire(this.slots[(int) (tick & this.mask)]);
+            this.tick = tick;
+        }
+    }
+
+    /**
+     * Links the timeouts scheduled since the last tick into their slots.
+     *
+     * @param tick The tick being processed
+     */
+    private void transferScheduled(long tick) {
+        Timeout timeout;
+        while ((timeout = this.scheduled.poll()) != null) {
+            if (timeout.state.get() != PENDING) {
+                continue;
+            }
+            long due = Math.max(timeout.deadline, tick);
+            timeout.rounds = (due - tick) >> Integer.numberOfTrailingZeros(this.slots.length);
+            this.slots[(int) (due & this.mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Runs every timeout of a slot that is due, unlinking it and the cancelled ones.
+     *
+     * @param slot The slot of the tick being processed
+     */
+    private void expire(Slot slot) {
+        Timeout timeout = slot.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.state.get() != PENDING) {
+                slot.remove(timeout);
+            } else if (timeout.rounds <= 0) {
+                slot.remove(timeout);
+                if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        Log.error("Timer task failed: %s", e.getMessage());
+                    }
+                }
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+}
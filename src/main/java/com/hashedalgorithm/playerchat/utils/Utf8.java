@@ -0,0 +1,146 @@
+package com.hashedalgorithm.playerchat.utils;
+
+/**
+ * Allocation-free UTF-8 helpers used by the frame codecs.
+ *
+ * <p>The JDK encoders work on whole Strings or need a {@link java.nio.charset.CharsetEncoder}
+ * per thread. The codecs instead measure a field first, allocate the exact frame once and
+ * then write every field straight into it, which only needs these small loops.
+ * Unpaired surrogates and malformed input are replaced with U+FFFD.
+ */
+public final class Utf8 {
+
+    /** Character written for malformed input */
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private Utf8() {
+    }
+
+    /**
+     * Returns the number of bytes a range of characters takes in UTF-8.
+     *
+     * @param value The characters
+     * @param start Start offset
+     * @param end   End offset (exclusive)
+     * @return The encoded length in bytes
+     */
+    public static int encodedLength(CharSequence value, int start, int end) {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encodes a range of characters as UTF-8 into a byte array.
+     *
+     * @param value  The characters
+     * @param start  Start offset
+     * @param end    End offset (exclusive)
+     * @param out    The destination, large enough for {@link #encodedLength(CharSequence, int, int)} bytes
+     * @param offset Offset in the destination to write at
+     * @return The offset after the last byte written
+     */
+    public static int encode(CharSequence value, int start, int end, byte[] out, int offset) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                out[offset++] = (byte) (0xC0 | (c >> 6));
+                out[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                out[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[offset++] = (byte) 0xEF;
+                out[offset++] = (byte) 0xBF;
+                out[offset++] = (byte) 0xBD;
+            } else {
+                out[offset++] = (byte) (0xE0 | (c >> 12));
+                out[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Decodes UTF-8 bytes into a char array. The destination needs at most one char per byte.
+     *
+     * @param in        The source bytes
+     * @param offset    Offset of the first byte
+     * @param length    Number of bytes to decode
+     * @param out       The destination
+     * @param outOffset Offset in the destination to write at
+     * @return The offset after the last char written
+     */
+    public static int decode(byte[] in, int offset, int length, char[] out, int outOffset) {
+        int end = offset + length;
+        while (offset < end) {
+            int b = in[offset++];
+            if (b >= 0) {
+                out[outOffset++] = (char) b;
+                continue;
+            }
+
+            int extra;
+            int codePoint;
+            if ((b & 0xE0) == 0xC0) {
+                extra = 1;
+                codePoint = b & 0x1F;
+            } else if ((b & 0xF0) == 0xE0) {
+                extra = 2;
+                codePoint = b & 0x0F;
+            } else if ((b & 0xF8) == 0xF0) {
+                extra = 3;
+                codePoint = b & 0x07;
+            } else {
+                out[outOffset++] = REPLACEMENT;
+                continue;
+            }
+
+            if (offset + extra > end) {
+                out[outOffset++] = REPLACEMENT;
+                break;
+            }
+
+            boolean valid = true;
+            for (int i = 0; i < extra; i++) {
+                int next = in[offset + i];
+                if ((next & 0xC0) != 0x80) {
+                    valid = false;
+                    break;
+                }
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            if (!valid) {
+                out[outOffset++] = REPLACEMENT;
+                continue;
+            }
+            offset += extra;
+
+            if (codePoint >= 0x10000) {
+                out[outOffset++] = Character.highSurrogate(codePoint);
+                out[outOffset++] = Character.lowSurrogate(codePoint);
+            } else {
+                out[outOffset++] = (char) codePoint;
+            }
+        }
+        return outOffset;
+    }
+}
@@ -0,0 +1,271 @@
+package com.hashedalgorithm.playerchat.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hashedalgorithm.playerchat.enums.ClientStatus;
+import com.hashedalgorithm.playerchat.server.RateLimit;
+import com.hashedalgorithm.playerchat.server.Server;
+import com.hashedalgorithm.playerchat.server.ServerConfig;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AsyncClient} against a real server on loopback.
+ */
+public class AsyncClientTest
+{
+    private static Server startServer()
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.UNLIMITED));
+        server.setDaemon(true);
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void pipelinedRequestsAreAnsweredByCorrelationId() throws Exception
+    {
+        Server server = startServer();
+        List<AsyncClient.ChatMessage> received = new CopyOnWriteArrayList<>();
+        CountDownLatch allReceived = new CountDownLatch(100);
+
+        try (AsyncClient hashed = new AsyncClient("127.0.0.1", server.getLocalPort(), true);
+             AsyncClient dee = new AsyncClient("127.0.0.1", server.getLocalPort(), false)) {
+            dee.onMessage(message -> {
+                received.add(message);
+                allReceived.countDown();
+            });
+
+            // Nothing waits for an answer before the next request is sent.
+            CompletableFuture<ClientStatus> deeHandshake = dee.handshake("dee");
+            CompletableFuture<ClientStatus> deeJoin = dee.join("lobby");
+            assertEquals(ClientStatus.SUCCESS, deeHandshake.get(5, TimeUnit.SECONDS));
+
+            CompletableFuture<ClientStatus> handshake = hashed.handshake("hashed");
+            CompletableFuture<ClientStatus> chat = hashed.requestChat("dee");
+            CompletableFuture<ClientStatus> join = hashed.join("lobby");
+            List<CompletableFuture<ClientStatus>> sent = new ArrayList<>();
+            for (int i = 0; i < 99; i++) {
+                sent.add(hashed.send("dee", "message " + i));
+            }
+            sent.add(hashed.broadcast("lobby", "gg"));
+            // Stored in the offline player's mailbox.
+            CompletableFuture<ClientStatus> offline = hashed.send("nobody", "hello?");
+
+            assertEquals(ClientStatus.SUCCESS, handshake.get(5, TimeUnit.SECONDS));
+            assertEquals(ClientStatus.SUCCESS, chat.get(5, TimeUnit.SECONDS));
+            assertEquals(ClientStatus.SUCCESS, join.get(5, TimeUnit.SECONDS));
+            assertEquals(ClientStatus.SUCCESS, deeJoin.get(5, TimeUnit.SECONDS));
+            for (CompletableFuture<ClientStatus> status : sent) {
+                assertEquals(ClientStatus.SUCCESS, status.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(ClientStatus.SUCCESS, offline.get(5, TimeUnit.SECONDS));
+
+            assertTrue(allReceived.await(5, TimeUnit.SECONDS));
+            assertEquals(new AsyncClient.ChatMessage("hashed", null, "{1} - message 0"), received.get(0));
+            assertEquals(new AsyncClient.ChatMessage("hashed", "lobby", "{1} - gg"), received.get(99));
+        }
+    }
+
+    @Test
+    public void messagesArrivingDuringARequestDoNotAnswerIt() throws Exception
+    {
+        Server server = startServer();
+        try (AsyncClient hashed = new AsyncClient("127.0.0.1", server.getLocalPort(), false);
+             AsyncClient dee = new AsyncClient("127.0.0.1", server.getLocalPort(), true)) {
+            CountDownLatch chatting = new CountDownLatch(1);
+            hashed.onChatRequest(from -> {
+                chatting.countDown();
+                return from.equals("dee");
+            });
+            hashed.handshake("hashed").get(5, TimeUnit.SECONDS);
+            dee.handshake("dee").get(5, TimeUnit.SECONDS);
+
+            assertEquals(ClientStatus.SUCCESS, dee.requestChat("hashed").get(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 50; i++) {
+                dee.send("hashed", "spam " + i);
+            }
+            String stats = hashed.stats().get(5, TimeUnit.SECONDS);
+
+            assertTrue(stats, stats.startsWith("connections.accepted=2"));
+            assertEquals(0, chatting.getCount());
+        }
+    }
+
+    @Test
+    public void everySessionOfAConnectionIsNumberedOnItsOwn() throws Exception
+    {
+        Server server = startServer();
+        List<AsyncClient.ChatMessage> received = new CopyOnWriteArrayList<>();
+        CountDownLatch allReceived = new CountDownLatch(6);
+
+        try (AsyncClient hashed = new AsyncClient("127.0.0.1", server.getLocalPort(), true);
+             AsyncClient dee = new AsyncClient("127.0.0.1", server.getLocalPort(), true);
+             AsyncClient kay = new AsyncClient("127.0.0.1", server.getLocalPort(), false)) {
+            dee.onMessage(message -> {
+                received.add(message);
+                allReceived.countDown();
+            });
+            kay.onMessage(message -> {
+                received.add(message);
+                allReceived.countDown();
+            });
+            dee.handshake("dee").get(5, TimeUnit.SECONDS);
+            kay.handshake("kay").get(5, TimeUnit.SECONDS);
+            kay.join("lobby").get(5, TimeUnit.SECONDS);
+            hashed.handshake("hashed").get(5, TimeUnit.SECONDS);
+            hashed.join("lobby").get(5, TimeUnit.SECONDS);
+
+            // Interleaved over one connection: a session with dee, one with kay, one with the lobby.
+            for (int i = 0; i < 2; i++) {
+                hashed.send("dee", "to dee " + i);
+                hashed.send("kay", "to kay " + i);
+                hashed.broadcast("lobby", "to lobby " + i).get(5, TimeUnit.SECONDS);
+            }
+
+            assertTrue(allReceived.await(5, TimeUnit.SECONDS));
+            assertTrue(received.contains(new AsyncClient.ChatMessage("hashed", null, "{2} - to dee 1")));
+            assertTrue(received.contains(new AsyncClient.ChatMessage("hashed", null, "{2} - to kay 1")));
+            assertTrue(received.contains(new AsyncClient.ChatMessage("hashed", "lobby", "{2} - to lobby 1")));
+        }
+    }
+
+    @Test
+    public void aResumedPlayerGetsWhatItDidNotAcknowledge() throws Exception
+    {
+        Server server = startServer();
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch firstConnection = new CountDownLatch(3);
+
+        try (AsyncClient hashed = new AsyncClient("127.0.0.1", server.getLocalPort(), true)) {
+            AsyncClient dee = new AsyncClient("127.0.0.1", server.getLocalPort(), true);
+            dee.onMessage(message -> {
+                received.add(message.text());
+                firstConnection.countDown();
+                if (received.size() == 3) {
+                    // Dies before the acknowledgement is due.
+                    dee.close();
+                }
+            });
+            assertEquals(ClientStatus.SUCCESS, dee.resume("dee", 0).get(5, TimeUnit.SECONDS));
+            hashed.handshake("hashed").get(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 3; i++) {
+                hashed.send("dee", "message " + i).get(5, TimeUnit.SECONDS);
+            }
+            assertTrue(firstConnection.await(5, TimeUnit.SECONDS));
+            assertEquals(3, dee.getLastSequence());
+
+            // Only the first message was handled before the crash, so resume after it.
+            CountDownLatch secondConnection = new CountDownLatch(3);
+            AsyncClient resumed = null;
+            for (int attempt = 0; attempt < 50 && resumed == null; attempt++) {
+                AsyncClient client = new AsyncClient("127.0.0.1", server.getLocalPort(), false);
+                client.onMessage(message -> {
+                    received.add(message.text());
+                    secondConnection.countDown();
+                });
+                if (client.resume("dee", 1).get(5, TimeUnit.SECONDS) == ClientStatus.SUCCESS) {
+                    resumed = client;
+                } else {
+                    // The server has not seen the first connection close yet.
+                    client.close();
+                    Thread.sleep(50);
+                }
+            }
+            try (AsyncClient dee2 = resumed) {
+                hashed.send("dee", "message 3").get(5, TimeUnit.SECONDS);
+                assertTrue(secondConnection.await(5, TimeUnit.SECONDS));
+                assertEquals(List.of("{1} - message 0", "{2} - message 1", "{3} - message 2",
+                        "{2} - message 1", "{3} - message 2", "{4} - message 3"), received);
+                assertEquals(4, dee2.getLastSequence());
+            }
+        }
+    }
+
+    @Test
+    public void aMessageToALeftPlayersHandleIsSentAgainByName() throws Exception
+    {
+        Server server = startServer();
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch firstDelivered = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        try (AsyncClient hashed = new AsyncClient("127.0.0.1", server.getLocalPort(), true)) {
+            AsyncClient dee = new AsyncClient("127.0.0.1", server.getLocalPort(), false);
+            dee.onMessage(message -> {
+                received.add(message.text());
+                firstDelivered.countDown();
+            });
+            assertEquals(ClientStatus.SUCCESS, dee.handshake("dee").get(5, TimeUnit.SECONDS));
+            hashed.handshake("hashed").get(5, TimeUnit.SECONDS);
+            // The confirmation of dee carries its handle, which addresses the message.
+            assertEquals(ClientStatus.SUCCESS, hashed.requestChat("dee").get(5, TimeUnit.SECONDS));
+            assertEquals(ClientStatus.SUCCESS, hashed.send("dee", "first").get(5, TimeUnit.SECONDS));
+            assertEquals(0, server.getMetrics().getRouteMisses());
+            // Queued by the server is not read by dee yet; closing now could lose the message.
+            assertTrue(firstDelivered.await(5, TimeUnit.SECONDS));
+            dee.close();
+
+            AsyncClient back = null;
+            for (int attempt = 0; attempt < 50 && back == null; attempt++) {
+                AsyncClient client = new AsyncClient("127.0.0.1", server.getLocalPort(), false);
+                client.onMessage(message -> {
+                    received.add(message.text());
+                    delivered.countDown();
+                });
+                if (client.handshake("dee").get(5, TimeUnit.SECONDS) == ClientStatus.SUCCESS) {
+                    back = client;
+                } else {
+                    // The server has not seen the first connection close yet.
+                    client.close();
+                    Thread.sleep(50);
+                }
+            }
+            assertNotNull(back);
+            try {
+                // The old handle is refused, even though its slot now holds dee again.
+                assertEquals(ClientStatus.SUCCESS, hashed.send("dee", "second").get(5, TimeUnit.SECONDS));
+                assertTrue(delivered.await(5, TimeUnit.SECONDS));
+                assertEquals(1, server.getMetrics().getRouteMisses());
+                assertEquals(List.of("{1} - first", "{2} - second"), received);
+            } finally {
+                back.close();
+            }
+        }
+    }
+
+    @Test
+    public void outstandingRequestsFailWhenTheConnectionCloses() throws Exception
+    {
+        Server server = startServer();
+        try (Socket silent = new Socket("127.0.0.1", server.getLocalPort())) {
+            // A player whose client never answers chat requests.
+            silent.getOutputStream().write("req:handshake|from:dee\n".getBytes(StandardCharsets.UTF_8));
+            silent.getInputStream().read();
+
+            AsyncClient client = new AsyncClient("127.0.0.1", server.getLocalPort(), false);
+            client.handshake("hashed").get(5, TimeUnit.SECONDS);
+            CompletableFuture<ClientStatus> chat = client.requestChat("dee");
+            client.close();
+
+            try {
+                chat.get(5, TimeUnit.SECONDS);
+                fail("The request should have failed");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Tests for {@link BufferPool} and for the connections borrowing from it, with leak detection.
+ */
+public class BufferPoolTest
+{
+    @Test
+    public void buffersAreLentBySizeClassAndReused()
+    {
+        ServerMetrics metrics = new ServerMetrics();
+        BufferPool pool = new BufferPool(BufferPool.SLAB_SIZE, true, metrics);
+
+        ByteBuffer small = pool.acquire(100);
+        assertTrue(small.isDirect());
+        assertEquals(1024, small.capacity());
+        assertEquals(1024, metrics.getBufferBytes());
+        assertEquals(1, pool.getLeaks().size());
+
+        pool.release(small);
+        assertSame(small, pool.acquire(1024));
+        pool.release(small);
+        assertEquals(0, metrics.getBufferBytes());
+        assertEquals(1024, metrics.getBufferBytesMax());
+        assertTrue(pool.getLeaks().isEmpty());
+
+        try {
+            pool.release(small);
+            fail("A buffer released twice must be reported");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void requestsPastTheLimitGetHeapBuffers()
+    {
+        ServerMetrics metrics = new ServerMetrics();
+        BufferPool pool = new BufferPool(BufferPool.SLAB_SIZE, false, metrics);
+
+        // The one slab allowed is cut into four buffers of the largest class.
+        ByteBuffer[] lent = new ByteBuffer[4];
+        for (int i = 0; i < lent.length; i++) {
+            lent[i] = pool.acquire(64 * 1024);
+            assertTrue(lent[i].isDirect());
+        }
+        ByteBuffer missed = pool.acquire(1024);
+        assertFalse(missed.isDirect());
+        assertFalse(pool.acquire(1024 * 1024).isDirect());
+        assertEquals(2, metrics.getBufferMisses());
+        assertEquals(BufferPool.SLAB_SIZE, pool.getReservedBytes());
+
+        pool.release(missed);
+        for (ByteBuffer buffer : lent) {
+            pool.release(buffer);
+        }
+        assertEquals(0, metrics.getBufferBytes());
+    }
+
+    @Test
+    public void connectionsOfEveryModeGiveTheirBuffersBack() throws Exception
+    {
+        for (ServerMode mode : new ServerMode[] {ServerMode.VIRTUAL, ServerMode.SELECTOR}) {
+            Server server = new Server(new ServerConfig().setPort(0).setMode(mode).setBufferLeakDetection(true)
+                    .setMessageLimit(RateLimit.UNLIMITED));
+            server.setDaemon(true);
+            server.start();
+
+            try (Socket hashed = new Socket("127.0.0.1", server.getLocalPort());
+                 Socket dee = new Socket("127.0.0.1", server.getLocalPort())) {
+                OutputStream hashedOut = hashed.getOutputStream();
+                BufferedReader deeIn = new BufferedReader(new InputStreamReader(dee.getInputStream(), StandardCharsets.UTF_8));
+                dee.getOutputStream().write("req:handshake|from:dee\n".getBytes(StandardCharsets.UTF_8));
+                assertTrue(deeIn.readLine().startsWith("req:handshake|stat:success"));
+                hashedOut.write("req:handshake|from:hashed\n".getBytes(StandardCharsets.UTF_8));
+
+                // A line longer than one read buffer arrives in several reads.
+                String longMessage = "x".repeat(20_000);
+                hashedOut.write(("from:hashed|to:dee|msg:" + longMessage + "\n").getBytes(StandardCharsets.UTF_8));
+                hashedOut.write("from:hashed|to:dee|msg:gg\n".getBytes(StandardCharsets.UTF_8));
+                assertEquals("msg:{1} - " + longMessage + "|from:hashed", deeIn.readLine());
+                assertEquals("msg:{2} - gg|from:hashed", deeIn.readLine());
+            }
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (server.getMetrics().getConnectionsActive() != 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, server.getMetrics().getConnectionsActive());
+            assertTrue(mode + " leaked " + server.getBufferPool().getLeaks(), server.getBufferPool().getLeaks().isEmpty());
+            assertEquals(0, server.getMetrics().getBufferBytes());
+            assertTrue(server.getMetrics().getBufferBytesMax() > 0);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.AdmissionPolicy;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+
+/**
+ * Concurrency tests for {@link ClientRegistry} and the handshake and removal paths of
+ * {@link ClientInstance} that use it.
+ */
+public class ClientRegistryTest
+{
+    private static final int THREADS = 16;
+
+    /** Connection that discards everything written to it */
+    private static class NullConnection implements Connection
+    {
+        @Override
+        public void write(Frame frame) {}
+
+        @Override
+        public void write(Frame[] frames) {}
+
+        @Override
+        public void write(SharedFrame frame) {}
+
+        @Override
+        public void setCodec(FrameCodec codec) {}
+
+        @Override
+        public void close() {}
+    }
+
+    private static ClientInstance newClient(Server server)
+    {
+        return new ClientInstance(server, new NullConnection());
+    }
+
+    private static boolean handshake(ClientInstance client, String name)
+    {
+        try {
+            client.handleFrame("req:handshake|from:" + name);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void racingHandshakesClaimEachNameExactlyOnce() throws Exception
+    {
+        Server server = new Server(0);
+        int names = 500;
+        AtomicIntegerArray winners = new AtomicIntegerArray(names);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < names; i++) {
+                if (handshake(newClient(server), "player-" + i)) {
+                    winners.incrementAndGet(i);
+                }
+            }
+        });
+
+        for (int i = 0; i < names; i++) {
+            assertEquals("player-" + i, 1, winners.get(i));
+            assertEquals("player-" + i, server.getClient("player-" + i).instanceId);
+        }
+    }
+
+    @Test
+    public void handshakeAndRemovalChurnNeverSharesAName() throws Exception
+    {
+        Server server = new Server(0);
+        int names = 8;
+        AtomicIntegerArray owners = new AtomicIntegerArray(names);
+        AtomicInteger violations = new AtomicInteger();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                int name = random.nextInt(names);
+                ClientInstance client = newClient(server);
+                if (handshake(client, "player-" + name)) {
+                    if (owners.incrementAndGet(name) != 1) {
+                        violations.incrementAndGet();
+                    }
+                    assertSame(client, server.getClient("player-" + name));
+                    owners.decrementAndGet(name);
+                }
+                client.closeConnection();
+            }
+        });
+
+        assertEquals(0, violations.get());
+        for (int i = 0; i < names; i++) {
+            assertNull(server.getClient("player-" + i));
+        }
+    }
+
+    @Test
+    public void closingALoserDoesNotRemoveTheOwner()
+    {
+        Server server = new Server(0);
+        ClientInstance owner = newClient(server);
+        ClientInstance loser = newClient(server);
+
+        assertTrue(handshake(owner, "hashed"));
+        assertFalse(handshake(loser, "hashed"));
+        loser.closeConnection();
+
+        assertSame(owner, server.getClient("hashed"));
+    }
+
+    @Test
+    public void rejectPolicyNeverAdmitsMoreThanTheLimit() throws Exception
+    {
+        ClientRegistry registry = new ClientRegistry(32, AdmissionPolicy.REJECT);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger overLimit = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 50_000; i++) {
+                try {
+                    if (registry.admit()) {
+                        if (admitted.incrementAndGet() > 32) {
+                            overLimit.incrementAndGet();
+                        }
+                        admitted.decrementAndGet();
+                        registry.leave();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+
+        assertEquals(0, overLimit.get());
+    }
+
+    @Test
+    public void blockPolicyWaitsForAFreeSlot() throws Exception
+    {
+        ClientRegistry registry = new ClientRegistry(1, AdmissionPolicy.BLOCK);
+        assertTrue(registry.admit());
+
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                registry.admit();
+                admitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        assertFalse(admitted.await(200, TimeUnit.MILLISECONDS));
+        registry.leave();
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+    }
+}
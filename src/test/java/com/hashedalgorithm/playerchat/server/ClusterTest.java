@@ -0,0 +1,214 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Cluster}, with three nodes linked over loopback in one JVM.
+ */
+public class ClusterTest
+{
+    private static void await(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Starts three nodes on free ports, each dialing the nodes started before it, and waits
+     * until all of them are linked.
+     */
+    private static Server[] startNodes() throws InterruptedException
+    {
+        return startNodes(ServerMode.BLOCKING, 3);
+    }
+
+    private static Server[] startNodes(ServerMode mode, int count) throws InterruptedException
+    {
+        Server[] nodes = new Server[count];
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Server(new ServerConfig()
+                    .setPort(0)
+                    .setMode(mode)
+                    .setMessageLimit(RateLimit.UNLIMITED)
+                    .setNodeId("node-" + i)
+                    .setClusterPort(0)
+                    .setPeers(List.copyOf(peers)));
+            nodes[i].start();
+            peers.add(new InetSocketAddress("127.0.0.1", nodes[i].getCluster().getPort()));
+        }
+        for (Server node : nodes) {
+            await(() -> node.getCluster().getLinkCount() == nodes.length - 1);
+        }
+        return nodes;
+    }
+
+    private static String handshake(Server node, String name, RecordingConnection connection) throws Exception
+    {
+        try {
+            new ClientInstance(node, connection).handleFrame("req:handshake|from:" + name);
+        } catch (IOException e) {
+            // The rejection was written to the connection.
+        }
+        return connection.next();
+    }
+
+    @Test
+    public void routesRequestsAndMessagesBetweenNodes() throws Exception
+    {
+        Server[] nodes = startNodes();
+        RecordingConnection hashedConnection = new RecordingConnection();
+        RecordingConnection deeConnection = new RecordingConnection();
+        ClientInstance hashed = new ClientInstance(nodes[0], hashedConnection);
+        ClientInstance dee = new ClientInstance(nodes[2], deeConnection);
+        hashed.handleFrame("req:handshake|from:hashed");
+        dee.handleFrame("req:handshake|from:dee");
+        hashedConnection.next();
+        deeConnection.next();
+        await(() -> "node-2".equals(nodes[0].getCluster().locate("dee"))
+                && "node-0".equals(nodes[2].getCluster().locate("hashed")));
+
+        hashed.handleFrame("from:hashed|to:dee|req:msg");
+        assertEquals("req:msg|from:hashed\n", deeConnection.next());
+
+        dee.handleFrame("from:dee|to:hashed|req:msg|stat:success");
+        assertEquals("req:msg|from:dee|stat:success\n", hashedConnection.next());
+
+        hashed.handleFrame("from:hashed|to:dee|msg:grüße from node 0");
+        assertEquals("msg:{1} - grüße from node 0|from:hashed\n", deeConnection.next());
+        assertTrue(nodes[0].getMetrics().getPeerWrites() > 0);
+    }
+
+    @Test
+    public void instanceIdsAreUniqueAcrossNodesUntilReleased() throws Exception
+    {
+        Server[] nodes = startNodes();
+        RecordingConnection first = new RecordingConnection();
+        ClientInstance hashed = new ClientInstance(nodes[0], first);
+        hashed.handleFrame("req:handshake|from:hashed");
+        first.next();
+        await(() -> "node-0".equals(nodes[1].getCluster().locate("hashed"))
+                && "node-0".equals(nodes[2].getCluster().locate("hashed")));
+
+        assertEquals("req:handshake|stat:failed|id:hashed\n", handshake(nodes[1], "hashed", new RecordingConnection()));
+        assertEquals("req:handshake|stat:failed|id:hashed\n", handshake(nodes[2], "hashed", new RecordingConnection()));
+
+        hashed.closeConnection();
+        await(() -> nodes[1].getCluster().locate("hashed") == null && nodes[2].getCluster().locate("hashed") == null);
+
+        assertEquals("req:handshake|stat:success|id:hashed|hid:1048576\n", handshake(nodes[2], "hashed", new RecordingConnection()));
+        await(() -> "node-2".equals(nodes[0].getCluster().locate("hashed")));
+    }
+
+    @Test
+    public void concurrentClaimsOfOneIdHaveExactlyOneWinner() throws Exception
+    {
+        Server[] nodes = startNodes();
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.length);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String name = "player-" + round;
+                List<Future<String>> answers = new ArrayList<>();
+                for (Server node : nodes) {
+                    Callable<String> claim = () -> handshake(node, name, new RecordingConnection());
+                    answers.add(executor.submit(claim));
+                }
+
+                int winners = 0;
+                for (Future<String> answer : answers) {
+                    if (answer.get().contains("stat:success")) {
+                        winners++;
+                    }
+                }
+                assertEquals(name, 1, winners);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void aLosingClaimKeepsTheWinnerInTheDirectory() throws Exception
+    {
+        // With two nodes, a claim only loses to the other node's claim, which is then recorded.
+        Server[] nodes = startNodes(ServerMode.BLOCKING, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.length);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String name = "player-" + round;
+                List<Future<String>> answers = new ArrayList<>();
+                for (Server node : nodes) {
+                    Callable<String> claim = () -> handshake(node, name, new RecordingConnection());
+                    answers.add(executor.submit(claim));
+                }
+
+                int winner = answers.get(0).get().contains("stat:success") ? 0 : 1;
+                assertTrue(name, answers.get(1 - winner).get().contains("stat:failed"));
+                Cluster loser = nodes[1 - winner].getCluster();
+                assertTrue(name, loser.isKnown(name));
+                await(() -> ("node-" + winner).equals(loser.locate(name)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void lostNodeIsRemovedFromTheDirectory() throws Exception
+    {
+        Server[] nodes = startNodes();
+        RecordingConnection deeConnection = new RecordingConnection();
+        new ClientInstance(nodes[2], deeConnection).handleFrame("req:handshake|from:dee");
+        deeConnection.next();
+        await(() -> "node-2".equals(nodes[0].getCluster().locate("dee")));
+
+        nodes[2].getCluster().close();
+        await(() -> nodes[0].getCluster().getLinkCount() == 1 && nodes[0].getCluster().locate("dee") == null);
+
+        assertEquals("req:handshake|stat:success|id:dee|hid:1048576\n", handshake(nodes[0], "dee", new RecordingConnection()));
+    }
+
+    @Test
+    public void selectorNodeFinishesHandshakesWhenTheVotesAreIn() throws Exception
+    {
+        Server[] nodes = startNodes(ServerMode.SELECTOR, 3);
+        try (Socket dee = new Socket("127.0.0.1", nodes[2].getLocalPort());
+             Socket hashed = new Socket("127.0.0.1", nodes[0].getLocalPort())) {
+            BufferedReader deeIn = new BufferedReader(new InputStreamReader(dee.getInputStream(), StandardCharsets.UTF_8));
+            BufferedReader hashedIn = new BufferedReader(new InputStreamReader(hashed.getInputStream(), StandardCharsets.UTF_8));
+            dee.getOutputStream().write("req:handshake|from:dee\n".getBytes(StandardCharsets.UTF_8));
+            assertTrue(deeIn.readLine().startsWith("req:handshake|stat:success|id:dee"));
+            await(() -> "node-2".equals(nodes[0].getCluster().locate("dee")));
+
+            // The message arrives with the handshake and is only handled once the claim succeeded.
+            hashed.getOutputStream().write("req:handshake|from:hashed\nfrom:hashed|to:dee|msg:gg\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            assertTrue(hashedIn.readLine().startsWith("req:handshake|stat:success|id:hashed"));
+            assertEquals("msg:{1} - gg|from:hashed", deeIn.readLine());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.ClientStatus;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import com.hashedalgorithm.playerchat.utils.BinaryCodec;
+import com.hashedalgorithm.playerchat.utils.DeflateCodec;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Tests for {@link InboundDecoder} and the protocol switch negotiated in the handshake.
+ */
+public class InboundDecoderTest
+{
+    @Test
+    public void switchesToBinaryRightAfterTheHandshake() throws IOException
+    {
+        RecordingConnection connection = new RecordingConnection();
+        ClientInstance client = new ClientInstance(new Server(new ServerConfig().setPort(0).setMailboxSize(0)), connection);
+        connection.decoder = new InboundDecoder(client);
+
+        ByteArrayOutputStream in = new ByteArrayOutputStream();
+        in.writeBytes("req:handshake|from:hashed|enc:bin\r\n".getBytes(StandardCharsets.UTF_8));
+        in.writeBytes(BinaryCodec.INSTANCE.encode(new Frame()
+                .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                .set(Payload.FROM, "hashed")
+                .set(Payload.TO, "nobody")).array());
+
+        // One byte at a time, so every frame arrives split across reads.
+        byte[] bytes = in.toByteArray();
+        for (int i = 0; i < bytes.length; i++) {
+            connection.decoder.feed(bytes, i, 1);
+        }
+
+        assertEquals(2, connection.written.size());
+        assertEquals("req:handshake|stat:success|id:hashed|enc:bin|hid:1048576\n", connection.written.get(0));
+
+        byte[] reply = connection.encoded.get(1).array();
+        int header = BinaryCodec.headerLength(reply, 0, reply.length);
+        int length = BinaryCodec.bodyLength(reply, 0);
+        Frame failure = BinaryCodec.decode(reply, header, length, new Frame(), CharBuffer.allocate(length));
+
+        assertTrue(failure.is(Payload.REQUEST, PayloadValue.MESSAGE.getValue()));
+        assertTrue(failure.is(Payload.STATUS, ClientStatus.FAILED.getValue()));
+        assertEquals("nobody", failure.getString(Payload.FROM));
+    }
+
+    @Test
+    public void textClientsStayOnTheLineProtocol() throws IOException
+    {
+        RecordingConnection connection = new RecordingConnection();
+        ClientInstance client = new ClientInstance(new Server(new ServerConfig().setPort(0).setMailboxSize(0)), connection);
+        connection.decoder = new InboundDecoder(client);
+
+        byte[] bytes = "req:handshake|from:dee\nreq:msg|from:dee|to:nobody\n".getBytes(StandardCharsets.UTF_8);
+        connection.decoder.feed(bytes, 0, bytes.length);
+
+        assertEquals(2, connection.written.size());
+        assertEquals("req:handshake|stat:success|id:dee|hid:1048576\n", connection.written.get(0));
+        assertEquals("req:msg|from:nobody|stat:failed\n", connection.written.get(1));
+    }
+
+    @Test
+    public void compressedClientsExchangeLargeFramesDeflated() throws IOException
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setMailboxSize(0).setMessageLimit(RateLimit.UNLIMITED));
+        RecordingConnection hashed = new RecordingConnection();
+        RecordingConnection dee = new RecordingConnection();
+        hashed.decoder = new InboundDecoder(new ClientInstance(server, hashed));
+        dee.decoder = new InboundDecoder(new ClientInstance(server, dee));
+
+        feed(hashed, "req:handshake|from:hashed|enc:deflate\n".getBytes(StandardCharsets.UTF_8));
+        feed(dee, "req:handshake|from:dee|enc:deflate\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals("req:handshake|stat:success|id:dee|enc:deflate|hid:1048577\n", dee.written.get(0));
+
+        String paste = "anyone want to play another round in the arena? ".repeat(20);
+        byte[] sent = server.getDeflateCodec().encode(new Frame()
+                .set(Payload.FROM, "hashed")
+                .set(Payload.TO, "dee")
+                .set(Payload.MESSAGE, paste)).array();
+        assertTrue(DeflateCodec.isCompressed(sent, BinaryCodec.headerLength(sent, 0, sent.length)));
+        feed(hashed, sent);
+
+        byte[] received = dee.encoded.get(dee.encoded.size() - 1).array();
+        int header = BinaryCodec.headerLength(received, 0, received.length);
+        int length = BinaryCodec.bodyLength(received, 0);
+        assertTrue(received.length + " bytes", received.length < paste.length() / 4);
+        byte[] body = new byte[DeflateCodec.inflatedLength(received, header, length)];
+        int inflated = server.getDeflateCodec().inflate(received, header, length, body);
+        Frame message = BinaryCodec.decode(body, 0, inflated, new Frame(), CharBuffer.allocate(inflated));
+        assertEquals("{1} - " + paste, message.getString(Payload.MESSAGE));
+        assertEquals("hashed", message.getString(Payload.FROM));
+    }
+
+    @Test
+    public void serversRefusingCompressionConfirmPlainBinary() throws IOException
+    {
+        RecordingConnection connection = new RecordingConnection();
+        ClientInstance client = new ClientInstance(new Server(new ServerConfig().setPort(0).setCompressThreshold(0)), connection);
+        connection.decoder = new InboundDecoder(client);
+
+        feed(connection, "req:handshake|from:hashed|enc:deflate\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("req:handshake|stat:success|id:hashed|enc:bin|hid:1048576\n", connection.written.get(0));
+        assertEquals(BinaryCodec.INSTANCE, connection.codec);
+    }
+
+    @Test
+    public void buffersGrownByALargeFrameAreDroppedWhenIdle() throws IOException
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setMailboxSize(0).setMessageLimit(RateLimit.UNLIMITED));
+        RecordingConnection hashed = new RecordingConnection();
+        RecordingConnection dee = new RecordingConnection();
+        hashed.decoder = new InboundDecoder(new ClientInstance(server, hashed));
+        dee.decoder = new InboundDecoder(new ClientInstance(server, dee));
+        feed(hashed, "req:handshake|from:hashed|enc:deflate\n".getBytes(StandardCharsets.UTF_8));
+        feed(dee, "req:handshake|from:dee\n".getBytes(StandardCharsets.UTF_8));
+        int idle = hashed.decoder.getRetainedBytes();
+
+        // Half a frame keeps its bytes, whole ones leave nothing behind.
+        String paste = "gg ".repeat(15_000);
+        byte[] sent = server.getDeflateCodec().encode(new Frame()
+                .set(Payload.FROM, "hashed")
+                .set(Payload.TO, "dee")
+                .set(Payload.MESSAGE, paste)).array();
+        byte[] plain = BinaryCodec.INSTANCE.encode(new Frame()
+                .set(Payload.FROM, "hashed")
+                .set(Payload.TO, "dee")
+                .set(Payload.MESSAGE, paste)).array();
+        hashed.decoder.feed(plain, 0, plain.length / 2);
+        assertTrue(hashed.decoder.getRetainedBytes() > plain.length / 2);
+        hashed.decoder.feed(plain, plain.length / 2, plain.length - plain.length / 2);
+        feed(hashed, sent);
+
+        assertEquals("msg:{2} - " + paste + "|from:hashed\n", dee.last());
+        assertEquals(idle, hashed.decoder.getRetainedBytes());
+    }
+
+    private static void feed(RecordingConnection connection, byte[] bytes) throws IOException
+    {
+        connection.decoder.feed(bytes, 0, bytes.length);
+    }
+}
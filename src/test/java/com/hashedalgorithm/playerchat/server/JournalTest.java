@@ -0,0 +1,121 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Journal} and {@link JournalReader}.
+ */
+public class JournalTest
+{
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException
+    {
+        this.directory = Files.createTempDirectory("journal");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException
+    {
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private List<JournalRecord> scan(long fromSequence) throws IOException
+    {
+        List<JournalRecord> records = new ArrayList<>();
+        new JournalReader(this.directory).scan(fromSequence, records::add);
+        return records;
+    }
+
+    @Test
+    public void readsBackAppendedMessages() throws Exception
+    {
+        try (Journal journal = new Journal(this.directory, 4096, 4, 10)) {
+            assertEquals(1, journal.append("hashed", "dee", "Hello there!"));
+            long sequence = journal.append("dee", "hashed", "Héllo 👋");
+            journal.awaitDurable(sequence);
+            assertEquals(2, journal.getDurableSequence());
+        }
+
+        List<JournalRecord> records = this.scan(0);
+        assertEquals(2, records.size());
+        assertEquals("hashed", records.get(0).getFrom());
+        assertEquals("dee", records.get(0).getTo());
+        assertEquals("Hello there!", records.get(0).getBody());
+        assertEquals(2, records.get(1).getSequence());
+        assertEquals("Héllo 👋", records.get(1).getBody());
+        assertTrue(records.get(1).getTimestamp() >= records.get(0).getTimestamp());
+    }
+
+    @Test
+    public void resumesAfterTheLastRecordWhenReopened() throws Exception
+    {
+        try (Journal journal = new Journal(this.directory, 4096, 4, 10)) {
+            journal.append("hashed", "dee", "first");
+        }
+        try (Journal journal = new Journal(this.directory, 4096, 4, 10)) {
+            assertEquals(2, journal.append("hashed", "dee", "second"));
+        }
+
+        List<JournalRecord> records = this.scan(2);
+        assertEquals(1, records.size());
+        assertEquals("second", records.get(0).getBody());
+    }
+
+    @Test
+    public void rollsSegmentsAndDeletesTheOldest() throws Exception
+    {
+        try (Journal journal = new Journal(this.directory, 256, 3, 1)) {
+            for (int i = 1; i <= 100; i++) {
+                journal.awaitDurable(journal.append("hashed", "dee", "message " + i));
+            }
+        }
+
+        assertEquals(3, Journal.listSegments(this.directory).size());
+        List<JournalRecord> records = this.scan(0);
+        assertEquals(100, records.get(records.size() - 1).getSequence());
+        for (int i = 1; i < records.size(); i++) {
+            assertEquals(records.get(i - 1).getSequence() + 1, records.get(i).getSequence());
+        }
+    }
+
+    @Test
+    public void scansATimeRange() throws Exception
+    {
+        long middle;
+        try (Journal journal = new Journal(this.directory, 256, 8, 10)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append("hashed", "dee", "before");
+            }
+            Thread.sleep(5);
+            middle = System.currentTimeMillis();
+            for (int i = 0; i < 5; i++) {
+                journal.append("hashed", "dee", "after");
+            }
+        }
+
+        List<JournalRecord> records = new ArrayList<>();
+        new JournalReader(this.directory).scanTimeRange(middle, Long.MAX_VALUE, records::add);
+        assertEquals(5, records.size());
+        for (JournalRecord record : records) {
+            assertEquals("after", record.getBody());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.MailboxPolicy;
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MailboxStore} and the offline delivery done by {@link ClientInstance}.
+ */
+public class MailboxStoreTest
+{
+    private static String bodies(Frame[] frames)
+    {
+        StringBuilder result = new StringBuilder();
+        for (Frame frame : frames) {
+            result.append(frame.get(Payload.FROM)).append('>').append(frame.get(Payload.MESSAGE)).append(' ');
+        }
+        return result.toString().trim();
+    }
+
+    @Test
+    public void deliversStoredMessagesOnceInOrder()
+    {
+        MailboxStore store = new MailboxStore(8, 60_000, MailboxPolicy.DROP_OLDEST, new ServerMetrics());
+        store.store("dee", "hashed", "one");
+        store.store("dee", "sanjay", "twö");
+
+        assertEquals("hashed>one sanjay>twö", bodies(store.take("dee")));
+        assertNull(store.take("dee"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void appliesTheEvictionPolicyWhenFull()
+    {
+        ServerMetrics metrics = new ServerMetrics();
+        MailboxStore oldest = new MailboxStore(2, 60_000, MailboxPolicy.DROP_OLDEST, metrics);
+        MailboxStore newest = new MailboxStore(2, 60_000, MailboxPolicy.DROP_NEWEST, metrics);
+        for (String body : new String[] {"1", "2", "3", "4"}) {
+            assertTrue(oldest.store("dee", "hashed", body));
+            assertEquals(body.compareTo("2") <= 0, newest.store("dee", "hashed", body));
+        }
+
+        assertEquals("hashed>3 hashed>4", bodies(oldest.take("dee")));
+        assertEquals("hashed>1 hashed>2", bodies(newest.take("dee")));
+        assertEquals(4, metrics.getMailboxEvicted());
+        assertEquals(6, metrics.getMailboxStored());
+
+        assertFalse(oldest.store("sanjay", "x".repeat(70_000), "hello"));
+        assertEquals(0, oldest.size());
+        assertEquals(4, metrics.getMailboxDelivered());
+    }
+
+    @Test
+    public void sweepRemovesExpiredMailboxes() throws InterruptedException
+    {
+        MailboxStore store = new MailboxStore(8, 1, MailboxPolicy.DROP_OLDEST, new ServerMetrics());
+        for (int i = 0; i < 1000; i++) {
+            store.store("player-" + i, "hashed", "hello");
+        }
+        Thread.sleep(5);
+        store.sweep();
+
+        assertEquals(0, store.size());
+        assertNull(store.take("player-0"));
+        store.close();
+    }
+
+    @Test
+    public void deliversMailboxInOneWriteAfterTheHandshake() throws Exception
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.UNLIMITED));
+        RecordingConnection hashedConnection = new RecordingConnection();
+        ClientInstance hashed = new ClientInstance(server, hashedConnection);
+        hashed.handleFrame("req:handshake|from:hashed");
+
+        hashed.handleFrame("from:hashed|to:dee|req:msg");
+        hashed.handleFrame("from:hashed|to:dee|msg:hello");
+        hashed.handleFrame("from:hashed|to:dee|msg:are you there?");
+        assertEquals("req:msg|from:dee|stat:success\n", hashedConnection.written.get(1));
+
+        RecordingConnection deeConnection = new RecordingConnection();
+        new ClientInstance(server, deeConnection).handleFrame("req:handshake|from:dee");
+
+        assertEquals(2, deeConnection.written.size());
+        assertEquals("msg:{1} - hello|from:hashed\nmsg:{2} - are you there?|from:hashed\n",
+                deeConnection.written.get(1));
+        assertEquals(2, server.getMetrics().getMailboxDelivered());
+    }
+
+    @Test
+    public void answersFailedWhenMailboxesAreDisabled() throws Exception
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setMailboxSize(0));
+        RecordingConnection hashedConnection = new RecordingConnection();
+        ClientInstance hashed = new ClientInstance(server, hashedConnection);
+        hashed.handleFrame("req:handshake|from:hashed");
+
+        hashed.handleFrame("from:hashed|to:dee|msg:hello");
+
+        assertEquals("req:msg|from:dee|stat:failed\n", hashedConnection.written.get(1));
+    }
+}
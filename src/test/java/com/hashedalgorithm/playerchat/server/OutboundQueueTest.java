@@ -0,0 +1,130 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.hashedalgorithm.playerchat.enums.OutboundPolicy;
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Tests for the limits and policies of {@link OutboundQueue}.
+ */
+public class OutboundQueueTest
+{
+    private static ByteBuffer frame(int length)
+    {
+        return ByteBuffer.allocate(length);
+    }
+
+    private static boolean offer(OutboundQueue queue, ByteBuffer frame)
+    {
+        if (!queue.admit(frame.remaining())) {
+            return false;
+        }
+        queue.offer(frame);
+        return true;
+    }
+
+    @Test
+    public void dropOldestEvictsUntilTheNewFrameFits()
+    {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundQueue queue = new OutboundQueue(3, 0, OutboundPolicy.DROP_OLDEST, metrics);
+        ByteBuffer[] frames = {frame(1), frame(2), frame(3), frame(4)};
+        for (ByteBuffer frame : frames) {
+            assertTrue(offer(queue, frame));
+        }
+
+        ByteBuffer[] batch = new ByteBuffer[8];
+        assertEquals(3, queue.drain(batch));
+        assertEquals(frames[1], batch[0]);
+        assertEquals(frames[3], batch[2]);
+        assertEquals(1, metrics.getOutboundDroppedOldest());
+    }
+
+    @Test
+    public void dropNewestKeepsTheQueuedFramesUntilTheyAreDrained()
+    {
+        ServerMetrics metrics = new ServerMetrics();
+        OutboundQueue queue = new OutboundQueue(0, 100, OutboundPolicy.DROP_NEWEST, metrics);
+        assertTrue(offer(queue, frame(60)));
+        assertTrue(offer(queue, frame(40)));
+        assertTrue(queue.isFull());
+        assertFalse(offer(queue, frame(1)));
+        assertEquals(1, metrics.getOutboundDroppedNewest());
+
+        assertEquals(2, queue.drain(new ByteBuffer[8]));
+        assertFalse(queue.isFull());
+        assertTrue("A frame longer than the limit still fits an empty queue", offer(queue, frame(500)));
+    }
+
+    @Test
+    public void busyReceiversRejectTheSenderWithoutCountingTheMessage() throws Exception
+    {
+        Server server = new Server(new ServerConfig()
+                .setPort(0)
+                .setMessageLimit(new RateLimit(1, 1))
+                .setOutboundPolicy(OutboundPolicy.REJECT_SENDER));
+        RecordingConnection hashedConnection = new RecordingConnection();
+        RecordingConnection deeConnection = new RecordingConnection();
+        ClientInstance hashed = new ClientInstance(server, hashedConnection);
+        new ClientInstance(server, deeConnection).handleFrame("req:handshake|from:dee");
+        hashed.handleFrame("req:handshake|from:hashed");
+
+        deeConnection.full = true;
+        hashed.handleFrame("from:hashed|to:dee|msg:are you there?");
+        assertEquals("req:msg|from:dee|stat:busy\n", hashedConnection.last());
+        assertEquals(1, server.getMetrics().getOutboundRejected());
+
+        deeConnection.full = false;
+        hashed.handleFrame("from:hashed|to:dee|msg:are you there?");
+        assertEquals("msg:{1} - are you there?|from:hashed\n", deeConnection.last());
+    }
+
+    @Test
+    public void slowConsumerIsDisconnectedWithoutStallingItsSender() throws Exception
+    {
+        Server server = new Server(new ServerConfig()
+                .setPort(0)
+                .setMode(ServerMode.SELECTOR)
+                .setMessageLimit(RateLimit.UNLIMITED)
+                .setOutboundFrames(64)
+                .setOutboundPolicy(OutboundPolicy.DISCONNECT));
+        server.setDaemon(true);
+        server.start();
+
+        try (Socket slow = new Socket(); Socket sender = new Socket("127.0.0.1", server.getLocalPort())) {
+            slow.setReceiveBufferSize(4096);
+            slow.connect(new InetSocketAddress("127.0.0.1", server.getLocalPort()));
+            slow.getOutputStream().write("req:handshake|from:slow\n".getBytes(StandardCharsets.UTF_8));
+            OutputStream out = sender.getOutputStream();
+            out.write("req:handshake|from:sender\n".getBytes(StandardCharsets.UTF_8));
+
+            byte[] message = ("from:sender|to:slow|msg:" + "x".repeat(1000) + "\n").getBytes(StandardCharsets.UTF_8);
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (server.getMetrics().getOutboundDisconnects() == 0) {
+                if (System.nanoTime() > deadline) {
+                    fail("Slow consumer was not disconnected");
+                }
+                out.write(message);
+            }
+
+            // The slow client sees the end of its stream once it reads what was already sent.
+            InputStream in = slow.getInputStream();
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) >= 0) {
+                // Drain
+            }
+        }
+        assertEquals(1, server.getMetrics().getOutboundDisconnects());
+    }
+}
@@ -0,0 +1,85 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link PresenceDirectory} and the presence requests of {@link ClientInstance}.
+ */
+public class PresenceDirectoryTest
+{
+    private static ClientInstance connect(Server server, RecordingConnection connection, String name) throws Exception
+    {
+        ClientInstance client = new ClientInstance(server, connection);
+        client.handleFrame("req:handshake|from:" + name);
+        return client;
+    }
+
+    @Test
+    public void subscribersGetASnapshotThenCoalescedChanges() throws Exception
+    {
+        // A window long enough that only the test flushes.
+        Server server = new Server(new ServerConfig().setPort(0).setPresenceWindowMillis(60_000));
+        RecordingConnection hashedConnection = new RecordingConnection();
+        ClientInstance hashed = connect(server, hashedConnection, "hashed");
+        connect(server, new RecordingConnection(), "zed");
+
+        hashed.handleFrame("req:subscribe|cid:1");
+        String snapshot = hashedConnection.last();
+        assertTrue(snapshot, snapshot.equals("msg:hashed,zed|req:subscribe|stat:success|cid:1\n")
+                || snapshot.equals("msg:zed,hashed|req:subscribe|stat:success|cid:1\n"));
+        assertEquals(1, server.getPresence().getSubscriberCount());
+
+        int written = hashedConnection.written.size();
+        ClientInstance dee = connect(server, new RecordingConnection(), "dee");
+        connect(server, new RecordingConnection(), "kay");
+        dee.closeConnection();
+        assertEquals(written, hashedConnection.written.size());
+
+        // Only the latest state of every player, in one frame.
+        server.getPresence().flush();
+        assertEquals(written + 1, hashedConnection.written.size());
+        assertEquals("msg:+kay,-dee|req:presence\n", hashedConnection.last());
+
+        server.getPresence().flush();
+        assertEquals(written + 1, hashedConnection.written.size());
+
+        hashed.handleFrame("req:presence");
+        assertTrue(hashedConnection.last(), hashedConnection.last().matches("msg:[a-z,]+\\|req:presence\\|stat:success\n"));
+        for (String name : new String[] {"hashed", "zed", "kay"}) {
+            assertTrue(hashedConnection.last().contains(name));
+        }
+
+        hashed.handleFrame("req:unsubscribe");
+        assertEquals("req:unsubscribe|stat:success\n", hashedConnection.last());
+        assertEquals(0, server.getPresence().getSubscriberCount());
+    }
+
+    @Test
+    public void changesAreFlushedOnTheTimerWheel() throws Exception
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setPresenceWindowMillis(500));
+        RecordingConnection hashedConnection = new RecordingConnection();
+        ClientInstance hashed = connect(server, hashedConnection, "hashed");
+        hashed.handleFrame("req:subscribe");
+
+        for (int i = 0; i < 50; i++) {
+            connect(server, new RecordingConnection(), "player-" + i);
+        }
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!hashedConnection.last().contains("+player-49|") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // The confirmation and the snapshot, then the burst in one frame or, if it straddled two
+        // windows, two.
+        assertTrue(hashedConnection.written.toString(), hashedConnection.written.size() <= 4);
+        assertTrue(hashedConnection.written.get(2).startsWith("msg:+player-0,+player-1,"));
+
+        // A closed subscriber is no longer written to.
+        hashed.closeConnection();
+        assertEquals(0, server.getPresence().getSubscriberCount());
+    }
+}
@@ -0,0 +1,100 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.fail;
+
+import com.hashedalgorithm.playerchat.utils.Frame;
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.SharedFrame;
+import com.hashedalgorithm.playerchat.utils.TextCodec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection that records every frame written to it, from any thread, so the tests of the
+ * server package can drive a {@link ClientInstance} without a socket. Frames are encoded with
+ * the codec negotiated in the handshake, and text until then.
+ */
+class RecordingConnection implements Connection
+{
+    /** Every frame written, encoded with the codec current at the time */
+    final List<ByteBuffer> encoded = new CopyOnWriteArrayList<>();
+
+    /** Every frame written, decoded as text */
+    final List<String> written = new CopyOnWriteArrayList<>();
+
+    /** Frames written and not taken by {@link #next()} yet */
+    private final BlockingQueue<String> unread = new LinkedBlockingQueue<>();
+
+    /** Codec the frames are encoded with */
+    volatile FrameCodec codec = TextCodec.INSTANCE;
+
+    /** Decoder fed by the test, switched to the negotiated codec along with the connection */
+    InboundDecoder decoder;
+
+    /** Whether the connection claims to be full, so senders are refused */
+    volatile boolean full = false;
+
+    @Override
+    public void write(Frame frame) {
+        this.record(this.codec.encode(frame));
+    }
+
+    @Override
+    public void write(Frame[] frames) {
+        this.record(this.codec.encode(frames));
+    }
+
+    @Override
+    public void write(SharedFrame frame) {
+        this.record(frame.encode(this.codec));
+    }
+
+    @Override
+    public void setCodec(FrameCodec codec) {
+        this.codec = codec;
+        if (this.decoder != null) {
+            this.decoder.setCodec(codec);
+        }
+    }
+
+    @Override
+    public boolean isRejectingSenders() {
+        return this.full;
+    }
+
+    @Override
+    public void close() {}
+
+    private void record(ByteBuffer bytes)
+    {
+        String text = StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+        this.encoded.add(bytes);
+        this.written.add(text);
+        this.unread.add(text);
+    }
+
+    /**
+     * Returns the last frame written, as text.
+     */
+    String last()
+    {
+        return this.written.get(this.written.size() - 1);
+    }
+
+    /**
+     * Takes the oldest frame not taken yet, waiting for it to be written.
+     */
+    String next() throws InterruptedException
+    {
+        String frame = this.unread.poll(5, TimeUnit.SECONDS);
+        if (frame == null) {
+            fail("No frame received");
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,119 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.utils.Frame;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RetransmitWindow} and the sequenced delivery of {@link ClientInstance}.
+ */
+public class RetransmitWindowTest
+{
+    private static ClientInstance connect(Server server, RecordingConnection connection, String handshake) throws Exception
+    {
+        ClientInstance client = new ClientInstance(server, connection);
+        client.handleFrame(handshake);
+        return client;
+    }
+
+    @Test
+    public void unacknowledgedMessagesAreWrittenAgainAfterAReconnect() throws Exception
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.UNLIMITED));
+        ClientInstance hashed = connect(server, new RecordingConnection(), "req:handshake|from:hashed");
+        RecordingConnection deeConnection = new RecordingConnection();
+        ClientInstance dee = connect(server, deeConnection, "req:handshake|from:dee|ack:0");
+        assertEquals("req:handshake|stat:success|id:dee|ack:0|hid:1048577\n", deeConnection.last());
+
+        for (String message : new String[] {"one", "two", "three"}) {
+            hashed.handleFrame("from:hashed|to:dee|msg:" + message);
+        }
+        assertEquals("msg:{1} - one|from:hashed|seq:1\n", deeConnection.written.get(1));
+        assertEquals("msg:{3} - three|from:hashed|seq:3\n", deeConnection.last());
+
+        // Acknowledged on another request, then the connection dies.
+        dee.handleFrame("req:presence|ack:1");
+        dee.closeConnection();
+
+        RecordingConnection resumedConnection = new RecordingConnection();
+        ClientInstance resumed = connect(server, resumedConnection, "req:handshake|from:dee|ack:1");
+        assertEquals("msg:{2} - two|from:hashed|seq:2\nmsg:{3} - three|from:hashed|seq:3\n",
+                resumedConnection.written.get(1));
+        assertEquals(2, server.getMetrics().getRetransmitted());
+
+        hashed.handleFrame("from:hashed|to:dee|msg:four");
+        assertEquals("msg:{4} - four|from:hashed|seq:4\n", resumedConnection.last());
+
+        // An acknowledgement on its own is not answered.
+        resumed.handleFrame("req:ack|ack:4");
+        assertEquals(3, resumedConnection.written.size());
+        resumed.closeConnection();
+
+        RecordingConnection lastConnection = new RecordingConnection();
+        connect(server, lastConnection, "req:handshake|from:dee|ack:4");
+        assertEquals(1, lastConnection.written.size());
+    }
+
+    @Test
+    public void aFullWindowRefusesMessages()
+    {
+        ServerMetrics metrics = new ServerMetrics();
+        RetransmitWindow window = new RetransmitWindow(2, metrics);
+        RecordingConnection connection = new RecordingConnection();
+        Frame frame = new Frame().set(Payload.FROM, "hashed");
+        assertTrue(window.write(connection, frame.set(Payload.MESSAGE, "one")));
+        assertTrue(window.write(connection, frame.set(Payload.MESSAGE, "two")));
+        assertFalse(window.write(connection, frame.set(Payload.MESSAGE, "three")));
+        assertEquals(2, window.getUnacknowledged());
+        assertEquals(2, connection.written.size());
+
+        // A batch is written as far as the window has room.
+        window.acknowledge(1);
+        Frame[] batch = {new Frame().set(Payload.MESSAGE, "three"), new Frame().set(Payload.MESSAGE, "four")};
+        assertEquals(1, window.write(connection, batch));
+        assertEquals("msg:three|seq:3\n", connection.last());
+
+        RecordingConnection resumed = new RecordingConnection();
+        window.resume(1, resumed);
+        assertEquals("msg:two|from:hashed|seq:2\nmsg:three|seq:3\n", resumed.last());
+
+        // A window that never saw what the client received continues after it.
+        RetransmitWindow fresh = new RetransmitWindow(2, metrics);
+        fresh.resume(41, resumed);
+        fresh.write(resumed, frame);
+        assertEquals("msg:three|from:hashed|seq:42\n", resumed.last());
+    }
+
+    @Test
+    public void aClientNotAcknowledgingIsDisconnectedAndItsMessagesStored() throws Exception
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.UNLIMITED).setRetransmitWindow(2));
+        ClientInstance hashed = connect(server, new RecordingConnection(), "req:handshake|from:hashed");
+        RecordingConnection deeConnection = new RecordingConnection();
+        ClientInstance dee = connect(server, deeConnection, "req:handshake|from:dee|ack:0");
+
+        for (String message : new String[] {"one", "two", "three", "four"}) {
+            hashed.handleFrame("from:hashed|to:dee|msg:" + message);
+        }
+        assertTrue(dee.isClosed());
+        assertEquals(3, deeConnection.written.size());
+        assertEquals(1, server.getMetrics().getOutboundDisconnects());
+        assertEquals(0, server.getMetrics().getRetransmitDropped());
+
+        // The window is written again first; the mailbox waits for room in it.
+        RecordingConnection resumedConnection = new RecordingConnection();
+        ClientInstance resumed = connect(server, resumedConnection, "req:handshake|from:dee|ack:0");
+        assertEquals("msg:{1} - one|from:hashed|seq:1\nmsg:{2} - two|from:hashed|seq:2\n",
+                resumedConnection.written.get(1));
+        assertEquals(2, resumedConnection.written.size());
+
+        resumed.handleFrame("req:ack|ack:2");
+        assertEquals("msg:{3} - three|from:hashed|seq:3\nmsg:{4} - four|from:hashed|seq:4\n",
+                resumedConnection.last());
+        assertFalse(resumed.isClosed());
+    }
+}
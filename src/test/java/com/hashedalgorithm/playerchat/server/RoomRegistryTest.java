@@ -0,0 +1,87 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.utils.FrameCodec;
+import com.hashedalgorithm.playerchat.utils.TextCodec;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RoomRegistry} and the room broadcasts of {@link ClientInstance}.
+ */
+public class RoomRegistryTest
+{
+    @Test
+    public void snapshotsAreNotChangedByLaterJoinsAndLeaves()
+    {
+        RoomRegistry rooms = new RoomRegistry();
+        ClientInstance hashed = new ClientInstance(new Server(0), new RecordingConnection());
+        ClientInstance dee = new ClientInstance(new Server(0), new RecordingConnection());
+
+        assertTrue(rooms.join("lobby", hashed));
+        assertFalse(rooms.join("lobby", hashed));
+        ClientInstance[] snapshot = rooms.members("lobby");
+        rooms.join("lobby", dee);
+        rooms.leave("lobby", hashed);
+
+        assertArrayEquals(new ClientInstance[] {hashed}, snapshot);
+        assertArrayEquals(new ClientInstance[] {dee}, rooms.members("lobby"));
+        assertTrue(rooms.leave("lobby", dee));
+        assertFalse(rooms.leave("lobby", dee));
+        assertEquals(0, rooms.size());
+    }
+
+    @Test
+    public void broadcastsOneEncodingToEveryOtherMember() throws Exception
+    {
+        Server server = new Server(new ServerConfig().setPort(0).setMessageLimit(RateLimit.UNLIMITED));
+        AtomicInteger encodings = new AtomicInteger();
+        FrameCodec counting = frame -> {
+            encodings.incrementAndGet();
+            return TextCodec.INSTANCE.encode(frame);
+        };
+        RecordingConnection[] connections = new RecordingConnection[3];
+        ClientInstance[] clients = new ClientInstance[3];
+        for (int i = 0; i < clients.length; i++) {
+            connections[i] = new RecordingConnection();
+            clients[i] = new ClientInstance(server, connections[i]);
+            clients[i].handleFrame("req:handshake|from:player-" + i);
+            clients[i].handleFrame("req:join|from:player-" + i + "|to:lobby");
+            assertEquals("req:join|to:lobby|stat:success\n", connections[i].last());
+            connections[i].codec = counting;
+        }
+
+        clients[0].handleFrame("req:broadcast|from:player-0|to:lobby|msg:gg");
+
+        assertEquals(2, connections[0].written.size());
+        for (int i = 1; i < clients.length; i++) {
+            assertEquals("msg:{1} - gg|req:broadcast|to:lobby|from:player-0\n", connections[i].last());
+        }
+        assertEquals(1, encodings.get());
+    }
+
+    @Test
+    public void onlyMembersMayBroadcastAndClosedClientsLeave() throws Exception
+    {
+        Server server = new Server(0);
+        RecordingConnection hashedConnection = new RecordingConnection();
+        ClientInstance hashed = new ClientInstance(server, hashedConnection);
+        ClientInstance dee = new ClientInstance(server, new RecordingConnection());
+        hashed.handleFrame("req:handshake|from:hashed");
+        dee.handleFrame("req:handshake|from:dee");
+        dee.handleFrame("req:join|from:dee|to:lobby");
+
+        hashed.handleFrame("req:broadcast|from:hashed|to:lobby|msg:hi");
+        assertEquals("req:broadcast|to:lobby|stat:failed\n", hashedConnection.last());
+
+        hashed.handleFrame("req:leave|from:hashed|to:lobby");
+        assertEquals("req:leave|to:lobby|stat:failed\n", hashedConnection.last());
+
+        dee.closeConnection();
+        assertEquals(0, server.getRooms().size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ServerMetrics} as recorded by {@link ClientInstance}.
+ */
+public class ServerMetricsTest
+{
+    @Test
+    public void countsHandshakesFramesAndRouteMisses() throws Exception
+    {
+        Server server = new Server(0);
+        RecordingConnection hashedConnection = new RecordingConnection();
+        ClientInstance hashed = new ClientInstance(server, hashedConnection);
+        ClientInstance dee = new ClientInstance(server, new RecordingConnection());
+
+        hashed.handleFrame("req:handshake|from:hashed");
+        dee.handleFrame("req:handshake|from:dee");
+        try {
+            new ClientInstance(server, new RecordingConnection()).handleFrame("req:handshake|from:dee");
+        } catch (IOException expected) {
+            // The name is taken.
+        }
+        hashed.handleFrame("from:hashed|to:dee|msg:hello");
+        hashed.handleFrame("from:hashed|to:nobody|req:msg");
+        hashed.handleFrame("req:stats");
+
+        ServerMetrics metrics = server.getMetrics();
+        assertEquals(2, metrics.getHandshakeSuccesses());
+        assertEquals(1, metrics.getHandshakeFailures());
+        assertEquals(1, metrics.getRouteMisses());
+        assertEquals(Long.valueOf(1), metrics.getFramesIn().get("chat"));
+        assertEquals(Long.valueOf(3), metrics.getFramesIn().get(PayloadValue.HANDSHAKE.getValue()));
+        assertEquals(Long.valueOf(1), metrics.getFramesIn().get(PayloadValue.STATS.getValue()));
+        assertTrue(metrics.getRelayLatency().startsWith("count=1 "));
+
+        String stats = hashedConnection.written.get(hashedConnection.written.size() - 1);
+        assertTrue(stats, stats.startsWith("msg:connections.accepted="));
+        assertTrue(stats, stats.contains(" handshakes.succeeded=2 handshakes.failed=1 "));
+        assertTrue(stats, stats.contains(" frames.in.chat=1 "));
+        assertTrue(stats, stats.contains(" route.misses=1 "));
+        assertTrue(stats, stats.endsWith("|req:stats\n"));
+        assertEquals(stats, 1, stats.split("\\|").length - 1);
+    }
+
+    @Test
+    public void registersAnMXBeanPerServer() throws Exception
+    {
+        Server server = new Server(0);
+        ObjectName name = new ObjectName(String.format(
+                "com.hashedalgorithm.playerchat:type=Server,port=%d", server.getLocalPort()));
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        assertEquals(0L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "RouteMisses"));
+    }
+}
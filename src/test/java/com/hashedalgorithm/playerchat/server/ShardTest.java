@@ -0,0 +1,199 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+/**
+ * Tests for the sharded server mode, with real clients on loopback.
+ */
+public class ShardTest
+{
+    /** Text protocol client of one player */
+    private static class Player implements AutoCloseable
+    {
+        private final Socket socket;
+        private final OutputStream out;
+        private final BufferedReader in;
+
+        private Player(Server server, String name) throws IOException
+        {
+            this.socket = new Socket("127.0.0.1", server.getLocalPort());
+            this.socket.setSoTimeout(5000);
+            this.out = this.socket.getOutputStream();
+            this.in = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+            this.send("req:handshake|from:" + name);
+        }
+
+        private void send(String frame) throws IOException
+        {
+            this.out.write((frame + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        private String next() throws IOException
+        {
+            return this.in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            this.socket.close();
+        }
+    }
+
+    private static Server startServer()
+    {
+        Server server = new Server(new ServerConfig()
+                .setPort(0)
+                .setMode(ServerMode.SHARDED)
+                .setEventLoops(4)
+                .setMessageLimit(RateLimit.UNLIMITED));
+        server.setDaemon(true);
+        server.start();
+        return server;
+    }
+
+    /**
+     * Returns the first player name after {@code after} owned by another shard than {@code other}.
+     */
+    private static String nameOnOtherShard(Server server, String other, int after)
+    {
+        for (int i = after + 1; ; i++) {
+            if (server.shardOf("player-" + i) != server.shardOf(other)) {
+                return "player-" + i;
+            }
+        }
+    }
+
+    /**
+     * Reads the handshake confirmation of a player and checks it carries the handle it was given.
+     *
+     * @return The handle
+     */
+    private static int assertConfirmed(Server server, Player player, String name) throws Exception
+    {
+        String confirmation = player.next();
+        String prefix = "req:handshake|stat:success|id:" + name + "|hid:";
+        assertTrue(confirmation, confirmation.startsWith(prefix));
+        int handle = Integer.parseInt(confirmation.substring(prefix.length()));
+        assertEquals(name, server.getHandles().get(handle).instanceId);
+        return handle;
+    }
+
+    @Test
+    public void instanceIdsAreSpreadOverAllShards()
+    {
+        Server server = startServer();
+        assertSame(server.shardOf("hashed"), server.shardOf("hashed"));
+        assertNotSame(server.shardOf("player-0"), server.shardOf(nameOnOtherShard(server, "player-0", 0)));
+    }
+
+    @Test
+    public void relaysBetweenPlayersOfDifferentShardsInOrder() throws Exception
+    {
+        Server server = startServer();
+        String hashedName = "player-0";
+        String deeName = nameOnOtherShard(server, hashedName, 0);
+
+        try (Player hashed = new Player(server, hashedName); Player dee = new Player(server, deeName)) {
+            int hashedHandle = assertConfirmed(server, hashed, hashedName);
+            int deeHandle = assertConfirmed(server, dee, deeName);
+
+            hashed.send("from:" + hashedName + "|to:" + deeName + "|req:msg");
+            assertEquals("req:msg|from:" + hashedName + "|hid:" + hashedHandle, dee.next());
+            dee.send("from:" + deeName + "|to:" + hashedName + "|req:msg|stat:success");
+            assertEquals("req:msg|from:" + deeName + "|stat:success|hid:" + deeHandle, hashed.next());
+
+            for (int i = 1; i <= 500; i++) {
+                hashed.send("from:" + hashedName + "|to:" + deeName + "|msg:round " + i);
+            }
+            for (int i = 1; i <= 500; i++) {
+                assertEquals("msg:{" + i + "} - round " + i + "|from:" + hashedName, dee.next());
+            }
+        }
+
+        ServerMetrics metrics = server.getMetrics();
+        assertTrue(metrics.getShardFramesOut() >= 502);
+        assertTrue(metrics.getShardWakeups() <= metrics.getShardFramesOut());
+    }
+
+    @Test
+    public void answersForPlayersOfOtherShardsThatAreNotConnected() throws Exception
+    {
+        Server server = startServer();
+        String hashedName = "player-0";
+        String deeName = nameOnOtherShard(server, hashedName, 0);
+
+        try (Player hashed = new Player(server, hashedName)) {
+            assertConfirmed(server, hashed, hashedName);
+
+            hashed.send("from:" + hashedName + "|to:" + deeName + "|req:msg");
+            assertEquals("req:msg|from:" + deeName + "|stat:success", hashed.next());
+            hashed.send("from:" + hashedName + "|to:" + deeName + "|msg:see you later");
+
+            // The message is stored by the shard owning dee, so it is there by the time dee connects.
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (server.getMetrics().getMailboxStored() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            try (Player dee = new Player(server, deeName)) {
+                assertConfirmed(server, dee, deeName);
+                assertEquals("msg:{1} - see you later|from:" + hashedName, dee.next());
+            }
+        }
+    }
+
+    @Test
+    public void theOwningShardAnswersAndJournalsChatMessages() throws Exception
+    {
+        Path journal = Files.createTempDirectory("journal");
+        Server server = new Server(new ServerConfig()
+                .setPort(0)
+                .setMode(ServerMode.SHARDED)
+                .setEventLoops(4)
+                .setMessageLimit(RateLimit.UNLIMITED)
+                .setMailboxSize(0)
+                .setJournalDirectory(journal));
+        server.setDaemon(true);
+        server.start();
+        String hashedName = "player-0";
+        String deeName = nameOnOtherShard(server, hashedName, 0);
+        String kayName = nameOnOtherShard(server, hashedName, Integer.parseInt(deeName.substring(7)));
+
+        try (Player hashed = new Player(server, hashedName); Player kay = new Player(server, kayName)) {
+            assertConfirmed(server, hashed, hashedName);
+            assertConfirmed(server, kay, kayName);
+
+            // dee is not connected and cannot be stored for, so the only answer is a failure.
+            hashed.send("from:" + hashedName + "|to:" + deeName + "|msg:lost|cid:7");
+            assertEquals("req:msg|from:" + deeName + "|stat:failed|cid:7", hashed.next());
+
+            hashed.send("from:" + hashedName + "|to:" + kayName + "|msg:gg|cid:8");
+            assertEquals("msg:{1} - gg|from:" + hashedName, kay.next());
+            assertEquals("req:msg|from:" + kayName + "|stat:success|cid:8", hashed.next());
+            assertEquals(1, server.getJournal().getLastSequence());
+        } finally {
+            try (Stream<Path> files = Files.walk(journal)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SpscQueue}.
+ */
+public class SpscQueueTest
+{
+    @Test
+    public void emptyQueueReturnsNull()
+    {
+        SpscQueue<Integer> queue = new SpscQueue<>();
+        assertNull(queue.poll());
+        queue.offer(1);
+        assertEquals(Integer.valueOf(1), queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void consumerSeesEveryElementInOrderAcrossChunks() throws Exception
+    {
+        int count = 200_000;
+        SpscQueue<Integer> queue = new SpscQueue<>();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                queue.offer(i);
+            }
+        });
+        producer.start();
+
+        for (int expected = 0; expected < count; ) {
+            Integer element = queue.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertEquals(expected++, element.intValue());
+        }
+        producer.join();
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,84 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.ServerMode;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Tests for the handshake deadlines, idle timeouts and heartbeats of connections, with real
+ * clients on loopback.
+ */
+public class TimeoutTest
+{
+    private static Server startServer(ServerConfig config)
+    {
+        Server server = new Server(config.setPort(0));
+        server.setDaemon(true);
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void silentConnectionIsClosedAtItsHandshakeDeadline() throws Exception
+    {
+        Server server = startServer(new ServerConfig()
+                .setMode(ServerMode.BLOCKING)
+                .setHandshakeTimeoutSeconds(1));
+
+        try (Socket silent = new Socket("127.0.0.1", server.getLocalPort())) {
+            silent.setSoTimeout(5000);
+            long start = System.nanoTime();
+            assertEquals(-1, silent.getInputStream().read());
+            assertTrue(System.nanoTime() - start >= 900_000_000L);
+        }
+
+        assertEquals(1, server.getMetrics().getHandshakeTimeouts());
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (server.getMetrics().getConnectionsActive() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getMetrics().getConnectionsActive());
+    }
+
+    @Test
+    public void silentClientIsPingedThenDisconnectedWhenIdle() throws Exception
+    {
+        Server server = startServer(new ServerConfig()
+                .setMode(ServerMode.SELECTOR)
+                .setHeartbeatSeconds(1)
+                .setIdleTimeoutSeconds(2));
+
+        try (Socket socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write("req:handshake|from:hashed\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals("req:handshake|stat:success|id:hashed|hid:1048576", in.readLine());
+
+            assertEquals("req:ping", in.readLine());
+            out.write("req:pong\n".getBytes(StandardCharsets.UTF_8));
+            out.write("req:ping\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals("req:pong", in.readLine());
+
+            // No longer answering: one more heartbeat, then the idle timeout.
+            assertEquals("req:ping", in.readLine());
+            assertNull(in.readLine());
+        }
+
+        assertEquals(1, server.getMetrics().getIdleTimeouts());
+        assertEquals(2, server.getMetrics().getHeartbeats());
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (server.getClient("hashed") != null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(server.getClient("hashed"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.hashedalgorithm.playerchat.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TokenBucket} and the rate limits of {@link ClientInstance}.
+ */
+public class TokenBucketTest
+{
+    @Test
+    public void burstIsSpentThenRefilledAtTheRate()
+    {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire(now));
+        }
+        assertFalse(bucket.tryAcquire(now));
+
+        // One token every 100 ms, never more than the burst.
+        assertFalse(bucket.tryAcquire(now + 99_000_000L));
+        assertTrue(bucket.tryAcquire(now + 100_000_000L));
+        assertFalse(bucket.tryAcquire(now + 100_000_000L));
+
+        long later = now + 60_000_000_000L;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire(later));
+        }
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    public void concurrentSendersNeverTakeMoreThanTheBurst() throws Exception
+    {
+        TokenBucket bucket = new TokenBucket(1, 1000);
+        long now = System.nanoTime();
+        AtomicInteger taken = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (bucket.tryAcquire(now)) {
+                        taken.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, taken.get());
+    }
+
+    @Test
+    public void limitsAreParsedAndUnlimitedHasNoBucket()
+    {
+        assertEquals(new RateLimit(10, 20), RateLimit.parse("10/20"));
+        assertEquals(new RateLimit(5, 5), RateLimit.parse("5"));
+        assertTrue(RateLimit.parse("0").isUnlimited());
+        assertNull(RateLimit.UNLIMITED.newBucket());
+
+        ServerConfig config = ServerConfig.fromArgs(new String[] {"--rate=0", "--room-rates=lobby:1/2,arena:3"});
+        assertEquals(RateLimit.UNLIMITED, config.getMessageLimit());
+        assertEquals(Map.of("lobby", new RateLimit(1, 2), "arena", new RateLimit(3, 3)), config.getRoomLimits());
+    }
+
+    @Test
+    public void throttledSendersStayConnectedAndAreToldSo() throws Exception
+    {
+        Server server = new Server(new ServerConfig()
+                .setPort(0)
+                .setMessageLimit(new RateLimit(1, 2))
+                .setRoomLimits(Map.of("lobby", new RateLimit(1, 1))));
+        RecordingConnection hashedConnection = new RecordingConnection();
+        RecordingConnection deeConnection = new RecordingConnection();
+        ClientInstance hashed = new ClientInstance(server, hashedConnection);
+        ClientInstance dee = new ClientInstance(server, deeConnection);
+        hashed.handleFrame("req:handshake|from:hashed");
+        dee.handleFrame("req:handshake|from:dee");
+
+        hashed.handleFrame("from:hashed|to:dee|msg:one");
+        hashed.handleFrame("from:hashed|to:dee|msg:two");
+        hashed.handleFrame("from:hashed|to:dee|msg:three");
+        assertEquals("msg:{2} - two|from:hashed\n", deeConnection.last());
+        assertEquals("req:msg|from:dee|stat:throttled\n", hashedConnection.last());
+
+        dee.handleFrame("req:join|to:lobby");
+        hashed.handleFrame("req:join|to:lobby");
+        dee.handleFrame("req:broadcast|from:dee|to:lobby|msg:gg");
+        dee.handleFrame("req:broadcast|from:dee|to:lobby|msg:rematch?");
+        assertEquals("req:broadcast|to:lobby|stat:throttled\n", deeConnection.last());
+        assertEquals("msg:{1} - gg|req:broadcast|to:lobby|from:dee\n", hashedConnection.last());
+
+        assertEquals(2, server.getMetrics().getThrottled());
+        assertFalse(hashed.isClosed());
+        assertFalse(dee.isClosed());
+    }
+}
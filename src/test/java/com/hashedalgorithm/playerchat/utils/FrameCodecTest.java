@@ -0,0 +1,124 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TextCodec}, {@link BinaryCodec} and {@link DeflateCodec}.
+ */
+public class FrameCodecTest
+{
+    @Test
+    public void textCodecWritesUtf8LinesInKeyOrder()
+    {
+        Frame frame = new Frame()
+                .set(Payload.FROM, "hashed")
+                .set(Payload.MESSAGE, "hé | there\n");
+
+        ByteBuffer encoded = TextCodec.INSTANCE.encode(frame);
+
+        assertEquals("msg:hé   there |from:hashed\n", StandardCharsets.UTF_8.decode(encoded).toString());
+    }
+
+    @Test
+    public void binaryCodecRoundTripsEveryField()
+    {
+        String message = "line one\nline | two 😀 é";
+        Frame frame = new Frame()
+                .set(Payload.REQUEST, PayloadValue.MESSAGE.getValue())
+                .set(Payload.FROM, "hashed")
+                .set(Payload.TO, "dee")
+                .set(Payload.MESSAGE, new StringBuilder(message));
+
+        byte[] bytes = BinaryCodec.INSTANCE.encode(frame).array();
+        Frame decoded = decode(bytes);
+
+        assertTrue(decoded.is(Payload.REQUEST, PayloadValue.MESSAGE.getValue()));
+        assertEquals("hashed", decoded.getString(Payload.FROM));
+        assertEquals("dee", decoded.getString(Payload.TO));
+        assertEquals(message, decoded.getString(Payload.MESSAGE));
+        assertFalse(decoded.has(Payload.STATUS));
+    }
+
+    @Test
+    public void binaryCodecCarriesTheRequestAsOpcode() throws Exception
+    {
+        Frame frame = new Frame().set(Payload.REQUEST, PayloadValue.HANDSHAKE.getValue());
+
+        byte[] bytes = BinaryCodec.INSTANCE.encode(frame).array();
+
+        assertEquals(2, bytes.length);
+        assertEquals(1, BinaryCodec.bodyLength(bytes, 0));
+        assertEquals(PayloadValue.HANDSHAKE.ordinal() + 1, bytes[1]);
+    }
+
+    @Test
+    public void binaryLengthPrefixNeedsAllOfItsBytes() throws Exception
+    {
+        Frame frame = new Frame().set(Payload.MESSAGE, "x".repeat(300));
+
+        byte[] bytes = BinaryCodec.INSTANCE.encode(frame).array();
+
+        assertEquals(0, BinaryCodec.headerLength(bytes, 0, 1));
+        assertEquals(2, BinaryCodec.headerLength(bytes, 0, bytes.length));
+        assertEquals(bytes.length - 2, BinaryCodec.bodyLength(bytes, 0));
+        assertEquals(300, decode(bytes).getString(Payload.MESSAGE).length());
+    }
+
+    @Test
+    public void deflateCodecOnlyCompressesBodiesAboveItsThreshold() throws Exception
+    {
+        DeflateCodec codec = new DeflateCodec(256);
+        Frame small = new Frame().set(Payload.FROM, "hashed").set(Payload.MESSAGE, "gg wp, rematch?");
+        String paste = "{\"players\":[{\"name\":\"hashed\",\"team\":\"red\",\"score\":12},"
+                + "{\"name\":\"dee\",\"team\":\"blue\",\"score\":9}],\"round\":3,\"map\":\"arena\"} ".repeat(8);
+        Frame large = new Frame().set(Payload.FROM, "hashed").set(Payload.TO, "dee").set(Payload.MESSAGE, paste);
+
+        assertTrue(Arrays.equals(BinaryCodec.INSTANCE.encode(small).array(), codec.encode(small).array()));
+
+        byte[] plain = BinaryCodec.INSTANCE.encode(large).array();
+        byte[] compressed = codec.encode(large).array();
+        int header = BinaryCodec.headerLength(compressed, 0, compressed.length);
+        int length = BinaryCodec.bodyLength(compressed, 0);
+        assertTrue(compressed.length + " bytes", compressed.length < plain.length / 4);
+        assertTrue(DeflateCodec.isCompressed(compressed, header));
+
+        byte[] body = new byte[DeflateCodec.inflatedLength(compressed, header, length)];
+        int inflated = codec.inflate(compressed, header, length, body);
+        Frame decoded = BinaryCodec.decode(body, 0, inflated, new Frame(), CharBuffer.allocate(inflated));
+        assertEquals(paste, decoded.getString(Payload.MESSAGE));
+        assertEquals("dee", decoded.getString(Payload.TO));
+    }
+
+    @Test
+    public void deflateCodecSendsBodiesThatDoNotShrinkPlain()
+    {
+        // Without a threshold, even a body too short to gain anything is tried.
+        Frame frame = new Frame().set(Payload.REQUEST, PayloadValue.PING.getValue()).set(Payload.FROM, "q7");
+
+        byte[] encoded = new DeflateCodec(0).encode(frame).array();
+
+        assertTrue(Arrays.equals(BinaryCodec.INSTANCE.encode(frame).array(), encoded));
+        assertEquals("q7", decode(encoded).getString(Payload.FROM));
+    }
+
+    private static Frame decode(byte[] bytes)
+    {
+        try {
+            int header = BinaryCodec.headerLength(bytes, 0, bytes.length);
+            int length = BinaryCodec.bodyLength(bytes, 0);
+            return BinaryCodec.decode(bytes, header, length, new Frame(), CharBuffer.allocate(length));
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest
+{
+    @Test
+    public void percentilesStayWithinTheBucketPrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(1_000_000, histogram.getCount());
+        assertEquals(500_000_500.0, histogram.getMean(), 0.5);
+        assertEquals(1_000_000_000L, histogram.getMax());
+        assertWithin(500_000_000L, histogram.getValueAtPercentile(50.0));
+        assertWithin(990_000_000L, histogram.getValueAtPercentile(99.0));
+        assertWithin(999_000_000L, histogram.getValueAtPercentile(99.9));
+        assertEquals(1_000_000_000L, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void everyBucketBoundaryMapsBackToItsBucket()
+    {
+        for (long value : new long[] {0, 1, 31, 32, 33, 63, 64, 65, 1_000, 123_456_789L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueOf(bucket));
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.highestValueOf(bucket)));
+        }
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws Exception
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(800_000, histogram.getCount());
+        assertEquals(99_999, histogram.getMax());
+    }
+
+    private static void assertWithin(long expected, long actual)
+    {
+        assertTrue(String.format("expected ~%d but was %d", expected, actual),
+                Math.abs(actual - expected) <= expected / 32);
+    }
+}
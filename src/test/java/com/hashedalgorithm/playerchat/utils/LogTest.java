@@ -0,0 +1,105 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.hashedalgorithm.playerchat.enums.LogLevel;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Log}.
+ */
+public class LogTest
+{
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    private LogLevel previousLevel;
+
+    @Before
+    public void capture()
+    {
+        this.previousLevel = Log.getLevel();
+        Log.setOutput(new PrintStream(this.captured, false, StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void restore()
+    {
+        Log.setOutput(System.out);
+        Log.setLevel(this.previousLevel);
+    }
+
+    private String written()
+    {
+        Log.flush();
+        return this.captured.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void filtersEventsBelowTheLevel()
+    {
+        Log.setLevel(LogLevel.INFO);
+        Log.debug("Received message: from %s, to %s", "hashed", "dee");
+        Log.info("Handshake with client - %s completed successfully!", "hashed");
+        Log.error("%s", "Maximum limit reached");
+
+        assertFalse(Log.isEnabled(LogLevel.DEBUG));
+        assertEquals("[+] - Handshake with client - hashed completed successfully!\n"
+                + "[!] - Maximum limit reached\n", this.written());
+    }
+
+    @Test
+    public void offRecordsNothing()
+    {
+        Log.setLevel(LogLevel.OFF);
+        Log.error("Port %d is already in use.", 12345);
+
+        assertFalse(Log.isEnabled(LogLevel.ERROR));
+        assertEquals("", this.written());
+    }
+
+    @Test
+    public void copiesTextArgumentsWhenRecorded()
+    {
+        Log.setLevel(LogLevel.DEBUG);
+        StringBuilder from = new StringBuilder("hashed");
+        Log.debug("Message request from %s to %s", from, "dee");
+        from.setLength(0);
+        from.append("overwritten");
+
+        assertEquals("[+] - Message request from hashed to dee\n", this.written());
+    }
+
+    @Test
+    public void keepsTheOrderOfEachThread() throws InterruptedException
+    {
+        Log.setLevel(LogLevel.INFO);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    Log.info("%d %d", id, i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int[] next = new int[threads.length];
+        for (String line : this.written().split("\n")) {
+            String[] parts = line.substring("[+] - ".length()).split(" ");
+            int id = Integer.parseInt(parts[0]);
+            assertEquals(next[id]++, Integer.parseInt(parts[1]));
+        }
+        for (int count : next) {
+            assertEquals(1000, count);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.hashedalgorithm.playerchat.enums.Payload;
+import com.hashedalgorithm.playerchat.enums.PayloadValue;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MessageParser} and {@link Frame}.
+ */
+public class MessageParserTest
+{
+    private final MessageParser parser = new MessageParser();
+
+    @Test
+    public void parsesFieldsAsViewsIntoTheLine()
+    {
+        String line = "from:hashed| to : dee |req:msg|msg: Hello: there |unknown:x";
+        Frame frame = parser.parse(line, new Frame());
+
+        assertEquals("hashed", frame.getString(Payload.FROM));
+        assertEquals("dee", frame.getString(Payload.TO));
+        assertEquals("Hello: there", frame.get(Payload.MESSAGE).toString());
+        assertTrue(frame.is(Payload.REQUEST, PayloadValue.MESSAGE.getValue()));
+        assertFalse(frame.has(Payload.STATUS));
+        assertNull(frame.get(Payload.STATUS));
+        assertEquals(line.indexOf("dee"), frame.start(Payload.TO));
+    }
+
+    @Test
+    public void reusedFrameForgetsFieldsOfThePreviousLine()
+    {
+        Frame frame = new Frame();
+        parser.parse("req:handshake|from:hashed", frame);
+        parser.parse("msg:hi", frame);
+
+        assertFalse(frame.has(Payload.FROM));
+        assertFalse(frame.has(Payload.REQUEST));
+        assertEquals("hi", frame.getString(Payload.MESSAGE));
+    }
+
+    @Test
+    public void serializedFrameParsesBackToTheSameFields()
+    {
+        StringBuilder body = new StringBuilder("{1} - Hello");
+        Frame frame = new Frame()
+                .set(Payload.FROM, "hashed")
+                .set(Payload.MESSAGE, body);
+
+        StringBuilder out = parser.serialize(frame, new StringBuilder());
+        Map<String, String> parsed = parser.parseMessage(out.toString());
+
+        assertEquals(2, parsed.size());
+        assertEquals("hashed", parsed.get("from"));
+        assertEquals("{1} - Hello", parsed.get("msg"));
+    }
+
+    @Test
+    public void mapWrapperKeepsUnknownKeys()
+    {
+        Map<String, String> parsed = parser.parseMessage("req:msg|custom:value|broken");
+
+        assertEquals("msg", parsed.get("req"));
+        assertEquals("value", parsed.get("custom"));
+        assertEquals(2, parsed.size());
+    }
+}
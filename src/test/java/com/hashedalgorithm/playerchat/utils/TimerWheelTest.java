@@ -0,0 +1,62 @@
+package com.hashedalgorithm.playerchat.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TimerWheel}.
+ */
+public class TimerWheelTest
+{
+    @Test
+    public void timeoutsFireAfterTheirDelayEvenBeyondOneTurn() throws Exception
+    {
+        // 8 slots of 10 ms: a turn is 80 ms, so 250 ms needs three more turns.
+        try (TimerWheel timers = new TimerWheel("test-timers", 10, 8)) {
+            long[] firedAfter = new long[3];
+            long[] delays = {0, 30, 250};
+            CountDownLatch fired = new CountDownLatch(delays.length);
+            long start = System.nanoTime();
+            for (int i = 0; i < delays.length; i++) {
+                int index = i;
+                timers.schedule(() -> {
+                    firedAfter[index] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    fired.countDown();
+                }, delays[i]);
+            }
+
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < delays.length; i++) {
+                assertTrue(firedAfter[i] + " ms for " + delays[i], firedAfter[i] >= delays[i]);
+            }
+        }
+    }
+
+    @Test
+    public void cancelledTimeoutsNeverFire() throws Exception
+    {
+        try (TimerWheel timers = new TimerWheel("test-timers", 10, 8)) {
+            AtomicInteger runs = new AtomicInteger();
+            CountDownLatch last = new CountDownLatch(1);
+            TimerWheel.Timeout[] timeouts = new TimerWheel.Timeout[1000];
+            for (int i = 0; i < timeouts.length; i++) {
+                timeouts[i] = timers.schedule(runs::incrementAndGet, 20 + i % 100);
+            }
+            for (int i = 0; i < timeouts.length; i += 2) {
+                assertTrue(timeouts[i].cancel());
+            }
+            timers.schedule(last::countDown, 200);
+
+            assertTrue(last.await(5, TimeUnit.SECONDS));
+            assertEquals(timeouts.length / 2, runs.get());
+            assertTrue(timeouts[0].isCancelled());
+            assertFalse("A timeout that ran cannot be cancelled", timeouts[1].cancel());
+        }
+    }
+}